@@ -0,0 +1,55 @@
+package com.example.android.newsapp;
+
+import android.util.Log;
+
+/**
+ * Log for the classes that also run in the unit tests on the development machine (host).
+ *
+ * On the device messages go to {@link Log}. The host only has the stubs of the Android
+ * framework, which throw, so messages go to standard error there instead.
+ */
+final class AppLog {
+
+    /* True on the device; both Dalvik and ART report this name */
+    private static final boolean ON_DEVICE = "Dalvik".equals(System.getProperty("java.vm.name"));
+
+    /* Private constructor because there should not be an AppLog object */
+    private AppLog() {
+    }
+
+    static void d(String tag, String message) {
+        if (ON_DEVICE) {
+            Log.d(tag, message);
+        } else {
+            print("D", tag, message, null);
+        }
+    }
+
+    static void w(String tag, String message) {
+        w(tag, message, null);
+    }
+
+    static void w(String tag, String message, Throwable error) {
+        if (ON_DEVICE) {
+            Log.w(tag, message, error);
+        } else {
+            print("W", tag, message, error);
+        }
+    }
+
+    static void e(String tag, String message) {
+        e(tag, message, null);
+    }
+
+    static void e(String tag, String message, Throwable error) {
+        if (ON_DEVICE) {
+            Log.e(tag, message, error);
+        } else {
+            print("E", tag, message, error);
+        }
+    }
+
+    private static void print(String level, String tag, String message, Throwable error) {
+        System.err.println(level + "/" + tag + ": " + message + (error != null ? " " + error : ""));
+    }
+}
@@ -0,0 +1,155 @@
+package com.example.android.newsapp;
+
+import android.app.LoaderManager.LoaderCallbacks;
+import android.content.Context;
+import android.content.Intent;
+import android.content.Loader;
+import android.net.Uri;
+import android.os.Bundle;
+import android.support.v7.app.AppCompatActivity;
+import android.view.Menu;
+import android.view.MenuItem;
+import android.view.View;
+import android.widget.TextView;
+
+import java.util.Locale;
+
+import butterknife.BindView;
+import butterknife.ButterKnife;
+
+/**
+ * Shows the text of an article in the app. The text is usually on the device already, saved
+ * by the {@link ArticlePrefetcher} while the article was on screen in the list, so it opens
+ * at once and also works offline.
+ */
+public class ArticleActivity extends AppCompatActivity implements LoaderCallbacks<String>,
+        NetworkMonitor.Listener {
+    @BindView(R.id.article_section) TextView sectionView;
+    @BindView(R.id.article_title) TextView titleView;
+    @BindView(R.id.article_byline) TextView bylineView;
+    @BindView(R.id.article_loading) View loadingIndicator;
+    @BindView(R.id.article_body) TextView bodyView;
+
+    /* Intent extras describing the article */
+    private static final String EXTRA_TITLE = "title";
+    private static final String EXTRA_SECTION = "section";
+    private static final String EXTRA_AUTHOR = "author";
+    private static final String EXTRA_PUBLISHED = "published";
+    private static final String EXTRA_URL = "url";
+
+    /* Constant value for the article loader ID */
+    private static final int ARTICLE_LOADER_ID = 1;
+
+    /* Web URL of the article */
+    private String mUrl;
+
+    /* True if the text could not be loaded while offline, so it is loaded once we are back */
+    private boolean mLoadedOffline;
+
+    /**
+     * Return an intent that opens the article in the reader.
+     */
+    public static Intent newIntent(Context context, News news) {
+        return new Intent(context, ArticleActivity.class)
+                .putExtra(EXTRA_TITLE, news.getTitle())
+                .putExtra(EXTRA_SECTION, news.getSection())
+                .putExtra(EXTRA_AUTHOR, news.getAuthor())
+                .putExtra(EXTRA_PUBLISHED, news.getPublishedMillis())
+                .putExtra(EXTRA_URL, news.getUrl());
+    }
+
+    @Override
+    protected void onCreate(Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+        setContentView(R.layout.activity_article);
+        ButterKnife.bind(this);
+
+        Intent intent = getIntent();
+        mUrl = intent.getStringExtra(EXTRA_URL);
+        String author = intent.getStringExtra(EXTRA_AUTHOR);
+        News news = new News(intent.getStringExtra(EXTRA_TITLE),
+                intent.getStringExtra(EXTRA_SECTION),
+                intent.getLongExtra(EXTRA_PUBLISHED, News.NO_DATE),
+                author != null ? author : "", mUrl);
+
+        sectionView.setText(news.getSection());
+        titleView.setText(news.getTitle());
+        NewsFormatter.Display display =
+                NewsFormatter.getInstance(Locale.getDefault()).format(news);
+        StringBuilder byline = new StringBuilder(news.getAuthor());
+        if (display.date != null) {
+            if (byline.length() > 0) {
+                byline.append(", ");
+            }
+            byline.append(display.date).append(' ').append(display.time);
+        }
+        bylineView.setText(byline);
+        bylineView.setVisibility(byline.length() > 0 ? View.VISIBLE : View.GONE);
+
+        getLoaderManager().initLoader(ARTICLE_LOADER_ID, null, this);
+    }
+
+    @Override
+    public Loader<String> onCreateLoader(int id, Bundle args) {
+        return new ArticleLoader(this, mUrl);
+    }
+
+    @Override
+    public void onLoadFinished(Loader<String> loader, String text) {
+        loadingIndicator.setVisibility(View.GONE);
+        boolean connected = NetworkMonitor.getInstance(this).isConnected();
+        mLoadedOffline = text == null && !connected;
+        if (text != null) {
+            bodyView.setText(text);
+        } else {
+            bodyView.setText(connected ? R.string.article_unavailable
+                    : R.string.article_offline);
+        }
+    }
+
+    @Override
+    public void onLoaderReset(Loader<String> loader) {
+        bodyView.setText(null);
+    }
+
+    @Override
+    protected void onStart() {
+        super.onStart();
+        NetworkMonitor monitor = NetworkMonitor.getInstance(this);
+        monitor.addListener(this);
+        // The network may have come back while the app was in the background
+        onNetworkChanged(monitor);
+    }
+
+    @Override
+    protected void onStop() {
+        super.onStop();
+        NetworkMonitor.getInstance(this).removeListener(this);
+    }
+
+    @Override
+    public void onNetworkChanged(NetworkMonitor monitor) {
+        if (mLoadedOffline && monitor.isConnected()) {
+            mLoadedOffline = false;
+            bodyView.setText(null);
+            loadingIndicator.setVisibility(View.VISIBLE);
+            getLoaderManager().restartLoader(ARTICLE_LOADER_ID, null, this);
+        }
+    }
+
+    @Override
+    public boolean onCreateOptionsMenu(Menu menu) {
+        getMenuInflater().inflate(R.menu.article, menu);
+        return true;
+    }
+
+    @Override
+    public boolean onOptionsItemSelected(MenuItem item) {
+        if (item.getItemId() == R.id.browser_action) {
+            // Send the intent to launch a web browser with the article
+            startActivity(new Intent(Intent.ACTION_VIEW, Uri.parse(mUrl)));
+            return true;
+        }
+        return super.onOptionsItemSelected(item);
+    }
+}
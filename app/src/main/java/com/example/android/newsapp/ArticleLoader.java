@@ -0,0 +1,57 @@
+package com.example.android.newsapp;
+
+import android.content.Context;
+
+/**
+ * Loads the text of an article from the device, or over the network if it is not stored yet.
+ * The user is waiting for it, so it runs in the visible lane of the {@link TaskScheduler}.
+ */
+public class ArticleLoader extends ScheduledLoader<String> {
+
+    /* Web URL of the article */
+    private final String mWebUrl;
+
+    /* Result of the last load, delivered again when the loader is restarted */
+    private String mText;
+
+    /* True once a load has finished, even if it found no text */
+    private boolean mLoaded;
+
+    public ArticleLoader(Context context, String webUrl) {
+        super(context, TaskScheduler.Lane.VISIBLE);
+        mWebUrl = webUrl;
+    }
+
+    @Override
+    protected void onStartLoading() {
+        if (mLoaded) {
+            deliverResult(mText);
+        } else {
+            forceLoad();
+        }
+    }
+
+    @Override
+    public void deliverResult(String text) {
+        mText = text;
+        mLoaded = true;
+        super.deliverResult(text);
+    }
+
+    @Override
+    protected void onReset() {
+        super.onReset();
+        mText = null;
+        mLoaded = false;
+    }
+
+    /**
+     * This will run on a background thread.
+     */
+    @Override
+    protected String loadInBackground(CancellationToken cancellation) {
+        // The user is waiting, so the request is retried like the list
+        return ArticleRepository.getInstance(getContext()).fetch(mWebUrl,
+                RetryPolicy.DEFAULT, cancellation, null);
+    }
+}
@@ -0,0 +1,192 @@
+package com.example.android.newsapp;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.preference.PreferenceManager;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Fetches the text of the articles the user is likely to open next into the
+ * {@link ArticleRepository}, within a budget.
+ *
+ * At most the given number of requests run at the same time, and no new request starts once
+ * the bytes downloaded in the current budget period reach the limit. Each call replaces the
+ * articles still waiting, so the queue always follows what is on screen. The requests run in
+ * the prefetch lane of the {@link TaskScheduler}, behind anything the user is waiting for.
+ */
+public class ArticlePrefetcher {
+
+    /* Tag for log messages */
+    private static final String LOG_TAG = ArticlePrefetcher.class.getSimpleName();
+
+    /* Length of a period of the prefetch budget */
+    private static final long BUDGET_PERIOD_MILLIS = 60 * 60 * 1000;
+
+    /* Number of articles that are prefetched at the same time */
+    private static final int MAX_CONNECTIONS = 2;
+
+    private static ArticlePrefetcher sInstance;
+
+    private final ArticleRepository mRepository;
+    private final int mMaxConnections;
+    private final long mPeriodMillis;
+
+    /* Largest number of bytes to download per period; 0 turns prefetching off */
+    private long mMaxBytes;
+
+    /* Web URLs of the articles waiting to be fetched, nearest first */
+    private final Deque<String> mQueue = new ArrayDeque<>();
+
+    /* Web URLs of the articles being fetched, and their tasks */
+    private final Set<String> mRunning = new HashSet<>();
+    private final List<TaskScheduler.Task> mTasks = new ArrayList<>();
+
+    /* Start of the current budget period and the bytes downloaded in it */
+    private long mPeriodStart;
+    private long mBytesSpent;
+
+    /**
+     * Construct a new {@link ArticlePrefetcher}.
+     *
+     * @param maxBytes       is the number of bytes that may be downloaded per period
+     * @param periodMillis   is the length of a budget period
+     * @param maxConnections is the number of requests that may run at the same time
+     */
+    public ArticlePrefetcher(ArticleRepository repository, long maxBytes, long periodMillis,
+                             int maxConnections) {
+        mRepository = repository;
+        mMaxBytes = maxBytes;
+        mPeriodMillis = periodMillis;
+        mMaxConnections = maxConnections;
+    }
+
+    /**
+     * Return the process-wide prefetcher, with the budget chosen in the settings.
+     */
+    public static synchronized ArticlePrefetcher getInstance(Context context) {
+        if (sInstance == null) {
+            sInstance = new ArticlePrefetcher(ArticleRepository.getInstance(context),
+                    getBudget(context), BUDGET_PERIOD_MILLIS, MAX_CONNECTIONS);
+        }
+        return sInstance;
+    }
+
+    /**
+     * Return the number of bytes the prefetcher may download per period, from the settings.
+     */
+    public static long getBudget(Context context) {
+        SharedPreferences sharedPreferences = PreferenceManager.getDefaultSharedPreferences(context);
+        String budget = sharedPreferences.getString(
+                context.getString(R.string.reader_budget_key_settings),
+                context.getString(R.string.reader_budget_default_settings));
+        try {
+            return Long.parseLong(budget);
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * Change the number of bytes that may be downloaded per period.
+     */
+    public synchronized void setMaxBytes(long maxBytes) {
+        mMaxBytes = maxBytes;
+        if (maxBytes == 0) {
+            mQueue.clear();
+        }
+    }
+
+    /**
+     * Fetch the articles with the given web URLs, nearest first, in place of the ones that
+     * are still waiting from the previous call.
+     */
+    public synchronized void prefetch(List<String> webUrls) {
+        mQueue.clear();
+        for (String webUrl : webUrls) {
+            if (!mRunning.contains(webUrl)) {
+                mQueue.add(webUrl);
+            }
+        }
+        dispatch();
+    }
+
+    /**
+     * Drop the waiting articles and cancel the requests that are running.
+     */
+    public void cancel() {
+        List<TaskScheduler.Task> tasks;
+        synchronized (this) {
+            mQueue.clear();
+            tasks = new ArrayList<>(mTasks);
+            // Tasks that had not started are dropped without ever finishing
+            mTasks.clear();
+            mRunning.clear();
+        }
+        for (TaskScheduler.Task task : tasks) {
+            task.cancel();
+        }
+    }
+
+    /**
+     * Return the number of bytes downloaded in the current budget period.
+     */
+    public synchronized long getBytesSpent() {
+        return mBytesSpent;
+    }
+
+    /**
+     * Start requests for the waiting articles while the budget allows.
+     */
+    private void dispatch() {
+        long now = System.currentTimeMillis();
+        if (now - mPeriodStart >= mPeriodMillis) {
+            mPeriodStart = now;
+            mBytesSpent = 0;
+        }
+        if (mBytesSpent >= mMaxBytes) {
+            if (!mQueue.isEmpty()) {
+                AppLog.d(LOG_TAG, "Budget of " + mMaxBytes + " bytes used up");
+                mQueue.clear();
+            }
+            return;
+        }
+        while (mRunning.size() < mMaxConnections && !mQueue.isEmpty()) {
+            final String webUrl = mQueue.poll();
+            final TaskScheduler.Task[] task = new TaskScheduler.Task[1];
+            mRunning.add(webUrl);
+            // finished() waits for the lock held here, so it always sees the task
+            task[0] = TaskScheduler.getInstance().submit(TaskScheduler.Lane.PREFETCH,
+                    TaskScheduler.Resource.NETWORK, new TaskScheduler.Job() {
+                @Override
+                public void run(CancellationToken token) {
+                    RequestTrace trace = new RequestTrace();
+                    try {
+                        // Articles on the device cost nothing and are skipped quickly
+                        if (!mRepository.isStored(webUrl)) {
+                            mRepository.fetch(webUrl, RetryPolicy.NONE, token, trace);
+                        }
+                    } finally {
+                        finished(webUrl, task[0], trace.bytesOnWire);
+                    }
+                }
+            });
+            mTasks.add(task[0]);
+        }
+    }
+
+    private synchronized void finished(String webUrl, TaskScheduler.Task task, long bytes) {
+        mBytesSpent += bytes;
+        if (!mTasks.remove(task)) {
+            // Canceled; the same article may be running again for a newer call
+            return;
+        }
+        mRunning.remove(webUrl);
+        dispatch();
+    }
+}
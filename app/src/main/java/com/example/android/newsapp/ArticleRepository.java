@@ -0,0 +1,211 @@
+package com.example.android.newsapp;
+
+import android.content.Context;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.nio.charset.Charset;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Text of articles for the in-app reader, fetched from the Guardian content API and kept on
+ * the device, so an article that was read or prefetched once opens without the network.
+ *
+ * The text is stored as deflated UTF-8 in a {@link DiskCache}, which is a fraction of the
+ * size of the HTML page or the API response. Fetches of the same article, e.g. by a prefetch
+ * and by the reader, share one request.
+ */
+public class ArticleRepository {
+
+    /* Tag for log messages */
+    private static final String LOG_TAG = ArticleRepository.class.getSimpleName();
+
+    /* Content endpoint of the Guardian API; the ID of an article is the path of its web URL */
+    public static final String CONTENT_URL = "https://content.guardianapis.com/";
+
+    /* Name of the content endpoint in the {@link LatencyGuard} */
+    static final String CONTENT_ENDPOINT = "content";
+
+    /* Field carrying the HTML of the article */
+    private static final String BODY_FIELD = "body";
+
+    /* Size of the saved article texts on the device */
+    private static final long STORE_BYTES = 5 * 1024 * 1024;
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private static ArticleRepository sInstance;
+
+    private final DiskCache mCache;
+    private final String mContentUrl;
+    private final String mApiKey;
+
+    private final SingleFlight<String> mInFlight = new SingleFlight<>();
+
+    /**
+     * Construct a new {@link ArticleRepository}.
+     *
+     * @param contentUrl is the content endpoint, ending with a slash
+     * @param apiKey     is the key to send, or null for none
+     */
+    public ArticleRepository(DiskCache cache, String contentUrl, String apiKey) {
+        mCache = cache;
+        mContentUrl = contentUrl;
+        mApiKey = apiKey;
+    }
+
+    /**
+     * Return the process-wide repository, which keeps the texts in the cache directory.
+     */
+    public static synchronized ArticleRepository getInstance(Context context) {
+        if (sInstance == null) {
+            File directory = new File(context.getApplicationContext().getCacheDir(), "articles");
+            sInstance = new ArticleRepository(new DiskCache(directory, STORE_BYTES), CONTENT_URL,
+                    GuardianQuery.API_KEY);
+        }
+        return sInstance;
+    }
+
+    /**
+     * Return true if the text of the article is on the device.
+     */
+    public boolean isStored(String webUrl) {
+        return mCache.contains(webUrl);
+    }
+
+    /**
+     * Return the text of the article if it is on the device, or null.
+     */
+    public String getStored(String webUrl) {
+        byte[] bytes = mCache.get(webUrl);
+        if (bytes == null) {
+            return null;
+        }
+        try {
+            return inflate(bytes);
+        } catch (IOException e) {
+            AppLog.w(LOG_TAG, "Corrupt stored article " + webUrl, e);
+            return null;
+        }
+    }
+
+    /**
+     * Return the text of the article from the device, or fetch and store it. Returns null if
+     * the article has no text, the request failed, or the token was canceled. The trace, if
+     * any, is filled in when a request was made.
+     */
+    public String fetch(final String webUrl, final RetryPolicy retryPolicy,
+                        CancellationToken token, final RequestTrace trace) {
+        String stored = getStored(webUrl);
+        if (stored != null) {
+            return stored;
+        }
+        final GuardianQuery query = query(webUrl);
+        if (query == null) {
+            return null;
+        }
+        return mInFlight.execute(webUrl, new SingleFlight.Call<String>() {
+            @Override
+            public String call(CancellationToken sharedToken) {
+                return download(webUrl, query, retryPolicy, sharedToken, trace);
+            }
+        }, token);
+    }
+
+    private String download(String webUrl, GuardianQuery query, RetryPolicy retryPolicy,
+                            final CancellationToken token, RequestTrace trace) {
+        final RequestTrace requestTrace = trace != null ? trace : new RequestTrace();
+        String text;
+        try {
+            final URL url = new URL(query.getUrl());
+            // The raw response is parsed here rather than kept with its validators by the
+            // transport; the stored text is what is reused
+            // Prefetches, which are not retried either, are not worth a second request
+            boolean hedge = retryPolicy != RetryPolicy.NONE;
+            byte[] response = LatencyGuard.getInstance().execute(CONTENT_ENDPOINT, retryPolicy,
+                    hedge, new LatencyGuard.Request<byte[]>() {
+                        @Override
+                        public byte[] run(CancellationToken attemptToken,
+                                          RequestTrace attemptTrace, int connectTimeout,
+                                          int readTimeout) throws IOException {
+                            return HttpTransport.getInstance().get(url, HttpTransport.BYTES,
+                                    attemptToken, attemptTrace, connectTimeout, readTimeout);
+                        }
+                    }, token, requestTrace);
+            text = ArticleJsonParser.parseBody(new ByteArrayInputStream(response));
+        } catch (IOException e) {
+            // A canceled request is not a problem
+            if (!token.isCanceled()) {
+                AppLog.e(LOG_TAG, "Problem fetching article " + webUrl, e);
+            }
+            return null;
+        }
+        PayloadStats.getInstance().record(query.getShape(), requestTrace.bytesOnWire,
+                requestTrace.bytesDecoded, 1);
+        if (text == null) {
+            return null;
+        }
+        try {
+            mCache.put(webUrl, deflate(text));
+        } catch (IOException e) {
+            AppLog.e(LOG_TAG, "Problem storing article " + webUrl, e);
+        }
+        return text;
+    }
+
+    /**
+     * Return the request for the text of the article, or null if the web URL does not name
+     * an article.
+     */
+    GuardianQuery query(String webUrl) {
+        String id;
+        try {
+            id = new URL(webUrl).getPath();
+        } catch (MalformedURLException e) {
+            return null;
+        }
+        if (id.startsWith("/")) {
+            id = id.substring(1);
+        }
+        if (id.isEmpty()) {
+            return null;
+        }
+        return new GuardianQuery.Builder(mContentUrl + id)
+                .showFields(BODY_FIELD)
+                .parameter("api-key", mApiKey)
+                .build();
+    }
+
+    private static byte[] deflate(String text) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(text.length() / 3);
+        Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+        try {
+            DeflaterOutputStream out = new DeflaterOutputStream(bytes, deflater);
+            out.write(text.getBytes(UTF_8));
+            out.close();
+        } finally {
+            // A deflater we created is not ended by the stream
+            deflater.end();
+        }
+        return bytes.toByteArray();
+    }
+
+    private static String inflate(byte[] bytes) throws IOException {
+        InputStream in = new InflaterInputStream(new ByteArrayInputStream(bytes));
+        ByteArrayOutputStream text = new ByteArrayOutputStream(bytes.length * 3);
+        byte[] buffer = new byte[8192];
+        int count;
+        while ((count = in.read(buffer)) != -1) {
+            text.write(buffer, 0, count);
+        }
+        in.close();
+        return new String(text.toByteArray(), UTF_8);
+    }
+}
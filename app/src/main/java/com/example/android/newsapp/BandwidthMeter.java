@@ -0,0 +1,57 @@
+package com.example.android.newsapp;
+
+/**
+ * Running estimate of the download bandwidth, from the sizes and read times of the response
+ * bodies that went through {@link HttpTransport}.
+ *
+ * Small bodies take about a round trip whatever the bandwidth, so they are not counted. Every
+ * body moves the estimate part of the way towards its own speed, so a single slow response
+ * does not swing it; the first few count more, so the estimate settles quickly on a new
+ * network.
+ */
+public class BandwidthMeter {
+
+    /* Bodies with fewer bytes on the wire than this are not counted */
+    static final long MIN_SAMPLE_BYTES = 4 * 1024;
+
+    /* Share of the estimate that a new sample replaces once there are enough samples */
+    private static final double SAMPLE_WEIGHT = 0.25;
+
+    /* Estimate in bits per second, or -1 before the first sample */
+    private double bitsPerSecond = -1;
+
+    /* Number of samples in the estimate */
+    private int samples;
+
+    /**
+     * Count a body of the given size that took the given time to arrive.
+     */
+    public synchronized void record(long bytes, long nanos) {
+        if (bytes < MIN_SAMPLE_BYTES || nanos <= 0) {
+            return;
+        }
+        double sample = bytes * 8 * 1e9 / nanos;
+        samples++;
+        double weight = Math.max(SAMPLE_WEIGHT, 1.0 / samples);
+        bitsPerSecond = samples == 1 ? sample : bitsPerSecond + (sample - bitsPerSecond) * weight;
+    }
+
+    /**
+     * Return the estimated bandwidth in bits per second, or -1 if nothing was measured yet.
+     */
+    public synchronized long getBitsPerSecond() {
+        return samples == 0 ? -1 : (long) bitsPerSecond;
+    }
+
+    public synchronized int getSampleCount() {
+        return samples;
+    }
+
+    /**
+     * Forget all samples, for example because the device switched to another network.
+     */
+    public synchronized void reset() {
+        bitsPerSecond = -1;
+        samples = 0;
+    }
+}
@@ -0,0 +1,101 @@
+package com.example.android.newsapp;
+
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Signals that the work of a load is no longer needed. Whoever holds the token stops as soon
+ * as possible, and registered actions (such as closing a socket) run as soon as it is canceled.
+ */
+public class CancellationToken {
+
+    /* Token that is never canceled, for callers that cannot cancel */
+    public static final CancellationToken NONE = new CancellationToken() {
+        @Override
+        public void cancel() {
+        }
+
+        @Override
+        public Runnable onCancel(Runnable action) {
+            return action;
+        }
+    };
+
+    private final List<Runnable> mActions = new ArrayList<>();
+    private volatile boolean mCanceled;
+
+    /**
+     * Cancel the work and run every registered action.
+     */
+    public void cancel() {
+        List<Runnable> actions;
+        synchronized (this) {
+            if (mCanceled) {
+                return;
+            }
+            mCanceled = true;
+            actions = new ArrayList<>(mActions);
+            mActions.clear();
+            // Wake up sleep()
+            notifyAll();
+        }
+        for (Runnable action : actions) {
+            action.run();
+        }
+    }
+
+    public boolean isCanceled() {
+        return mCanceled;
+    }
+
+    /**
+     * Run the action when the token is canceled, or right away if it already is. Returns the
+     * action so it can be removed again once the work it would abort has finished.
+     */
+    public Runnable onCancel(Runnable action) {
+        synchronized (this) {
+            if (!mCanceled) {
+                mActions.add(action);
+                return action;
+            }
+        }
+        action.run();
+        return action;
+    }
+
+    /**
+     * Forget an action registered with {@link #onCancel(Runnable)}.
+     */
+    public synchronized void remove(Runnable action) {
+        mActions.remove(action);
+    }
+
+    /**
+     * Wait for the given time, or throw an {@link InterruptedIOException} as soon as the token
+     * is canceled.
+     */
+    public synchronized void sleep(long millis) throws InterruptedIOException {
+        long deadline = System.currentTimeMillis() + millis;
+        long remaining = millis;
+        while (remaining > 0 && !mCanceled) {
+            try {
+                wait(remaining);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted");
+            }
+            remaining = deadline - System.currentTimeMillis();
+        }
+        throwIfCanceled();
+    }
+
+    /**
+     * Throw an {@link InterruptedIOException} if the token has been canceled.
+     */
+    public void throwIfCanceled() throws InterruptedIOException {
+        if (mCanceled) {
+            throw new InterruptedIOException("Canceled");
+        }
+    }
+}
@@ -0,0 +1,164 @@
+package com.example.android.newsapp;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Remembers the first page of newest-first queries, so a refresh only has to ask for the
+ * articles published since the newest one already seen.
+ *
+ * New articles are merged into the known page by URL, which identifies an article, so an
+ * article that comes back in the new results replaces the known copy instead of showing up
+ * twice. A delta cannot tell about articles that were edited or taken down, so every query
+ * is fetched in full again once the last full fetch is older than the reconciliation
+ * interval. The same happens when a delta fills a whole page, as articles may then be
+ * missing between the new ones and the known ones.
+ */
+public class DeltaSync {
+
+    /* How long the first page is kept up to date with deltas before it is fetched in full */
+    static final long RECONCILE_MILLIS = 30 * 60 * 1000;
+
+    /* Maximum number of queries whose first page is remembered */
+    private static final int MAX_QUERIES = 16;
+
+    private static final DeltaSync INSTANCE = new DeltaSync(RECONCILE_MILLIS);
+
+    /* Known first page of a query */
+    private static final class Baseline {
+        final NewsList stories;
+
+        /* Publication time of the newest article, or News.NO_DATE if none has a date */
+        final long newestMillis;
+
+        /* When the query was last fetched in full */
+        final long reconciledMillis;
+
+        Baseline(NewsList stories, long newestMillis, long reconciledMillis) {
+            this.stories = stories;
+            this.newestMillis = newestMillis;
+            this.reconciledMillis = reconciledMillis;
+        }
+    }
+
+    private final long reconcileMillis;
+
+    /* Known first pages by query URL, least recently used first */
+    private final Map<String, Baseline> baselines =
+            new LinkedHashMap<String, Baseline>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, Baseline> eldest) {
+                    return size() > MAX_QUERIES;
+                }
+            };
+
+    /* Number of full and delta fetches recorded */
+    private long fullSyncs;
+    private long deltaSyncs;
+
+    DeltaSync(long reconcileMillis) {
+        this.reconcileMillis = reconcileMillis;
+    }
+
+    /**
+     * Return the process-wide delta sync state.
+     */
+    public static DeltaSync getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Return the publication time to ask for newer articles from, or {@link News#NO_DATE} if
+     * the query has to be fetched in full, because its first page is not known or has not
+     * been reconciled for too long.
+     */
+    public synchronized long getNewestMillis(String key, long now) {
+        Baseline baseline = baselines.get(key);
+        if (baseline == null || now - baseline.reconciledMillis >= reconcileMillis) {
+            return News.NO_DATE;
+        }
+        return baseline.newestMillis;
+    }
+
+    /**
+     * Remember the first page of a query that was fetched in full.
+     */
+    public synchronized void onFullSync(String key, List<News> stories, long now) {
+        fullSyncs++;
+        if (newest(stories) == News.NO_DATE) {
+            // Without a date there is nothing to ask for newer articles from
+            baselines.remove(key);
+            return;
+        }
+        baselines.put(key, new Baseline(NewsList.copyOf(stories), newest(stories), now));
+    }
+
+    /**
+     * Merge the articles of a delta fetch into the known first page of the query, and return
+     * the page as the full fetch would have returned it. Returns null if the query has to be
+     * fetched in full instead, because the delta filled a whole page or the first page is no
+     * longer known.
+     */
+    public synchronized List<News> onDelta(String key, List<News> newer, int pageSize) {
+        Baseline baseline = baselines.get(key);
+        if (baseline == null || newer.size() >= pageSize) {
+            return null;
+        }
+        deltaSyncs++;
+        List<News> merged = merge(newer, baseline.stories, pageSize);
+        long newest = Math.max(baseline.newestMillis, newest(newer));
+        baselines.put(key, new Baseline(NewsList.copyOf(merged), newest,
+                baseline.reconciledMillis));
+        return merged;
+    }
+
+    public synchronized long getFullSyncCount() {
+        return fullSyncs;
+    }
+
+    public synchronized long getDeltaSyncCount() {
+        return deltaSyncs;
+    }
+
+    /**
+     * Forget every known first page, so the next refreshes are full fetches.
+     */
+    public synchronized void clear() {
+        baselines.clear();
+    }
+
+    /**
+     * Return the newer and the known articles without duplicate URLs, newest first, cut to
+     * the given number. A newer copy of an article replaces the known one.
+     */
+    static List<News> merge(List<News> newer, List<News> known, int limit) {
+        Map<String, News> byUrl = new LinkedHashMap<>();
+        for (int i = 0; i < newer.size(); i++) {
+            News news = newer.get(i);
+            byUrl.put(news.getUrl(), news);
+        }
+        for (int i = 0; i < known.size(); i++) {
+            News news = known.get(i);
+            if (!byUrl.containsKey(news.getUrl())) {
+                byUrl.put(news.getUrl(), news);
+            }
+        }
+        List<News> merged = new ArrayList<>(byUrl.values());
+        Collections.sort(merged, News.NEWEST_FIRST);
+        if (merged.size() > limit) {
+            merged.subList(limit, merged.size()).clear();
+        }
+        return merged;
+    }
+
+    private static long newest(List<News> stories) {
+        long newest = News.NO_DATE;
+        for (int i = 0; i < stories.size(); i++) {
+            newest = Math.max(newest, stories.get(i).getPublishedMillis());
+        }
+        return newest;
+    }
+}
@@ -0,0 +1,199 @@
+package com.example.android.newsapp;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Size-bounded on-device cache of raw bytes, such as encoded images, one file per key.
+ *
+ * When the cache grows beyond its size the least recently used entries are deleted. The
+ * modification time of a file is its last use, so the order survives restarts. Files are
+ * written to a temporary file first and renamed into place, like in {@link NewsStore}.
+ */
+public class DiskCache {
+
+    /* Age after which a temporary file can no longer be in the middle of a write */
+    private static final long STALE_TEMP_MILLIS = 60 * 1000;
+
+    /* Directory holding one file per key */
+    private final File directory;
+
+    /* Largest total size of the files in bytes */
+    private final long maxBytes;
+
+    /* File name to file size, least recently used first; null until first used */
+    private Map<String, Long> entries;
+    private long size;
+
+    public DiskCache(File directory, long maxBytes) {
+        this.directory = directory;
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Return the bytes stored for the key, or null if there are none.
+     */
+    public byte[] get(String key) {
+        File file;
+        synchronized (this) {
+            String name = NewsStore.sha1(key);
+            if (index().get(name) == null) {
+                return null;
+            }
+            file = new File(directory, name);
+            file.setLastModified(System.currentTimeMillis());
+        }
+        // Read outside the lock, so a slow read does not hold up other threads
+        InputStream in = null;
+        try {
+            in = new FileInputStream(file);
+            byte[] bytes = new byte[(int) file.length()];
+            int offset = 0;
+            while (offset < bytes.length) {
+                int count = in.read(bytes, offset, bytes.length - offset);
+                if (count == -1) {
+                    throw new IOException("Truncated " + file);
+                }
+                offset += count;
+            }
+            return bytes;
+        } catch (IOException e) {
+            // Evicted while we were reading, or corrupt
+            return null;
+        } finally {
+            closeQuietly(in);
+        }
+    }
+
+    /**
+     * Return true if there are bytes stored for the key, without reading them.
+     */
+    public synchronized boolean contains(String key) {
+        return index().containsKey(NewsStore.sha1(key));
+    }
+
+    /**
+     * Store the bytes for the key, replacing any previous entry, and evict the least recently
+     * used entries if the cache is now too large.
+     */
+    public void put(String key, byte[] bytes) throws IOException {
+        if (bytes.length > maxBytes) {
+            return;
+        }
+        String name = NewsStore.sha1(key);
+        if (!directory.exists() && !directory.mkdirs()) {
+            throw new IOException("Cannot create " + directory);
+        }
+        File temp = File.createTempFile(name, ".tmp", directory);
+        OutputStream out = null;
+        try {
+            out = new FileOutputStream(temp);
+            out.write(bytes);
+            out.close();
+            out = null;
+            synchronized (this) {
+                Map<String, Long> index = index();
+                if (!temp.renameTo(new File(directory, name))) {
+                    throw new IOException("Cannot replace " + name);
+                }
+                Long previous = index.remove(name);
+                if (previous != null) {
+                    size -= previous;
+                }
+                index.put(name, (long) bytes.length);
+                size += bytes.length;
+                trimToSize(maxBytes);
+            }
+        } finally {
+            closeQuietly(out);
+            temp.delete();
+        }
+    }
+
+    /**
+     * Return the total size of the stored entries in bytes.
+     */
+    public synchronized long getSize() {
+        index();
+        return size;
+    }
+
+    /**
+     * Remove every stored entry.
+     */
+    public synchronized void clear() {
+        index();
+        trimToSize(0);
+    }
+
+    private void trimToSize(long maxSize) {
+        Iterator<Map.Entry<String, Long>> eldest = entries.entrySet().iterator();
+        while (size > maxSize && eldest.hasNext()) {
+            Map.Entry<String, Long> entry = eldest.next();
+            new File(directory, entry.getKey()).delete();
+            size -= entry.getValue();
+            eldest.remove();
+        }
+    }
+
+    /**
+     * Return the index of the entries, reading it from the directory the first time.
+     */
+    private Map<String, Long> index() {
+        if (entries != null) {
+            return entries;
+        }
+        entries = new LinkedHashMap<>(16, 0.75f, true);
+        File[] files = directory.listFiles();
+        if (files == null) {
+            return entries;
+        }
+        final long[] used = new long[files.length];
+        for (int i = 0; i < files.length; i++) {
+            used[i] = files[i].lastModified();
+        }
+        Integer[] order = new Integer[files.length];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, new Comparator<Integer>() {
+            @Override
+            public int compare(Integer a, Integer b) {
+                return used[a] < used[b] ? -1 : (used[a] == used[b] ? 0 : 1);
+            }
+        });
+        for (Integer i : order) {
+            File file = files[i];
+            if (file.getName().endsWith(".tmp")) {
+                // Left behind by a crash while writing, unless it is still being written
+                if (System.currentTimeMillis() - used[i] > STALE_TEMP_MILLIS) {
+                    file.delete();
+                }
+            } else {
+                entries.put(file.getName(), file.length());
+                size += file.length();
+            }
+        }
+        return entries;
+    }
+
+    private static void closeQuietly(Closeable closeable) {
+        if (closeable != null) {
+            try {
+                closeable.close();
+            } catch (IOException e) {
+                // Nothing left to do
+            }
+        }
+    }
+}
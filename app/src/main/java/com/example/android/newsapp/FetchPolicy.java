@@ -0,0 +1,117 @@
+package com.example.android.newsapp;
+
+/**
+ * How much the app fetches, and how long it waits for it, on the current network.
+ *
+ * The quality of the network is the measured bandwidth once there is a measurement, and a
+ * guess from the kind of network until then. Slow networks get smaller pages, longer timeouts
+ * and no images beyond the ones already on the device; fast ones get larger pages and
+ * prefetch further ahead. Metered networks never prefetch what the user may not look at.
+ */
+public final class FetchPolicy {
+
+    /* Quality of a network, from none at all to fast */
+    public enum Quality {
+        OFFLINE, POOR, MODERATE, GOOD, EXCELLENT
+    }
+
+    /* Upper bandwidth limits of the poor, moderate and good qualities, in bits per second */
+    private static final long POOR_BITS_PER_SECOND = 150 * 1000;
+    private static final long MODERATE_BITS_PER_SECOND = 550 * 1000;
+    private static final long GOOD_BITS_PER_SECOND = 2000 * 1000;
+
+    /* Policy of a good unmetered network, used before anything is known about the network */
+    public static final FetchPolicy DEFAULT = forNetwork(Quality.GOOD, false, -1);
+
+    public final Quality quality;
+    public final boolean metered;
+
+    /* Number of articles requested per page */
+    public final int pageSize;
+
+    /* Start fetching the next page when this many rows are left below the visible ones */
+    public final int prefetchDistance;
+
+    /* Whether thumbnails that are not on the device yet are downloaded */
+    public final boolean downloadThumbnails;
+
+    /* Number of screens of thumbnails loaded ahead of scrolling */
+    public final int thumbnailPrefetchScreens;
+
+    /* Whether article texts are saved for the reader before they are opened */
+    public final boolean prefetchArticles;
+
+    public final int connectTimeoutMillis;
+    public final int readTimeoutMillis;
+
+    private FetchPolicy(Quality quality, boolean metered, int pageSize, int prefetchDistance,
+                        boolean downloadThumbnails, int thumbnailPrefetchScreens,
+                        boolean prefetchArticles, int connectTimeoutMillis,
+                        int readTimeoutMillis) {
+        this.quality = quality;
+        this.metered = metered;
+        this.pageSize = pageSize;
+        this.prefetchDistance = prefetchDistance;
+        this.downloadThumbnails = downloadThumbnails;
+        this.thumbnailPrefetchScreens = thumbnailPrefetchScreens;
+        this.prefetchArticles = prefetchArticles;
+        this.connectTimeoutMillis = connectTimeoutMillis;
+        this.readTimeoutMillis = readTimeoutMillis;
+    }
+
+    /**
+     * Return the policy for a network.
+     *
+     * @param estimate              is the quality guessed from the kind of network, or
+     *                              {@link Quality#OFFLINE} if there is none
+     * @param metered               is true if the user may pay for the data
+     * @param measuredBitsPerSecond is the measured bandwidth, or -1 if it is not known
+     */
+    public static FetchPolicy forNetwork(Quality estimate, boolean metered,
+                                         long measuredBitsPerSecond) {
+        Quality quality = estimate;
+        if (estimate != Quality.OFFLINE && measuredBitsPerSecond >= 0) {
+            quality = classify(measuredBitsPerSecond);
+        }
+        switch (quality) {
+            case OFFLINE:
+                return new FetchPolicy(quality, metered, 20, 5, false, 0, false, 15000, 10000);
+            case POOR:
+                // Every byte of an image holds up the list, and round trips take seconds
+                return new FetchPolicy(quality, metered, 10, 2, false, 0, false, 30000, 30000);
+            case MODERATE:
+                return new FetchPolicy(quality, metered, 15, 4, true, 0, !metered, 20000, 15000);
+            case GOOD:
+                return new FetchPolicy(quality, metered, 20, 5, true, metered ? 0 : 1, !metered,
+                        15000, 10000);
+            default:
+                return new FetchPolicy(quality, metered, 30, 8, true, metered ? 1 : 2, !metered,
+                        10000, 8000);
+        }
+    }
+
+    /**
+     * Return the quality of a network with the given bandwidth in bits per second.
+     */
+    public static Quality classify(long bitsPerSecond) {
+        if (bitsPerSecond < POOR_BITS_PER_SECOND) {
+            return Quality.POOR;
+        } else if (bitsPerSecond < MODERATE_BITS_PER_SECOND) {
+            return Quality.MODERATE;
+        } else if (bitsPerSecond < GOOD_BITS_PER_SECOND) {
+            return Quality.GOOD;
+        }
+        return Quality.EXCELLENT;
+    }
+
+    @Override
+    public String toString() {
+        return quality + (metered ? " metered" : "") + ": pageSize=" + pageSize
+                + " prefetchDistance=" + prefetchDistance
+                + " downloadThumbnails=" + downloadThumbnails
+                + " thumbnailPrefetchScreens=" + thumbnailPrefetchScreens
+                + " prefetchArticles=" + prefetchArticles
+                + " connectTimeout=" + connectTimeoutMillis + "ms"
+                + " readTimeout=" + readTimeoutMillis + "ms";
+    }
+}
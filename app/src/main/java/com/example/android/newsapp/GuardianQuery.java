@@ -0,0 +1,248 @@
+package com.example.android.newsapp;
+
+import java.io.UnsupportedEncodingException;
+import java.net.URLEncoder;
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Request to the search endpoint of the Guardian API.
+ *
+ * The URL lists the parameters in alphabetical order and leaves out the ones that are not set,
+ * so equal queries always produce the same URL and share cache entries and validators. Only
+ * the fields and tags that were asked for are requested, and every query has a shape, which
+ * names the parameters that affect the size of the response but not their values, so the
+ * payload of similar queries can be compared in {@link PayloadStats}.
+ */
+public final class GuardianQuery {
+
+    /* Search endpoint of the Guardian API */
+    public static final String SEARCH_URL = "https://content.guardianapis.com/search";
+
+    /* Key of this app for the Guardian API */
+    public static final String API_KEY = "3bd58974-10b7-4bcb-830a-2c076bf926bd";
+
+    /* Parameters whose values change the size of the response, and so are part of the shape */
+    private static final String[] SHAPE_VALUES = {"page-size", "show-fields", "show-tags"};
+
+    private final String baseUrl;
+
+    /* Every parameter of the URL, by name */
+    private final Map<String, String> parameters;
+
+    private final String url;
+    private final String shape;
+
+    private GuardianQuery(String baseUrl, Map<String, String> parameters, String url,
+                          String shape) {
+        this.baseUrl = baseUrl;
+        this.parameters = parameters;
+        this.url = url;
+        this.shape = shape;
+    }
+
+    /**
+     * Return the canonical request URL.
+     */
+    public String getUrl() {
+        return url;
+    }
+
+    /**
+     * Return the shape of the query, e.g. "page-size=20&q&show-tags=contributor".
+     */
+    public String getShape() {
+        return shape;
+    }
+
+    /**
+     * Return the value of a parameter of the URL, or null if it is not set.
+     */
+    public String getParameter(String name) {
+        return parameters.get(name);
+    }
+
+    /**
+     * Return a builder holding every parameter of this query, to build a variation of it.
+     */
+    public Builder newBuilder() {
+        Builder builder = new Builder(baseUrl);
+        for (Map.Entry<String, String> parameter : parameters.entrySet()) {
+            if (parameter.getKey().equals("show-fields")) {
+                builder.showFields(parameter.getValue().split(","));
+            } else if (parameter.getKey().equals("show-tags")) {
+                builder.showTags(parameter.getValue().split(","));
+            } else {
+                builder.parameter(parameter.getKey(), parameter.getValue());
+            }
+        }
+        return builder;
+    }
+
+    @Override
+    public String toString() {
+        return url;
+    }
+
+    /**
+     * Builds a {@link GuardianQuery}. Setting a parameter to null or an empty value removes it.
+     */
+    public static final class Builder {
+        private final String baseUrl;
+        private final Map<String, String> parameters = new TreeMap<>();
+        private final TreeSet<String> fields = new TreeSet<>();
+        private final TreeSet<String> tags = new TreeSet<>();
+
+        /**
+         * Start a query of the Guardian search endpoint with the key of this app.
+         */
+        public Builder() {
+            this(SEARCH_URL);
+            parameter("api-key", API_KEY);
+        }
+
+        /**
+         * Start a query of the given endpoint, without an API key.
+         */
+        public Builder(String baseUrl) {
+            this.baseUrl = baseUrl;
+        }
+
+        /**
+         * Set the search terms.
+         */
+        public Builder search(String terms) {
+            return parameter("q", terms);
+        }
+
+        /**
+         * Restrict the results to the section with the given ID.
+         */
+        public Builder section(String sectionId) {
+            return parameter("section", sectionId);
+        }
+
+        /**
+         * Set the order of the results: "newest", "oldest" or "relevance".
+         */
+        public Builder orderBy(String orderBy) {
+            return parameter("order-by", orderBy);
+        }
+
+        /**
+         * Set the page of the results to return, starting at 1.
+         */
+        public Builder page(int page) {
+            return parameter("page", String.valueOf(page));
+        }
+
+        /**
+         * Set the number of results per page.
+         */
+        public Builder pageSize(int pageSize) {
+            return parameter("page-size", String.valueOf(pageSize));
+        }
+
+        /**
+         * Only return content published at or after the given time.
+         */
+        public Builder fromDate(long millis) {
+            return parameter("from-date", Iso8601.format(millis));
+        }
+
+        /**
+         * Only return content published at or before the given time.
+         */
+        public Builder toDate(long millis) {
+            return parameter("to-date", Iso8601.format(millis));
+        }
+
+        /**
+         * Add fields beyond the default ones to every result, e.g. "thumbnail".
+         */
+        public Builder showFields(String... names) {
+            for (String name : names) {
+                fields.add(name);
+            }
+            return this;
+        }
+
+        /**
+         * Add the tags of the given types to every result, e.g. "contributor".
+         */
+        public Builder showTags(String... types) {
+            for (String type : types) {
+                tags.add(type);
+            }
+            return this;
+        }
+
+        /**
+         * Set any other parameter of the search endpoint.
+         */
+        public Builder parameter(String name, String value) {
+            if (value == null || value.isEmpty()) {
+                parameters.remove(name);
+            } else {
+                parameters.put(name, value);
+            }
+            return this;
+        }
+
+        public GuardianQuery build() {
+            Map<String, String> all = new TreeMap<>(parameters);
+            if (!fields.isEmpty()) {
+                all.put("show-fields", join(fields));
+            }
+            if (!tags.isEmpty()) {
+                all.put("show-tags", join(tags));
+            }
+
+            StringBuilder url = new StringBuilder(baseUrl);
+            StringBuilder shape = new StringBuilder();
+            for (Map.Entry<String, String> parameter : all.entrySet()) {
+                String name = parameter.getKey();
+                url.append(url.length() == baseUrl.length() ? '?' : '&')
+                        .append(encode(name)).append('=').append(encode(parameter.getValue()));
+
+                // The key and the page do not change what a response looks like
+                if (name.equals("api-key") || name.equals("page")) {
+                    continue;
+                }
+                if (shape.length() > 0) {
+                    shape.append('&');
+                }
+                shape.append(name);
+                for (String shapeValue : SHAPE_VALUES) {
+                    if (shapeValue.equals(name)) {
+                        shape.append('=').append(parameter.getValue());
+                    }
+                }
+            }
+            return new GuardianQuery(baseUrl, Collections.unmodifiableMap(all), url.toString(),
+                    shape.toString());
+        }
+
+        private static String join(TreeSet<String> values) {
+            StringBuilder joined = new StringBuilder();
+            for (String value : values) {
+                if (joined.length() > 0) {
+                    joined.append(',');
+                }
+                joined.append(value);
+            }
+            return joined.toString();
+        }
+
+        private static String encode(String value) {
+            try {
+                // URLEncoder encodes for forms; a query string wants %20 for spaces
+                return URLEncoder.encode(value, "UTF-8").replace("+", "%20");
+            } catch (UnsupportedEncodingException e) {
+                throw new AssertionError(e);
+            }
+        }
+    }
+}
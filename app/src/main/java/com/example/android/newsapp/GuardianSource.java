@@ -0,0 +1,101 @@
+package com.example.android.newsapp;
+
+import java.util.List;
+
+/**
+ * {@link NewsSource} for one query of the Guardian API. Results are kept in the
+ * process-wide {@link NewsCache}. The first page of newest-first queries is refreshed with a
+ * {@link DeltaSync}, which asks only for the articles published since the last refresh.
+ * Slow requests are only hedged for sources the user is waiting for.
+ */
+public class GuardianSource implements NewsSource {
+
+    /* Order of the results that deltas can be merged into */
+    private static final String ORDER_NEWEST = "newest";
+
+    /* Number of results per page when the query does not say */
+    private static final int DEFAULT_PAGE_SIZE = 10;
+
+    /* Query of this source */
+    private final GuardianQuery mQuery;
+
+    /* Whether a slow request may be sent again */
+    private final boolean mHedge;
+
+    /**
+     * @param hedge is true if the user is waiting for the results, and false for background work
+     */
+    public GuardianSource(GuardianQuery query, boolean hedge) {
+        mQuery = query;
+        mHedge = hedge;
+    }
+
+    @Override
+    public List<News> getCached() {
+        return NewsCache.getInstance().get(mQuery.getUrl());
+    }
+
+    @Override
+    public List<News> fetch(CancellationToken token) {
+        // Repeat queries within the freshness window skip the network and the parser
+        List<News> stories = getCached();
+        if (stories != null) {
+            LatencyTracker.getInstance().recordCacheHit();
+            return stories;
+        }
+        LatencyTracker.getInstance().recordCacheMiss();
+
+        // Ask only for what is new since the last refresh, if the first page is known
+        boolean delta = isDeltaQuery();
+        long now = System.currentTimeMillis();
+        long since = delta ? DeltaSync.getInstance().getNewestMillis(mQuery.getUrl(), now)
+                : News.NO_DATE;
+        if (since != News.NO_DATE) {
+            // The newest known article is returned again, and merged away
+            List<News> newer = QueryUtils.fetchNewsData(
+                    mQuery.newBuilder().fromDate(since).build(), mHedge, token);
+            if (newer == null || token.isCanceled()) {
+                return null;
+            }
+            stories = DeltaSync.getInstance().onDelta(mQuery.getUrl(), newer, getPageSize());
+        }
+
+        // Perform a network request, parse the response, and extract a list of news articles.
+        if (stories == null) {
+            stories = QueryUtils.fetchNewsData(mQuery, mHedge, token);
+            if (delta && stories != null && !token.isCanceled()) {
+                DeltaSync.getInstance().onFullSync(mQuery.getUrl(), stories, now);
+            }
+        }
+        if (stories != null && !token.isCanceled()) {
+            NewsCache.getInstance().put(mQuery.getUrl(), stories);
+        }
+        return stories;
+    }
+
+    /**
+     * Return true if this is the first page of a newest-first query, which new articles are
+     * added to the top of.
+     */
+    private boolean isDeltaQuery() {
+        String page = mQuery.getParameter("page");
+        return ORDER_NEWEST.equals(mQuery.getParameter("order-by"))
+                && (page == null || page.equals("1"))
+                && mQuery.getParameter("from-date") == null
+                && mQuery.getParameter("to-date") == null;
+    }
+
+    private int getPageSize() {
+        String pageSize = mQuery.getParameter("page-size");
+        try {
+            return pageSize != null ? Integer.parseInt(pageSize) : DEFAULT_PAGE_SIZE;
+        } catch (NumberFormatException e) {
+            return DEFAULT_PAGE_SIZE;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return mQuery.getUrl();
+    }
+}
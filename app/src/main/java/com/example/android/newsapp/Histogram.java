@@ -0,0 +1,146 @@
+package com.example.android.newsapp;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free histogram of non-negative values in fixed buckets.
+ *
+ * Recording a value is a handful of atomic increments and never allocates, so it can be done
+ * on every request and every frame. Percentiles are reported as the upper bound of the bucket
+ * they fall in.
+ */
+public final class Histogram {
+
+    /* Immutable snapshot of a histogram */
+    public static final class Snapshot {
+        public final long count;
+        public final long sum;
+        public final long max;
+
+        /* Inclusive upper bounds of the buckets; the last bucket has no bound */
+        final long[] bounds;
+        final long[] counts;
+
+        Snapshot(long count, long sum, long max, long[] bounds, long[] counts) {
+            this.count = count;
+            this.sum = sum;
+            this.max = max;
+            this.bounds = bounds;
+            this.counts = counts;
+        }
+
+        public long getMean() {
+            return count == 0 ? 0 : sum / count;
+        }
+
+        /**
+         * Return the upper bound of the bucket holding the given percentile (0-100), or the
+         * maximum if that is smaller.
+         */
+        public long getPercentile(double percentile) {
+            if (count == 0) {
+                return 0;
+            }
+            long rank = (long) Math.ceil(percentile / 100 * count);
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= rank && seen > 0) {
+                    return i < bounds.length ? Math.min(bounds[i], max) : max;
+                }
+            }
+            return max;
+        }
+
+        /**
+         * Return the number of buckets, including the unbounded last one.
+         */
+        public int getBucketCount() {
+            return counts.length;
+        }
+
+        /**
+         * Return the inclusive upper bound of the bucket, or Long.MAX_VALUE for the last one.
+         */
+        public long getBucketBound(int bucket) {
+            return bucket < bounds.length ? bounds[bucket] : Long.MAX_VALUE;
+        }
+
+        public long getBucketCount(int bucket) {
+            return counts[bucket];
+        }
+    }
+
+    private final long[] bounds;
+    private final AtomicLongArray counts;
+    private final AtomicLong sum = new AtomicLong();
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * Construct a histogram with the given ascending, inclusive bucket bounds. Values above the
+     * last bound go to an extra bucket.
+     */
+    public Histogram(long[] bounds) {
+        this.bounds = bounds.clone();
+        counts = new AtomicLongArray(bounds.length + 1);
+    }
+
+    /**
+     * Return bounds in a 1-2-5 series from min up to and including the first step at or above
+     * max, e.g. 1, 2, 5, 10, 20, 50, 100.
+     */
+    public static long[] oneTwoFive(long min, long max) {
+        long[] steps = new long[64];
+        int size = 0;
+        for (long decade = min; ; decade *= 10) {
+            for (int multiple = 1; multiple <= 5; multiple += multiple == 1 ? 1 : 3) {
+                steps[size++] = decade * multiple;
+                if (decade * multiple >= max) {
+                    long[] bounds = new long[size];
+                    System.arraycopy(steps, 0, bounds, 0, size);
+                    return bounds;
+                }
+            }
+        }
+    }
+
+    public void record(long value) {
+        int low = 0;
+        int high = bounds.length;
+        // Find the first bucket whose bound is at least the value
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (bounds[mid] < value) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        counts.incrementAndGet(low);
+        sum.addAndGet(value);
+        long current = max.get();
+        while (value > current && !max.compareAndSet(current, value)) {
+            current = max.get();
+        }
+    }
+
+    public Snapshot snapshot() {
+        long[] copy = new long[counts.length()];
+        long total = 0;
+        for (int i = 0; i < copy.length; i++) {
+            copy[i] = counts.get(i);
+            total += copy[i];
+        }
+        // Derive the count from the buckets, so the percentiles agree with it
+        return new Snapshot(total, sum.get(), max.get(), bounds, copy);
+    }
+
+    public void reset() {
+        for (int i = 0; i < counts.length(); i++) {
+            counts.set(i, 0);
+        }
+        sum.set(0);
+        max.set(0);
+    }
+}
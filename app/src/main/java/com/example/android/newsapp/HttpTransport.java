@@ -0,0 +1,432 @@
+package com.example.android.newsapp;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Shared HTTP transport for all requests to the Guardian API.
+ *
+ * Connections are handed back to the platform keep-alive pool instead of being
+ * disconnected, responses are requested gzip-compressed, and the ETag and
+ * Last-Modified validators of every response are remembered so the next request
+ * for the same URL can be answered with a 304 and served from the previous result.
+ */
+public final class HttpTransport {
+
+    /* Turns a response body into a value; called while the body is being downloaded */
+    public interface BodyParser<T> {
+        T parse(InputStream body) throws IOException;
+    }
+
+    /* Returns the body as it is. Raw bodies such as images are cached by the caller, so their
+     * validators are not remembered and never push out those of the API responses */
+    public static final BodyParser<byte[]> BYTES = new BodyParser<byte[]>() {
+        @Override
+        public byte[] parse(InputStream body) throws IOException {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            int count;
+            while ((count = body.read(buffer)) != -1) {
+                bytes.write(buffer, 0, count);
+            }
+            return bytes.toByteArray();
+        }
+    };
+
+    /* Thrown when the server answers with a status code other than 200 or 304 */
+    public static class HttpStatusException extends IOException {
+        private final int statusCode;
+        private final long retryAfterMillis;
+
+        public HttpStatusException(int statusCode) {
+            this(statusCode, -1);
+        }
+
+        public HttpStatusException(int statusCode, long retryAfterMillis) {
+            super("Error response code: " + statusCode);
+            this.statusCode = statusCode;
+            this.retryAfterMillis = retryAfterMillis;
+        }
+
+        public int getStatusCode() {
+            return statusCode;
+        }
+
+        /**
+         * Return how long the server asked us to wait before trying again, or -1 if it did not
+         * say.
+         */
+        public long getRetryAfterMillis() {
+            return retryAfterMillis;
+        }
+    }
+
+    /* Immutable snapshot of the transport counters */
+    public static final class Stats {
+        public final long requests;
+        public final long notModified;
+        public final long bytesOnWire;
+        public final long bytesDecoded;
+
+        /* Decoded size of the bodies that 304 responses did not send again */
+        public final long bytesSavedNotModified;
+
+        /* Bytes that gzip took off the bodies that were sent */
+        public final long bytesSavedGzip;
+
+        Stats(long requests, long notModified, long bytesOnWire, long bytesDecoded,
+              long bytesSavedNotModified, long bytesSavedGzip) {
+            this.requests = requests;
+            this.notModified = notModified;
+            this.bytesOnWire = bytesOnWire;
+            this.bytesDecoded = bytesDecoded;
+            this.bytesSavedNotModified = bytesSavedNotModified;
+            this.bytesSavedGzip = bytesSavedGzip;
+        }
+
+        @Override
+        public String toString() {
+            return "requests=" + requests + " notModified=" + notModified
+                    + " bytesOnWire=" + bytesOnWire + " bytesDecoded=" + bytesDecoded
+                    + " bytesSavedNotModified=" + bytesSavedNotModified
+                    + " bytesSavedGzip=" + bytesSavedGzip;
+        }
+    }
+
+    /* Validators and parsed body of the last 200 response for a URL */
+    private static final class Validators {
+        final String etag;
+        final String lastModified;
+        final Object body;
+        final long decodedLength;
+
+        Validators(String etag, String lastModified, Object body, long decodedLength) {
+            this.etag = etag;
+            this.lastModified = lastModified;
+            this.body = body;
+            this.decodedLength = decodedLength;
+        }
+    }
+
+    /* Counts the bytes that pass through a stream and the time spent waiting for them, and
+     * stops reading once canceled */
+    private static final class CountingInputStream extends FilterInputStream {
+        private final CancellationToken token;
+        long count;
+        long readNanos;
+
+        CountingInputStream(InputStream in, CancellationToken token) {
+            super(in);
+            this.token = token;
+        }
+
+        @Override
+        public int read() throws IOException {
+            token.throwIfCanceled();
+            long start = System.nanoTime();
+            int b = super.read();
+            readNanos += System.nanoTime() - start;
+            if (b != -1) {
+                count++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            token.throwIfCanceled();
+            long start = System.nanoTime();
+            int n = super.read(buffer, offset, length);
+            readNanos += System.nanoTime() - start;
+            if (n > 0) {
+                count += n;
+            }
+            return n;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            token.throwIfCanceled();
+            long skipped = super.skip(n);
+            count += skipped;
+            return skipped;
+        }
+    }
+
+    /* Default connect and read timeouts in milliseconds */
+    private static final int CONNECT_TIMEOUT = 15000;
+    private static final int READ_TIMEOUT = 10000;
+
+    /* Timeouts of new requests, adjusted to the network by NetworkMonitor */
+    private volatile int connectTimeout = CONNECT_TIMEOUT;
+    private volatile int readTimeout = READ_TIMEOUT;
+
+    /* Maximum number of URLs whose validators are remembered */
+    private static final int MAX_VALIDATORS = 32;
+
+    private static final HttpTransport INSTANCE = new HttpTransport();
+
+    private final Map<String, Validators> validators =
+            new LinkedHashMap<String, Validators>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, Validators> eldest) {
+                    return size() > MAX_VALIDATORS;
+                }
+            };
+
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong notModified = new AtomicLong();
+    private final AtomicLong bytesOnWire = new AtomicLong();
+    private final AtomicLong bytesDecoded = new AtomicLong();
+    private final AtomicLong bytesSavedNotModified = new AtomicLong();
+    private final AtomicLong bytesSavedGzip = new AtomicLong();
+
+    /* Download speed measured on the response bodies */
+    private final BandwidthMeter bandwidthMeter = new BandwidthMeter();
+
+    private HttpTransport() {
+    }
+
+    /**
+     * Return the process-wide transport.
+     */
+    public static HttpTransport getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Perform a GET request and parse the body with the given parser. If the server reports
+     * that the resource is unchanged since the last request, the previously parsed body is
+     * returned without downloading or parsing anything.
+     */
+    public <T> T get(URL url, BodyParser<T> parser) throws IOException {
+        return get(url, parser, CancellationToken.NONE);
+    }
+
+    /**
+     * Perform a GET request like {@link #get(URL, BodyParser)}. Canceling the token closes the
+     * connection and stops the parser, and the call then throws an
+     * {@link java.io.InterruptedIOException}.
+     */
+    public <T> T get(URL url, BodyParser<T> parser, CancellationToken token) throws IOException {
+        return get(url, parser, token, null);
+    }
+
+    /**
+     * Perform a GET request like {@link #get(URL, BodyParser, CancellationToken)} and fill in
+     * the timings and sizes of its stages in the trace, if one is given.
+     */
+    public <T> T get(URL url, BodyParser<T> parser, CancellationToken token,
+                     RequestTrace trace) throws IOException {
+        return get(url, parser, token, trace, connectTimeout, readTimeout);
+    }
+
+    /**
+     * Perform a GET request like {@link #get(URL, BodyParser, CancellationToken, RequestTrace)}
+     * with the given timeouts instead of those set on the transport.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T get(URL url, BodyParser<T> parser, CancellationToken token,
+                     RequestTrace trace, int connectTimeoutMillis, int readTimeoutMillis)
+            throws IOException {
+        token.throwIfCanceled();
+        long start = System.nanoTime();
+        if (trace == null) {
+            trace = new RequestTrace();
+        }
+        String key = url.toString();
+        Validators previous;
+        synchronized (validators) {
+            previous = validators.get(key);
+        }
+
+        requests.incrementAndGet();
+
+        HttpURLConnection urlConnect = null;
+        InputStream inputStream = null;
+        Runnable abort = null;
+        boolean reusable = false;
+        try {
+            urlConnect = (HttpURLConnection) url.openConnection();
+            // Closing the connection from another thread unblocks a pending connect or read
+            final HttpURLConnection connection = urlConnect;
+            abort = token.onCancel(new Runnable() {
+                @Override
+                public void run() {
+                    connection.disconnect();
+                }
+            });
+            urlConnect.setReadTimeout(readTimeoutMillis);
+            urlConnect.setConnectTimeout(connectTimeoutMillis);
+            urlConnect.setRequestMethod("GET");
+            // Asking for gzip explicitly means we decode it ourselves, which lets us count
+            // the compressed bytes that actually crossed the network
+            urlConnect.setRequestProperty("Accept-Encoding", "gzip");
+            if (previous != null) {
+                if (previous.etag != null) {
+                    urlConnect.setRequestProperty("If-None-Match", previous.etag);
+                }
+                if (previous.lastModified != null) {
+                    urlConnect.setRequestProperty("If-Modified-Since", previous.lastModified);
+                }
+            }
+            long connectStart = System.nanoTime();
+            urlConnect.connect();
+            long requestStart = System.nanoTime();
+            trace.connectNanos = requestStart - connectStart;
+
+            int responseCode = urlConnect.getResponseCode();
+            long bodyStart = System.nanoTime();
+            trace.firstByteNanos = bodyStart - requestStart;
+            if (responseCode == HttpURLConnection.HTTP_NOT_MODIFIED && previous != null) {
+                inputStream = urlConnect.getInputStream();
+                drain(inputStream);
+                reusable = true;
+                notModified.incrementAndGet();
+                bytesSavedNotModified.addAndGet(previous.decodedLength);
+                trace.notModified = true;
+                trace.totalNanos = System.nanoTime() - start;
+                return (T) previous.body;
+            }
+            if (responseCode != HttpURLConnection.HTTP_OK) {
+                inputStream = urlConnect.getErrorStream();
+                if (inputStream != null) {
+                    drain(inputStream);
+                    reusable = true;
+                }
+                throw new HttpStatusException(responseCode,
+                        parseRetryAfter(urlConnect.getHeaderField("Retry-After")));
+            }
+
+            CountingInputStream wire =
+                    new CountingInputStream(urlConnect.getInputStream(), token);
+            inputStream = wire;
+            InputStream body = wire;
+            if ("gzip".equalsIgnoreCase(urlConnect.getContentEncoding())) {
+                body = new GZIPInputStream(wire);
+            }
+            CountingInputStream decoded =
+                    new CountingInputStream(new BufferedInputStream(body), token);
+
+            T result = parser.parse(decoded);
+            token.throwIfCanceled();
+
+            // Read whatever the parser left behind so the connection can go back to the pool
+            drain(decoded);
+            reusable = true;
+
+            bytesOnWire.addAndGet(wire.count);
+            bytesDecoded.addAndGet(decoded.count);
+            bytesSavedGzip.addAndGet(Math.max(0, decoded.count - wire.count));
+            bandwidthMeter.record(wire.count, wire.readNanos);
+
+            // The parser reads while the body downloads; waits for the network are download
+            long end = System.nanoTime();
+            trace.bytesOnWire = wire.count;
+            trace.bytesDecoded = decoded.count;
+            trace.downloadNanos = wire.readNanos;
+            trace.parseNanos = Math.max(0, end - bodyStart - wire.readNanos);
+            trace.totalNanos = end - start;
+
+            String etag = urlConnect.getHeaderField("ETag");
+            String lastModified = urlConnect.getHeaderField("Last-Modified");
+            synchronized (validators) {
+                if ((etag != null || lastModified != null) && parser != BYTES) {
+                    validators.put(key, new Validators(etag, lastModified, result, decoded.count));
+                } else {
+                    validators.remove(key);
+                }
+            }
+            return result;
+        } finally {
+            if (abort != null) {
+                token.remove(abort);
+            }
+            if (token.isCanceled()) {
+                reusable = false;
+            }
+            if (inputStream != null) {
+                try {
+                    inputStream.close();
+                } catch (IOException e) {
+                    reusable = false;
+                }
+            }
+            if (!reusable && urlConnect != null) {
+                // Only tear the socket down when the response was not fully read
+                urlConnect.disconnect();
+            }
+        }
+    }
+
+    /**
+     * Forget all validators, so the next requests are unconditional.
+     */
+    public void clearValidators() {
+        synchronized (validators) {
+            validators.clear();
+        }
+    }
+
+    /**
+     * Set the connect and read timeouts of the requests that start from now on.
+     */
+    public void setTimeouts(int connectTimeoutMillis, int readTimeoutMillis) {
+        connectTimeout = connectTimeoutMillis;
+        readTimeout = readTimeoutMillis;
+    }
+
+    public int getConnectTimeout() {
+        return connectTimeout;
+    }
+
+    public int getReadTimeout() {
+        return readTimeout;
+    }
+
+    /**
+     * Return the meter of the download speed of the response bodies.
+     */
+    public BandwidthMeter getBandwidthMeter() {
+        return bandwidthMeter;
+    }
+
+    /**
+     * Return a snapshot of the transport counters.
+     */
+    public Stats getStats() {
+        return new Stats(requests.get(), notModified.get(), bytesOnWire.get(),
+                bytesDecoded.get(), bytesSavedNotModified.get(), bytesSavedGzip.get());
+    }
+
+    /**
+     * Return the delay of a Retry-After header in milliseconds, or -1. Only the delay-seconds
+     * form is understood.
+     */
+    private static long parseRetryAfter(String value) {
+        if (value == null) {
+            return -1;
+        }
+        try {
+            return Math.max(0, Long.parseLong(value.trim())) * 1000;
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private static void drain(InputStream inputStream) throws IOException {
+        byte[] buffer = new byte[1024];
+        while (inputStream.read(buffer) != -1) {
+            // Discard
+        }
+    }
+}
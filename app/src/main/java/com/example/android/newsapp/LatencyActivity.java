@@ -0,0 +1,85 @@
+package com.example.android.newsapp;
+
+import android.content.Intent;
+import android.os.Bundle;
+import android.support.v7.app.AppCompatActivity;
+import android.view.Menu;
+import android.view.MenuItem;
+import android.widget.TextView;
+
+import butterknife.BindView;
+import butterknife.ButterKnife;
+
+/**
+ * Debug screen showing the latency histograms of the {@link LatencyTracker}, the payload
+ * sizes of the {@link PayloadStats}, the counters of the {@link HttpTransport} and the queues
+ * of the {@link TaskScheduler}, which can be shared as CSV text.
+ */
+public class LatencyActivity extends AppCompatActivity {
+    @BindView(R.id.latency_text) TextView latencyText;
+
+    @Override
+    protected void onCreate(Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+        setContentView(R.layout.activity_latency);
+        ButterKnife.bind(this);
+    }
+
+    @Override
+    protected void onResume() {
+        super.onResume();
+        latencyText.setText(report());
+    }
+
+    private String report() {
+        StringBuilder report = new StringBuilder(LatencyTracker.getInstance().export());
+        report.append("\nshape,responses,not_modified,bytes_on_wire,bytes_decoded,articles\n");
+        for (PayloadStats.Entry entry : PayloadStats.getInstance().getEntries()) {
+            report.append(entry.shape).append(',')
+                    .append(entry.responses).append(',')
+                    .append(entry.notModified).append(',')
+                    .append(entry.bytesOnWire).append(',')
+                    .append(entry.bytesDecoded).append(',')
+                    .append(entry.articles).append('\n');
+        }
+        HttpTransport.Stats transport = HttpTransport.getInstance().getStats();
+        report.append("\nrequests,not_modified,bytes_on_wire,bytes_decoded,"
+                + "bytes_saved_not_modified,bytes_saved_gzip\n")
+                .append(transport.requests).append(',')
+                .append(transport.notModified).append(',')
+                .append(transport.bytesOnWire).append(',')
+                .append(transport.bytesDecoded).append(',')
+                .append(transport.bytesSavedNotModified).append(',')
+                .append(transport.bytesSavedGzip).append('\n');
+        report.append('\n').append(TaskScheduler.getInstance().export());
+        report.append('\n').append(LatencyGuard.getInstance().export());
+        return report.toString();
+    }
+
+    @Override
+    public boolean onCreateOptionsMenu(Menu menu) {
+        getMenuInflater().inflate(R.menu.latency, menu);
+        return true;
+    }
+
+    @Override
+    public boolean onOptionsItemSelected(MenuItem item) {
+        int id = item.getItemId();
+        if (id == R.id.share_action) {
+            Intent shareIntent = new Intent(Intent.ACTION_SEND);
+            shareIntent.setType("text/plain");
+            shareIntent.putExtra(Intent.EXTRA_SUBJECT, getString(R.string.title_latency));
+            shareIntent.putExtra(Intent.EXTRA_TEXT, report());
+            startActivity(Intent.createChooser(shareIntent, getString(R.string.menu_item_share)));
+            return true;
+        }
+        if (id == R.id.reset_action) {
+            LatencyTracker.getInstance().reset();
+            PayloadStats.getInstance().clear();
+            TaskScheduler.getInstance().resetStats();
+            latencyText.setText(report());
+            return true;
+        }
+        return super.onOptionsItemSelected(item);
+    }
+}
@@ -0,0 +1,582 @@
+package com.example.android.newsapp;
+
+import android.os.Build;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.SocketTimeoutException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Keeps the slowest requests from holding up the user, using the latency recently seen on
+ * each endpoint.
+ *
+ * The connect and read timeouts of a request are a few times the 99th percentile of the
+ * recent connect and first-byte times, so one stuck socket fails in seconds and is retried
+ * instead of sitting out the timeouts of the {@link HttpTransport}, which remain the upper
+ * limit. The connect timeout never drops below what a new connection needs for DNS, TCP and
+ * TLS on a slow network, since most requests reuse a pooled connection and report a connect
+ * time close to zero. Requests that time out count as taking as long as their timeout, so the
+ * timeouts grow again when the network gets slower. An attempt that is still running after the 95th
+ * percentile of recent requests gets a hedge: the same request sent again, of which the first
+ * to answer wins and the other is canceled. At most one request in ten is hedged, so a server
+ * that is slow for everyone does not get twice the load, and only a few hedges run at the same
+ * time. Nothing is derived until an endpoint has enough samples.
+ *
+ * Every request, including its retries and hedges, has an overall deadline, after which it is
+ * canceled and fails with a {@link SocketTimeoutException}.
+ */
+public final class LatencyGuard {
+
+    /* A request that can be sent more than once, also at the same time */
+    public interface Request<T> {
+        T run(CancellationToken token, RequestTrace trace, int connectTimeoutMillis,
+              int readTimeoutMillis) throws IOException;
+    }
+
+    /* Immutable snapshot of the counters and derived values of one endpoint */
+    public static final class EndpointStats {
+        public final String endpoint;
+        public final long requests;
+        public final long hedged;
+
+        /* Hedges that answered before the first attempt, which is how often hedging helped */
+        public final long hedgeWins;
+
+        public final long timeouts;
+        public final long deadlinesExceeded;
+
+        /* Percentiles of the recent request times, or -1 while there are too few */
+        public final long p50Millis;
+        public final long p95Millis;
+        public final long p99Millis;
+
+        /* Values used by the next request; -1 for the hedge delay if it is not hedged */
+        public final long hedgeDelayMillis;
+        public final int connectTimeoutMillis;
+        public final int readTimeoutMillis;
+
+        EndpointStats(String endpoint, long requests, long hedged, long hedgeWins,
+                      long timeouts, long deadlinesExceeded, long p50Millis, long p95Millis,
+                      long p99Millis, long hedgeDelayMillis, int connectTimeoutMillis,
+                      int readTimeoutMillis) {
+            this.endpoint = endpoint;
+            this.requests = requests;
+            this.hedged = hedged;
+            this.hedgeWins = hedgeWins;
+            this.timeouts = timeouts;
+            this.deadlinesExceeded = deadlinesExceeded;
+            this.p50Millis = p50Millis;
+            this.p95Millis = p95Millis;
+            this.p99Millis = p99Millis;
+            this.hedgeDelayMillis = hedgeDelayMillis;
+            this.connectTimeoutMillis = connectTimeoutMillis;
+            this.readTimeoutMillis = readTimeoutMillis;
+        }
+
+        @Override
+        public String toString() {
+            return endpoint + ": requests=" + requests + " hedged=" + hedged
+                    + " hedgeWins=" + hedgeWins + " timeouts=" + timeouts
+                    + " deadlinesExceeded=" + deadlinesExceeded + " p50=" + p50Millis
+                    + "ms p95=" + p95Millis + "ms p99=" + p99Millis
+                    + "ms hedgeDelay=" + hedgeDelayMillis
+                    + "ms connectTimeout=" + connectTimeoutMillis
+                    + "ms readTimeout=" + readTimeoutMillis + "ms";
+        }
+    }
+
+    /* Overall time a request may take, including retries and hedges */
+    static final long DEADLINE_MILLIS = 20000;
+
+    /* Number of recent samples kept per endpoint, and needed before anything is derived */
+    private static final int WINDOW = 100;
+    static final int MIN_SAMPLES = 20;
+
+    /* Timeouts are this many times the 99th percentile, but never shorter than these. Samples
+       of pooled connections are close to zero, so the connect floor is a full handshake. */
+    private static final int TIMEOUT_FACTOR = 3;
+    private static final int MIN_CONNECT_TIMEOUT_MILLIS = 5000;
+    private static final int MIN_READ_TIMEOUT_MILLIS = 2000;
+
+    /* Shortest wait before a hedge, so fast endpoints are not asked twice for everything */
+    private static final long MIN_HEDGE_DELAY_MILLIS = 50;
+
+    /* At most one request in this many is hedged */
+    private static final int HEDGE_SHARE = 10;
+
+    /* Most hedges running at the same time, for when many requests are slow at once */
+    private static final int MAX_HEDGES = 4;
+
+    private static final LatencyGuard INSTANCE = new LatencyGuard(DEADLINE_MILLIS);
+
+    /* The most recent values of one kind of sample, oldest overwritten first */
+    private static final class Samples {
+        final long[] values = new long[WINDOW];
+        int size;
+        int next;
+
+        void add(long value) {
+            values[next] = value;
+            next = (next + 1) % WINDOW;
+            size = Math.min(size + 1, WINDOW);
+        }
+
+        /**
+         * Return the value at the given percentile, or -1 if there are too few values.
+         */
+        long percentile(double percentile) {
+            if (size < MIN_SAMPLES) {
+                return -1;
+            }
+            long[] sorted = Arrays.copyOf(values, size);
+            Arrays.sort(sorted);
+            int rank = (int) Math.ceil(percentile / 100 * size);
+            return sorted[Math.max(0, rank - 1)];
+        }
+    }
+
+    /* Samples and counters of one endpoint */
+    private static final class Endpoint {
+        final Samples connectMillis = new Samples();
+        final Samples firstByteMillis = new Samples();
+        final Samples totalMillis = new Samples();
+
+        long requests;
+        long hedged;
+        long hedgeWins;
+        long timeouts;
+        long deadlinesExceeded;
+
+        /* Requests and hedges since the counts were last halved, for the hedge share */
+        int recentRequests;
+        int recentHedges;
+    }
+
+    /* Outcome of an attempt that may have been hedged */
+    private static final class Race<T> {
+        private boolean decided;
+        private boolean hedgeStarted;
+        private boolean hedgeDone;
+        private boolean hedgeWon;
+        private T result;
+        private RequestTrace trace;
+
+        /**
+         * Allow the hedge to start, unless the attempt is already decided.
+         */
+        synchronized boolean startHedge() {
+            if (decided) {
+                return false;
+            }
+            hedgeStarted = true;
+            return true;
+        }
+
+        /**
+         * Take the result, unless the other request came first. Returns true if it won.
+         */
+        synchronized boolean win(T value, RequestTrace valueTrace, boolean hedge) {
+            if (decided) {
+                return false;
+            }
+            decided = true;
+            result = value;
+            trace = valueTrace;
+            hedgeWon = hedge;
+            notifyAll();
+            return true;
+        }
+
+        synchronized void hedgeFinished() {
+            hedgeDone = true;
+            notifyAll();
+        }
+
+        /**
+         * Wait, once the first request returned, until there is a result or the hedge failed
+         * as well. Returns true if there is a result.
+         */
+        synchronized boolean await() throws InterruptedIOException {
+            if (!hedgeStarted) {
+                // Too late for a hedge now
+                decided = true;
+                return trace != null;
+            }
+            while (trace == null && !hedgeDone) {
+                try {
+                    wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("Interrupted");
+                }
+            }
+            decided = true;
+            return trace != null;
+        }
+    }
+
+    /* Token that is canceled with its parent, until it is released */
+    private static final class ChildToken extends CancellationToken {
+        private final CancellationToken parent;
+        private final Runnable action;
+
+        ChildToken(CancellationToken parent) {
+            this.parent = parent;
+            action = parent.onCancel(new Runnable() {
+                @Override
+                public void run() {
+                    cancel();
+                }
+            });
+        }
+
+        void release() {
+            parent.remove(action);
+        }
+    }
+
+    private final long deadlineMillis;
+
+    /* Endpoints by name, in alphabetical order */
+    private final Map<String, Endpoint> endpoints = new TreeMap<>();
+
+    /* Starts hedges and ends requests at their deadline */
+    private final ScheduledExecutorService timer;
+
+    /* Runs the hedges; the first attempt runs on the thread of the caller */
+    private final ExecutorService hedgeThreads;
+
+    /**
+     * Construct a guard that gives every request the given overall time.
+     */
+    LatencyGuard(long deadlineMillis) {
+        this.deadlineMillis = deadlineMillis;
+        final AtomicInteger count = new AtomicInteger();
+        ThreadFactory threads = new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "Hedge #" + count.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        };
+        ScheduledThreadPoolExecutor timer = new ScheduledThreadPoolExecutor(1, threads);
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP) {
+            // Every request cancels its expiry, which would otherwise hold it until the deadline
+            timer.setRemoveOnCancelPolicy(true);
+        }
+        this.timer = timer;
+        hedgeThreads = new ThreadPoolExecutor(0, MAX_HEDGES, 30, TimeUnit.SECONDS,
+                new SynchronousQueue<Runnable>(), threads);
+    }
+
+    /**
+     * Return the process-wide guard.
+     */
+    public static LatencyGuard getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Run the request with timeouts derived for the endpoint, retrying it as the policy
+     * allows and hedging slow attempts if asked to, and return the first result. The trace,
+     * if any, is filled in by the attempt that produced the result.
+     *
+     * @param endpoint names the endpoint whose latency the request shares, e.g. "search"
+     * @param hedge    is true if a slow attempt may be sent again
+     * @throws SocketTimeoutException if the deadline passed before there was a result
+     */
+    public <T> T execute(final String endpoint, RetryPolicy retryPolicy, final boolean hedge,
+                         final Request<T> request, CancellationToken token,
+                         final RequestTrace trace) throws IOException {
+        final ChildToken deadline = new ChildToken(token);
+        final AtomicBoolean expired = new AtomicBoolean();
+        ScheduledFuture<?> expiry = timer.schedule(new Runnable() {
+            @Override
+            public void run() {
+                expired.set(true);
+                deadline.cancel();
+            }
+        }, deadlineMillis, TimeUnit.MILLISECONDS);
+        final long deadlineNanos = System.nanoTime() + deadlineMillis * 1000000;
+        synchronized (this) {
+            Endpoint counters = endpoint(endpoint);
+            counters.requests++;
+            if (++counters.recentRequests >= 2 * WINDOW) {
+                counters.recentRequests /= 2;
+                counters.recentHedges /= 2;
+            }
+        }
+        try {
+            return retryPolicy.execute(new RetryPolicy.Attempt<T>() {
+                @Override
+                public T run() throws IOException {
+                    return attempt(endpoint, hedge, request, deadline, deadlineNanos, trace);
+                }
+            }, deadline);
+        } catch (IOException e) {
+            if (expired.get() && !token.isCanceled()) {
+                synchronized (this) {
+                    endpoint(endpoint).deadlinesExceeded++;
+                }
+                SocketTimeoutException timeout = new SocketTimeoutException(
+                        "Deadline of " + deadlineMillis + " ms exceeded");
+                timeout.initCause(e);
+                throw timeout;
+            }
+            throw e;
+        } finally {
+            expiry.cancel(false);
+            deadline.release();
+        }
+    }
+
+    /**
+     * Return a snapshot of the counters and derived values of every endpoint.
+     */
+    public synchronized List<EndpointStats> getStats() {
+        List<EndpointStats> stats = new ArrayList<>(endpoints.size());
+        HttpTransport transport = HttpTransport.getInstance();
+        for (Map.Entry<String, Endpoint> entry : endpoints.entrySet()) {
+            Endpoint e = entry.getValue();
+            stats.add(new EndpointStats(entry.getKey(), e.requests, e.hedged, e.hedgeWins,
+                    e.timeouts, e.deadlinesExceeded, e.totalMillis.percentile(50),
+                    e.totalMillis.percentile(95), e.totalMillis.percentile(99), hedgeDelay(e),
+                    connectTimeout(e, transport.getConnectTimeout()),
+                    readTimeout(e, transport.getReadTimeout())));
+        }
+        return stats;
+    }
+
+    /**
+     * Return the counters of every endpoint as CSV.
+     */
+    public String export() {
+        StringBuilder csv = new StringBuilder();
+        csv.append("endpoint,requests,hedged,hedge_wins,timeouts,deadlines_exceeded,"
+                + "p50_ms,p95_ms,p99_ms,hedge_delay_ms,connect_timeout_ms,read_timeout_ms\n");
+        for (EndpointStats e : getStats()) {
+            csv.append(e.endpoint).append(',')
+                    .append(e.requests).append(',')
+                    .append(e.hedged).append(',')
+                    .append(e.hedgeWins).append(',')
+                    .append(e.timeouts).append(',')
+                    .append(e.deadlinesExceeded).append(',')
+                    .append(e.p50Millis).append(',')
+                    .append(e.p95Millis).append(',')
+                    .append(e.p99Millis).append(',')
+                    .append(e.hedgeDelayMillis).append(',')
+                    .append(e.connectTimeoutMillis).append(',')
+                    .append(e.readTimeoutMillis).append('\n');
+        }
+        return csv.toString();
+    }
+
+    /**
+     * Forget the samples and counters of every endpoint, e.g. because the network changed and
+     * what was measured no longer applies.
+     */
+    public synchronized void reset() {
+        endpoints.clear();
+    }
+
+    /**
+     * Run one attempt, and a hedge of it if it is slow.
+     */
+    private <T> T attempt(String endpoint, boolean hedge, final Request<T> request,
+                          CancellationToken token, long deadlineNanos, RequestTrace trace)
+            throws IOException {
+        // No timeout may run past the deadline
+        int remaining = (int) Math.max(1, (deadlineNanos - System.nanoTime()) / 1000000);
+        HttpTransport transport = HttpTransport.getInstance();
+        final int connectTimeout;
+        final int readTimeout;
+        long hedgeDelay;
+        synchronized (this) {
+            Endpoint e = endpoint(endpoint);
+            connectTimeout = Math.min(remaining, connectTimeout(e, transport.getConnectTimeout()));
+            readTimeout = Math.min(remaining, readTimeout(e, transport.getReadTimeout()));
+            hedgeDelay = hedge ? hedgeDelay(e) : -1;
+        }
+
+        final Race<T> race = new Race<>();
+        final ChildToken first = new ChildToken(token);
+        final ChildToken second = new ChildToken(token);
+        final RequestTrace firstTrace = new RequestTrace();
+        final RequestTrace secondTrace = new RequestTrace();
+        ScheduledFuture<?> hedgeStart = null;
+        if (hedgeDelay >= 0) {
+            hedgeStart = timer.schedule(
+                    hedge(endpoint, request, race, first, second, secondTrace, connectTimeout,
+                            readTimeout), hedgeDelay, TimeUnit.MILLISECONDS);
+        }
+
+        long start = System.nanoTime();
+        IOException error = null;
+        try {
+            race.win(request.run(first, firstTrace, connectTimeout, readTimeout), firstTrace,
+                    false);
+        } catch (IOException e) {
+            error = e;
+        }
+        if (hedgeStart != null) {
+            hedgeStart.cancel(false);
+        }
+        try {
+            if (race.await()) {
+                if (race.hedgeWon) {
+                    synchronized (this) {
+                        endpoint(endpoint).hedgeWins++;
+                    }
+                } else {
+                    second.cancel();
+                }
+                record(endpoint, race.trace);
+                copy(race.trace, trace);
+                return race.result;
+            }
+            second.cancel();
+            if (error instanceof SocketTimeoutException) {
+                recordTimeout(endpoint, firstTrace, System.nanoTime() - start, connectTimeout,
+                        readTimeout);
+            }
+            throw error;
+        } finally {
+            first.release();
+            second.release();
+        }
+    }
+
+    /**
+     * Return the task that sends the hedge of an attempt, if the attempt is still running and
+     * the share of hedged requests allows it.
+     */
+    private <T> Runnable hedge(final String endpoint, final Request<T> request,
+                               final Race<T> race, final CancellationToken first,
+                               final CancellationToken second, final RequestTrace trace,
+                               final int connectTimeout, final int readTimeout) {
+        return new Runnable() {
+            @Override
+            public void run() {
+                final Endpoint counters;
+                synchronized (LatencyGuard.this) {
+                    counters = endpoint(endpoint);
+                    if (counters.recentHedges * HEDGE_SHARE >= counters.recentRequests
+                            || !race.startHedge()) {
+                        return;
+                    }
+                    counters.hedged++;
+                    counters.recentHedges++;
+                }
+                try {
+                    hedgeThreads.execute(new Runnable() {
+                        @Override
+                        public void run() {
+                            try {
+                                T result = request.run(second, trace, connectTimeout,
+                                        readTimeout);
+                                if (race.win(result, trace, true)) {
+                                    first.cancel();
+                                }
+                            } catch (IOException e) {
+                                // The first attempt reports its own failure
+                            } finally {
+                                race.hedgeFinished();
+                            }
+                        }
+                    });
+                } catch (RejectedExecutionException e) {
+                    // Every hedge thread is busy, so the first attempt goes on alone
+                    synchronized (LatencyGuard.this) {
+                        counters.hedged--;
+                        counters.recentHedges--;
+                    }
+                    race.hedgeFinished();
+                }
+            }
+        };
+    }
+
+    private synchronized void record(String endpoint, RequestTrace trace) {
+        Endpoint e = endpoint(endpoint);
+        e.connectMillis.add(trace.connectNanos / 1000000);
+        e.firstByteMillis.add(trace.firstByteNanos / 1000000);
+        e.totalMillis.add(trace.totalNanos / 1000000);
+    }
+
+    /**
+     * Count an attempt that timed out as taking as long as the timeout of the stage it was in.
+     */
+    private synchronized void recordTimeout(String endpoint, RequestTrace trace,
+                                            long elapsedNanos, int connectTimeout,
+                                            int readTimeout) {
+        Endpoint e = endpoint(endpoint);
+        e.timeouts++;
+        if (trace.connectNanos == 0) {
+            e.connectMillis.add(connectTimeout);
+        } else if (trace.firstByteNanos == 0) {
+            e.firstByteMillis.add(readTimeout);
+        }
+        e.totalMillis.add(elapsedNanos / 1000000);
+    }
+
+    private Endpoint endpoint(String name) {
+        Endpoint endpoint = endpoints.get(name);
+        if (endpoint == null) {
+            endpoint = new Endpoint();
+            endpoints.put(name, endpoint);
+        }
+        return endpoint;
+    }
+
+    private static int connectTimeout(Endpoint endpoint, int maxMillis) {
+        return timeout(endpoint.connectMillis, MIN_CONNECT_TIMEOUT_MILLIS, maxMillis);
+    }
+
+    private static int readTimeout(Endpoint endpoint, int maxMillis) {
+        return timeout(endpoint.firstByteMillis, MIN_READ_TIMEOUT_MILLIS, maxMillis);
+    }
+
+    private static int timeout(Samples samples, int minMillis, int maxMillis) {
+        long p99 = samples.percentile(99);
+        if (p99 < 0) {
+            return maxMillis;
+        }
+        return (int) Math.min(maxMillis, Math.max(minMillis, p99 * TIMEOUT_FACTOR));
+    }
+
+    private static long hedgeDelay(Endpoint endpoint) {
+        long p95 = endpoint.totalMillis.percentile(95);
+        return p95 < 0 ? -1 : Math.max(MIN_HEDGE_DELAY_MILLIS, p95);
+    }
+
+    private static void copy(RequestTrace from, RequestTrace to) {
+        if (to == null) {
+            return;
+        }
+        to.connectNanos = from.connectNanos;
+        to.firstByteNanos = from.firstByteNanos;
+        to.downloadNanos = from.downloadNanos;
+        to.parseNanos = from.parseNanos;
+        to.totalNanos = from.totalNanos;
+        to.notModified = from.notModified;
+        to.bytesOnWire = from.bytesOnWire;
+        to.bytesDecoded = from.bytesDecoded;
+    }
+}
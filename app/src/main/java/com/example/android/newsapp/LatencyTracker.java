@@ -0,0 +1,161 @@
+package com.example.android.newsapp;
+
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Process-wide histograms of the latency of every stage of loading news, from opening the
+ * connection to handing the result to the list, plus the response sizes, item counts and
+ * cache hits that explain them.
+ *
+ * Recording is lock-free and allocation-free, so it stays on in release builds. The debug
+ * screen shows {@link #export()}, which can also be shared as text.
+ */
+public final class LatencyTracker {
+
+    /* Stages of a load, in the order they happen */
+    public enum Stage {
+        CONNECT, FIRST_BYTE, DOWNLOAD, PARSE, REQUEST, DELIVER
+    }
+
+    /* Latencies from 100 microseconds to 1 minute */
+    private static final long[] LATENCY_BOUNDS_MICROS = Histogram.oneTwoFive(100, 60000000);
+
+    /* Sizes from 100 bytes to 10 megabytes */
+    private static final long[] SIZE_BOUNDS = Histogram.oneTwoFive(100, 10000000);
+
+    /* Item counts from 1 to 500 */
+    private static final long[] ITEM_BOUNDS = Histogram.oneTwoFive(1, 500);
+
+    private static final LatencyTracker INSTANCE = new LatencyTracker();
+
+    private final Histogram[] stages = new Histogram[Stage.values().length];
+    private final Histogram bytesOnWire = new Histogram(SIZE_BOUNDS);
+    private final Histogram bytesDecoded = new Histogram(SIZE_BOUNDS);
+    private final Histogram items = new Histogram(ITEM_BOUNDS);
+    private final AtomicLong notModified = new AtomicLong();
+    private final AtomicLong cacheHits = new AtomicLong();
+    private final AtomicLong cacheMisses = new AtomicLong();
+
+    private LatencyTracker() {
+        for (int i = 0; i < stages.length; i++) {
+            stages[i] = new Histogram(LATENCY_BOUNDS_MICROS);
+        }
+    }
+
+    /**
+     * Return the process-wide tracker.
+     */
+    public static LatencyTracker getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Record the stages and sizes of a request that completed.
+     */
+    public void record(RequestTrace trace) {
+        if (trace.notModified) {
+            // Nothing was downloaded or parsed
+            notModified.incrementAndGet();
+        } else {
+            record(Stage.DOWNLOAD, trace.downloadNanos);
+            record(Stage.PARSE, trace.parseNanos);
+            bytesOnWire.record(trace.bytesOnWire);
+            bytesDecoded.record(trace.bytesDecoded);
+        }
+        record(Stage.CONNECT, trace.connectNanos);
+        record(Stage.FIRST_BYTE, trace.firstByteNanos);
+        record(Stage.REQUEST, trace.totalNanos);
+        items.record(trace.items);
+    }
+
+    /**
+     * Record how long a single stage took.
+     */
+    public void record(Stage stage, long nanos) {
+        stages[stage.ordinal()].record(nanos / 1000);
+    }
+
+    public void recordCacheHit() {
+        cacheHits.incrementAndGet();
+    }
+
+    public void recordCacheMiss() {
+        cacheMisses.incrementAndGet();
+    }
+
+    /**
+     * Return a snapshot of the histogram of the stage, in microseconds.
+     */
+    public Histogram.Snapshot getStage(Stage stage) {
+        return stages[stage.ordinal()].snapshot();
+    }
+
+    /**
+     * Forget everything recorded so far.
+     */
+    public void reset() {
+        for (Histogram stage : stages) {
+            stage.reset();
+        }
+        bytesOnWire.reset();
+        bytesDecoded.reset();
+        items.reset();
+        notModified.set(0);
+        cacheHits.set(0);
+        cacheMisses.set(0);
+    }
+
+    /**
+     * Return the summary of every histogram followed by its buckets, as CSV.
+     */
+    public String export() {
+        StringBuilder csv = new StringBuilder();
+        csv.append("metric,unit,count,mean,p50,p90,p99,max\n");
+        Histogram.Snapshot[] snapshots = new Histogram.Snapshot[stages.length + 3];
+        String[] names = new String[snapshots.length];
+        String[] units = new String[snapshots.length];
+        for (Stage stage : Stage.values()) {
+            snapshots[stage.ordinal()] = getStage(stage);
+            names[stage.ordinal()] = stage.name().toLowerCase(Locale.ROOT);
+            units[stage.ordinal()] = "us";
+        }
+        snapshots[stages.length] = bytesOnWire.snapshot();
+        names[stages.length] = "bytes_on_wire";
+        snapshots[stages.length + 1] = bytesDecoded.snapshot();
+        names[stages.length + 1] = "bytes_decoded";
+        units[stages.length] = units[stages.length + 1] = "bytes";
+        snapshots[stages.length + 2] = items.snapshot();
+        names[stages.length + 2] = "items";
+        units[stages.length + 2] = "articles";
+
+        for (int i = 0; i < snapshots.length; i++) {
+            Histogram.Snapshot snapshot = snapshots[i];
+            csv.append(names[i]).append(',').append(units[i]).append(',')
+                    .append(snapshot.count).append(',')
+                    .append(snapshot.getMean()).append(',')
+                    .append(snapshot.getPercentile(50)).append(',')
+                    .append(snapshot.getPercentile(90)).append(',')
+                    .append(snapshot.getPercentile(99)).append(',')
+                    .append(snapshot.max).append('\n');
+        }
+        csv.append("not_modified,responses,").append(notModified.get()).append('\n');
+        csv.append("cache_hits,requests,").append(cacheHits.get()).append('\n');
+        csv.append("cache_misses,requests,").append(cacheMisses.get()).append('\n');
+
+        csv.append("\nmetric,bucket_upper_bound,count\n");
+        for (int i = 0; i < snapshots.length; i++) {
+            Histogram.Snapshot snapshot = snapshots[i];
+            for (int bucket = 0; bucket < snapshot.getBucketCount(); bucket++) {
+                if (snapshot.getBucketCount(bucket) == 0) {
+                    continue;
+                }
+                long bound = snapshot.getBucketBound(bucket);
+                csv.append(names[i]).append(',')
+                        .append(bound == Long.MAX_VALUE ? "inf" : String.valueOf(bound))
+                        .append(',').append(snapshot.getBucketCount(bucket)).append('\n');
+            }
+        }
+        return csv.toString();
+    }
+}
@@ -0,0 +1,160 @@
+package com.example.android.newsapp;
+
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.net.ConnectivityManager;
+import android.net.NetworkInfo;
+import android.support.v4.net.ConnectivityManagerCompat;
+import android.telephony.TelephonyManager;
+import android.util.Log;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Keeps track of the active network for the whole process, and decides how to fetch on it
+ * (see {@link FetchPolicy}).
+ *
+ * The state is updated from the connectivity broadcasts, so asking for it is cheap enough for
+ * every scroll event. Listeners hear about every change, so loads that failed while offline
+ * can be resumed as soon as the device is back online.
+ */
+public class NetworkMonitor {
+
+    /* Notified on the main thread when the network changes */
+    public interface Listener {
+        void onNetworkChanged(NetworkMonitor monitor);
+    }
+
+    /* Tag for log messages */
+    private static final String LOG_TAG = NetworkMonitor.class.getSimpleName();
+
+    private static NetworkMonitor sInstance;
+
+    private final ConnectivityManager mConnectivityManager;
+
+    /* Only used on the main thread */
+    private final List<Listener> mListeners = new ArrayList<>();
+
+    /* State of the active network as of the last broadcast; also read by the loaders */
+    private volatile boolean mConnected;
+    private volatile boolean mMetered;
+    private volatile FetchPolicy.Quality mEstimate = FetchPolicy.Quality.OFFLINE;
+
+    /* Type and subtype of the active network, to notice a switch to another network */
+    private int mNetworkType = -1;
+    private int mNetworkSubtype = -1;
+
+    private NetworkMonitor(Context context) {
+        mConnectivityManager =
+                (ConnectivityManager) context.getSystemService(Context.CONNECTIVITY_SERVICE);
+        update();
+        context.registerReceiver(new BroadcastReceiver() {
+            @Override
+            public void onReceive(Context context, Intent intent) {
+                if (update()) {
+                    Log.d(LOG_TAG, "Network changed: " + getPolicy());
+                    for (Listener listener : new ArrayList<>(mListeners)) {
+                        listener.onNetworkChanged(NetworkMonitor.this);
+                    }
+                }
+            }
+        }, new IntentFilter(ConnectivityManager.CONNECTIVITY_ACTION));
+    }
+
+    /**
+     * Return the process-wide network monitor.
+     */
+    public static synchronized NetworkMonitor getInstance(Context context) {
+        if (sInstance == null) {
+            sInstance = new NetworkMonitor(context.getApplicationContext());
+        }
+        return sInstance;
+    }
+
+    /**
+     * Start notifying the listener of network changes. Must be called on the main thread.
+     */
+    public void addListener(Listener listener) {
+        mListeners.add(listener);
+    }
+
+    /**
+     * Stop notifying the listener. Must be called on the main thread.
+     */
+    public void removeListener(Listener listener) {
+        mListeners.remove(listener);
+    }
+
+    /**
+     * Return true if there is a network connection to fetch data with.
+     */
+    public boolean isConnected() {
+        return mConnected;
+    }
+
+    /**
+     * Return the fetch policy for the current network and the bandwidth measured on it.
+     */
+    public FetchPolicy getPolicy() {
+        return FetchPolicy.forNetwork(mEstimate, mMetered,
+                HttpTransport.getInstance().getBandwidthMeter().getBitsPerSecond());
+    }
+
+    /**
+     * Read the state of the active network, and apply the timeouts of its policy to the
+     * {@link HttpTransport}. Returns true if it changed.
+     */
+    private boolean update() {
+        NetworkInfo info = mConnectivityManager.getActiveNetworkInfo();
+        boolean connected = info != null && info.isConnected();
+        boolean metered = connected
+                && ConnectivityManagerCompat.isActiveNetworkMetered(mConnectivityManager);
+        int type = connected ? info.getType() : -1;
+        int subtype = connected ? info.getSubtype() : -1;
+        boolean changed = connected != mConnected || metered != mMetered
+                || type != mNetworkType || subtype != mNetworkSubtype;
+
+        if (type != mNetworkType || subtype != mNetworkSubtype) {
+            // What was measured on the previous network says nothing about this one
+            HttpTransport.getInstance().getBandwidthMeter().reset();
+            LatencyGuard.getInstance().reset();
+        }
+        mNetworkType = type;
+        mNetworkSubtype = subtype;
+        mEstimate = connected ? estimate(type, subtype) : FetchPolicy.Quality.OFFLINE;
+        mMetered = metered;
+        mConnected = connected;
+
+        FetchPolicy policy = getPolicy();
+        HttpTransport.getInstance().setTimeouts(policy.connectTimeoutMillis,
+                policy.readTimeoutMillis);
+        return changed;
+    }
+
+    /**
+     * Return the quality to expect from a network of the given type before anything has been
+     * measured on it.
+     */
+    private static FetchPolicy.Quality estimate(int type, int subtype) {
+        if (type != ConnectivityManager.TYPE_MOBILE) {
+            // Wi-Fi, Ethernet and the like
+            return FetchPolicy.Quality.GOOD;
+        }
+        switch (subtype) {
+            case TelephonyManager.NETWORK_TYPE_GPRS:
+            case TelephonyManager.NETWORK_TYPE_EDGE:
+            case TelephonyManager.NETWORK_TYPE_CDMA:
+            case TelephonyManager.NETWORK_TYPE_1xRTT:
+            case TelephonyManager.NETWORK_TYPE_IDEN:
+                return FetchPolicy.Quality.POOR;
+            case TelephonyManager.NETWORK_TYPE_HSPAP:
+            case TelephonyManager.NETWORK_TYPE_LTE:
+                return FetchPolicy.Quality.GOOD;
+            default:
+                return FetchPolicy.Quality.MODERATE;
+        }
+    }
+}
@@ -1,22 +1,27 @@
 package com.example.android.newsapp;
 
-import android.content.Context;
 import android.content.Intent;
 import android.content.SharedPreferences;
-import android.net.ConnectivityManager;
-import android.net.NetworkInfo;
-import android.net.Uri;
 import android.preference.PreferenceManager;
 import android.support.v7.app.AppCompatActivity;
 import android.os.Bundle;
+import android.os.Handler;
+import android.text.Editable;
+import android.text.TextWatcher;
+import android.support.v7.widget.LinearLayoutManager;
+import android.support.v7.widget.RecyclerView;
 import android.view.Menu;
 import android.view.MenuItem;
+import android.view.KeyEvent;
 import android.view.View;
-import android.widget.AdapterView;
-import android.widget.ListView;
+import android.view.inputmethod.EditorInfo;
+import android.widget.EditText;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 import android.app.LoaderManager;
 import android.app.LoaderManager.LoaderCallbacks;
@@ -26,20 +31,96 @@ import android.widget.TextView;
 import butterknife.BindView;
 import butterknife.ButterKnife;
 
-public class NewsActivity extends AppCompatActivity implements LoaderCallbacks<List<News>> {
-    @BindView(R.id.list) ListView newsListView;
+public class NewsActivity extends AppCompatActivity implements LoaderCallbacks<List<News>>,
+        SharedPreferences.OnSharedPreferenceChangeListener, NetworkMonitor.Listener {
+    @BindView(R.id.list) RecyclerView newsListView;
     @BindView(R.id.empty_view) TextView EmptyStateTextView;
     @BindView(R.id.loading_indicator) View loadingIndicator;
+    @BindView(R.id.search_box) EditText searchBox;
 
     /* Adapter for the list of news stories */
     private NewsAdapter mAdapter;
 
-    /* URL to query The Guardian's dataset for news article information */
-    private static final String GUARDIAN_REQUEST_URL = "https://content.guardianapis.com/search?&api-key=3bd58974-10b7-4bcb-830a-2c076bf926bd&show-tags=contributor";
-
     /* Constant value for the news loader ID */
     private static final int NEWS_LOADER_ID = 1;
 
+    /* Constant value for the loader that fetches the pages after (or before) the first one */
+    private static final int NEWS_PAGE_LOADER_ID = 2;
+
+    /* Loader argument holding the page to fetch */
+    private static final String ARG_PAGE = "page";
+
+    /* Number of articles requested per page on a good network */
+    private static final int PAGE_SIZE = FetchPolicy.DEFAULT.pageSize;
+
+    /* Maximum number of pages kept in the list while scrolling */
+    private static final int MAX_PAGES = 10;
+
+    /* Keeps track of the pages in the list; the page size follows the network */
+    private final NewsPager mPager = new NewsPager(PAGE_SIZE, MAX_PAGES,
+            FetchPolicy.DEFAULT.prefetchDistance);
+
+    /* Tells whether we are online and how much to fetch on the network */
+    private NetworkMonitor mNetworkMonitor;
+
+    /* How much to fetch on the current network */
+    private FetchPolicy mPolicy = FetchPolicy.DEFAULT;
+
+    /* True if the first page was delivered while offline, so it is fetched once we are back */
+    private boolean mLoadedOffline;
+
+    /* First page currently shown, to recognise when the loader delivers a fresher copy */
+    private List<News> mFirstPage;
+
+    /* Articles of all loaded pages, in list order */
+    private final ArrayList<News> mItems = new ArrayList<>();
+
+    /* Feed the articles in the list belong to */
+    private NewsFeed mFeed;
+
+    /* Views of the articles last loaded from the network, built when the feed first changes */
+    private NewsViewIndex mViewIndex;
+
+    /* Lays out the list and reports which rows are visible */
+    private LinearLayoutManager mLayoutManager;
+
+    /* Wait this long after the last keystroke before searching */
+    private static final long SEARCH_DEBOUNCE_MILLIS = 300;
+
+    /* Maximum number of local search hits shown while the remote search runs */
+    private static final int MAX_LOCAL_HITS = 50;
+
+    /* Articles from the local index shown until the results of the remote search arrive */
+    private List<News> mLocalHits = Collections.emptyList();
+
+    /* Saved state keys for mGeneration and the page size and prefetch distance of mPager */
+    private static final String STATE_GENERATION = "generation";
+    private static final String STATE_PAGE_SIZE = "pageSize";
+    private static final String STATE_PREFETCH_DISTANCE = "prefetchDistance";
+
+    /* Incremented for every new query; loaders of older queries are ignored */
+    private int mGeneration;
+
+    private final Handler mHandler = new Handler();
+
+    /* Rows whose articles are prefetched when the list has not been laid out yet */
+    private static final int ARTICLE_PREFETCH_ROWS = 10;
+
+    /* Direction of the last scroll, to prefetch the articles the user is heading for */
+    private boolean mScrollingDown = true;
+
+    /* First and last row whose thumbnails were last prefetched */
+    private int mThumbnailPrefetchFirst = -1;
+    private int mThumbnailPrefetchLast = -1;
+
+    /* Sends the text of the search box once the user stops typing */
+    private final Runnable mSearchRunnable = new Runnable() {
+        @Override
+        public void run() {
+            applySearch();
+        }
+    };
+
     @Override
     protected void onCreate(Bundle savedInstanceState) {
 
@@ -49,113 +130,564 @@ public class NewsActivity extends AppCompatActivity implements LoaderCallbacks<L
         // Inject the Views using the ButterKnife library
         ButterKnife.bind(this);
 
-        // Create a new adapter that takes an empty list of News as input
-        mAdapter = new NewsAdapter(this, new ArrayList<News>());
+        mNetworkMonitor = NetworkMonitor.getInstance(this);
+        refreshPolicy();
+        mFeed = NewsFeed.fromPreferences(this);
+        if (savedInstanceState != null) {
+            // Loaders kept across a configuration change still fetch pages of the previous
+            // size, so the pager goes on with it until the next query
+            mGeneration = savedInstanceState.getInt(STATE_GENERATION);
+            mPager.reset(savedInstanceState.getInt(STATE_PAGE_SIZE, PAGE_SIZE),
+                    savedInstanceState.getInt(STATE_PREFETCH_DISTANCE,
+                            FetchPolicy.DEFAULT.prefetchDistance));
+        } else {
+            // A fresh start picks the page size for the network
+            mPager.reset(mPolicy.pageSize, mPolicy.prefetchDistance);
+        }
+
+        // Search while the user types, once they pause for a moment
+        searchBox.setText(PreferenceManager.getDefaultSharedPreferences(this).getString(
+                getString(R.string.search_key_settings),
+                getString(R.string.settings_Search_default)));
+        searchBox.addTextChangedListener(new TextWatcher() {
+            @Override
+            public void beforeTextChanged(CharSequence s, int start, int count, int after) {
+            }
+
+            @Override
+            public void onTextChanged(CharSequence s, int start, int before, int count) {
+            }
+
+            @Override
+            public void afterTextChanged(Editable s) {
+                showLocalHits(s.toString().trim());
+                mHandler.removeCallbacks(mSearchRunnable);
+                mHandler.postDelayed(mSearchRunnable, SEARCH_DEBOUNCE_MILLIS);
+            }
+        });
+        searchBox.setOnEditorActionListener(new TextView.OnEditorActionListener() {
+            @Override
+            public boolean onEditorAction(TextView v, int actionId, KeyEvent event) {
+                if (actionId == EditorInfo.IME_ACTION_SEARCH) {
+                    mHandler.removeCallbacks(mSearchRunnable);
+                    applySearch();
+                    return true;
+                }
+                return false;
+            }
+        });
+
+        // Create a new adapter that opens the article that was clicked on in the reader
+        mAdapter = new NewsAdapter(new NewsAdapter.OnNewsClickListener() {
+            @Override
+            public void onNewsClick(News currentNews) {
+                startActivity(ArticleActivity.newIntent(NewsActivity.this, currentNews));
+            }
+        });
 
-        // Set the adapter on the {@link ListView}
+        // Set the adapter on the {@link RecyclerView}
         // so the list can be populated in the user interface
+        mLayoutManager = new LinearLayoutManager(this);
+        newsListView.setLayoutManager(mLayoutManager);
         newsListView.setAdapter(mAdapter);
 
-        // Set an item click listener on the ListView, which will send an intent to a web browser to
-        // open the article.
-        newsListView.setOnItemClickListener(new AdapterView.OnItemClickListener() {
+        // Prefetch the neighbouring page when the user scrolls close to either end of the list
+        newsListView.addOnScrollListener(new RecyclerView.OnScrollListener() {
             @Override
-            public void onItemClick(AdapterView<?> adapterView, View view, int position, long l) {
-                // Find the current news article that was clicked on
-                News currentNews = mAdapter.getItem(position);
+            public void onScrolled(RecyclerView recyclerView, int dx, int dy) {
+                int first = mLayoutManager.findFirstVisibleItemPosition();
+                int last = mLayoutManager.findLastVisibleItemPosition();
+                if (dy != 0 && first != RecyclerView.NO_POSITION) {
+                    mScrollingDown = dy > 0;
+                    prefetchThumbnails(first, last, mScrollingDown);
+                }
+                loadNeighbourPage();
+            }
 
-                // Convert the String URL into a URI object (to pass into the Intent constructor)
-                Uri newsUri = Uri.parse(currentNews.getUrl());
+            @Override
+            public void onScrollStateChanged(RecyclerView recyclerView, int newState) {
+                // Wait until the list comes to rest to see which articles the user looks at,
+                // and take the bandwidth measured while scrolling into account
+                if (newState == RecyclerView.SCROLL_STATE_IDLE) {
+                    refreshPolicy();
+                    prefetchArticles();
+                }
+            }
+        });
+
+        // Keep the feed fresh on the device while the app is not in use
+        PrefetchService.schedule(this);
+
+        // Start over from the first page whenever the search or order changes
+        PreferenceManager.getDefaultSharedPreferences(this)
+                .registerOnSharedPreferenceChangeListener(this);
+
+        // Get a reference to the LoaderManager to interact with loaders
+        LoaderManager loaderManager = getLoaderManager();
+
+        // Initialize the loader. Even without a connection it shows the news stored on the
+        // device from a previous visit.
+        Loader<List<News>> loader = loaderManager.initLoader(NEWS_LOADER_ID, null, this);
 
-                // Create a new intent to view the news URI
-                Intent websiteIntent = new Intent(Intent.ACTION_VIEW, newsUri);
+        // A loader kept across a configuration change may hold a feed the list had moved on
+        // from, e.g. to a view of its articles, which the new list cannot show without it
+        if (((NewsLoader) loader).getGeneration() != mGeneration) {
+            restartQuery();
+        }
+    }
+
+    /**
+     * Load the page after or before the loaded ones if the user is getting close to an end of
+     * the list.
+     */
+    private void loadNeighbourPage() {
+        int page = mPager.pageToLoad(mLayoutManager.findFirstVisibleItemPosition(),
+                mLayoutManager.findLastVisibleItemPosition(), mItems.size());
+        if (page != 0) {
+            Bundle args = new Bundle();
+            args.putInt(ARG_PAGE, page);
+            getLoaderManager().restartLoader(NEWS_PAGE_LOADER_ID, args, this);
+        }
+    }
 
-                // Send the intent to launch a new activity
-                startActivity(websiteIntent);
+    /**
+     * Load the thumbnails of the next screens of rows in the direction of scrolling, so they
+     * are on hand when the rows come into view. How many screens depends on the network.
+     */
+    private void prefetchThumbnails(int firstVisible, int lastVisible, boolean down) {
+        int screen = (lastVisible - firstVisible + 1) * mPolicy.thumbnailPrefetchScreens;
+        int first = down ? lastVisible + 1 : Math.max(0, firstVisible - screen);
+        int last = down ? lastVisible + screen : firstVisible - 1;
+        last = Math.min(mItems.size() - 1, last);
+        if (first == mThumbnailPrefetchFirst && last == mThumbnailPrefetchLast) {
+            return;
+        }
+        mThumbnailPrefetchFirst = first;
+        mThumbnailPrefetchLast = last;
+
+        // Nearest rows first
+        List<String> urls = new ArrayList<>();
+        for (int i = 0; i <= last - first; i++) {
+            String thumbnail = mItems.get(down ? first + i : last - i).getThumbnail();
+            if (thumbnail != null) {
+                urls.add(thumbnail);
             }
-        });
+        }
+        ThumbnailLoader.getInstance(this).prefetch(urls,
+                getResources().getDimensionPixelSize(R.dimen.thumbnail_width),
+                getResources().getDimensionPixelSize(R.dimen.thumbnail_height));
+    }
 
-        newsListView.setEmptyView(EmptyStateTextView);
+    /**
+     * Save the articles on screen and the next screen of them in the direction of scrolling
+     * for the reader, within the budget set in the settings.
+     */
+    private void prefetchArticles() {
+        if (mItems.isEmpty() || !mNetworkMonitor.isConnected() || !mPolicy.prefetchArticles) {
+            return;
+        }
+        int first = mLayoutManager.findFirstVisibleItemPosition();
+        int last = mLayoutManager.findLastVisibleItemPosition();
+        if (first == RecyclerView.NO_POSITION) {
+            first = 0;
+            last = ARTICLE_PREFETCH_ROWS - 1;
+        }
+        // Rows on screen first, then the ones the user is heading for, nearest first
+        List<String> urls = new ArrayList<>();
+        for (int i = first; i <= last && i < mItems.size(); i++) {
+            urls.add(mItems.get(i).getUrl());
+        }
+        int screen = last - first + 1;
+        for (int i = 1; i <= screen; i++) {
+            int row = mScrollingDown ? last + i : first - i;
+            if (row < 0 || row >= mItems.size()) {
+                break;
+            }
+            urls.add(mItems.get(row).getUrl());
+        }
+        ArticlePrefetcher.getInstance(this).prefetch(urls);
+    }
 
-        // Get a reference to the ConnectivityManager to check the state of network connectivity
-        ConnectivityManager connMgr = (ConnectivityManager) getSystemService(Context.CONNECTIVITY_SERVICE);
+    /**
+     * Pick up the fetch policy for the network as it is now, including the bandwidth measured
+     * since the last time.
+     */
+    private void refreshPolicy() {
+        FetchPolicy previous = mPolicy;
+        mPolicy = mNetworkMonitor.getPolicy();
+        ThumbnailLoader.getInstance(this).setDownloadsEnabled(mPolicy.downloadThumbnails);
+
+        // Rebind the rows on screen, whose thumbnails were not downloaded before
+        int first = mLayoutManager != null ? mLayoutManager.findFirstVisibleItemPosition()
+                : RecyclerView.NO_POSITION;
+        if (!previous.downloadThumbnails && mPolicy.downloadThumbnails
+                && first != RecyclerView.NO_POSITION) {
+            mAdapter.notifyItemRangeChanged(first,
+                    mLayoutManager.findLastVisibleItemPosition() - first + 1);
+        }
+    }
 
-        // Get details on the currently active default data network
-        NetworkInfo networkInfo = connMgr.getActiveNetworkInfo();
+    @Override
+    protected void onStart() {
+        super.onStart();
+        mNetworkMonitor.addListener(this);
+        // The network may have come back while the app was in the background
+        onNetworkChanged(mNetworkMonitor);
+    }
 
-        // If there is a network connection, fetch the data
-        if (networkInfo != null && networkInfo.isConnected()) {
-            // Get a reference to the LoaderManager to interact with loaders
-            LoaderManager loaderManager = getLoaderManager();
+    @Override
+    protected void onStop() {
+        super.onStop();
+        mNetworkMonitor.removeListener(this);
+    }
 
-            // Initialize the loader
-            loaderManager.initLoader(NEWS_LOADER_ID, null, this);
+    @Override
+    public void onNetworkChanged(NetworkMonitor monitor) {
+        refreshPolicy();
+        if (!monitor.isConnected()) {
+            return;
+        }
+        if (mLoadedOffline) {
+            // Replace the stored news, or the empty list, with the news of today
+            restartQuery();
         } else {
-            // Otherwise display an error message
-            loadingIndicator.setVisibility(View.GONE);
-
-            // Update empty state with no connection message
-            EmptyStateTextView.setText(R.string.no_connection);
+            // A page that failed while offline is requested again
+            loadNeighbourPage();
+            prefetchArticles();
         }
     }
 
     @Override
-    public Loader<List<News>> onCreateLoader(int i, Bundle bundle) {
+    protected void onSaveInstanceState(Bundle outState) {
+        super.onSaveInstanceState(outState);
+        outState.putInt(STATE_GENERATION, mGeneration);
+        outState.putInt(STATE_PAGE_SIZE, mPager.getPageSize());
+        outState.putInt(STATE_PREFETCH_DISTANCE, mPager.getPrefetchDistance());
+    }
+
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        mHandler.removeCallbacks(mSearchRunnable);
+        PreferenceManager.getDefaultSharedPreferences(this)
+                .unregisterOnSharedPreferenceChangeListener(this);
+    }
 
+    /**
+     * Store the text of the search box as the search preference, which starts a new query if
+     * it changed.
+     */
+    private void applySearch() {
+        String search = searchBox.getText().toString().trim();
         SharedPreferences sharedPreferences = PreferenceManager.getDefaultSharedPreferences(this);
+        String key = getString(R.string.search_key_settings);
+        if (!search.equals(sharedPreferences.getString(key, ""))) {
+            sharedPreferences.edit().putString(key, search).apply();
+        } else if (!mLocalHits.isEmpty()) {
+            // The text went back to the current search, which the local hits replaced
+            restartQuery();
+        }
+    }
 
-        String search = sharedPreferences.getString(
-                getString(R.string.search_key_settings),
-                getString(R.string.settings_Search_default));
+    /**
+     * Show the articles on the device that match the text right away, while the remote search
+     * has not even started yet.
+     */
+    private void showLocalHits(String search) {
+        if (search.isEmpty()) {
+            return;
+        }
+        List<News> hits = NewsIndex.getInstance().search(search, MAX_LOCAL_HITS);
+        if (hits.isEmpty()) {
+            return;
+        }
+
+        // Results of the query being replaced must not overwrite the hits
+        mGeneration++;
+        abortRequests(NEWS_LOADER_ID);
+        abortRequests(NEWS_PAGE_LOADER_ID);
+        // The articles of the old list are not worth their budget any more
+        ArticlePrefetcher.getInstance(this).cancel();
+        mPager.reset();
+        getLoaderManager().destroyLoader(NEWS_PAGE_LOADER_ID);
+
+        mLocalHits = hits;
+        mFirstPage = null;
+        mViewIndex = null;
+        mItems.clear();
+        mItems.addAll(hits);
+        loadingIndicator.setVisibility(View.GONE);
+        showItems();
+    }
+
+    @Override
+    public void onSharedPreferenceChanged(SharedPreferences sharedPreferences, String key) {
+        // The prefetch budget does not change the list
+        if (key.equals(getString(R.string.reader_budget_key_settings))) {
+            ArticlePrefetcher.getInstance(this).setMaxBytes(ArticlePrefetcher.getBudget(this));
+            return;
+        }
+
+        // Keep the search box in line with a search entered in the settings
+        if (key.equals(getString(R.string.search_key_settings))) {
+            String search = sharedPreferences.getString(key, "");
+            if (!search.equals(searchBox.getText().toString().trim())) {
+                searchBox.setText(search);
+            }
+        } else if (showLocalView()) {
+            // Another order or fewer sections, shown from the articles already loaded
+            return;
+        }
 
-        String orderBy = sharedPreferences.getString(
-                getString(R.string.order_by_key_settings),
-                getString(R.string.order_by_default_settings)
-        );
+        restartQuery();
+    }
 
-        Uri baseUri = Uri.parse(GUARDIAN_REQUEST_URL);
-        Uri.Builder uriBuilder = baseUri.buildUpon();
-        if(!search.equals("")) {
-            uriBuilder.appendQueryParameter("q", search);
-            orderBy = getString(R.string.order_by_relevance_value_settings);
+    /**
+     * Show the feed configured in the preferences as a view of the articles already loaded, if
+     * they hold what the feed starts with. Returns false if it has to be loaded instead.
+     */
+    private boolean showLocalView() {
+        if (mViewIndex == null) {
+            // Only the first pages of a feed tell what it starts with
+            if (mItems.isEmpty() || !mLocalHits.isEmpty() || mPager.getFirstPage() != 1) {
+                return false;
+            }
+            mViewIndex = new NewsViewIndex(mItems, mFeed.getSearch(),
+                    NewsViewIndex.Order.fromParameter(mFeed.getOrderBy()),
+                    mFeed.getSectionIds(), mPager.getPageSize(), mPager.isComplete());
         }
-        if (search.equals("") && orderBy.equals(getString(R.string.order_by_relevance_value_settings))) {
-            orderBy = getString(R.string.order_by_newest_value_settings);
+        NewsFeed feed = NewsFeed.fromPreferences(this);
+        NewsViewIndex.Result view = mViewIndex.serve(feed.getSearch(),
+                NewsViewIndex.Order.fromParameter(feed.getOrderBy()), feed.getSectionIds());
+        if (view == null) {
+            return false;
         }
 
-        uriBuilder.appendQueryParameter("order-by", orderBy);
+        // Pages of the previous feed that are still loading must not reach the list
+        mGeneration++;
+        abortRequests(NEWS_LOADER_ID);
+        abortRequests(NEWS_PAGE_LOADER_ID);
+        // The articles of the old list are not worth their budget any more
+        ArticlePrefetcher.getInstance(this).cancel();
+        getLoaderManager().destroyLoader(NEWS_PAGE_LOADER_ID);
+
+        // The next page to scroll to is the one after those the view stands for
+        mFeed = feed;
+        mFirstPage = null;
+        mPager.onListReplaced(view.pageItemCounts, view.hasMore);
+        mItems.clear();
+        mItems.addAll(view.stories);
+        showItems();
+        return true;
+    }
+
+    /**
+     * Start over from the first page of the current search, order and sections.
+     */
+    private void restartQuery() {
+        // Drop the requests of the previous query, including the socket and parser they use
+        mGeneration++;
+        abortRequests(NEWS_LOADER_ID);
+        abortRequests(NEWS_PAGE_LOADER_ID);
+        // The articles of the old list are not worth their budget any more
+        ArticlePrefetcher.getInstance(this).cancel();
+
+        // A new query is the moment the page size can follow the network
+        refreshPolicy();
+        mLoadedOffline = false;
+        mFeed = NewsFeed.fromPreferences(this);
+        mViewIndex = null;
+        mPager.reset(mPolicy.pageSize, mPolicy.prefetchDistance);
+        getLoaderManager().destroyLoader(NEWS_PAGE_LOADER_ID);
+        getLoaderManager().restartLoader(NEWS_LOADER_ID, null, this);
+    }
 
-        // Create a new loader for the URL
-        return new NewsLoader(this, uriBuilder.toString());
+    private void abortRequests(int loaderId) {
+        Loader<List<News>> loader = getLoaderManager().getLoader(loaderId);
+        if (loader != null) {
+            ((NewsLoader) loader).abortRequests();
+        }
+    }
+
+    @Override
+    public Loader<List<News>> onCreateLoader(int i, Bundle bundle) {
+        int page = bundle != null ? bundle.getInt(ARG_PAGE, 1) : 1;
+
+        NewsFeed feed = NewsFeed.fromPreferences(this);
+
+        // Only the first page is kept on the device, so the next launch can show it instantly
+        String storeKey = page == 1 ? feed.getStoreKey() : null;
+
+        // Create a new loader for the sources
+        return new NewsLoader(this, feed.getSources(page, mPager.getPageSize(), true),
+                feed.getOrder(), page, storeKey, mGeneration);
     }
 
     @Override
     public void onLoadFinished(Loader<List<News>> loader, List<News> stories) {
-        // Hide the loading indicator once the data has been loaded
-        loadingIndicator.setVisibility(View.GONE);
+        NewsLoader newsLoader = (NewsLoader) loader;
+        if (showLoaded(newsLoader, stories)) {
+            // From the end of the background work until the adapter has the new list
+            LatencyTracker.getInstance().record(LatencyTracker.Stage.DELIVER,
+                    System.nanoTime() - newsLoader.getResultNanos());
+        }
+    }
 
-        // Set the empty state text to display "No news found"
-        EmptyStateTextView.setText(R.string.no_news);
+    /**
+     * Put the result of the loader into the list, and return true if the list was updated.
+     */
+    private boolean showLoaded(NewsLoader loader, List<News> stories) {
+        // Results of a query the user has moved on from never reach the list
+        if (loader.getGeneration() != mGeneration) {
+            return false;
+        }
+
+        // Views are built again from the articles as they are now
+        mViewIndex = null;
+
+        int page = loader.getPage();
+
+        // The first page arrives a second time once stored news have been revalidated
+        if (loader.getId() == NEWS_LOADER_ID && mPager.getPageCount() > 0) {
+            return stories != null && stories != mFirstPage && replaceFirstPage(stories);
+        }
+
+        // Ignore pages the pager is no longer waiting for, e.g. redelivered results
+        if (!mPager.isExpected(page)) {
+            return false;
+        }
+
+        if (stories == null) {
+            mPager.onPageFailed(page);
+            stories = new ArrayList<>();
+            if (mPager.getPageCount() > 0) {
+                return false;
+            }
+        }
+
+        if (mPager.getPageCount() == 0) {
+            // Hide the loading indicator once the data has been loaded
+            loadingIndicator.setVisibility(View.GONE);
+
+            // Set the empty state text to display "No news found", or explain that there is
+            // no connection if nothing was stored either
+            boolean connected = mNetworkMonitor.isConnected();
+            EmptyStateTextView.setText(connected ? R.string.no_news : R.string.no_connection);
+            mLoadedOffline = !connected;
+
+            // Without remote results, e.g. offline, the local hits are the best answer
+            if (stories.isEmpty() && !mLocalHits.isEmpty()) {
+                return false;
+            }
+            mLocalHits = Collections.emptyList();
+            mFirstPage = stories;
+
+            // Clear the list of the news of a previous query
+            mItems.clear();
+            if (stories.isEmpty()) {
+                showItems();
+                return true;
+            }
+        }
+
+        if (mPager.isBeforeWindow(page)) {
+            prependPage(page, stories);
+        } else {
+            appendPage(page, stories);
+        }
+        return true;
+    }
+
+    /**
+     * Swap the first page for a fresher copy without touching the pages after it, and return
+     * false if the first page is no longer in the list.
+     */
+    private boolean replaceFirstPage(List<News> stories) {
+        int previous = mPager.getFirstPageItemCount();
+        if (previous < 0) {
+            return false;
+        }
+        mFirstPage = stories;
+
+        mItems.subList(0, previous).clear();
+        List<News> fresh = withoutDuplicates(stories);
+        mItems.addAll(0, fresh);
+        mPager.onFirstPageReplaced(stories.size(), fresh.size());
+        showItems();
+        return true;
+    }
+
+    /**
+     * Add a page after the loaded ones, dropping the oldest page if the list is full.
+     */
+    private void appendPage(int page, List<News> stories) {
+        List<News> fresh = withoutDuplicates(stories);
+        // Whether there is more depends on what the server sent, not on what was new to us
+        int dropped = mPager.onPageAppended(page, stories.size(), fresh.size());
+
+        mItems.addAll(fresh);
+        mItems.subList(0, dropped).clear();
+        showItems();
+    }
 
-        // Clear the adapter of previous news data
-        mAdapter.clear();
+    /**
+     * Add a page before the loaded ones, dropping the newest page if the list is full.
+     */
+    private void prependPage(int page, List<News> stories) {
+        List<News> fresh = withoutDuplicates(stories);
+        int dropped = mPager.onPagePrepended(page, fresh.size());
 
-        // If there is a valid list of {@link News}, add them to the adapter's
-        // data set. This will update the ListView.
-        if (stories != null && !stories.isEmpty()) {
-            mAdapter.addAll(stories);
+        mItems.addAll(0, fresh);
+        mItems.subList(mItems.size() - dropped, mItems.size()).clear();
+        showItems();
+    }
+
+    /**
+     * Return the stories that are not in the list yet. Results shift between pages while new
+     * articles are published, and the list must not show an article twice.
+     */
+    private List<News> withoutDuplicates(List<News> stories) {
+        Set<String> urls = new HashSet<>();
+        for (int i = 0; i < mItems.size(); i++) {
+            urls.add(mItems.get(i).getUrl());
         }
+        List<News> fresh = new ArrayList<>(stories.size());
+        for (int i = 0; i < stories.size(); i++) {
+            News news = stories.get(i);
+            if (urls.add(news.getUrl())) {
+                fresh.add(news);
+            }
+        }
+        return fresh;
+    }
+
+    /**
+     * Hand a snapshot of the list to the adapter, which works out the changed rows in the
+     * background, and show the empty view if there is nothing to show.
+     */
+    private void showItems() {
+        mAdapter.submitList(new ArrayList<>(mItems));
+        EmptyStateTextView.setVisibility(mItems.isEmpty() ? View.VISIBLE : View.GONE);
+        prefetchArticles();
     }
 
     @Override
     public void onLoaderReset(Loader<List<News>> loader) {
         // Loader reset to clear existing data
-        mAdapter.clear();
+        if (loader.getId() == NEWS_LOADER_ID) {
+            mPager.reset();
+            mFirstPage = null;
+            mViewIndex = null;
+            mItems.clear();
+            mAdapter.submitList(null);
+        }
     }
 
     @Override
     public boolean onCreateOptionsMenu(Menu menu) {
         getMenuInflater().inflate(R.menu.main, menu);
+        // The latency screen is a tool for developers
+        menu.findItem(R.id.latency_action).setVisible(BuildConfig.DEBUG);
         return true;
     }
 
@@ -167,6 +699,10 @@ public class NewsActivity extends AppCompatActivity implements LoaderCallbacks<L
             startActivity(settingsIntent);
             return true;
         }
+        if (id == R.id.latency_action) {
+            startActivity(new Intent(this, LatencyActivity.class));
+            return true;
+        }
         return super.onOptionsItemSelected(item);
     }
 }
\ No newline at end of file
@@ -1,113 +1,217 @@
 package com.example.android.newsapp;
 
-import android.content.Context;
-
+import android.support.annotation.NonNull;
+import android.support.v7.recyclerview.extensions.AsyncListDiffer;
+import android.support.v7.util.DiffUtil;
+import android.support.v7.widget.RecyclerView;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
-import android.widget.ArrayAdapter;
+import android.widget.ImageView;
 import android.widget.TextView;
 
-import java.text.SimpleDateFormat;
-import java.util.Date;
 import java.util.List;
+import java.util.Locale;
 
 import butterknife.BindView;
 import butterknife.ButterKnife;
 
 /**
  * Created by elizabethsotomayor on 7/11/18.
+ *
+ * {@link RecyclerView.Adapter} for the list of news articles. New lists are diffed against the
+ * current one on a background thread, so only the rows that actually changed are rebound.
  */
 
-public class NewsAdapter extends ArrayAdapter<News> {
-    @BindView(R.id.title) TextView titleView;
-    @BindView(R.id.name_section) TextView sectionView;
-    @BindView(R.id.author_name) TextView authorView;
+public class NewsAdapter extends RecyclerView.Adapter<NewsAdapter.NewsViewHolder> {
+
+    /* Receives clicks on a news article */
+    public interface OnNewsClickListener {
+        void onNewsClick(News news);
+    }
+
+    /* Two articles are the same item if they have the same URL */
+    private static final DiffUtil.ItemCallback<News> DIFF_CALLBACK =
+            new DiffUtil.ItemCallback<News>() {
+                @Override
+                public boolean areItemsTheSame(@NonNull News oldItem, @NonNull News newItem) {
+                    return oldItem.getUrl().equals(newItem.getUrl());
+                }
+
+                @Override
+                public boolean areContentsTheSame(@NonNull News oldItem, @NonNull News newItem) {
+                    return oldItem.getTitle().equals(newItem.getTitle())
+                            && oldItem.getSection().equals(newItem.getSection())
+                            && oldItem.getAuthor().equals(newItem.getAuthor())
+                            && oldItem.getPublishedMillis() == newItem.getPublishedMillis()
+                            && equal(oldItem.getThumbnail(), newItem.getThumbnail());
+                }
+            };
+
+    /* Computes the difference between the current and a new list off the main thread */
+    private final AsyncListDiffer<News> mDiffer = new AsyncListDiffer<>(this, DIFF_CALLBACK);
+
+    private final OnNewsClickListener mClickListener;
+
+    /* Supplies the date and time strings, which are normally computed before binding */
+    private final NewsFormatter mFormatter = NewsFormatter.getInstance(Locale.getDefault());
+
+    /* Loads the thumbnails; set when the first row is created */
+    private ThumbnailLoader mThumbnailLoader;
+
+    /* Size of the thumbnail views in pixels */
+    private int mThumbnailWidth;
+    private int mThumbnailHeight;
 
     /**
      * Construct a new {@link NewsAdapter}.
      *
-     * @param context of the app
-     * @param stories is the list of news stories, the data source of the adapter
+     * @param clickListener is notified when an article is clicked
      */
-    public NewsAdapter(Context context, List<News> stories) {
-        super(context, 0, stories);
+    public NewsAdapter(OnNewsClickListener clickListener) {
+        mClickListener = clickListener;
+        setHasStableIds(true);
     }
 
     /**
-     * Returns a list item view that displays information about the news story at the given position
-     * in the list of articles.
+     * Show the given list of news stories. The list must not be modified afterwards; pass a new
+     * list for every update.
      */
-    @Override
-    public View getView(int position, View convertView, ViewGroup parent) {
-        View listItemView = convertView;
-        if (listItemView == null) {
-            listItemView = LayoutInflater.from(getContext()).inflate(
-                    R.layout.news_list_item, parent, false);
-            ButterKnife.bind(this, listItemView);
-        }
-
-        // Find the news article at the given position in the list of news articles.
-        News currentNews = getItem(position);
+    public void submitList(List<News> stories) {
+        mDiffer.submitList(stories);
+    }
 
-        // Set titleView to current title
-        titleView.setText(currentNews.getTitle());
+    /**
+     * Return the news article at the given position in the list.
+     */
+    public News getItem(int position) {
+        return mDiffer.getCurrentList().get(position);
+    }
 
-        // Set sectionView to current section
-        sectionView.setText(currentNews.getSection());
+    @Override
+    public int getItemCount() {
+        return mDiffer.getCurrentList().size();
+    }
 
-        // Display author name of the current article in authorView
-        if(currentNews.getAuthor() != "") {
-            authorView.setText(currentNews.getAuthor());
+    /**
+     * Return an ID derived from the article URL, so it stays the same across reloads.
+     */
+    @Override
+    public long getItemId(int position) {
+        return stableId(getItem(position).getUrl());
+    }
 
-            // Set the author name as visible if it is available
-            authorView.setVisibility(View.VISIBLE);
-        } else {
-            // Set author view as gone if it is not available
-            authorView.setVisibility(View.GONE);
+    @Override
+    public NewsViewHolder onCreateViewHolder(ViewGroup parent, int viewType) {
+        if (mThumbnailLoader == null) {
+            mThumbnailLoader = ThumbnailLoader.getInstance(parent.getContext());
+            mThumbnailWidth = parent.getResources().getDimensionPixelSize(R.dimen.thumbnail_width);
+            mThumbnailHeight = parent.getResources().getDimensionPixelSize(R.dimen.thumbnail_height);
         }
+        View listItemView = LayoutInflater.from(parent.getContext()).inflate(
+                R.layout.news_list_item, parent, false);
+        return new NewsViewHolder(listItemView);
+    }
 
-        // Find the TextView with view ID date
-        TextView dateView = null;
-        TextView timeView = null;
-        if(currentNews.getDate() != null) {
-            dateView = listItemView.findViewById(R.id.date);
-            // Format the date string (i.e. "Nov 7, 2012")
-            String formattedDate = formatDate(currentNews.getDate()).concat(",");
-            // Display the date of the current news in the TextView
-            dateView.setText(formattedDate);
-
-            // Find the TextView with ID time
-            timeView = listItemView.findViewById(R.id.time);
-            // Format the time string (i.e. "2:50PM")
-            String formattedTime = formatTime(currentNews.getDate());
-            // Display the formatted time in the TextView
-            timeView.setText(formattedTime);
-
-            dateView.setVisibility(View.VISIBLE);
-            timeView.setVisibility(View.VISIBLE);
-        } else {
-            dateView.setVisibility(View.GONE);
-            timeView.setVisibility(View.GONE);
-        }
+    /**
+     * Displays information about the news story at the given position in the list of articles.
+     */
+    @Override
+    public void onBindViewHolder(NewsViewHolder holder, int position) {
+        holder.bind(getItem(position));
+    }
+
+    /**
+     * Stop loading the thumbnail of a row that scrolled off screen, so its image does not
+     * hold up the rows that are on screen now.
+     */
+    @Override
+    public void onViewRecycled(NewsViewHolder holder) {
+        mThumbnailLoader.cancel(holder.thumbnailView);
+        holder.thumbnailView.setImageDrawable(null);
+    }
 
-        // Return the list item view that is now showing the appropriate data
-        return listItemView;
+    private static boolean equal(String a, String b) {
+        return a == null ? b == null : a.equals(b);
     }
 
     /**
-     * Return the formatted date string (i.e. "Nov 7, 2012") from a Date object
+     * Return a 64-bit FNV-1a hash of the URL.
      */
-    private String formatDate(Date dateObject) {
-        SimpleDateFormat dateFormat = new SimpleDateFormat("LLL dd, yyyy");
-        return dateFormat.format(dateObject);
+    static long stableId(String url) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < url.length(); i++) {
+            hash ^= url.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        return hash;
     }
 
     /**
-     * Return a formatted date String from a Date object.
+     * Holds the views of a single news article row.
      */
-    private String formatTime(Date dateObject) {
-        SimpleDateFormat timeFormat = new SimpleDateFormat("h:mm a");
-        return timeFormat.format(dateObject);
+    class NewsViewHolder extends RecyclerView.ViewHolder implements View.OnClickListener {
+        @BindView(R.id.title) TextView titleView;
+        @BindView(R.id.name_section) TextView sectionView;
+        @BindView(R.id.author_name) TextView authorView;
+        @BindView(R.id.date) TextView dateView;
+        @BindView(R.id.time) TextView timeView;
+        @BindView(R.id.thumbnail) ImageView thumbnailView;
+
+        NewsViewHolder(View itemView) {
+            super(itemView);
+            ButterKnife.bind(this, itemView);
+            itemView.setOnClickListener(this);
+        }
+
+        void bind(News currentNews) {
+            // Set titleView to current title
+            titleView.setText(currentNews.getTitle());
+
+            // Show the thumbnail once it is loaded, or no image at all if the article has none
+            if (currentNews.getThumbnail() != null) {
+                thumbnailView.setVisibility(View.VISIBLE);
+                mThumbnailLoader.load(thumbnailView, currentNews.getThumbnail(),
+                        mThumbnailWidth, mThumbnailHeight);
+            } else {
+                mThumbnailLoader.cancel(thumbnailView);
+                thumbnailView.setImageDrawable(null);
+                thumbnailView.setVisibility(View.GONE);
+            }
+
+            // Set sectionView to current section
+            sectionView.setText(currentNews.getSection());
+
+            // Display author name of the current article in authorView
+            if (!currentNews.getAuthor().isEmpty()) {
+                authorView.setText(currentNews.getAuthor());
+
+                // Set the author name as visible if it is available
+                authorView.setVisibility(View.VISIBLE);
+            } else {
+                // Set author view as gone if it is not available
+                authorView.setVisibility(View.GONE);
+            }
+
+            // The date and time strings were formatted when the article was loaded
+            NewsFormatter.Display display = mFormatter.format(currentNews);
+            if (display.date != null) {
+                dateView.setText(display.date);
+                timeView.setText(display.time);
+                dateView.setVisibility(View.VISIBLE);
+                timeView.setVisibility(View.VISIBLE);
+            } else {
+                dateView.setVisibility(View.GONE);
+                timeView.setVisibility(View.GONE);
+            }
+        }
+
+        @Override
+        public void onClick(View view) {
+            int position = getAdapterPosition();
+            if (position != RecyclerView.NO_POSITION) {
+                mClickListener.onNewsClick(getItem(position));
+            }
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,152 @@
+package com.example.android.newsapp;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Fetches several {@link NewsSource}s at the same time and merges their articles into one
+ * feed, without duplicates and ordered by publication time.
+ *
+ * Sources run on a small shared pool, so a load takes about as long as its slowest source
+ * instead of the sum of all of them. The merged feed is reported after every completed
+ * source, so the first articles can be shown before the slowest source has answered.
+ */
+public class NewsAggregator {
+
+    /* Receives the merged feed each time another source has completed */
+    public interface Listener {
+        void onPartialResult(List<News> merged, int completedSources, int totalSources);
+    }
+
+    /* Maximum number of sources fetched at the same time, across all loads */
+    private static final int MAX_PARALLEL_SOURCES = 4;
+
+    private static final Executor SOURCE_EXECUTOR = Executors.newFixedThreadPool(
+            MAX_PARALLEL_SOURCES, new ThreadFactory() {
+                private final AtomicInteger count = new AtomicInteger();
+
+                @Override
+                public Thread newThread(Runnable runnable) {
+                    Thread thread = new Thread(runnable, "NewsSource #" + count.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+
+    private final Executor mExecutor;
+
+    /* Order of the merged feed */
+    private final Comparator<News> mOrder;
+
+    /**
+     * Construct an aggregator that runs sources on the shared pool.
+     */
+    public NewsAggregator(Comparator<News> order) {
+        this(SOURCE_EXECUTOR, order);
+    }
+
+    public NewsAggregator(Executor executor, Comparator<News> order) {
+        mExecutor = executor;
+        mOrder = order;
+    }
+
+    /**
+     * Return the merged feed if every source is still fresh in memory, or null otherwise.
+     */
+    public List<News> getCached(List<? extends NewsSource> sources) {
+        List<List<News>> results = new ArrayList<>(sources.size());
+        for (NewsSource source : sources) {
+            List<News> stories = source.getCached();
+            if (stories == null) {
+                return null;
+            }
+            results.add(stories);
+        }
+        return merge(results);
+    }
+
+    /**
+     * Fetch all sources and return the merged feed, or null if every source failed or the
+     * token was canceled. A single source is fetched on the calling thread and keeps its own
+     * order.
+     */
+    public List<News> fetchAll(List<? extends NewsSource> sources, Listener listener,
+                               final CancellationToken token) throws InterruptedException {
+        if (sources.size() == 1) {
+            return sources.get(0).fetch(token);
+        }
+
+        CompletionService<List<News>> completion = new ExecutorCompletionService<>(mExecutor);
+        List<Future<List<News>>> futures = new ArrayList<>(sources.size());
+        for (final NewsSource source : sources) {
+            futures.add(completion.submit(new Callable<List<News>>() {
+                @Override
+                public List<News> call() {
+                    return source.fetch(token);
+                }
+            }));
+        }
+
+        List<List<News>> results = new ArrayList<>(sources.size());
+        try {
+            for (int completed = 1; completed <= sources.size(); completed++) {
+                List<News> stories;
+                try {
+                    stories = completion.take().get();
+                } catch (ExecutionException e) {
+                    // A crashing source counts as a failed one
+                    stories = null;
+                }
+                if (token.isCanceled()) {
+                    return null;
+                }
+                if (stories != null) {
+                    results.add(stories);
+                    if (listener != null && completed < sources.size()) {
+                        listener.onPartialResult(merge(results), completed, sources.size());
+                    }
+                }
+            }
+        } finally {
+            // Stop whatever is still running when the load is interrupted
+            for (Future<List<News>> future : futures) {
+                future.cancel(true);
+            }
+        }
+        return results.isEmpty() ? null : merge(results);
+    }
+
+    /**
+     * Merge the results into one unmodifiable list without duplicate URLs, in feed order.
+     */
+    private List<News> merge(List<List<News>> results) {
+        if (results.size() == 1) {
+            return results.get(0);
+        }
+        Map<String, News> byUrl = new LinkedHashMap<>();
+        for (List<News> stories : results) {
+            for (int i = 0; i < stories.size(); i++) {
+                News news = stories.get(i);
+                if (!byUrl.containsKey(news.getUrl())) {
+                    byUrl.put(news.getUrl(), news);
+                }
+            }
+        }
+        List<News> merged = new ArrayList<>(byUrl.values());
+        Collections.sort(merged, mOrder);
+        return Collections.unmodifiableList(merged);
+    }
+}
@@ -0,0 +1,25 @@
+package com.example.android.newsapp;
+
+import android.app.Application;
+import android.content.ComponentCallbacks2;
+
+/**
+ * Releases the memory of the process-wide caches when the system asks for it, whether or not
+ * an activity is running, e.g. while only the background prefetch is.
+ */
+public class NewsApplication extends Application {
+
+    @Override
+    public void onTrimMemory(int level) {
+        super.onTrimMemory(level);
+        ThumbnailLoader.getInstance(this).onTrimMemory(level);
+        // From TRIM_MEMORY_MODERATE on the process is next in line to be killed, so cached
+        // news are worth nothing; from TRIM_MEMORY_RUNNING_LOW up to there, including
+        // TRIM_MEMORY_UI_HIDDEN and TRIM_MEMORY_BACKGROUND, half of them are given up
+        if (level >= ComponentCallbacks2.TRIM_MEMORY_MODERATE) {
+            NewsCache.getInstance().onTrimMemory(true);
+        } else if (level >= ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW) {
+            NewsCache.getInstance().onTrimMemory(false);
+        }
+    }
+}
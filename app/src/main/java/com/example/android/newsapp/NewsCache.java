@@ -0,0 +1,180 @@
+package com.example.android.newsapp;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Process-wide in-memory LRU cache of parsed {@link News} lists, keyed by the normalized
+ * request URL.
+ *
+ * The cache is bounded by the total number of articles it holds, every entry expires after
+ * a fixed time, and the whole cache can be trimmed when the system runs low on memory.
+ * Entries are held as compact {@link NewsList}s and turned back into articles on a hit.
+ */
+public class NewsCache {
+
+    /* Maximum number of articles held across all entries */
+    private static final int DEFAULT_MAX_ARTICLES = 500;
+
+    /* How long an entry may be served, in milliseconds */
+    private static final long DEFAULT_TTL_MILLIS = 5 * 60 * 1000;
+
+    private static final NewsCache INSTANCE = new NewsCache(DEFAULT_MAX_ARTICLES, DEFAULT_TTL_MILLIS);
+
+    /* A cached result and the time it stops being fresh */
+    private static final class Entry {
+        final NewsList stories;
+        final long expiresAt;
+
+        Entry(NewsList stories, long expiresAt) {
+            this.stories = stories;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    /* Immutable snapshot of the cache counters */
+    public static final class Stats {
+        public final long hits;
+        public final long misses;
+        public final long evictions;
+        public final long expirations;
+        public final int size;
+
+        Stats(long hits, long misses, long evictions, long expirations, int size) {
+            this.hits = hits;
+            this.misses = misses;
+            this.evictions = evictions;
+            this.expirations = expirations;
+            this.size = size;
+        }
+
+        @Override
+        public String toString() {
+            return "hits=" + hits + " misses=" + misses + " evictions=" + evictions
+                    + " expirations=" + expirations + " size=" + size;
+        }
+    }
+
+    /* Entries in access order, least recently used first */
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    private final int maxArticles;
+    private final long ttlMillis;
+
+    /* Number of articles currently held */
+    private int size;
+
+    private long hits;
+    private long misses;
+    private long evictions;
+    private long expirations;
+
+    public NewsCache(int maxArticles, long ttlMillis) {
+        this.maxArticles = maxArticles;
+        this.ttlMillis = ttlMillis;
+    }
+
+    /**
+     * Return the process-wide cache.
+     */
+    public static NewsCache getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Return the fresh cached result for the URL, or null if there is none.
+     */
+    public synchronized List<News> get(String url) {
+        String key = normalize(url);
+        Entry entry = entries.get(key);
+        if (entry != null && entry.expiresAt <= System.currentTimeMillis()) {
+            entries.remove(key);
+            size -= entry.stories.size();
+            expirations++;
+            entry = null;
+        }
+        if (entry == null) {
+            misses++;
+            return null;
+        }
+        hits++;
+        // The articles carry the display strings formatted for them, so hand out real ones
+        return Collections.unmodifiableList(new ArrayList<>(entry.stories));
+    }
+
+    /**
+     * Cache a compact copy of the result for the URL.
+     */
+    public void put(String url, List<News> stories) {
+        if (stories.size() > maxArticles) {
+            return;
+        }
+        NewsList compact = NewsList.copyOf(stories);
+        synchronized (this) {
+            Entry previous = entries.put(normalize(url),
+                    new Entry(compact, System.currentTimeMillis() + ttlMillis));
+            if (previous != null) {
+                size -= previous.stories.size();
+            }
+            size += compact.size();
+            trimToSize(maxArticles);
+        }
+    }
+
+    /**
+     * Evict least recently used entries until at most the given number of articles is held.
+     */
+    public synchronized void trimToSize(int maxSize) {
+        Iterator<Map.Entry<String, Entry>> iterator = entries.entrySet().iterator();
+        while (size > maxSize && iterator.hasNext()) {
+            Entry entry = iterator.next().getValue();
+            iterator.remove();
+            size -= entry.stories.size();
+            evictions++;
+        }
+    }
+
+    /**
+     * Release memory in response to a trim request from the system: empty the cache if the
+     * request is severe, and halve it otherwise. {@link NewsApplication} decides which trim
+     * levels are severe.
+     */
+    public synchronized void onTrimMemory(boolean severe) {
+        trimToSize(severe ? 0 : size / 2);
+    }
+
+    /**
+     * Return a snapshot of the cache counters.
+     */
+    public synchronized Stats getStats() {
+        return new Stats(hits, misses, evictions, expirations, size);
+    }
+
+    /**
+     * Return the URL with its query parameters in a stable order and empty parameters removed,
+     * so the same query always maps to the same key.
+     */
+    static String normalize(String url) {
+        int queryStart = url.indexOf('?');
+        if (queryStart < 0) {
+            return url;
+        }
+        String[] params = url.substring(queryStart + 1).split("&");
+        Arrays.sort(params);
+        StringBuilder key = new StringBuilder(url.length());
+        key.append(url, 0, queryStart);
+        char separator = '?';
+        for (String param : params) {
+            if (!param.isEmpty()) {
+                key.append(separator).append(param);
+                separator = '&';
+            }
+        }
+        return key.toString();
+    }
+}
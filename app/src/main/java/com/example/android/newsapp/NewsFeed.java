@@ -0,0 +1,136 @@
+package com.example.android.newsapp;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.preference.PreferenceManager;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * The feed the user configured in the settings: the search, order and sections, and the
+ * Guardian requests that fetch it. Shared by the list and the background prefetch, so both
+ * use the same URLs and the same key in the {@link NewsStore}.
+ */
+public class NewsFeed {
+
+    /* Type of the tags that name the authors of an article */
+    private static final String CONTRIBUTOR_TAGS = "contributor";
+
+    /* Extra field carrying the URL of the thumbnail image of an article */
+    private static final String THUMBNAIL_FIELD = "thumbnail";
+
+    private final String mSearch;
+    private final String mOrderBy;
+    private final Comparator<News> mOrder;
+
+    /* Sorted section IDs, or a single null for all sections */
+    private final List<String> mSectionIds;
+
+    private NewsFeed(String search, String orderBy, Comparator<News> order,
+                     List<String> sectionIds) {
+        mSearch = search;
+        mOrderBy = orderBy;
+        mOrder = order;
+        mSectionIds = sectionIds;
+    }
+
+    /**
+     * Return the feed configured in the default shared preferences.
+     */
+    public static NewsFeed fromPreferences(Context context) {
+        SharedPreferences sharedPreferences = PreferenceManager.getDefaultSharedPreferences(context);
+
+        String search = sharedPreferences.getString(
+                context.getString(R.string.search_key_settings),
+                context.getString(R.string.settings_Search_default));
+
+        String orderBy = sharedPreferences.getString(
+                context.getString(R.string.order_by_key_settings),
+                context.getString(R.string.order_by_default_settings)
+        );
+
+        Set<String> sections = sharedPreferences.getStringSet(
+                context.getString(R.string.sections_key_settings), Collections.<String>emptySet());
+
+        if(!search.equals("")) {
+            orderBy = context.getString(R.string.order_by_relevance_value_settings);
+        }
+        if (search.equals("") && orderBy.equals(context.getString(R.string.order_by_relevance_value_settings))) {
+            orderBy = context.getString(R.string.order_by_newest_value_settings);
+        }
+
+        // Merged sections keep the chosen order by publication time
+        Comparator<News> order = orderBy.equals(context.getString(R.string.order_by_oldest_value_settings))
+                ? Collections.reverseOrder(News.NEWEST_FIRST) : News.NEWEST_FIRST;
+
+        // Fan out to one source per selected section, or a single source for all sections
+        List<String> sectionIds = new ArrayList<>(sections);
+        Collections.sort(sectionIds);
+        if (sectionIds.isEmpty()) {
+            sectionIds.add(null);
+        }
+        return new NewsFeed(search, orderBy, order, sectionIds);
+    }
+
+    /**
+     * Return one source per section for the given page of the feed.
+     *
+     * @param hedge is true if the user is waiting for the page, and false for background work
+     */
+    public List<NewsSource> getSources(int page, int pageSize, boolean hedge) {
+        List<NewsSource> sources = new ArrayList<>(mSectionIds.size());
+        for (String section : mSectionIds) {
+            // The default fields, the thumbnail and the contributor tags are all a News is made of
+            GuardianQuery query = new GuardianQuery.Builder()
+                    .search(mSearch)
+                    .section(section)
+                    .orderBy(mOrderBy)
+                    .page(page)
+                    .pageSize(pageSize)
+                    .showFields(THUMBNAIL_FIELD)
+                    .showTags(CONTRIBUTOR_TAGS)
+                    .build();
+            sources.add(new GuardianSource(query, hedge));
+        }
+        return sources;
+    }
+
+    /**
+     * Return the search terms, or an empty string for none.
+     */
+    public String getSearch() {
+        return mSearch;
+    }
+
+    /**
+     * Return the order-by parameter of the requests, e.g. "newest".
+     */
+    public String getOrderBy() {
+        return mOrderBy;
+    }
+
+    /**
+     * Return the sorted IDs of the sections of the feed, or none for all sections.
+     */
+    public List<String> getSectionIds() {
+        return mSectionIds.get(0) == null ? Collections.<String>emptyList() : mSectionIds;
+    }
+
+    /**
+     * Return the order of the merged feed.
+     */
+    public Comparator<News> getOrder() {
+        return mOrder;
+    }
+
+    /**
+     * Return the key of the first page of the feed in the {@link NewsStore}.
+     */
+    public String getStoreKey() {
+        return mSearch + "|" + mOrderBy + "|" + mSectionIds;
+    }
+}
@@ -1,46 +1,234 @@
 package com.example.android.newsapp;
 
-import android.content.AsyncTaskLoader;
 import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
 
+import java.io.File;
+import java.io.IOException;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Locale;
 
 /**
- * Loads a list of news articles by using an AsyncTask to perform a
- * network request to a URL.
+ * Loads a list of news articles by performing network requests to one or more
+ * {@link NewsSource}s in the visible lane of the {@link TaskScheduler}.
  */
-public class NewsLoader extends AsyncTaskLoader<List<News>> {
+public class NewsLoader extends ScheduledLoader<List<News>> {
 
     /* Tag for log messages */
     private static final String LOG_TAG = NewsLoader.class.getName();
 
-    /* Query URL */
-    private String mUrl;
+    /* How long stored news may be shown on startup, in milliseconds */
+    private static final long STORE_TTL_MILLIS = 24 * 60 * 60 * 1000;
+
+    /* Most queries whose first page is kept; every search typed is one */
+    private static final int MAX_STORE_ENTRIES = 50;
+
+    /* Process-wide persistent store, created on first use */
+    private static NewsStore sStore;
+
+    /* Sources of the news to load */
+    private final List<NewsSource> mSources;
+
+    /* Fetches the sources in parallel and merges their results */
+    private final NewsAggregator mAggregator;
+
+    /* Key of the query in the persistent store, or null if this page is not stored */
+    private final String mStoreKey;
+
+    /* Used to deliver interim news while the network requests are still running */
+    private final Handler mMainHandler = new Handler(Looper.getMainLooper());
+
+    /* Page of the results that is requested from the sources */
+    private final int mPage;
+
+    /* Result of the last load, delivered again when the loader is restarted */
+    private List<News> mStories;
+
+    /* Query the loader was created for, to recognise results of superseded queries */
+    private final int mGeneration;
+
+    /* When the latest result was ready to be delivered, from System.nanoTime() */
+    private volatile long mResultNanos;
+
+    /**
+     * Construct a new {@link NewsLoader}. If a store key is given, the stored news for that key
+     * are delivered first and then replaced by the result of the network requests, and the
+     * merged feed is delivered each time another source has completed.
+     *
+     * @param order      is the order of the feed when more than one source is merged
+     * @param generation identifies the query the loader was created for
+     */
+    public NewsLoader(Context context, List<NewsSource> sources, Comparator<News> order,
+                      int page, String storeKey, int generation) {
+        super(context, TaskScheduler.Lane.VISIBLE);
+        mGeneration = generation;
+        mSources = sources;
+        mAggregator = new NewsAggregator(order);
+        mPage = page;
+        mStoreKey = storeKey;
+    }
+
+    /**
+     * Return the process-wide persistent news store.
+     */
+    static synchronized NewsStore getStore(Context context) {
+        if (sStore == null) {
+            File directory = new File(context.getApplicationContext().getCacheDir(), "news");
+            sStore = new NewsStore(directory, STORE_TTL_MILLIS, MAX_STORE_ENTRIES);
+        }
+        return sStore;
+    }
+
+    /**
+     * Return the query the loader was created for.
+     */
+    public int getGeneration() {
+        return mGeneration;
+    }
+
+    /**
+     * Close the sockets and stop the parsers of the load that is running, or drop it from the
+     * queue if it has not started yet. Its result is never delivered. Must be called on the
+     * main thread.
+     */
+    public void abortRequests() {
+        cancelTask();
+    }
+
+    /**
+     * Return when the latest result was ready to be delivered, from System.nanoTime().
+     */
+    public long getResultNanos() {
+        return mResultNanos;
+    }
 
     /**
-     * Construct a new {@link NewsLoader}.
+     * Return the page of the results this loader fetches.
      */
-    public NewsLoader(Context context, String url) {
-        super(context);
-        mUrl = url;
+    public int getPage() {
+        return mPage;
     }
 
     @Override
     protected void onStartLoading() {
-        forceLoad();
+        if (mStories != null) {
+            mResultNanos = System.nanoTime();
+            deliverResult(mStories);
+        } else {
+            forceLoad();
+        }
+    }
+
+    @Override
+    public void deliverResult(List<News> stories) {
+        mStories = stories;
+        super.deliverResult(stories);
+    }
+
+    @Override
+    protected void onReset() {
+        super.onReset();
+        mStories = null;
     }
 
     /**
      * This will run on a background thread.
      */
     @Override
-    public List<News> loadInBackground() {
-        if (mUrl == null) {
+    protected List<News> loadInBackground(CancellationToken cancellation) {
+        return loadNews(cancellation);
+    }
+
+    @Override
+    protected List<News> prepareInBackground(List<News> stories) {
+        if (stories != null) {
+            // Format the display strings here, so binding rows never has to
+            NewsFormatter.getInstance(Locale.getDefault()).prepare(stories);
+        }
+        mResultNanos = System.nanoTime();
+        return stories;
+    }
+
+    private List<News> loadNews(CancellationToken cancellation) {
+        if (mSources.isEmpty()) {
             return null;
         }
 
-        // Perform a network request, parse the response, and extract a list of news articles.
-        List<News> stories = QueryUtils.fetchNewsData(mUrl);
+        // Repeat queries within the freshness window skip the network and the parser
+        List<News> cached = mAggregator.getCached(mSources);
+        if (cached != null) {
+            for (int i = 0; i < mSources.size(); i++) {
+                LatencyTracker.getInstance().recordCacheHit();
+            }
+            return cached;
+        }
+
+        // Show the stored news right away while they are revalidated over the network
+        List<News> stored = null;
+        if (mStoreKey != null && mStories == null) {
+            stored = getStore(getContext()).read(mStoreKey);
+            if (stored != null) {
+                NewsIndex.getInstance().addAll(stored);
+                deliverInterim(stored);
+            }
+        }
+
+        if (!NetworkMonitor.getInstance(getContext()).isConnected()) {
+            return stored;
+        }
+
+        // Without stored news to look at, show the articles of the sources that answered first
+        NewsAggregator.Listener listener = null;
+        if (mStoreKey != null && stored == null) {
+            listener = new NewsAggregator.Listener() {
+                @Override
+                public void onPartialResult(List<News> merged, int completedSources,
+                                            int totalSources) {
+                    deliverInterim(merged);
+                }
+            };
+        }
+
+        // Perform the network requests, parse the responses, and merge the news articles.
+        List<News> stories;
+        try {
+            stories = mAggregator.fetchAll(mSources, listener, cancellation);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return stored;
+        }
+        if (stories == null || cancellation.isCanceled()) {
+            return stored;
+        }
+
+        if (mStoreKey != null) {
+            try {
+                getStore(getContext()).write(mStoreKey, stories);
+            } catch (IOException e) {
+                Log.e(LOG_TAG, "Problem storing news.", e);
+            }
+        }
         return stories;
     }
-}
\ No newline at end of file
+
+    /**
+     * Deliver news that will be replaced by the final result, on the main thread and only
+     * while the loader is still started.
+     */
+    private void deliverInterim(final List<News> stories) {
+        NewsFormatter.getInstance(Locale.getDefault()).prepare(stories);
+        final long resultNanos = System.nanoTime();
+        mMainHandler.post(new Runnable() {
+            @Override
+            public void run() {
+                if (isStarted() && !isAbandoned()) {
+                    mResultNanos = resultNanos;
+                    deliverResult(stories);
+                }
+            }
+        });
+    }
+}
@@ -0,0 +1,216 @@
+package com.example.android.newsapp;
+
+/**
+ * Keeps track of which pages of the Guardian results are loaded into the list.
+ *
+ * Only a window of at most {@code maxPages} consecutive pages is kept in memory. When the
+ * user scrolls close to either end of that window the pager asks for the neighbouring page,
+ * and once that page arrives the page at the opposite end is dropped again. The page size
+ * and the distance at which to prefetch can change whenever the pager starts over.
+ */
+public class NewsPager {
+
+    /* Number of results requested per page */
+    private int pageSize;
+
+    /* Maximum number of pages kept in the list at the same time */
+    private final int maxPages;
+
+    /* Start prefetching when the user is this many rows away from an end of the list */
+    private int prefetchDistance;
+
+    /* Number of items in each loaded page, oldest page first */
+    private final int[] pageItemCounts;
+
+    /* Page number of the first loaded page, or 0 if nothing is loaded */
+    private int firstPage;
+
+    /* Number of loaded pages */
+    private int pageCount;
+
+    /* Page currently being loaded, or 0 if none */
+    private int pendingPage;
+
+    /* Whether the server has more pages after the last loaded one */
+    private boolean hasMore;
+
+    public NewsPager(int pageSize, int maxPages, int prefetchDistance) {
+        this.pageSize = pageSize;
+        this.maxPages = maxPages;
+        this.prefetchDistance = prefetchDistance;
+        pageItemCounts = new int[maxPages];
+        reset();
+    }
+
+    /**
+     * Forget all loaded pages and use the given page size and prefetch distance from now on.
+     */
+    public void reset(int pageSize, int prefetchDistance) {
+        this.pageSize = pageSize;
+        this.prefetchDistance = prefetchDistance;
+        reset();
+    }
+
+    /**
+     * Forget all loaded pages, for example because the query changed.
+     */
+    public void reset() {
+        firstPage = 0;
+        pageCount = 0;
+        pendingPage = 0;
+        hasMore = true;
+    }
+
+    public int getPageSize() {
+        return pageSize;
+    }
+
+    public int getPrefetchDistance() {
+        return prefetchDistance;
+    }
+
+    /**
+     * Return the number of the page that should be loaded for the given visible range, or 0 if
+     * no page needs to be loaded. The returned page is remembered as pending until it arrives.
+     */
+    public int pageToLoad(int firstVisible, int lastVisible, int totalItems) {
+        if (pendingPage != 0 || pageCount == 0) {
+            return 0;
+        }
+        if (hasMore && lastVisible >= totalItems - 1 - prefetchDistance) {
+            pendingPage = firstPage + pageCount;
+        } else if (firstPage > 1 && firstVisible <= prefetchDistance) {
+            pendingPage = firstPage - 1;
+        }
+        return pendingPage;
+    }
+
+    /**
+     * Return true if a page with the given number is expected by the pager.
+     */
+    public boolean isExpected(int page) {
+        return page == pendingPage || (page == 1 && pageCount == 0);
+    }
+
+    /**
+     * Mark the page currently being loaded as failed so it can be requested again.
+     */
+    public void onPageFailed(int page) {
+        if (page == pendingPage) {
+            pendingPage = 0;
+        }
+    }
+
+    /**
+     * Return true if the given page goes before the loaded window rather than after it.
+     */
+    public boolean isBeforeWindow(int page) {
+        return pageCount > 0 && page < firstPage;
+    }
+
+    /**
+     * Record that a page was appended to the end of the list. Returns the number of items that
+     * now have to be removed from the start of the list to stay within the page cap.
+     *
+     * @param resultCount is the number of results the server returned for the page
+     * @param itemCount   is the number of them added to the list, which leaves out articles
+     *                    that moved over from a neighbouring page while news were published
+     */
+    public int onPageAppended(int page, int resultCount, int itemCount) {
+        pendingPage = 0;
+        if (pageCount == 0) {
+            firstPage = page;
+        }
+        // A short page means there is nothing after it
+        hasMore = resultCount >= pageSize;
+        if (pageCount < maxPages) {
+            pageItemCounts[pageCount++] = itemCount;
+            return 0;
+        }
+        int dropped = pageItemCounts[0];
+        System.arraycopy(pageItemCounts, 1, pageItemCounts, 0, maxPages - 1);
+        pageItemCounts[maxPages - 1] = itemCount;
+        firstPage++;
+        return dropped;
+    }
+
+    /**
+     * Record that a page was inserted at the start of the list. Returns the number of items that
+     * now have to be removed from the end of the list to stay within the page cap.
+     */
+    public int onPagePrepended(int page, int itemCount) {
+        pendingPage = 0;
+        firstPage = page;
+        if (pageCount < maxPages) {
+            System.arraycopy(pageItemCounts, 0, pageItemCounts, 1, pageCount);
+            pageItemCounts[0] = itemCount;
+            pageCount++;
+            return 0;
+        }
+        int dropped = pageItemCounts[maxPages - 1];
+        System.arraycopy(pageItemCounts, 0, pageItemCounts, 1, maxPages - 1);
+        pageItemCounts[0] = itemCount;
+        // The page after the window was dropped, so it can be loaded again
+        hasMore = true;
+        return dropped;
+    }
+
+    /**
+     * Return the number of items in the first page, or -1 if the first page is no longer part
+     * of the loaded window.
+     */
+    public int getFirstPageItemCount() {
+        return pageCount == 0 || firstPage != 1 ? -1 : pageItemCounts[0];
+    }
+
+    /**
+     * Record that the first page was refreshed in place, e.g. after stored news were
+     * revalidated. The counts are those of {@link #onPageAppended(int, int, int)}.
+     */
+    public void onFirstPageReplaced(int resultCount, int itemCount) {
+        if (getFirstPageItemCount() < 0) {
+            return;
+        }
+        pageItemCounts[0] = itemCount;
+        if (pageCount == 1) {
+            hasMore = resultCount >= pageSize;
+        }
+    }
+
+    /**
+     * Record that the list was replaced with articles that stand for the first pages of another
+     * query, e.g. a view of the articles already loaded. The next page to load is the one after
+     * them.
+     *
+     * @param pageItemCounts are the number of articles on each of those pages, at most
+     *                       {@code maxPages} of them
+     */
+    public void onListReplaced(int[] pageItemCounts, boolean hasMore) {
+        reset();
+        int pages = Math.min(maxPages, pageItemCounts.length);
+        System.arraycopy(pageItemCounts, 0, this.pageItemCounts, 0, pages);
+        firstPage = 1;
+        pageCount = pages;
+        this.hasMore = hasMore;
+    }
+
+    public int getFirstPage() {
+        return firstPage;
+    }
+
+    public int getPageCount() {
+        return pageCount;
+    }
+
+    public boolean hasMore() {
+        return hasMore;
+    }
+
+    /**
+     * Return true if every page of the feed is loaded: the window starts at the first page and
+     * the server answered the last one with a short page.
+     */
+    public boolean isComplete() {
+        return pageCount > 0 && firstPage == 1 && !hasMore;
+    }
+}
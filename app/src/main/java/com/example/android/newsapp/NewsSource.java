@@ -0,0 +1,21 @@
+package com.example.android.newsapp;
+
+import java.util.List;
+
+/**
+ * A source of news articles that can be fetched as part of a single load, such as one
+ * Guardian section or search query.
+ */
+public interface NewsSource {
+
+    /**
+     * Return the articles of this source if they are still fresh in memory, or null.
+     */
+    List<News> getCached();
+
+    /**
+     * Fetch the articles of this source, or return null if that failed or the token was
+     * canceled. Called on a background thread.
+     */
+    List<News> fetch(CancellationToken token);
+}
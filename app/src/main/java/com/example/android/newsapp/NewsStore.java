@@ -0,0 +1,212 @@
+package com.example.android.newsapp;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Persistent on-device store of parsed {@link News}, one file per query.
+ *
+ * Entries older than the time-to-live are treated as missing and deleted when they are read.
+ * Every write also deletes the entries that expired since, and the oldest entries beyond the
+ * maximum number, so queries that are never asked again do not pile up. Files are written to
+ * a temporary file first and renamed into place, so a crash while writing never leaves a
+ * half-written entry behind.
+ */
+public class NewsStore {
+
+    /* Bump whenever the file layout changes; files with another version are ignored */
+    private static final int FORMAT_VERSION = 4;
+
+    /* Directory holding one file per query */
+    private final File directory;
+
+    /* How long an entry may be served, in milliseconds */
+    private final long ttlMillis;
+
+    /* Largest number of entries kept */
+    private final int maxEntries;
+
+    public NewsStore(File directory, long ttlMillis, int maxEntries) {
+        this.directory = directory;
+        this.ttlMillis = ttlMillis;
+        this.maxEntries = maxEntries;
+    }
+
+    /**
+     * Return the stored news for the query, or null if there is no entry or it has expired.
+     */
+    public synchronized List<News> read(String queryKey) {
+        File file = fileFor(queryKey);
+        if (!file.exists()) {
+            return null;
+        }
+        DataInputStream in = null;
+        try {
+            in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+            if (in.readInt() != FORMAT_VERSION || !in.readUTF().equals(queryKey)) {
+                return null;
+            }
+            long savedAt = in.readLong();
+            if (System.currentTimeMillis() - savedAt > ttlMillis) {
+                file.delete();
+                return null;
+            }
+            int count = in.readInt();
+            List<News> stories = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                String title = in.readUTF();
+                String sectionId = in.readUTF();
+                String section = in.readUTF();
+                long date = in.readLong();
+                String author = in.readUTF();
+                String url = in.readUTF();
+                String thumbnail = in.readBoolean() ? in.readUTF() : null;
+                stories.add(new News(title, sectionId, section, date, author, url, thumbnail));
+            }
+            return Collections.unmodifiableList(stories);
+        } catch (IOException e) {
+            // A truncated or corrupt entry is as good as a missing one
+            file.delete();
+            return null;
+        } finally {
+            closeQuietly(in);
+        }
+    }
+
+    /**
+     * Store the news for the query, replacing any previous entry, and prune the others.
+     */
+    public synchronized void write(String queryKey, List<News> stories) throws IOException {
+        if (!directory.exists() && !directory.mkdirs()) {
+            throw new IOException("Cannot create " + directory);
+        }
+        File file = fileFor(queryKey);
+        File temp = new File(directory, file.getName() + ".tmp");
+        DataOutputStream out = null;
+        try {
+            out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)));
+            out.writeInt(FORMAT_VERSION);
+            out.writeUTF(queryKey);
+            out.writeLong(System.currentTimeMillis());
+            out.writeInt(stories.size());
+            for (int i = 0; i < stories.size(); i++) {
+                News news = stories.get(i);
+                out.writeUTF(news.getTitle());
+                out.writeUTF(news.getSectionId());
+                out.writeUTF(news.getSection());
+                out.writeLong(news.getPublishedMillis());
+                out.writeUTF(news.getAuthor());
+                out.writeUTF(news.getUrl());
+                out.writeBoolean(news.getThumbnail() != null);
+                if (news.getThumbnail() != null) {
+                    out.writeUTF(news.getThumbnail());
+                }
+            }
+            out.close();
+            out = null;
+            if (!temp.renameTo(file)) {
+                throw new IOException("Cannot replace " + file);
+            }
+        } finally {
+            closeQuietly(out);
+            temp.delete();
+        }
+        prune(file);
+    }
+
+    /**
+     * Delete the expired entries and the oldest ones beyond the maximum number, except the
+     * given one. The modification time of a file is when it was written.
+     */
+    private void prune(File keep) {
+        File[] files = directory.listFiles();
+        if (files == null) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        List<File> entries = new ArrayList<>(files.length);
+        for (File file : files) {
+            if (file.equals(keep)) {
+                continue;
+            }
+            // Also catches temporary files left behind by a crash
+            if (now - file.lastModified() > ttlMillis) {
+                file.delete();
+            } else {
+                entries.add(file);
+            }
+        }
+        int excess = entries.size() + 1 - maxEntries;
+        if (excess <= 0) {
+            return;
+        }
+        File[] oldestFirst = entries.toArray(new File[entries.size()]);
+        Arrays.sort(oldestFirst, new Comparator<File>() {
+            @Override
+            public int compare(File first, File second) {
+                long a = first.lastModified();
+                long b = second.lastModified();
+                return a < b ? -1 : (a == b ? 0 : 1);
+            }
+        });
+        for (int i = 0; i < excess && i < oldestFirst.length; i++) {
+            oldestFirst[i].delete();
+        }
+    }
+
+    /**
+     * Remove every stored entry.
+     */
+    public synchronized void clear() {
+        File[] files = directory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+    }
+
+    private File fileFor(String queryKey) {
+        return new File(directory, sha1(queryKey));
+    }
+
+    static String sha1(String value) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-1")
+                    .digest(value.getBytes(Charset.forName("UTF-8")));
+            StringBuilder hex = new StringBuilder(digest.length * 2);
+            for (byte b : digest) {
+                hex.append(Character.forDigit((b >> 4) & 0xf, 16));
+                hex.append(Character.forDigit(b & 0xf, 16));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new AssertionError(e);
+        }
+    }
+
+    private static void closeQuietly(Closeable closeable) {
+        if (closeable != null) {
+            try {
+                closeable.close();
+            } catch (IOException e) {
+                // Nothing left to do
+            }
+        }
+    }
+}
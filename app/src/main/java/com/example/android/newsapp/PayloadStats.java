@@ -0,0 +1,109 @@
+package com.example.android.newsapp;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Process-wide record of the response sizes of the Guardian API, per query shape (see
+ * {@link GuardianQuery#getShape()}), so the shapes that cost the most bytes per article can be
+ * found and trimmed.
+ */
+public class PayloadStats {
+
+    private static final PayloadStats INSTANCE = new PayloadStats();
+
+    /* Immutable snapshot of the counters of one query shape */
+    public static final class Entry {
+        public final String shape;
+        public final long responses;
+        public final long notModified;
+        public final long bytesOnWire;
+        public final long bytesDecoded;
+        public final long articles;
+
+        Entry(String shape, long responses, long notModified, long bytesOnWire,
+              long bytesDecoded, long articles) {
+            this.shape = shape;
+            this.responses = responses;
+            this.notModified = notModified;
+            this.bytesOnWire = bytesOnWire;
+            this.bytesDecoded = bytesDecoded;
+            this.articles = articles;
+        }
+
+        /**
+         * Return the mean number of decoded bytes per article in full responses.
+         */
+        public long getDecodedBytesPerArticle() {
+            return articles == 0 ? 0 : bytesDecoded / articles;
+        }
+
+        @Override
+        public String toString() {
+            return shape + ": responses=" + responses + " notModified=" + notModified
+                    + " bytesOnWire=" + bytesOnWire + " bytesDecoded=" + bytesDecoded
+                    + " articles=" + articles
+                    + " bytesPerArticle=" + getDecodedBytesPerArticle();
+        }
+    }
+
+    /* Counters of one shape: responses, notModified, bytesOnWire, bytesDecoded, articles */
+    private final Map<String, long[]> counters = new TreeMap<>();
+
+    /**
+     * Return the process-wide statistics.
+     */
+    public static PayloadStats getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Record a full response, which carried the given number of articles.
+     */
+    public synchronized void record(String shape, long bytesOnWire, long bytesDecoded,
+                                    int articles) {
+        long[] counts = countersFor(shape);
+        counts[0]++;
+        counts[2] += bytesOnWire;
+        counts[3] += bytesDecoded;
+        counts[4] += articles;
+    }
+
+    /**
+     * Record a response that was answered from the previous one with a 304.
+     */
+    public synchronized void recordNotModified(String shape) {
+        countersFor(shape)[1]++;
+    }
+
+    private long[] countersFor(String shape) {
+        long[] counts = counters.get(shape);
+        if (counts == null) {
+            counts = new long[5];
+            counters.put(shape, counts);
+        }
+        return counts;
+    }
+
+    /**
+     * Return a snapshot of the counters of every shape, in alphabetical order.
+     */
+    public synchronized List<Entry> getEntries() {
+        List<Entry> entries = new ArrayList<>(counters.size());
+        for (Map.Entry<String, long[]> shape : counters.entrySet()) {
+            long[] counts = shape.getValue();
+            entries.add(new Entry(shape.getKey(), counts[0], counts[1], counts[2], counts[3],
+                    counts[4]));
+        }
+        return entries;
+    }
+
+    /**
+     * Forget all recorded responses.
+     */
+    public synchronized void clear() {
+        counters.clear();
+    }
+}
@@ -0,0 +1,119 @@
+package com.example.android.newsapp;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Fetches the first page of the configured feed in the background and stores it, so the next
+ * launch can show it without waiting for the network.
+ *
+ * All sources of the feed are fetched in one run to keep wakeups to a minimum. The time until
+ * the next run doubles every time the feed turned out unchanged, up to a maximum, and drops
+ * back to the minimum as soon as it changes.
+ */
+public class PrefetchJob {
+
+    /* Tag for log messages */
+    private static final String LOG_TAG = PrefetchJob.class.getSimpleName();
+
+    /* Fingerprint of a feed that has not been fetched yet */
+    public static final long NO_FINGERPRINT = 0;
+
+    /* Outcome of a run */
+    public static final class Result {
+        /* True if fresh news were stored */
+        public final boolean changed;
+
+        /* Fingerprint of the stored feed, to pass to the next run */
+        public final long fingerprint;
+
+        /* Delay until the next run, in milliseconds */
+        public final long nextIntervalMillis;
+
+        Result(boolean changed, long fingerprint, long nextIntervalMillis) {
+            this.changed = changed;
+            this.fingerprint = fingerprint;
+            this.nextIntervalMillis = nextIntervalMillis;
+        }
+    }
+
+    private final NewsStore mStore;
+    private final long mMinIntervalMillis;
+    private final long mMaxIntervalMillis;
+
+    /**
+     * Construct a new {@link PrefetchJob}.
+     *
+     * @param minIntervalMillis is the delay between runs while the feed keeps changing
+     * @param maxIntervalMillis is the longest delay after runs that found nothing new
+     */
+    public PrefetchJob(NewsStore store, long minIntervalMillis, long maxIntervalMillis) {
+        mStore = store;
+        mMinIntervalMillis = minIntervalMillis;
+        mMaxIntervalMillis = maxIntervalMillis;
+    }
+
+    /**
+     * Fetch the sources, store the merged feed under the key, and work out when to run next
+     * from whether it changed since the run that returned the given fingerprint.
+     *
+     * @param lastIntervalMillis is the interval the previous run returned, or 0 for the first
+     */
+    public Result run(List<NewsSource> sources, NewsAggregator aggregator, String storeKey,
+                      long lastFingerprint, long lastIntervalMillis, CancellationToken token) {
+        List<News> stories = null;
+        try {
+            stories = aggregator.fetchAll(sources, null, token);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (stories == null || token.isCanceled()) {
+            // Try again after the same interval; the scheduler handles retries of failed runs
+            return new Result(false, lastFingerprint, clamp(lastIntervalMillis));
+        }
+
+        // The fetch has already added the articles to the local search index. An unchanged
+        // feed is stored again all the same, so its entry does not expire between runs.
+        long fingerprint = fingerprint(stories);
+        boolean changed = fingerprint != lastFingerprint;
+        try {
+            mStore.write(storeKey, stories);
+        } catch (IOException e) {
+            AppLog.e(LOG_TAG, "Problem storing news.", e);
+            return new Result(false, lastFingerprint, clamp(lastIntervalMillis));
+        }
+        if (!changed) {
+            return new Result(false, fingerprint, clamp(lastIntervalMillis * 2));
+        }
+        return new Result(true, fingerprint, mMinIntervalMillis);
+    }
+
+    private long clamp(long intervalMillis) {
+        return Math.min(mMaxIntervalMillis, Math.max(mMinIntervalMillis, intervalMillis));
+    }
+
+    /**
+     * Return a 64-bit FNV-1a hash over the fields of the stories that are shown in the list.
+     */
+    static long fingerprint(List<News> stories) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < stories.size(); i++) {
+            News news = stories.get(i);
+            hash = mix(hash, news.getUrl());
+            hash = mix(hash, news.getTitle());
+            hash = mix(hash, news.getSection());
+            hash = mix(hash, news.getAuthor());
+            hash = (hash ^ news.getPublishedMillis()) * 0x100000001b3L;
+        }
+        return hash == NO_FINGERPRINT ? 1 : hash;
+    }
+
+    private static long mix(long hash, String value) {
+        for (int i = 0; i < value.length(); i++) {
+            hash ^= value.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        // Separate the fields, so moving characters between them changes the hash
+        return (hash ^ 0xff) * 0x100000001b3L;
+    }
+}
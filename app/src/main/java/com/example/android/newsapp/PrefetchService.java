@@ -0,0 +1,124 @@
+package com.example.android.newsapp;
+
+import android.annotation.TargetApi;
+import android.app.job.JobInfo;
+import android.app.job.JobParameters;
+import android.app.job.JobScheduler;
+import android.app.job.JobService;
+import android.content.ComponentName;
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.os.Build;
+
+/**
+ * Runs the {@link PrefetchJob} while the device is charging on an unmetered network, so the
+ * feed is already on the device when the app is opened.
+ *
+ * Every run schedules the next one with the interval the job worked out, so quiet feeds are
+ * fetched less and less often. Prefetching needs the JobScheduler and is skipped on older
+ * releases, where the app simply fetches on launch.
+ */
+@TargetApi(Build.VERSION_CODES.LOLLIPOP)
+public class PrefetchService extends JobService {
+
+    /* ID of the prefetch job in the JobScheduler */
+    private static final int JOB_ID = 1;
+
+    /* Bounds of the delay between runs, in milliseconds */
+    private static final long MIN_INTERVAL_MILLIS = 60 * 60 * 1000;
+    private static final long MAX_INTERVAL_MILLIS = 24 * 60 * 60 * 1000;
+
+    /* Preferences holding the state the job carries from one run to the next */
+    private static final String STATE_PREFERENCES = "prefetch";
+    private static final String STATE_FINGERPRINT = "fingerprint";
+    private static final String STATE_INTERVAL = "interval";
+
+    /* Run in progress, in the maintenance lane of the TaskScheduler */
+    private TaskScheduler.Task mTask;
+
+    /**
+     * Schedule the prefetch unless it is already pending.
+     */
+    public static void schedule(Context context) {
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.LOLLIPOP) {
+            return;
+        }
+        JobScheduler scheduler =
+                (JobScheduler) context.getSystemService(Context.JOB_SCHEDULER_SERVICE);
+        for (JobInfo job : scheduler.getAllPendingJobs()) {
+            if (job.getId() == JOB_ID) {
+                return;
+            }
+        }
+        long interval = context.getSharedPreferences(STATE_PREFERENCES, MODE_PRIVATE)
+                .getLong(STATE_INTERVAL, MIN_INTERVAL_MILLIS);
+        schedule(context, interval);
+    }
+
+    private static void schedule(Context context, long intervalMillis) {
+        JobInfo job = new JobInfo.Builder(JOB_ID, new ComponentName(context, PrefetchService.class))
+                .setRequiredNetworkType(JobInfo.NETWORK_TYPE_UNMETERED)
+                .setRequiresCharging(true)
+                .setMinimumLatency(intervalMillis)
+                .setPersisted(true)
+                .build();
+        JobScheduler scheduler =
+                (JobScheduler) context.getSystemService(Context.JOB_SCHEDULER_SERVICE);
+        scheduler.schedule(job);
+    }
+
+    @Override
+    public boolean onStartJob(final JobParameters params) {
+        // Nothing the user is waiting for is held up by the prefetch
+        mTask = TaskScheduler.getInstance().submit(TaskScheduler.Lane.MAINTENANCE,
+                TaskScheduler.Resource.NETWORK, new TaskScheduler.Job() {
+            @Override
+            public void run(CancellationToken cancellation) {
+                long interval = prefetch(cancellation);
+                if (!cancellation.isCanceled()) {
+                    // Scheduling the job again while it is running would stop it, so finish first
+                    jobFinished(params, false);
+                    schedule(getApplicationContext(), interval);
+                }
+            }
+        });
+        return true;
+    }
+
+    @Override
+    public boolean onStopJob(JobParameters params) {
+        // The conditions no longer hold; the scheduler runs the job again once they do
+        if (mTask != null) {
+            mTask.cancel();
+        }
+        return true;
+    }
+
+    /**
+     * Run the job and return the delay until the next run.
+     */
+    private long prefetch(CancellationToken cancellation) {
+        SharedPreferences state = getSharedPreferences(STATE_PREFERENCES, MODE_PRIVATE);
+        NewsFeed feed = NewsFeed.fromPreferences(this);
+        PrefetchJob job = new PrefetchJob(NewsLoader.getStore(this),
+                MIN_INTERVAL_MILLIS, MAX_INTERVAL_MILLIS);
+
+        // The page size of the network the job runs on, as the list would fetch it. Nobody
+        // waits for the job, so its slow requests are not worth sending twice.
+        int pageSize = NetworkMonitor.getInstance(this).getPolicy().pageSize;
+        PrefetchJob.Result result = job.run(
+                feed.getSources(1, pageSize, false),
+                new NewsAggregator(feed.getOrder()),
+                feed.getStoreKey(),
+                state.getLong(STATE_FINGERPRINT, PrefetchJob.NO_FINGERPRINT),
+                state.getLong(STATE_INTERVAL, 0),
+                cancellation);
+        if (!cancellation.isCanceled()) {
+            state.edit()
+                    .putLong(STATE_FINGERPRINT, result.fingerprint)
+                    .putLong(STATE_INTERVAL, result.nextIntervalMillis)
+                    .apply();
+        }
+        return result.nextIntervalMillis;
+    }
+}
@@ -1,26 +1,12 @@
 package com.example.android.newsapp;
 
-import android.text.TextUtils;
-import android.util.Log;
-
-import org.json.JSONArray;
-import org.json.JSONException;
-import org.json.JSONObject;
-
-import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.InputStreamReader;
-import java.net.HttpURLConnection;
 import java.net.MalformedURLException;
 import java.net.URL;
-import java.nio.charset.Charset;
-import java.text.ParseException;
-import java.text.SimpleDateFormat;
 import java.util.ArrayList;
-import java.util.Date;
+import java.util.Collections;
 import java.util.List;
-import java.util.Locale;
 
 /**
  * Created by elizabethsotomayor on 7/11/18.
@@ -31,6 +17,22 @@ public class QueryUtils {
     /* Tag for log messages*/
     private static final String LOG_TAG = QueryUtils.class.getSimpleName();
 
+    /* Parses a response body into an unmodifiable list of news, which the transport may hand out
+     * again when the server answers with a 304 */
+    private static final HttpTransport.BodyParser<List<News>> NEWS_PARSER =
+            new HttpTransport.BodyParser<List<News>>() {
+                @Override
+                public List<News> parse(InputStream body) throws IOException {
+                    return Collections.unmodifiableList(extractFeatureFromNewsStream(body));
+                }
+            };
+
+    /* Name of the search endpoint in the {@link LatencyGuard} */
+    static final String SEARCH_ENDPOINT = "search";
+
+    /* Identical requests that overlap, e.g. the list and the prefetch, share one download */
+    private static final SingleFlight<List<News>> IN_FLIGHT = new SingleFlight<>();
+
     /* Private constructor because there should not be a QueryUtils object */
     private QueryUtils() {
     }
@@ -39,86 +41,89 @@ public class QueryUtils {
      * Query the Guardian dataset and return a list of {@link News} objects.
      */
     public static List<News> fetchNewsData(String requestUrl) {
+        return fetchNewsData(requestUrl, CancellationToken.NONE);
+    }
+
+    /**
+     * Query the Guardian dataset and return a list of {@link News} objects, or null if the
+     * request failed or the token was canceled while it was running.
+     */
+    public static List<News> fetchNewsData(String requestUrl, CancellationToken token) {
+        return fetchNewsData(requestUrl, true, token, null);
+    }
+
+    /**
+     * Run the query like {@link #fetchNewsData(String, CancellationToken)}, record the size
+     * of the response under the shape of the query in {@link PayloadStats}, and record the
+     * latency of its stages in the {@link LatencyTracker}. A request for the same URL that is
+     * already running is joined instead of sent again.
+     *
+     * @param hedge is true if a slow attempt may be sent again, which only requests the user
+     *              is waiting for are worth
+     */
+    public static List<News> fetchNewsData(final GuardianQuery query, final boolean hedge,
+                                           CancellationToken token) {
+        final RequestTrace trace = new RequestTrace();
+        List<News> stories = IN_FLIGHT.execute(query.getUrl(),
+                new SingleFlight.Call<List<News>>() {
+                    @Override
+                    public List<News> call(CancellationToken sharedToken) {
+                        return fetchNewsData(query.getUrl(), hedge, sharedToken, trace);
+                    }
+                }, token);
+        // Only the caller that made the request has a trace to record
+        if (stories != null && trace.totalNanos > 0) {
+            trace.items = stories.size();
+            LatencyTracker.getInstance().record(trace);
+            if (trace.notModified) {
+                PayloadStats.getInstance().recordNotModified(query.getShape());
+            } else {
+                PayloadStats.getInstance().record(query.getShape(), trace.bytesOnWire,
+                        trace.bytesDecoded, stories.size());
+            }
+        }
+        return stories;
+    }
+
+    private static List<News> fetchNewsData(String requestUrl, boolean hedge,
+                                            CancellationToken token, RequestTrace trace) {
         // Create a URL object
         URL url = createUrl(requestUrl);
 
-        // Receive a JSON response after performing HTTP request
-        String jsonResponse = null;
+        // Perform the HTTP request and parse the response while it is being downloaded
+        List<News> stories = null;
         try {
-            jsonResponse = makeHttpRequest(url);
+            stories = makeHttpRequest(url, hedge, token, trace);
         } catch (IOException e) {
-            Log.e(LOG_TAG, "Problem making HTTP request.", e);
+            AppLog.e(LOG_TAG, "Problem making HTTP request.", e);
         }
 
-        // Extract relevant fields from the JSON response and create a list of {@link News}
-        List<News> stories = extractFeatureFromNewsJson(jsonResponse);
+        // Keep every article we have seen searchable on the device
+        if (stories != null) {
+            NewsIndex.getInstance().addAll(stories);
+        }
 
         // Return the list of {@link News}
         return stories;
     }
 
-    private static List<News> extractFeatureFromNewsJson(String newsJson) {
-        //If the JSON string is null, return early
-        if(TextUtils.isEmpty(newsJson)) {
-            return null;
-        }
-
+    /**
+     * Parse the Guardian response in the stream into a list of {@link News}, one article at a
+     * time. Articles that are malformed are dropped without failing the rest of the batch.
+     */
+    private static List<News> extractFeatureFromNewsStream(InputStream inputStream)
+            throws IOException {
         // Create an empty ArrayList that we can add news to
-        List<News> stories = new ArrayList<>();
-
-        // Try to parse the JSON response string. If there's a problem with the way it is formatted,
-        // a JSONException exception object will be thrown. Catch the exception to prevent the app from
-        // crashing, and print the error message to the logs.
-        try {
-            // Create a JSONObject from the JSON response string
-            JSONObject baseJsonResponse = new JSONObject(newsJson);
-
-            // Extract the JSONObject named "response"
-            JSONObject newsObject = baseJsonResponse.getJSONObject("response");
-
-            // Extract the JSONArray with key "results",
-            JSONArray results = newsObject.getJSONArray("results");
-
-            // For each news item in the Array, create a {@link News} object
-            for (int i = 0; i < results.length(); i++) {
-
-                // Get a single news position within the list of news
-                JSONObject currentNews = results.getJSONObject(i);
+        final List<News> stories = new ArrayList<>();
 
-                // JSONArray for the key "tags" which contains the author name
-                JSONArray tags = currentNews.getJSONArray("tags");
-
-                // JSONObject from the JSONArray "tags" to get the author name
-                JSONObject authorObject = tags.getJSONObject(0);
-
-                // The title of the article
-                String title = currentNews.getString("webTitle");
-
-                // Section that the article belongs to
-                String section = currentNews.getString("sectionName");
-
-                // The date that the article was published
-                String originalDate = currentNews.getString("webPublicationDate");
-
-                // Format publication date
-                Date publicationDate = null;
-                try {
-                    publicationDate = (new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss")).parse(originalDate);
-                } catch (Exception e) {
-                    Log.e("QueryUtils", "Problem parsing news date", e);
-                }
-
-                // URL where the article can be found
-                String url = currentNews.getString("webUrl");
-
-                // Name of the author of the article at position i
-                String author = authorObject.getString("webTitle");
-
-                News news = new News(title, section, publicationDate, author, url);
+        int dropped = NewsJsonParser.parse(inputStream, new NewsJsonParser.Callback() {
+            @Override
+            public void onNews(News news) {
                 stories.add(news);
             }
-        } catch (JSONException e) {
-            Log.e("QueryUtils", "Problem parsing the news JSON results.", e);
+        });
+        if (dropped > 0) {
+            AppLog.w(LOG_TAG, "Skipped " + dropped + " malformed news results.");
         }
 
         // Return the list of news stories
@@ -133,61 +138,46 @@ public class QueryUtils {
         try {
             url = new URL(urlString);
         } catch ( MalformedURLException e) {
-            Log.e(LOG_TAG, "Problem building the URL ", e);
+            AppLog.e(LOG_TAG, "Problem building the URL ", e);
         }
         return url;
     }
 
     /**
-     * Make an HTTP request to the URL provided and return a String as a response.
+     * Make an HTTP request to the URL provided through the shared {@link HttpTransport} and
+     * return the parsed list of {@link News}, or null if the request failed. Timeouts and
+     * server errors are retried as the {@link RetryPolicy} allows; having no connection is not.
+     * The {@link LatencyGuard} sets the timeouts, hedges slow attempts if asked to and ends the
+     * request at its deadline.
      */
-    private static String makeHttpRequest(URL url) throws IOException {
-        String JsonResponse = "";
-
+    private static List<News> makeHttpRequest(final URL url, boolean hedge,
+                                              final CancellationToken token,
+                                              final RequestTrace trace)
+            throws IOException {
         // If url is null, return early
         if (url == null) {
-            return JsonResponse;
+            return null;
         }
 
-        HttpURLConnection urlConnect = null;
-        InputStream inputStream = null;
         try {
-            urlConnect = (HttpURLConnection) url.openConnection();
-            urlConnect.setReadTimeout(10000);
-            urlConnect.setConnectTimeout(15000);
-            urlConnect.setRequestMethod("GET");
-            urlConnect.connect();
-
-            if (urlConnect.getResponseCode() == HttpURLConnection.HTTP_OK) {
-                inputStream = urlConnect.getInputStream();
-                JsonResponse = readFromStream(inputStream);
-            } else {
-                Log.e(LOG_TAG, "Error response code: " + urlConnect.getResponseCode());
-            }
+            return LatencyGuard.getInstance().execute(SEARCH_ENDPOINT, RetryPolicy.DEFAULT, hedge,
+                    new LatencyGuard.Request<List<News>>() {
+                        @Override
+                        public List<News> run(CancellationToken attemptToken,
+                                              RequestTrace attemptTrace, int connectTimeout,
+                                              int readTimeout) throws IOException {
+                            return HttpTransport.getInstance().get(url, NEWS_PARSER,
+                                    attemptToken, attemptTrace, connectTimeout, readTimeout);
+                        }
+                    }, token, trace);
+        } catch (HttpTransport.HttpStatusException e) {
+            AppLog.e(LOG_TAG, "Error response code: " + e.getStatusCode());
         } catch (IOException e) {
-            Log.e(LOG_TAG, "Problem retrieving news JSON results.");
-        } finally {
-            if (urlConnect != null) {
-                urlConnect.disconnect();
-            }
-            if (inputStream != null) {
-                inputStream.close();
-            }
-        }
-        return JsonResponse;
-    }
-
-    private static String readFromStream(InputStream inputStream) throws IOException {
-        StringBuilder out = new StringBuilder();
-        if (inputStream != null) {
-            InputStreamReader inputStreamReader = new InputStreamReader(inputStream, Charset.forName("UTF-8"));
-            BufferedReader reader = new BufferedReader(inputStreamReader);
-            String line = reader.readLine();
-            while (line != null) {
-                out.append(line);
-                line = reader.readLine();
+            // A canceled request is not a problem
+            if (!token.isCanceled()) {
+                AppLog.e(LOG_TAG, "Problem retrieving news JSON results.", e);
             }
         }
-        return out.toString();
+        return null;
     }
-}
\ No newline at end of file
+}
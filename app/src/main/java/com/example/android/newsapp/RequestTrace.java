@@ -0,0 +1,41 @@
+package com.example.android.newsapp;
+
+/**
+ * Timings and sizes of a single request, filled in by {@link HttpTransport} and the code
+ * around it as the request goes through its stages. Used by one thread at a time.
+ */
+public final class RequestTrace {
+
+    /* Time to open the connection, including DNS and TLS, in nanoseconds */
+    long connectNanos;
+
+    /* Time from sending the request to receiving the response headers */
+    long firstByteNanos;
+
+    /* Time spent waiting for body bytes from the network */
+    long downloadNanos;
+
+    /* Time spent parsing the body, not counting the waits for the network */
+    long parseNanos;
+
+    /* Time from the start of the request to the parsed result */
+    long totalNanos;
+
+    /* True if the server answered 304 and the previous result was reused */
+    boolean notModified;
+
+    long bytesOnWire;
+    long bytesDecoded;
+
+    /* Number of articles in the result */
+    int items;
+
+    @Override
+    public String toString() {
+        return "connect=" + connectNanos / 1000 + "us firstByte=" + firstByteNanos / 1000
+                + "us download=" + downloadNanos / 1000 + "us parse=" + parseNanos / 1000
+                + "us total=" + totalNanos / 1000 + "us notModified=" + notModified
+                + " bytesOnWire=" + bytesOnWire + " bytesDecoded=" + bytesDecoded
+                + " items=" + items;
+    }
+}
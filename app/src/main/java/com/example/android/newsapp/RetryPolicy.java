@@ -0,0 +1,111 @@
+package com.example.android.newsapp;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.NoRouteToHostException;
+import java.net.SocketTimeoutException;
+import java.net.UnknownHostException;
+import java.util.Random;
+
+/**
+ * Retries requests that failed for reasons that are likely to pass: timeouts, server errors
+ * (5xx) and rate limiting (429).
+ *
+ * The delay before each retry is drawn at random between zero and an exponentially growing
+ * cap ("full jitter"), so many clients that failed together do not retry together. A delay the
+ * server asks for with Retry-After is always respected. Retrying stops once the next attempt
+ * could not start within the deadline. Failures that mean there is no network, such as an
+ * unknown host, are never retried.
+ */
+public final class RetryPolicy {
+
+    /* A request that can be tried more than once */
+    public interface Attempt<T> {
+        T run() throws IOException;
+    }
+
+    /* Policy used for all Guardian requests */
+    public static final RetryPolicy DEFAULT = new RetryPolicy(4, 250, 4000, 20000);
+
+    /* Never retries */
+    public static final RetryPolicy NONE = new RetryPolicy(1, 0, 0, 0);
+
+    private final int maxAttempts;
+    private final long baseDelayMillis;
+    private final long maxDelayMillis;
+    private final long deadlineMillis;
+
+    private final Random random = new Random();
+
+    /**
+     * Construct a new {@link RetryPolicy}.
+     *
+     * @param maxAttempts     is the number of attempts, including the first
+     * @param baseDelayMillis is the cap of the delay before the first retry; it doubles for
+     *                        every further retry
+     * @param maxDelayMillis  is the largest cap of the delay
+     * @param deadlineMillis  is the time after the first attempt started after which no
+     *                        further attempt is started
+     */
+    public RetryPolicy(int maxAttempts, long baseDelayMillis, long maxDelayMillis,
+                       long deadlineMillis) {
+        this.maxAttempts = maxAttempts;
+        this.baseDelayMillis = baseDelayMillis;
+        this.maxDelayMillis = maxDelayMillis;
+        this.deadlineMillis = deadlineMillis;
+    }
+
+    /**
+     * Run the attempt until it succeeds, fails for good, or the deadline or the number of
+     * attempts is used up, and return its result or throw the last failure. Canceling the
+     * token ends the wait before a retry right away.
+     */
+    public <T> T execute(Attempt<T> attempt, CancellationToken token) throws IOException {
+        long start = System.currentTimeMillis();
+        for (int retries = 0; ; retries++) {
+            try {
+                return attempt.run();
+            } catch (IOException e) {
+                if (token.isCanceled() || retries + 1 >= maxAttempts || !isRetryable(e)) {
+                    throw e;
+                }
+                long delay = delayBeforeRetry(retries, e);
+                if (System.currentTimeMillis() + delay - start >= deadlineMillis) {
+                    throw e;
+                }
+                token.sleep(delay);
+            }
+        }
+    }
+
+    /**
+     * Return true if trying the request again might succeed.
+     */
+    static boolean isRetryable(IOException e) {
+        if (e instanceof HttpTransport.HttpStatusException) {
+            int status = ((HttpTransport.HttpStatusException) e).getStatusCode();
+            return status == 429 || status >= 500;
+        }
+        if (e instanceof UnknownHostException || e instanceof ConnectException
+                || e instanceof NoRouteToHostException) {
+            // Offline, or the server is down; waiting a few seconds will not help
+            return false;
+        }
+        return e instanceof SocketTimeoutException;
+    }
+
+    /**
+     * Return the delay before the given retry, counting from 0.
+     */
+    long delayBeforeRetry(int retry, IOException e) {
+        long cap = Math.min(maxDelayMillis, baseDelayMillis << Math.min(retry, 30));
+        long delay;
+        synchronized (random) {
+            delay = (long) (random.nextDouble() * cap);
+        }
+        if (e instanceof HttpTransport.HttpStatusException) {
+            delay = Math.max(delay, ((HttpTransport.HttpStatusException) e).getRetryAfterMillis());
+        }
+        return delay;
+    }
+}
@@ -0,0 +1,111 @@
+package com.example.android.newsapp;
+
+import android.content.Context;
+import android.content.Loader;
+import android.os.Handler;
+import android.os.Looper;
+
+/**
+ * Loader that does its work on the {@link TaskScheduler} in the lane it was given, instead of
+ * on the AsyncTask executor that every AsyncTaskLoader in the process shares.
+ *
+ * A load has two steps that each wait for a thread of their own kind: loading, which mostly
+ * waits for the network, and preparing the result for display, which keeps a CPU busy.
+ * Canceling the load cancels whichever step it is in, including its network requests.
+ */
+public abstract class ScheduledLoader<D> extends Loader<D> {
+
+    /* Lane the load runs in */
+    private final TaskScheduler.Lane mLane;
+
+    /* Used to deliver the result on the main thread */
+    private final Handler mMainHandler = new Handler(Looper.getMainLooper());
+
+    /* Loading step of the load in progress, if any */
+    private TaskScheduler.Task mTask;
+
+    /* Incremented for every load, so the results of superseded loads are dropped */
+    private int mLoadCount;
+
+    protected ScheduledLoader(Context context, TaskScheduler.Lane lane) {
+        super(context);
+        mLane = lane;
+    }
+
+    /**
+     * Load the data. Runs on a background thread counted as network work; returns early once
+     * the token is canceled.
+     */
+    protected abstract D loadInBackground(CancellationToken token);
+
+    /**
+     * Prepare the loaded data for display. Runs on a background thread counted as CPU work.
+     */
+    protected D prepareInBackground(D data) {
+        return data;
+    }
+
+    @Override
+    protected void onForceLoad() {
+        super.onForceLoad();
+        cancelTask();
+        final int load = ++mLoadCount;
+        final TaskScheduler scheduler = TaskScheduler.getInstance();
+        mTask = scheduler.submit(mLane, TaskScheduler.Resource.NETWORK, new TaskScheduler.Job() {
+            @Override
+            public void run(CancellationToken token) {
+                final D data = loadInBackground(token);
+                // Preparing waits for a CPU thread instead of holding on to a network one
+                scheduler.submit(mLane, TaskScheduler.Resource.CPU, new TaskScheduler.Job() {
+                    @Override
+                    public void run(CancellationToken token) {
+                        final D prepared = prepareInBackground(data);
+                        mMainHandler.post(new Runnable() {
+                            @Override
+                            public void run() {
+                                complete(load, prepared);
+                            }
+                        });
+                    }
+                }, token);
+            }
+        });
+    }
+
+    /**
+     * Cancel the load in progress. No cancellation is reported afterwards, so the loader
+     * manager can start the next loader right away.
+     */
+    @Override
+    protected boolean onCancelLoad() {
+        cancelTask();
+        return false;
+    }
+
+    @Override
+    protected void onReset() {
+        super.onReset();
+        cancelTask();
+    }
+
+    /**
+     * Cancel the load in progress, if any, and drop its result.
+     */
+    protected void cancelTask() {
+        if (mTask != null) {
+            mTask.cancel();
+            mTask = null;
+            mLoadCount++;
+        }
+    }
+
+    private void complete(int load, D data) {
+        if (load != mLoadCount || isReset()) {
+            return;
+        }
+        mTask = null;
+        if (!isAbandoned()) {
+            deliverResult(data);
+        }
+    }
+}
@@ -3,12 +3,14 @@ package com.example.android.newsapp;
 import android.content.SharedPreferences;
 import android.os.Bundle;
 import android.preference.ListPreference;
+import android.preference.MultiSelectListPreference;
 import android.preference.Preference;
 import android.preference.PreferenceFragment;
 import android.preference.PreferenceManager;
 import android.support.v7.app.AppCompatActivity;
 
-import java.util.List;
+import java.util.Collections;
+import java.util.Set;
 
 /**
  * Created by elizabethsotomayor on 7/17/18.
@@ -35,10 +37,23 @@ public class SettingsActivity extends AppCompatActivity {
 
             Preference orderBy = findPreference(getString(R.string.order_by_key_settings));
             bindPreferenceSummaryToValue(orderBy);
+
+            Preference readerBudget = findPreference(getString(R.string.reader_budget_key_settings));
+            bindPreferenceSummaryToValue(readerBudget);
+
+            Preference sections = findPreference(getString(R.string.sections_key_settings));
+            sections.setOnPreferenceChangeListener(this);
+            onPreferenceChange(sections, PreferenceManager
+                    .getDefaultSharedPreferences(sections.getContext())
+                    .getStringSet(sections.getKey(), Collections.<String>emptySet()));
         }
 
         @Override
         public boolean onPreferenceChange(Preference preference, Object value) {
+            if (preference instanceof MultiSelectListPreference) {
+                setSectionsSummary((MultiSelectListPreference) preference, (Set<?>) value);
+                return true;
+            }
             String stringValue = value.toString();
             if (preference instanceof ListPreference) {
                 ListPreference listPreference = (ListPreference) preference;
@@ -53,6 +68,28 @@ public class SettingsActivity extends AppCompatActivity {
             return true;
         }
 
+        /**
+         * Show the labels of the selected sections, in the order they are listed in.
+         */
+        private void setSectionsSummary(MultiSelectListPreference preference, Set<?> values) {
+            if (values.isEmpty()) {
+                preference.setSummary(R.string.sections_all_summary_settings);
+                return;
+            }
+            CharSequence[] labels = preference.getEntries();
+            CharSequence[] entryValues = preference.getEntryValues();
+            StringBuilder summary = new StringBuilder();
+            for (int i = 0; i < entryValues.length; i++) {
+                if (values.contains(entryValues[i].toString())) {
+                    if (summary.length() > 0) {
+                        summary.append(", ");
+                    }
+                    summary.append(labels[i]);
+                }
+            }
+            preference.setSummary(summary);
+        }
+
         private void bindPreferenceSummaryToValue(Preference pref) {
             pref.setOnPreferenceChangeListener(this);
             SharedPreferences preferences = PreferenceManager.getDefaultSharedPreferences(pref.getContext());
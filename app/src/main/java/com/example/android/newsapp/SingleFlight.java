@@ -0,0 +1,125 @@
+package com.example.android.newsapp;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Coalesces identical calls that overlap in time: while a call for a key is running, further
+ * calls for the same key wait for its result instead of starting their own.
+ *
+ * The call runs on the thread of the caller that started it, with a token that is canceled
+ * only once every caller waiting for it has canceled. A caller that cancels returns null right
+ * away, except for the one running the call, which finishes it while others still wait. A call
+ * whose callers all canceled is not joined any more; the next caller for the key starts anew.
+ */
+public final class SingleFlight<T> {
+
+    /* The work to coalesce */
+    public interface Call<T> {
+        T call(CancellationToken token);
+    }
+
+    /* A call in progress and the callers interested in it */
+    private static final class Flight<T> {
+        final CancellationToken token = new CancellationToken();
+        int callers;
+        boolean finished;
+        T result;
+    }
+
+    private final Map<String, Flight<T>> flights = new HashMap<>();
+    private final AtomicLong calls = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+
+    /**
+     * Run the call for the key, or wait for the one already running, and return its result.
+     * Returns null if the token is canceled before the result is ready.
+     */
+    public T execute(String key, Call<T> call, CancellationToken token) {
+        final Flight<T> flight;
+        boolean leader;
+        synchronized (flights) {
+            Flight<T> running = flights.get(key);
+            // A canceled flight only ends with null, so it must not take new callers
+            leader = running == null || running.token.isCanceled();
+            flight = leader ? new Flight<T>() : running;
+            if (leader) {
+                flights.put(key, flight);
+            }
+            flight.callers++;
+        }
+        calls.incrementAndGet();
+
+        Runnable release = token.onCancel(new Runnable() {
+            @Override
+            public void run() {
+                release(flight);
+                // Wake up the caller if it waits for the flight
+                synchronized (flight) {
+                    flight.notifyAll();
+                }
+            }
+        });
+        try {
+            if (leader) {
+                T result = null;
+                try {
+                    result = flight.token.isCanceled() ? null : call.call(flight.token);
+                } finally {
+                    synchronized (flights) {
+                        // A canceled flight may have been replaced by a new one for the key
+                        if (flights.get(key) == flight) {
+                            flights.remove(key);
+                        }
+                    }
+                    synchronized (flight) {
+                        flight.result = result;
+                        flight.finished = true;
+                        flight.notifyAll();
+                    }
+                }
+                return result;
+            }
+
+            coalesced.incrementAndGet();
+            synchronized (flight) {
+                while (!flight.finished && !token.isCanceled()) {
+                    try {
+                        flight.wait();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return null;
+                    }
+                }
+                return token.isCanceled() ? null : flight.result;
+            }
+        } finally {
+            token.remove(release);
+        }
+    }
+
+    private void release(Flight<T> flight) {
+        boolean abandoned;
+        synchronized (flights) {
+            abandoned = --flight.callers == 0;
+        }
+        if (abandoned) {
+            flight.token.cancel();
+        }
+    }
+
+    /**
+     * Return the number of calls made, including the coalesced ones.
+     */
+    public long getCalls() {
+        return calls.get();
+    }
+
+    /**
+     * Return the number of calls that waited for another call instead of running.
+     */
+    public long getCoalesced() {
+        return coalesced.get();
+    }
+}
@@ -0,0 +1,360 @@
+package com.example.android.newsapp;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs the background work of the app in priority lanes, in place of the single line of the
+ * AsyncTask executor.
+ *
+ * What the user is waiting for runs before what they may need soon, which runs before upkeep;
+ * within a lane tasks run in the order they were submitted. Tasks that wait for the network
+ * and tasks that keep a CPU busy have separate limits, so parsing never queues behind
+ * downloads, and the lower lanes never take the last thread of either kind, so a visible load
+ * does not wait for a prefetch to finish. The exception is a limit of one, e.g. the CPU limit
+ * on a single-core device: keeping that thread would stop the lower lanes altogether, so all
+ * lanes share it and a visible task may wait for the task running before it. Canceling a task
+ * drops it from its queue or cancels its token, and canceling a parent token cancels every
+ * task submitted under it.
+ *
+ * The queue depth and the time tasks wait before they start are recorded per lane.
+ */
+public final class TaskScheduler {
+
+    /* Lanes in priority order: what the user waits for, what they may need soon, upkeep */
+    public enum Lane {
+        VISIBLE, PREFETCH, MAINTENANCE
+    }
+
+    /* What a task mostly waits for; each has its own limit on the tasks running at once */
+    public enum Resource {
+        NETWORK, CPU
+    }
+
+    /* Work run by the scheduler; it stops early once the token is canceled */
+    public interface Job {
+        void run(CancellationToken token);
+    }
+
+    /* A submitted job */
+    public final class Task implements Runnable {
+        final Lane lane;
+        final Resource resource;
+        final Job job;
+        final CancellationToken token = new CancellationToken();
+
+        /* When the task was queued, from System.nanoTime() */
+        final long queuedNanos = System.nanoTime();
+
+        /* Token whose cancellation cancels the task, and the action that does it */
+        CancellationToken parent;
+        Runnable parentAction;
+
+        Task(Lane lane, Resource resource, Job job) {
+            this.lane = lane;
+            this.resource = resource;
+            this.job = job;
+        }
+
+        /**
+         * Drop the task if it has not started yet, or cancel its token if it has.
+         */
+        public void cancel() {
+            token.cancel();
+        }
+
+        public boolean isCanceled() {
+            return token.isCanceled();
+        }
+
+        @Override
+        public void run() {
+            // The user is waiting for a visible task; everything else yields to the main thread
+            Thread.currentThread().setPriority(
+                    lane == Lane.VISIBLE ? Thread.NORM_PRIORITY : Thread.MIN_PRIORITY);
+            try {
+                if (!token.isCanceled()) {
+                    job.run(token);
+                }
+            } finally {
+                finished(this);
+            }
+        }
+    }
+
+    /* Immutable snapshot of the counters of one lane */
+    public static final class LaneStats {
+        public final Lane lane;
+        public final int queued;
+        public final int maxQueued;
+        public final int running;
+        public final long submitted;
+
+        /* Tasks that were canceled before they started */
+        public final long dropped;
+
+        /* Time from submitting to starting, in microseconds */
+        public final Histogram.Snapshot waitMicros;
+
+        LaneStats(Lane lane, int queued, int maxQueued, int running, long submitted,
+                  long dropped, Histogram.Snapshot waitMicros) {
+            this.lane = lane;
+            this.queued = queued;
+            this.maxQueued = maxQueued;
+            this.running = running;
+            this.submitted = submitted;
+            this.dropped = dropped;
+            this.waitMicros = waitMicros;
+        }
+
+        @Override
+        public String toString() {
+            return lane + ": queued=" + queued + " maxQueued=" + maxQueued
+                    + " running=" + running + " submitted=" + submitted + " dropped=" + dropped
+                    + " waitP50=" + waitMicros.getPercentile(50) + "us"
+                    + " waitP99=" + waitMicros.getPercentile(99) + "us";
+        }
+    }
+
+    /* Network requests running at the same time, across all lanes */
+    private static final int NETWORK_THREADS = 4;
+
+    /* Waits from 100 microseconds to 1 minute */
+    private static final long[] WAIT_BOUNDS_MICROS = Histogram.oneTwoFive(100, 60000000);
+
+    private static final int LANES = Lane.values().length;
+
+    private static final TaskScheduler INSTANCE = new TaskScheduler(NETWORK_THREADS,
+            Math.max(1, Runtime.getRuntime().availableProcessors()));
+
+    private final ThreadPoolExecutor executor;
+
+    /* Largest number of running tasks per resource */
+    private final int[] limits = new int[Resource.values().length];
+
+    /* Tasks waiting to start, per resource and lane */
+    private final List<ArrayDeque<Task>> queues = new ArrayList<>();
+
+    /* Running tasks per resource and per lane */
+    private final int[] running = new int[Resource.values().length];
+    private final int[] runningByLane = new int[LANES];
+
+    /* Counters per lane */
+    private final int[] maxQueued = new int[LANES];
+    private final long[] submitted = new long[LANES];
+    private final long[] dropped = new long[LANES];
+    private final Histogram[] waits = new Histogram[LANES];
+
+    /**
+     * Construct a scheduler that runs at most the given numbers of network and CPU tasks at
+     * the same time.
+     */
+    TaskScheduler(int networkThreads, int cpuThreads) {
+        limits[Resource.NETWORK.ordinal()] = networkThreads;
+        limits[Resource.CPU.ordinal()] = cpuThreads;
+        for (int i = 0; i < limits.length * LANES; i++) {
+            queues.add(new ArrayDeque<Task>());
+        }
+        for (int i = 0; i < LANES; i++) {
+            waits[i] = new Histogram(WAIT_BOUNDS_MICROS);
+        }
+        // Tasks are only handed over when a thread of their kind is free, so the pool stays at
+        // about the limits added up; a thread that is finishing a task may briefly add one
+        executor = new ThreadPoolExecutor(0, Integer.MAX_VALUE, 30, TimeUnit.SECONDS,
+                new SynchronousQueue<Runnable>(), new ThreadFactory() {
+            private final AtomicInteger count = new AtomicInteger();
+
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "Task #" + count.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+
+    /**
+     * Return the process-wide scheduler.
+     */
+    public static TaskScheduler getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Run the job in the lane once a thread for its resource is free.
+     */
+    public Task submit(Lane lane, Resource resource, Job job) {
+        return submit(lane, resource, job, null);
+    }
+
+    /**
+     * Run the job like {@link #submit(Lane, Resource, Job)}, and cancel it when the parent
+     * token is canceled.
+     */
+    public Task submit(Lane lane, Resource resource, Job job, CancellationToken parent) {
+        final Task task = new Task(lane, resource, job);
+        if (parent != null) {
+            task.parent = parent;
+            task.parentAction = parent.onCancel(new Runnable() {
+                @Override
+                public void run() {
+                    task.cancel();
+                }
+            });
+        }
+        synchronized (this) {
+            queue(resource, lane).add(task);
+            submitted[lane.ordinal()]++;
+            maxQueued[lane.ordinal()] = Math.max(maxQueued[lane.ordinal()], queued(lane));
+        }
+        // Registered outside the lock, as the action of a canceled token runs right away
+        task.token.onCancel(new Runnable() {
+            @Override
+            public void run() {
+                drop(task);
+            }
+        });
+        dispatch();
+        return task;
+    }
+
+    /**
+     * Return the number of tasks waiting in the lane.
+     */
+    public synchronized int getQueueDepth(Lane lane) {
+        return queued(lane);
+    }
+
+    /**
+     * Return a snapshot of the counters of every lane, in priority order.
+     */
+    public synchronized List<LaneStats> getStats() {
+        List<LaneStats> stats = new ArrayList<>(LANES);
+        for (Lane lane : Lane.values()) {
+            int i = lane.ordinal();
+            stats.add(new LaneStats(lane, queued(lane), maxQueued[i], runningByLane[i],
+                    submitted[i], dropped[i], waits[i].snapshot()));
+        }
+        return stats;
+    }
+
+    /**
+     * Return the counters of every lane as CSV.
+     */
+    public String export() {
+        StringBuilder csv = new StringBuilder();
+        csv.append("lane,queued,max_queued,running,submitted,dropped,"
+                + "wait_mean_us,wait_p50_us,wait_p90_us,wait_p99_us,wait_max_us\n");
+        for (LaneStats lane : getStats()) {
+            csv.append(lane.lane.name().toLowerCase(Locale.ROOT)).append(',')
+                    .append(lane.queued).append(',')
+                    .append(lane.maxQueued).append(',')
+                    .append(lane.running).append(',')
+                    .append(lane.submitted).append(',')
+                    .append(lane.dropped).append(',')
+                    .append(lane.waitMicros.getMean()).append(',')
+                    .append(lane.waitMicros.getPercentile(50)).append(',')
+                    .append(lane.waitMicros.getPercentile(90)).append(',')
+                    .append(lane.waitMicros.getPercentile(99)).append(',')
+                    .append(lane.waitMicros.max).append('\n');
+        }
+        return csv.toString();
+    }
+
+    /**
+     * Forget the counters, but not the tasks that are waiting or running.
+     */
+    public synchronized void resetStats() {
+        for (int i = 0; i < LANES; i++) {
+            maxQueued[i] = queued(Lane.values()[i]);
+            submitted[i] = 0;
+            dropped[i] = 0;
+            waits[i].reset();
+        }
+    }
+
+    /**
+     * Remove a canceled task from its queue, if it has not started yet.
+     */
+    private void drop(Task task) {
+        boolean removed;
+        synchronized (this) {
+            removed = queue(task.resource, task.lane).remove(task);
+            if (removed) {
+                dropped[task.lane.ordinal()]++;
+            }
+        }
+        if (removed) {
+            forgetParent(task);
+        }
+    }
+
+    private void finished(Task task) {
+        synchronized (this) {
+            running[task.resource.ordinal()]--;
+            runningByLane[task.lane.ordinal()]--;
+        }
+        forgetParent(task);
+        dispatch();
+    }
+
+    private static void forgetParent(Task task) {
+        if (task.parent != null) {
+            task.parent.remove(task.parentAction);
+        }
+    }
+
+    /**
+     * Start the waiting tasks that have a free thread, highest lane first.
+     */
+    private void dispatch() {
+        List<Task> start = new ArrayList<>();
+        synchronized (this) {
+            long now = System.nanoTime();
+            for (Resource resource : Resource.values()) {
+                int r = resource.ordinal();
+                for (Lane lane : Lane.values()) {
+                    ArrayDeque<Task> queue = queue(resource, lane);
+                    while (!queue.isEmpty() && running[r] < limit(resource, lane)) {
+                        Task task = queue.poll();
+                        running[r]++;
+                        runningByLane[lane.ordinal()]++;
+                        waits[lane.ordinal()].record((now - task.queuedNanos) / 1000);
+                        start.add(task);
+                    }
+                }
+            }
+        }
+        for (Task task : start) {
+            executor.execute(task);
+        }
+    }
+
+    /**
+     * Return how many tasks of the resource may run while a task of the lane starts. The last
+     * thread is kept for visible tasks, unless it is the only one.
+     */
+    private int limit(Resource resource, Lane lane) {
+        int limit = limits[resource.ordinal()];
+        return lane == Lane.VISIBLE || limit == 1 ? limit : limit - 1;
+    }
+
+    private ArrayDeque<Task> queue(Resource resource, Lane lane) {
+        return queues.get(resource.ordinal() * LANES + lane.ordinal());
+    }
+
+    private int queued(Lane lane) {
+        int queued = 0;
+        for (Resource resource : Resource.values()) {
+            queued += queue(resource, lane).size();
+        }
+        return queued;
+    }
+}
@@ -0,0 +1,335 @@
+package com.example.android.newsapp;
+
+import android.content.ComponentCallbacks2;
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.Process;
+import android.support.v4.util.LruCache;
+import android.util.Log;
+import android.widget.ImageView;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Loads article thumbnails into image views off the main thread.
+ *
+ * Decoded bitmaps are kept in a memory cache sized to the heap, and the downloaded bytes in a
+ * {@link DiskCache}, so a thumbnail is downloaded once and decoded at most once while it is in
+ * memory. Images are downsampled to the size of the view and decoded without alpha. Rows on
+ * screen are loaded first, most recently bound first; prefetches run only when nothing on
+ * screen is waiting. On slow networks downloads can be turned off, and only the images on the
+ * device are shown.
+ */
+public class ThumbnailLoader {
+
+    /* Tag for log messages */
+    private static final String LOG_TAG = ThumbnailLoader.class.getSimpleName();
+
+    /* Size of the cache of downloaded images on the device */
+    private static final long DISK_CACHE_BYTES = 10 * 1024 * 1024;
+
+    /* Share of the heap the decoded bitmaps may use */
+    private static final int HEAP_FRACTION = 8;
+
+    /* Downloads and decodes run on this many background threads */
+    private static final int THREADS = 2;
+
+    /* Priorities of the loads; lower runs first */
+    private static final int PRIORITY_VISIBLE = 0;
+    private static final int PRIORITY_PREFETCH = 1;
+
+    private static ThumbnailLoader sInstance;
+
+    private final LruCache<String, Bitmap> mMemoryCache;
+    private final DiskCache mDiskCache;
+
+    /* A row and a prefetch that want the same image share the download and the decode */
+    private final SingleFlight<Bitmap> mInFlight = new SingleFlight<>();
+
+    private final ThreadPoolExecutor mExecutor;
+    private final Handler mMainHandler = new Handler(Looper.getMainLooper());
+
+    /* Orders loads of the same priority */
+    private final AtomicLong mSequence = new AtomicLong();
+
+    /* Whether images that are not on the device are downloaded */
+    private volatile boolean mDownloadsEnabled = true;
+
+    /* Prefetches that have not finished, by cache key; only used on the main thread */
+    private final Map<String, Load> mPrefetches = new HashMap<>();
+
+    /* A load of one image, for a view or into the cache only */
+    private final class Load implements Runnable, Comparable<Load> {
+        final String url;
+        final int width;
+        final int height;
+        final String key;
+        final int priority;
+        final long sequence;
+        final ImageView view;
+        final CancellationToken token = new CancellationToken();
+
+        Load(String url, int width, int height, int priority, ImageView view) {
+            this.url = url;
+            this.width = width;
+            this.height = height;
+            this.key = cacheKey(url, width, height);
+            this.priority = priority;
+            this.view = view;
+            sequence = mSequence.incrementAndGet();
+        }
+
+        @Override
+        public int compareTo(Load other) {
+            if (priority != other.priority) {
+                return priority < other.priority ? -1 : 1;
+            }
+            // The latest row bound is the one on screen; the nearest prefetch is the first one
+            long a = priority == PRIORITY_VISIBLE ? other.sequence : sequence;
+            long b = priority == PRIORITY_VISIBLE ? sequence : other.sequence;
+            return a < b ? -1 : (a == b ? 0 : 1);
+        }
+
+        @Override
+        public void run() {
+            final Bitmap bitmap = token.isCanceled() ? null : fetch(this);
+            mMainHandler.post(new Runnable() {
+                @Override
+                public void run() {
+                    deliver(Load.this, bitmap);
+                }
+            });
+        }
+    }
+
+    private ThumbnailLoader(Context context) {
+        int maxBytes = (int) Math.min(Integer.MAX_VALUE,
+                Runtime.getRuntime().maxMemory() / HEAP_FRACTION);
+        mMemoryCache = new LruCache<String, Bitmap>(maxBytes) {
+            @Override
+            protected int sizeOf(String key, Bitmap bitmap) {
+                return bitmap.getRowBytes() * bitmap.getHeight();
+            }
+        };
+        mDiskCache = new DiskCache(new File(context.getCacheDir(), "thumbnails"),
+                DISK_CACHE_BYTES);
+        mExecutor = new ThreadPoolExecutor(THREADS, THREADS, 1, TimeUnit.SECONDS,
+                new PriorityBlockingQueue<Runnable>(), new ThreadFactory() {
+            @Override
+            public Thread newThread(final Runnable runnable) {
+                return new Thread(new Runnable() {
+                    @Override
+                    public void run() {
+                        // Never compete with the main thread for the CPU
+                        Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+                        runnable.run();
+                    }
+                }, LOG_TAG);
+            }
+        });
+        mExecutor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Return the process-wide thumbnail loader.
+     */
+    public static synchronized ThumbnailLoader getInstance(Context context) {
+        if (sInstance == null) {
+            sInstance = new ThumbnailLoader(context.getApplicationContext());
+        }
+        return sInstance;
+    }
+
+    /**
+     * Show the image at the URL in the view, downsampled to the given size in pixels. Whatever
+     * the view was loading before is canceled. Must be called on the main thread.
+     */
+    public void load(ImageView view, String url, int width, int height) {
+        cancel(view);
+        Bitmap cached = mMemoryCache.get(cacheKey(url, width, height));
+        if (cached != null) {
+            view.setImageBitmap(cached);
+            return;
+        }
+        view.setImageDrawable(null);
+        Load load = new Load(url, width, height, PRIORITY_VISIBLE, view);
+        view.setTag(R.id.thumbnail, load);
+        mExecutor.execute(load);
+    }
+
+    /**
+     * Cancel the load of the view, for instance because its row was recycled. Must be called
+     * on the main thread.
+     */
+    public void cancel(ImageView view) {
+        Load load = (Load) view.getTag(R.id.thumbnail);
+        if (load != null) {
+            view.setTag(R.id.thumbnail, null);
+            load.token.cancel();
+            mExecutor.remove(load);
+        }
+    }
+
+    /**
+     * Load the images at the URLs into the memory cache ahead of their rows, nearest first.
+     * Prefetches of earlier calls that are not in this one are canceled, so a change of scroll
+     * direction drops the images the user scrolled away from. Must be called on the main
+     * thread.
+     */
+    public void prefetch(Collection<String> urls, int width, int height) {
+        Set<String> wanted = new HashSet<>();
+        for (String url : urls) {
+            wanted.add(cacheKey(url, width, height));
+        }
+        Iterator<Map.Entry<String, Load>> pending = mPrefetches.entrySet().iterator();
+        while (pending.hasNext()) {
+            Map.Entry<String, Load> prefetch = pending.next();
+            if (!wanted.contains(prefetch.getKey())) {
+                prefetch.getValue().token.cancel();
+                mExecutor.remove(prefetch.getValue());
+                pending.remove();
+            }
+        }
+        for (String url : urls) {
+            String key = cacheKey(url, width, height);
+            if (!mPrefetches.containsKey(key) && mMemoryCache.get(key) == null) {
+                Load load = new Load(url, width, height, PRIORITY_PREFETCH, null);
+                mPrefetches.put(key, load);
+                mExecutor.execute(load);
+            }
+        }
+    }
+
+    /**
+     * Allow or stop downloads of images that are not on the device yet. Loads that have
+     * started already are not affected.
+     */
+    public void setDownloadsEnabled(boolean enabled) {
+        mDownloadsEnabled = enabled;
+    }
+
+    /**
+     * Release memory as asked by {@link ComponentCallbacks2#onTrimMemory(int)}.
+     */
+    public void onTrimMemory(int level) {
+        if (level >= ComponentCallbacks2.TRIM_MEMORY_MODERATE) {
+            mMemoryCache.evictAll();
+        } else if (level >= ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW) {
+            mMemoryCache.trimToSize(mMemoryCache.maxSize() / 2);
+        }
+    }
+
+    /**
+     * Show the bitmap in the view of the load, unless the view has moved on to another load
+     * since. Runs on the main thread.
+     */
+    private void deliver(Load load, Bitmap bitmap) {
+        if (load.view == null) {
+            if (mPrefetches.get(load.key) == load) {
+                mPrefetches.remove(load.key);
+            }
+        } else if (load.view.getTag(R.id.thumbnail) == load) {
+            load.view.setTag(R.id.thumbnail, null);
+            if (bitmap != null) {
+                load.view.setImageBitmap(bitmap);
+            }
+        }
+    }
+
+    /**
+     * Return the decoded image of the load from memory, disk or network, or null if it could
+     * not be loaded or the load was canceled. Runs on a background thread.
+     */
+    private Bitmap fetch(final Load load) {
+        return mInFlight.execute(load.key, new SingleFlight.Call<Bitmap>() {
+            @Override
+            public Bitmap call(CancellationToken token) {
+                Bitmap bitmap = mMemoryCache.get(load.key);
+                if (bitmap != null) {
+                    return bitmap;
+                }
+                try {
+                    byte[] bytes = mDiskCache.get(load.url);
+                    if (bytes == null && !mDownloadsEnabled) {
+                        return null;
+                    }
+                    if (bytes == null) {
+                        bytes = HttpTransport.getInstance().get(new URL(load.url),
+                                HttpTransport.BYTES, token);
+                        mDiskCache.put(load.url, bytes);
+                    }
+                    token.throwIfCanceled();
+                    bitmap = decode(bytes, load.width, load.height);
+                } catch (IOException e) {
+                    if (!token.isCanceled()) {
+                        Log.w(LOG_TAG, "Problem loading thumbnail " + load.url, e);
+                    }
+                    return null;
+                }
+                if (bitmap != null) {
+                    mMemoryCache.put(load.key, bitmap);
+                }
+                return bitmap;
+            }
+        }, load.token);
+    }
+
+    /**
+     * Decode the image, skipping as many pixels as it can while staying at least as large as
+     * the given size.
+     */
+    private Bitmap decode(byte[] bytes, int width, int height) {
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inJustDecodeBounds = true;
+        BitmapFactory.decodeByteArray(bytes, 0, bytes.length, options);
+        if (options.outWidth <= 0 || options.outHeight <= 0) {
+            Log.w(LOG_TAG, "Not an image");
+            return null;
+        }
+        options.inSampleSize = sampleSize(options.outWidth, options.outHeight, width, height);
+        options.inJustDecodeBounds = false;
+        // Thumbnails are photos; without alpha a pixel takes half the memory
+        options.inPreferredConfig = Bitmap.Config.RGB_565;
+        try {
+            return BitmapFactory.decodeByteArray(bytes, 0, bytes.length, options);
+        } catch (OutOfMemoryError e) {
+            // Make room for the next attempt rather than taking the app down
+            mMemoryCache.evictAll();
+            Log.w(LOG_TAG, "Out of memory decoding a thumbnail");
+            return null;
+        }
+    }
+
+    /**
+     * Return the largest power of two to divide the image by that keeps it at least as large
+     * as the requested size.
+     */
+    static int sampleSize(int imageWidth, int imageHeight, int width, int height) {
+        int sampleSize = 1;
+        while (imageWidth / (sampleSize * 2) >= width
+                && imageHeight / (sampleSize * 2) >= height) {
+            sampleSize *= 2;
+        }
+        return sampleSize;
+    }
+
+    private static String cacheKey(String url, int width, int height) {
+        return width + "x" + height + " " + url;
+    }
+}
@@ -0,0 +1,167 @@
+package com.example.android.newsapp;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+
+/**
+ * Runs the {@link ArticlePrefetcher} and {@link ArticleRepository} against the content
+ * endpoint of the {@link FakeGuardianServer} on the development machine (host).
+ */
+public class ArticlePrefetcherTest {
+
+    private static final String WEB_URL = "https://www.theguardian.com/world/";
+
+    private FakeGuardianServer server;
+    private File directory;
+    private CountingRepository repository;
+
+    @Before
+    public void setUp() throws IOException {
+        directory = File.createTempFile("articles", "");
+        directory.delete();
+
+        // Slow enough that the prefetches overlap, so the connection limit is what bounds them
+        server = new FakeGuardianServer(3);
+        server.setLatency(50, 0);
+        server.start();
+        repository = new CountingRepository(new DiskCache(directory, 1024 * 1024),
+                server.getContentUrl());
+    }
+
+    @After
+    public void tearDown() {
+        server.stop();
+        new DiskCache(directory, 0).clear();
+        directory.delete();
+    }
+
+    /* Counts down a latch once per lookup and once per finished fetch */
+    private static final class CountingRepository extends ArticleRepository {
+        volatile CountDownLatch looked = new CountDownLatch(0);
+        volatile CountDownLatch fetched = new CountDownLatch(0);
+
+        /* Holds the next lookup after it is counted, until the latch is released */
+        final AtomicReference<CountDownLatch> gate = new AtomicReference<>();
+
+        CountingRepository(DiskCache cache, String contentUrl) {
+            super(cache, contentUrl, null);
+        }
+
+        @Override
+        public boolean isStored(String webUrl) {
+            boolean stored = super.isStored(webUrl);
+            looked.countDown();
+            CountDownLatch held = gate.getAndSet(null);
+            if (held != null) {
+                try {
+                    held.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            return stored;
+        }
+
+        @Override
+        public String fetch(String webUrl, RetryPolicy retryPolicy, CancellationToken token,
+                            RequestTrace trace) {
+            try {
+                return super.fetch(webUrl, retryPolicy, token, trace);
+            } finally {
+                fetched.countDown();
+            }
+        }
+    }
+
+    @Test
+    public void fetchesWithinConnectionLimitAndStoresText() throws InterruptedException {
+        ArticlePrefetcher prefetcher = new ArticlePrefetcher(repository, 1024 * 1024,
+                60 * 60 * 1000, 2);
+        repository.fetched = new CountDownLatch(5);
+        prefetcher.prefetch(Arrays.asList(WEB_URL + "1", WEB_URL + "2", WEB_URL + "3",
+                WEB_URL + "4", WEB_URL + "5"));
+        assertTrue(repository.fetched.await(5, TimeUnit.SECONDS));
+
+        assertEquals(5, server.getRequestCount());
+        assertTrue(server.getMaxConcurrentRequests() <= 2);
+        assertEquals("Text of world/3", repository.getStored(WEB_URL + "3"));
+        // The first two fetches were counted before the last one started
+        assertTrue(prefetcher.getBytesSpent() > 0);
+
+        // Stored articles open without a request, and are not fetched again
+        assertEquals("Text of world/1",
+                repository.fetch(WEB_URL + "1", RetryPolicy.NONE, new CancellationToken(), null));
+        repository.looked = new CountDownLatch(2);
+        prefetcher.prefetch(Arrays.asList(WEB_URL + "1", WEB_URL + "2"));
+        assertTrue(repository.looked.await(5, TimeUnit.SECONDS));
+        assertEquals(5, server.getRequestCount());
+    }
+
+    @Test
+    public void stopsWhenBudgetIsSpent() throws InterruptedException {
+        // One response is larger than the whole budget
+        ArticlePrefetcher prefetcher = new ArticlePrefetcher(repository, 10, 60 * 60 * 1000, 1);
+        repository.fetched = new CountDownLatch(1);
+        prefetcher.prefetch(Arrays.asList(WEB_URL + "1", WEB_URL + "2", WEB_URL + "3"));
+        assertTrue(repository.fetched.await(5, TimeUnit.SECONDS));
+
+        // The next article only starts once the first is counted, and then the budget is spent
+        prefetcher.prefetch(Arrays.asList(WEB_URL + "2"));
+        assertEquals(1, server.getRequestCount());
+        assertNotNull(repository.getStored(WEB_URL + "1"));
+        assertNull(repository.getStored(WEB_URL + "2"));
+    }
+
+    @Test
+    public void cancelDropsTheWaitingArticles() throws InterruptedException {
+        ArticlePrefetcher prefetcher = new ArticlePrefetcher(repository, 1024 * 1024,
+                60 * 60 * 1000, 1);
+        repository.looked = new CountDownLatch(1);
+        prefetcher.prefetch(Arrays.asList(WEB_URL + "1", WEB_URL + "2", WEB_URL + "3"));
+        assertTrue(repository.looked.await(5, TimeUnit.SECONDS));
+        prefetcher.cancel();
+
+        // Only the article that had started is looked up; the others never run
+        repository.looked = new CountDownLatch(1);
+        prefetcher.prefetch(Arrays.asList(WEB_URL + "4"));
+        assertTrue(repository.looked.await(5, TimeUnit.SECONDS));
+        assertNull(repository.getStored(WEB_URL + "2"));
+        assertNull(repository.getStored(WEB_URL + "3"));
+    }
+
+    @Test
+    public void canceledRequestDoesNotFreeTheSlotOfItsSuccessor() throws InterruptedException {
+        ArticlePrefetcher prefetcher = new ArticlePrefetcher(repository, 1024 * 1024,
+                60 * 60 * 1000, 1);
+        CountDownLatch gate = new CountDownLatch(1);
+        repository.gate.set(gate);
+        repository.looked = new CountDownLatch(1);
+        repository.fetched = new CountDownLatch(3);
+        prefetcher.prefetch(Arrays.asList(WEB_URL + "1"));
+        assertTrue(repository.looked.await(5, TimeUnit.SECONDS));
+        prefetcher.cancel();
+
+        // The same article starts again while the canceled request has yet to finish
+        repository.looked = new CountDownLatch(1);
+        prefetcher.prefetch(Arrays.asList(WEB_URL + "1", WEB_URL + "2"));
+        assertTrue(repository.looked.await(5, TimeUnit.SECONDS));
+        gate.countDown();
+        assertTrue(repository.fetched.await(5, TimeUnit.SECONDS));
+
+        // The canceled request sent nothing, and the second article waited for the first
+        assertEquals(2, server.getRequestCount());
+        assertEquals(1, server.getMaxConcurrentRequests());
+        assertNotNull(repository.getStored(WEB_URL + "1"));
+        assertNotNull(repository.getStored(WEB_URL + "2"));
+    }
+}
@@ -0,0 +1,52 @@
+package com.example.android.newsapp;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for {@link BandwidthMeter}, which run on the development machine (host).
+ */
+public class BandwidthMeterTest {
+
+    /* Nanoseconds per second */
+    private static final long SECOND = 1000L * 1000 * 1000;
+
+    @Test
+    public void unknownUntilMeasured() {
+        BandwidthMeter meter = new BandwidthMeter();
+        assertEquals(-1, meter.getBitsPerSecond());
+
+        // Small bodies are mostly round trips and are not counted
+        meter.record(BandwidthMeter.MIN_SAMPLE_BYTES - 1, SECOND);
+        assertEquals(-1, meter.getBitsPerSecond());
+        assertEquals(0, meter.getSampleCount());
+
+        meter.record(100 * 1000, SECOND);
+        assertEquals(800 * 1000, meter.getBitsPerSecond());
+    }
+
+    @Test
+    public void singleSlowSampleDoesNotSwingTheEstimate() {
+        BandwidthMeter meter = new BandwidthMeter();
+        for (int i = 0; i < 10; i++) {
+            meter.record(100 * 1000, SECOND);
+        }
+        meter.record(10 * 1000, SECOND);
+
+        // A quarter of the way from 800 kbit/s towards 80 kbit/s
+        assertEquals(620 * 1000, meter.getBitsPerSecond());
+    }
+
+    @Test
+    public void resetForgetsSamples() {
+        BandwidthMeter meter = new BandwidthMeter();
+        meter.record(100 * 1000, SECOND);
+        meter.reset();
+        assertEquals(-1, meter.getBitsPerSecond());
+
+        // The first sample on the new network is the estimate
+        meter.record(10 * 1000, SECOND);
+        assertEquals(80 * 1000, meter.getBitsPerSecond());
+    }
+}
@@ -0,0 +1,110 @@
+package com.example.android.newsapp;
+
+import org.junit.Test;
+
+import java.io.InterruptedIOException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for {@link CancellationToken}, which run on the development machine (host).
+ */
+public class CancellationTokenTest {
+
+    private static Runnable counter(final AtomicInteger runs) {
+        return new Runnable() {
+            @Override
+            public void run() {
+                runs.incrementAndGet();
+            }
+        };
+    }
+
+    @Test
+    public void actionsRunOnceWhenCanceled() {
+        CancellationToken token = new CancellationToken();
+        AtomicInteger runs = new AtomicInteger();
+        token.onCancel(counter(runs));
+        token.onCancel(counter(runs));
+        assertEquals(0, runs.get());
+
+        token.cancel();
+        token.cancel();
+        assertTrue(token.isCanceled());
+        assertEquals(2, runs.get());
+    }
+
+    @Test
+    public void actionRunsRightAwayOnACanceledToken() {
+        CancellationToken token = new CancellationToken();
+        token.cancel();
+        AtomicInteger runs = new AtomicInteger();
+        token.onCancel(counter(runs));
+        assertEquals(1, runs.get());
+    }
+
+    @Test
+    public void removedActionDoesNotRun() {
+        CancellationToken token = new CancellationToken();
+        AtomicInteger runs = new AtomicInteger();
+        Runnable action = token.onCancel(counter(runs));
+        token.remove(action);
+        token.cancel();
+        assertEquals(0, runs.get());
+    }
+
+    @Test
+    public void throwsOnlyOnceCanceled() throws InterruptedIOException {
+        CancellationToken token = new CancellationToken();
+        token.throwIfCanceled();
+        token.cancel();
+        try {
+            token.throwIfCanceled();
+            fail();
+        } catch (InterruptedIOException e) {
+            // Expected
+        }
+    }
+
+    @Test
+    public void cancelingWakesUpSleep() throws Exception {
+        final CancellationToken token = new CancellationToken();
+        final CountDownLatch sleeping = new CountDownLatch(1);
+        final CountDownLatch woken = new CountDownLatch(1);
+        final AtomicInteger interrupted = new AtomicInteger();
+        Thread sleeper = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    sleeping.countDown();
+                    token.sleep(60000);
+                } catch (InterruptedIOException e) {
+                    interrupted.incrementAndGet();
+                }
+                woken.countDown();
+            }
+        });
+        sleeper.start();
+        sleeping.await();
+        token.cancel();
+        sleeper.join(5000);
+        assertEquals(0, woken.getCount());
+        assertEquals(1, interrupted.get());
+    }
+
+    @Test
+    public void sleepReturnsWhenNotCanceled() throws InterruptedIOException {
+        new CancellationToken().sleep(1);
+    }
+
+    @Test
+    public void noneIsNeverCanceled() {
+        AtomicInteger runs = new AtomicInteger();
+        CancellationToken.NONE.onCancel(counter(runs));
+        CancellationToken.NONE.cancel();
+        assertFalse(CancellationToken.NONE.isCanceled());
+        assertEquals(0, runs.get());
+    }
+}
@@ -0,0 +1,84 @@
+package com.example.android.newsapp;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for {@link DeltaSync}, which run on the development machine (host).
+ */
+public class DeltaSyncTest {
+
+    private static final String KEY = "https://example.com/search?order-by=newest";
+
+    /* Reconciliation interval of the tests */
+    private static final long RECONCILE_MILLIS = 1000;
+
+    private static News news(String id, long published) {
+        return new News("Title " + id, "World", published, "", "https://example.com/" + id);
+    }
+
+    private static String urls(List<News> stories) {
+        StringBuilder urls = new StringBuilder();
+        for (News news : stories) {
+            urls.append(news.getUrl().substring("https://example.com/".length())).append(' ');
+        }
+        return urls.toString().trim();
+    }
+
+    @Test
+    public void unknownQueriesAreFetchedInFull() {
+        DeltaSync sync = new DeltaSync(RECONCILE_MILLIS);
+        assertEquals(News.NO_DATE, sync.getNewestMillis(KEY, 0));
+        assertNull(sync.onDelta(KEY, Collections.<News>emptyList(), 3));
+
+        // Nothing to ask for newer articles from without dates
+        sync.onFullSync(KEY, Arrays.asList(news("a", News.NO_DATE)), 0);
+        assertEquals(News.NO_DATE, sync.getNewestMillis(KEY, 0));
+    }
+
+    @Test
+    public void mergesNewArticlesByUrl() {
+        DeltaSync sync = new DeltaSync(RECONCILE_MILLIS);
+        sync.onFullSync(KEY, Arrays.asList(news("c", 300), news("b", 200), news("a", 100)), 0);
+        assertEquals(300, sync.getNewestMillis(KEY, 10));
+
+        // The newest known article comes back and is not shown twice; the oldest drops off
+        List<News> merged = sync.onDelta(KEY, Arrays.asList(news("d", 400), news("c", 300)), 3);
+        assertEquals("d c b", urls(merged));
+        assertEquals(400, sync.getNewestMillis(KEY, 20));
+
+        // An empty delta keeps the page as it is
+        assertEquals("d c b", urls(sync.onDelta(KEY, Collections.<News>emptyList(), 3)));
+        assertEquals(1, sync.getFullSyncCount());
+        assertEquals(2, sync.getDeltaSyncCount());
+    }
+
+    @Test
+    public void newerCopyReplacesTheKnownOne() {
+        List<News> merged = DeltaSync.merge(
+                Arrays.asList(new News("Edited", "World", 300, "", "https://example.com/c")),
+                Arrays.asList(news("c", 300), news("b", 200)), 10);
+        assertEquals("c b", urls(merged));
+        assertEquals("Edited", merged.get(0).getTitle());
+    }
+
+    @Test
+    public void fullDeltaOrStaleBaselineNeedsFullFetch() {
+        DeltaSync sync = new DeltaSync(RECONCILE_MILLIS);
+        sync.onFullSync(KEY, Arrays.asList(news("b", 200), news("a", 100)), 0);
+
+        // A whole page of new articles may leave a gap before the known ones
+        assertNull(sync.onDelta(KEY, Arrays.asList(news("d", 400), news("c", 300)), 2));
+
+        // Edits and deletions are caught by a full fetch after the interval
+        assertEquals(200, sync.getNewestMillis(KEY, RECONCILE_MILLIS - 1));
+        assertEquals(News.NO_DATE, sync.getNewestMillis(KEY, RECONCILE_MILLIS));
+        sync.onFullSync(KEY, Arrays.asList(news("d", 400)), RECONCILE_MILLIS);
+        assertEquals(400, sync.getNewestMillis(KEY, RECONCILE_MILLIS + 1));
+    }
+}
@@ -0,0 +1,74 @@
+package com.example.android.newsapp;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+public class DiskCacheTest {
+
+    private File directory;
+
+    @Before
+    public void setUp() throws IOException {
+        directory = File.createTempFile("thumbnails", "");
+        directory.delete();
+    }
+
+    @After
+    public void tearDown() {
+        new DiskCache(directory, 0).clear();
+        directory.delete();
+    }
+
+    private static byte[] bytes(int size, int value) {
+        byte[] bytes = new byte[size];
+        Arrays.fill(bytes, (byte) value);
+        return bytes;
+    }
+
+    @Test
+    public void storesAndReplacesEntries() throws IOException {
+        DiskCache cache = new DiskCache(directory, 1000);
+        assertNull(cache.get("a"));
+
+        cache.put("a", bytes(100, 1));
+        cache.put("a", bytes(50, 2));
+        assertArrayEquals(bytes(50, 2), cache.get("a"));
+        assertEquals(50, cache.getSize());
+    }
+
+    @Test
+    public void evictsLeastRecentlyUsed() throws IOException {
+        DiskCache cache = new DiskCache(directory, 250);
+        cache.put("a", bytes(100, 1));
+        cache.put("b", bytes(100, 2));
+        cache.get("a");
+        cache.put("c", bytes(100, 3));
+
+        assertNull(cache.get("b"));
+        assertNotNull(cache.get("a"));
+        assertNotNull(cache.get("c"));
+        assertEquals(200, cache.getSize());
+
+        // Entries larger than the whole cache are not stored
+        cache.put("d", bytes(300, 4));
+        assertNull(cache.get("d"));
+    }
+
+    @Test
+    public void survivesRestart() throws IOException {
+        DiskCache cache = new DiskCache(directory, 1000);
+        cache.put("a", bytes(100, 1));
+        cache.put("b", bytes(200, 2));
+
+        DiskCache reopened = new DiskCache(directory, 1000);
+        assertEquals(300, reopened.getSize());
+        assertArrayEquals(bytes(200, 2), reopened.get("b"));
+    }
+}
@@ -0,0 +1,456 @@
+package com.example.android.newsapp;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Stand-in for the search and content endpoints of the Guardian API on the development machine
+ * (host), so the network path can be tested and measured without the live service or its key.
+ *
+ * Every request to /search is answered with a recorded response, if one was set, or with a
+ * generated one that has as many results as the page-size parameter asks for and result
+ * bodies of the configured size. A request to /content/ followed by the ID of an article is
+ * answered with a body that names the ID. Faults are drawn at random from a seeded generator, so a run
+ * can be repeated: a fixed latency with jitter before every response, a long stall before the
+ * first byte of some responses, bandwidth throttling of the body, error responses (such as
+ * 429 or 503 with Retry-After) and bodies cut off halfway. Bodies can also be sent
+ * gzip-compressed, and with an ETag that turns a request for an unchanged body into a 304.
+ */
+final class FakeGuardianServer {
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    /* The body is written in slices of this many milliseconds when the bandwidth is limited */
+    private static final int SLICE_MILLIS = 20;
+
+    private static final String[] SECTIONS = {"World news", "Sport", "Business", "Technology",
+            "Politics", "Culture", "Science", "Environment"};
+    private static final String[] AUTHORS = {"Sam Jones", "Maria Garc\u00eda", "Ade Okafor",
+            "Lena Fischer", "Tom Wright"};
+
+    /* Path of the content endpoint; the rest of the path is the ID of the article */
+    private static final String CONTENT_PATH = "/content/";
+
+    /* Publication time of the first generated result; later results are one minute older */
+    private static final long NEWEST_MILLIS = 1531353423000L;
+
+    private final HttpServer server;
+    private final ExecutorService threads;
+    private final Random random;
+
+    /* Response served for every request, or null to generate one */
+    private volatile byte[] recorded;
+
+    /* Size of the body field of every generated result, in characters; 0 leaves it out */
+    private volatile int bodyChars;
+
+    /* Delay before every response, and the largest random delay added to it */
+    private volatile int latencyMillis;
+    private volatile int jitterMillis;
+
+    /* Share of responses that stall before their first byte, and for how long */
+    private volatile double slowRate;
+    private volatile int slowMillis;
+
+    /* Speed the body is written at in bytes per second, or 0 for as fast as possible */
+    private volatile int bytesPerSecond;
+
+    /* Share of requests answered with the error status, and the Retry-After it sends */
+    private volatile double errorRate;
+    private volatile int errorStatus = 503;
+    private volatile int retryAfterSeconds = -1;
+
+    /* Share of responses whose body is cut off halfway */
+    private volatile double truncateRate;
+
+    /* Whether bodies are compressed for clients that accept gzip */
+    private volatile boolean gzip;
+
+    /* Whether responses carry an ETag, and If-None-Match is answered with a 304 */
+    private volatile boolean etags;
+
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong errors = new AtomicLong();
+    private final AtomicLong slow = new AtomicLong();
+    private final AtomicLong truncated = new AtomicLong();
+    private final AtomicLong notModified = new AtomicLong();
+    private final AtomicLong bytesSent = new AtomicLong();
+
+    /* Requests being served, and the most that were served at the same time */
+    private final AtomicInteger running = new AtomicInteger();
+    private final AtomicInteger maxRunning = new AtomicInteger();
+
+    /**
+     * Construct a server on a free port of the loopback interface, drawing faults from a
+     * generator with the given seed. It does not accept requests until it is started.
+     */
+    FakeGuardianServer(long seed) throws IOException {
+        random = new Random(seed);
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        HttpHandler handler = new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                int now = running.incrementAndGet();
+                int max;
+                while (now > (max = maxRunning.get()) && !maxRunning.compareAndSet(max, now)) {
+                    // Another request raised it meanwhile; try again
+                }
+                try {
+                    serve(exchange);
+                } finally {
+                    running.decrementAndGet();
+                    exchange.close();
+                }
+            }
+        };
+        server.createContext("/search", handler);
+        server.createContext(CONTENT_PATH, handler);
+        // Serve requests in parallel, so what limits them is the client
+        threads = Executors.newCachedThreadPool();
+        server.setExecutor(threads);
+    }
+
+    void start() {
+        server.start();
+    }
+
+    void stop() {
+        server.stop(0);
+        threads.shutdownNow();
+    }
+
+    /**
+     * Return the URL of the search endpoint, to build queries with.
+     */
+    String getSearchUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + "/search";
+    }
+
+    /**
+     * Return the URL of the content endpoint, ending with a slash, to append article IDs to.
+     */
+    String getContentUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + CONTENT_PATH;
+    }
+
+    /**
+     * Serve the given response for every request, or generate one if it is null.
+     */
+    void setRecorded(byte[] response) {
+        recorded = response;
+    }
+
+    /**
+     * Give every generated result a body field of the given number of characters.
+     */
+    void setBodyChars(int chars) {
+        bodyChars = chars;
+    }
+
+    void setLatency(int millis, int jitterMillis) {
+        latencyMillis = millis;
+        this.jitterMillis = jitterMillis;
+    }
+
+    /**
+     * Stall the given share of responses for the given time before their first byte.
+     */
+    void setSlowFirstByte(double rate, int millis) {
+        slowRate = rate;
+        slowMillis = millis;
+    }
+
+    /**
+     * Write bodies at the given speed, or as fast as possible if it is 0.
+     */
+    void setBandwidth(int bytesPerSecond) {
+        this.bytesPerSecond = bytesPerSecond;
+    }
+
+    /**
+     * Answer the given share of requests with the status code and without results.
+     *
+     * @param retryAfterSeconds is the value of the Retry-After header, or -1 to leave it out
+     */
+    void setErrors(double rate, int status, int retryAfterSeconds) {
+        errorRate = rate;
+        errorStatus = status;
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    /**
+     * Cut off the body of the given share of responses halfway.
+     */
+    void setTruncation(double rate) {
+        truncateRate = rate;
+    }
+
+    /**
+     * Compress bodies for clients that accept gzip.
+     */
+    void setGzip(boolean gzip) {
+        this.gzip = gzip;
+    }
+
+    /**
+     * Send an ETag with every body, and answer a request that names it with a 304.
+     */
+    void setEtags(boolean etags) {
+        this.etags = etags;
+    }
+
+    long getRequestCount() {
+        return requests.get();
+    }
+
+    long getErrorCount() {
+        return errors.get();
+    }
+
+    long getSlowCount() {
+        return slow.get();
+    }
+
+    long getTruncatedCount() {
+        return truncated.get();
+    }
+
+    long getNotModifiedCount() {
+        return notModified.get();
+    }
+
+    long getBytesSent() {
+        return bytesSent.get();
+    }
+
+    /**
+     * Return the largest number of requests that were served at the same time.
+     */
+    int getMaxConcurrentRequests() {
+        return maxRunning.get();
+    }
+
+    private void serve(HttpExchange exchange) throws IOException {
+        requests.incrementAndGet();
+        drain(exchange.getRequestBody());
+        Map<String, String> parameters = parseQuery(exchange.getRequestURI().getRawQuery());
+
+        // Draw every fault up front, so the sequence only depends on the seed and the order
+        // requests arrive in
+        int delay;
+        boolean stall;
+        boolean error;
+        boolean truncate;
+        synchronized (random) {
+            delay = latencyMillis + (jitterMillis > 0 ? random.nextInt(jitterMillis + 1) : 0);
+            stall = random.nextDouble() < slowRate;
+            error = random.nextDouble() < errorRate;
+            truncate = random.nextDouble() < truncateRate;
+        }
+        if (stall) {
+            slow.incrementAndGet();
+            delay += slowMillis;
+        }
+        if (!sleep(delay)) {
+            return;
+        }
+
+        if (error) {
+            errors.incrementAndGet();
+            if (retryAfterSeconds >= 0) {
+                exchange.getResponseHeaders().set("Retry-After",
+                        String.valueOf(retryAfterSeconds));
+            }
+            byte[] body = ("{\"response\":{\"status\":\"error\",\"message\":\"Status "
+                    + errorStatus + "\"}}").getBytes(UTF_8);
+            exchange.sendResponseHeaders(errorStatus, body.length);
+            write(exchange.getResponseBody(), body, body.length);
+            return;
+        }
+
+        String path = exchange.getRequestURI().getPath();
+        byte[] body;
+        if (path.startsWith(CONTENT_PATH)) {
+            body = article(path.substring(CONTENT_PATH.length()));
+        } else {
+            body = recorded != null ? recorded : generate(parameters);
+        }
+        if (etags) {
+            String etag = "\"" + Integer.toHexString(Arrays.hashCode(body)) + "\"";
+            exchange.getResponseHeaders().set("ETag", etag);
+            if (etag.equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+                notModified.incrementAndGet();
+                exchange.sendResponseHeaders(304, -1);
+                return;
+            }
+        }
+        String acceptEncoding = exchange.getRequestHeaders().getFirst("Accept-Encoding");
+        if (gzip && acceptEncoding != null && acceptEncoding.contains("gzip")) {
+            body = compress(body);
+            exchange.getResponseHeaders().set("Content-Encoding", "gzip");
+        }
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=UTF-8");
+        exchange.sendResponseHeaders(200, body.length);
+        if (truncate) {
+            truncated.incrementAndGet();
+            // Fewer bytes than announced; the server drops the connection when it is closed
+            write(exchange.getResponseBody(), body, body.length / 2);
+            return;
+        }
+        write(exchange.getResponseBody(), body, body.length);
+    }
+
+    /**
+     * Write the first bytes of the body, no faster than the bandwidth allows.
+     */
+    private void write(OutputStream out, byte[] body, int length) throws IOException {
+        int offset = 0;
+        while (offset < length) {
+            int limit = bytesPerSecond;
+            int slice = limit > 0 ? Math.max(1, limit * SLICE_MILLIS / 1000) : length;
+            int count = Math.min(slice, length - offset);
+            out.write(body, offset, count);
+            out.flush();
+            offset += count;
+            bytesSent.addAndGet(count);
+            if (limit > 0 && offset < length && !sleep(SLICE_MILLIS)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Generate a search response with one result for every article on the requested page.
+     */
+    private byte[] generate(Map<String, String> parameters) {
+        int pageSize = parseInt(parameters.get("page-size"), 10);
+        int page = parseInt(parameters.get("page"), 1);
+        String section = parameters.get("section");
+        String body = filler(bodyChars);
+
+        StringBuilder json = new StringBuilder(pageSize * (600 + body.length()));
+        json.append("{\"response\":{\"status\":\"ok\",\"userTier\":\"developer\",\"total\":")
+                .append(pageSize * 100).append(",\"startIndex\":")
+                .append((page - 1) * pageSize + 1).append(",\"pageSize\":").append(pageSize)
+                .append(",\"currentPage\":").append(page).append(",\"pages\":100")
+                .append(",\"orderBy\":\"newest\",\"results\":[");
+        for (int i = 0; i < pageSize; i++) {
+            int n = (page - 1) * pageSize + i;
+            String sectionName = section != null ? section : SECTIONS[n % SECTIONS.length];
+            String sectionId = sectionName.toLowerCase(Locale.ROOT).replace(' ', '-');
+            String id = sectionId + "/2018/jul/article-" + n;
+            String author = AUTHORS[n % AUTHORS.length];
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append("{\"id\":\"").append(id)
+                    .append("\",\"type\":\"article\",\"sectionId\":\"").append(sectionId)
+                    .append("\",\"sectionName\":\"").append(sectionName)
+                    .append("\",\"webPublicationDate\":\"")
+                    .append(Iso8601.format(NEWEST_MILLIS - n * 60000L))
+                    .append("\",\"webTitle\":\"Generated article ").append(n)
+                    .append("\",\"webUrl\":\"https://www.theguardian.com/").append(id)
+                    .append("\",\"apiUrl\":\"https://content.guardianapis.com/").append(id)
+                    .append("\",\"isHosted\":false,\"fields\":{\"thumbnail\":")
+                    .append("\"https://media.guim.co.uk/").append(n).append("/500.jpg\"");
+            if (!body.isEmpty()) {
+                json.append(",\"body\":\"").append(body).append('"');
+            }
+            json.append("},\"tags\":[{\"id\":\"profile/").append(n % AUTHORS.length)
+                    .append("\",\"type\":\"contributor\",\"webTitle\":\"").append(author)
+                    .append("\"}]}");
+        }
+        json.append("]}}");
+        return json.toString().getBytes(UTF_8);
+    }
+
+    /**
+     * Generate a content response for the article with the given ID.
+     */
+    private static byte[] article(String id) {
+        return ("{\"response\":{\"status\":\"ok\",\"content\":{\"id\":\"" + id
+                + "\",\"fields\":{\"body\":\"<p>Text of " + id + "</p>\"}}}}").getBytes(UTF_8);
+    }
+
+    private static byte[] compress(byte[] body) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        GZIPOutputStream out = new GZIPOutputStream(bytes);
+        out.write(body);
+        out.close();
+        return bytes.toByteArray();
+    }
+
+    private static String filler(int chars) {
+        StringBuilder text = new StringBuilder(chars);
+        String words = "<p>The quick brown fox jumps over the lazy dog.</p> ";
+        while (text.length() < chars) {
+            text.append(words, 0, Math.min(words.length(), chars - text.length()));
+        }
+        return text.toString();
+    }
+
+    private static Map<String, String> parseQuery(String query) throws IOException {
+        Map<String, String> parameters = new HashMap<>();
+        if (query == null) {
+            return parameters;
+        }
+        for (String pair : query.split("&")) {
+            int equals = pair.indexOf('=');
+            if (equals > 0) {
+                parameters.put(URLDecoder.decode(pair.substring(0, equals), "UTF-8"),
+                        URLDecoder.decode(pair.substring(equals + 1), "UTF-8"));
+            }
+        }
+        return parameters;
+    }
+
+    private static int parseInt(String value, int fallback) {
+        try {
+            return value != null ? Integer.parseInt(value) : fallback;
+        } catch (NumberFormatException e) {
+            return fallback;
+        }
+    }
+
+    /**
+     * Sleep for the given time; returns false if the server is being stopped.
+     */
+    private static boolean sleep(int millis) {
+        if (millis <= 0) {
+            return true;
+        }
+        try {
+            Thread.sleep(millis);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private static void drain(InputStream in) throws IOException {
+        byte[] buffer = new byte[1024];
+        while (in.read(buffer) != -1) {
+            // Discard
+        }
+    }
+}
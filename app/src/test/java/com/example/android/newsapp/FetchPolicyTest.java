@@ -0,0 +1,65 @@
+package com.example.android.newsapp;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for {@link FetchPolicy}, which run on the development machine (host).
+ */
+public class FetchPolicyTest {
+
+    @Test
+    public void classifiesBandwidth() {
+        assertEquals(FetchPolicy.Quality.POOR, FetchPolicy.classify(50 * 1000));
+        assertEquals(FetchPolicy.Quality.MODERATE, FetchPolicy.classify(300 * 1000));
+        assertEquals(FetchPolicy.Quality.GOOD, FetchPolicy.classify(1000 * 1000));
+        assertEquals(FetchPolicy.Quality.EXCELLENT, FetchPolicy.classify(20 * 1000 * 1000));
+    }
+
+    @Test
+    public void measuredBandwidthOverridesTheEstimate() {
+        FetchPolicy wifi = FetchPolicy.forNetwork(FetchPolicy.Quality.GOOD, false, -1);
+        assertEquals(FetchPolicy.Quality.GOOD, wifi.quality);
+
+        // Congested Wi-Fi is treated like 2G
+        FetchPolicy congested = FetchPolicy.forNetwork(FetchPolicy.Quality.GOOD, false, 50 * 1000);
+        assertEquals(FetchPolicy.Quality.POOR, congested.quality);
+        assertTrue(congested.pageSize < wifi.pageSize);
+        assertTrue(congested.readTimeoutMillis > wifi.readTimeoutMillis);
+        assertFalse(congested.downloadThumbnails);
+
+        // Without a connection there is nothing to measure
+        FetchPolicy offline = FetchPolicy.forNetwork(FetchPolicy.Quality.OFFLINE, false,
+                20 * 1000 * 1000);
+        assertEquals(FetchPolicy.Quality.OFFLINE, offline.quality);
+        assertFalse(offline.prefetchArticles);
+    }
+
+    @Test
+    public void fasterNetworksFetchMore() {
+        FetchPolicy previous = null;
+        for (FetchPolicy.Quality quality : new FetchPolicy.Quality[]{FetchPolicy.Quality.POOR,
+                FetchPolicy.Quality.MODERATE, FetchPolicy.Quality.GOOD,
+                FetchPolicy.Quality.EXCELLENT}) {
+            FetchPolicy policy = FetchPolicy.forNetwork(quality, false, -1);
+            if (previous != null) {
+                assertTrue(policy.pageSize > previous.pageSize);
+                assertTrue(policy.prefetchDistance > previous.prefetchDistance);
+                assertTrue(policy.thumbnailPrefetchScreens >= previous.thumbnailPrefetchScreens);
+                assertTrue(policy.readTimeoutMillis <= previous.readTimeoutMillis);
+            }
+            previous = policy;
+        }
+    }
+
+    @Test
+    public void meteredNetworksDoNotPrefetchArticles() {
+        FetchPolicy metered = FetchPolicy.forNetwork(FetchPolicy.Quality.EXCELLENT, true, -1);
+        FetchPolicy unmetered = FetchPolicy.forNetwork(FetchPolicy.Quality.EXCELLENT, false, -1);
+        assertFalse(metered.prefetchArticles);
+        assertTrue(unmetered.prefetchArticles);
+        assertTrue(metered.thumbnailPrefetchScreens < unmetered.thumbnailPrefetchScreens);
+        assertEquals(unmetered.pageSize, metered.pageSize);
+    }
+}
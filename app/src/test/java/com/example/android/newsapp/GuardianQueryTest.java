@@ -0,0 +1,92 @@
+package com.example.android.newsapp;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for {@link GuardianQuery}, which run on the development machine (host).
+ */
+public class GuardianQueryTest {
+
+    @Test
+    public void buildsCanonicalUrls() {
+        GuardianQuery first = new GuardianQuery.Builder("https://example.com/search")
+                .showTags("contributor")
+                .pageSize(20)
+                .search("climate change & more")
+                .orderBy("relevance")
+                .section(null)
+                .page(2)
+                .build();
+        GuardianQuery second = new GuardianQuery.Builder("https://example.com/search")
+                .page(2)
+                .orderBy("relevance")
+                .search("climate change & more")
+                .pageSize(20)
+                .section("")
+                .showTags("contributor")
+                .build();
+
+        assertEquals("https://example.com/search?order-by=relevance&page=2&page-size=20"
+                + "&q=climate%20change%20%26%20more&show-tags=contributor", first.getUrl());
+        assertEquals(first.getUrl(), second.getUrl());
+    }
+
+    @Test
+    public void joinsFieldsAndTagsAndFormatsDates() {
+        GuardianQuery query = new GuardianQuery.Builder("https://example.com/search")
+                .showFields("thumbnail", "bodyText", "thumbnail")
+                .showTags("keyword", "contributor")
+                .fromDate(Iso8601.parse("2018-07-11T00:00:00Z"))
+                .toDate(Iso8601.parse("2018-07-12T06:30:00Z"))
+                .build();
+
+        assertEquals("https://example.com/search?from-date=2018-07-11"
+                + "&show-fields=bodyText%2Cthumbnail&show-tags=contributor%2Ckeyword"
+                + "&to-date=2018-07-12T06%3A30%3A00Z", query.getUrl());
+    }
+
+    @Test
+    public void shapeIgnoresValuesThatDoNotChangeTheResponseSize() {
+        GuardianQuery query = new GuardianQuery.Builder()
+                .search("brexit")
+                .section("politics")
+                .page(3)
+                .pageSize(50)
+                .showTags("contributor")
+                .build();
+
+        assertTrue(query.getUrl().startsWith(GuardianQuery.SEARCH_URL + "?api-key="));
+        assertEquals("page-size=50&q&section&show-tags=contributor", query.getShape());
+        assertEquals(query.getShape(), new GuardianQuery.Builder()
+                .search("election")
+                .section("world")
+                .page(1)
+                .pageSize(50)
+                .showTags("contributor")
+                .build()
+                .getShape());
+    }
+
+    @Test
+    public void newBuilderKeepsEveryParameter() {
+        GuardianQuery query = new GuardianQuery.Builder("https://example.com/search")
+                .orderBy("newest")
+                .pageSize(20)
+                .showFields("thumbnail")
+                .showTags("contributor")
+                .build();
+        assertEquals("newest", query.getParameter("order-by"));
+        assertNull(query.getParameter("from-date"));
+
+        GuardianQuery delta = query.newBuilder()
+                .fromDate(Iso8601.parse("2018-07-11T06:30:00Z"))
+                .showFields("bodyText")
+                .build();
+        assertEquals("https://example.com/search?from-date=2018-07-11T06%3A30%3A00Z"
+                + "&order-by=newest&page-size=20&show-fields=bodyText%2Cthumbnail"
+                + "&show-tags=contributor", delta.getUrl());
+        assertEquals(query.getUrl(), query.newBuilder().build().getUrl());
+    }
+}
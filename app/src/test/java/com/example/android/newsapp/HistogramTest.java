@@ -0,0 +1,45 @@
+package com.example.android.newsapp;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for {@link Histogram}, which run on the development machine (host).
+ */
+public class HistogramTest {
+
+    @Test
+    public void buildsOneTwoFiveBounds() {
+        assertArrayEquals(new long[]{1, 2, 5, 10, 20, 50, 100}, Histogram.oneTwoFive(1, 100));
+        assertArrayEquals(new long[]{100, 200, 500, 1000}, Histogram.oneTwoFive(100, 600));
+    }
+
+    @Test
+    public void reportsBucketPercentiles() {
+        Histogram histogram = new Histogram(Histogram.oneTwoFive(1, 1000));
+        for (int i = 1; i < 100; i++) {
+            histogram.record(i);
+        }
+        histogram.record(5000);
+
+        Histogram.Snapshot snapshot = histogram.snapshot();
+        assertEquals(100, snapshot.count);
+        assertEquals(4950 + 5000, snapshot.sum);
+        assertEquals(5000, snapshot.max);
+        assertEquals(99, snapshot.getMean());
+        assertEquals(50, snapshot.getPercentile(50));
+        assertEquals(100, snapshot.getPercentile(90));
+        assertEquals(100, snapshot.getPercentile(99));
+        assertEquals(5000, snapshot.getPercentile(100));
+
+        // Values above the last bound land in the open bucket
+        int last = snapshot.getBucketCount() - 1;
+        assertEquals(Long.MAX_VALUE, snapshot.getBucketBound(last));
+        assertEquals(1, snapshot.getBucketCount(last));
+
+        histogram.reset();
+        assertEquals(0, histogram.snapshot().count);
+        assertEquals(0, histogram.snapshot().getPercentile(99));
+    }
+}
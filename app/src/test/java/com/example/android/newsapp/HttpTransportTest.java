@@ -0,0 +1,147 @@
+package com.example.android.newsapp;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.net.URL;
+
+import static org.junit.Assert.*;
+
+/**
+ * Runs the {@link HttpTransport} against the {@link FakeGuardianServer} on the development
+ * machine (host).
+ */
+public class HttpTransportTest {
+
+    /* Reads the whole body into a new string, so a result handed out again is the same object */
+    private static final HttpTransport.BodyParser<String> TEXT =
+            new HttpTransport.BodyParser<String>() {
+                @Override
+                public String parse(InputStream body) throws IOException {
+                    return new String(HttpTransport.BYTES.parse(body), "UTF-8");
+                }
+            };
+
+    private FakeGuardianServer server;
+    private HttpTransport transport;
+
+    @Before
+    public void setUp() throws IOException {
+        server = new FakeGuardianServer(7);
+        server.start();
+        server.setBodyChars(2000);
+        transport = HttpTransport.getInstance();
+        transport.clearValidators();
+    }
+
+    @After
+    public void tearDown() {
+        server.stop();
+    }
+
+    private URL url(int page) throws IOException {
+        return new URL(server.getSearchUrl() + "?page-size=10&page=" + page);
+    }
+
+    @Test
+    public void gzipBodiesAreDecodedAndCounted() throws IOException {
+        server.setGzip(true);
+        HttpTransport.Stats before = transport.getStats();
+        RequestTrace trace = new RequestTrace();
+        String body = transport.get(url(1), TEXT, CancellationToken.NONE, trace);
+        HttpTransport.Stats after = transport.getStats();
+
+        assertTrue(body.startsWith("{\"response\""));
+        assertEquals(body.getBytes("UTF-8").length, trace.bytesDecoded);
+        assertTrue(trace.bytesOnWire < trace.bytesDecoded);
+        assertEquals(trace.bytesDecoded - trace.bytesOnWire,
+                after.bytesSavedGzip - before.bytesSavedGzip);
+        assertEquals(before.bytesSavedNotModified, after.bytesSavedNotModified);
+        assertEquals(trace.bytesOnWire, after.bytesOnWire - before.bytesOnWire);
+    }
+
+    @Test
+    public void unchangedBodyIsAnsweredFromTheValidators() throws IOException {
+        server.setEtags(true);
+        RequestTrace first = new RequestTrace();
+        String body = transport.get(url(1), TEXT, CancellationToken.NONE, first);
+        assertFalse(first.notModified);
+
+        HttpTransport.Stats before = transport.getStats();
+        RequestTrace second = new RequestTrace();
+        assertSame(body, transport.get(url(1), TEXT, CancellationToken.NONE, second));
+        HttpTransport.Stats after = transport.getStats();
+
+        assertTrue(second.notModified);
+        assertEquals(1, server.getNotModifiedCount());
+        assertEquals(1, after.notModified - before.notModified);
+        assertEquals(first.bytesDecoded,
+                after.bytesSavedNotModified - before.bytesSavedNotModified);
+        assertEquals(before.bytesSavedGzip, after.bytesSavedGzip);
+    }
+
+    @Test
+    public void rawBodiesAreAlwaysDownloaded() throws IOException {
+        server.setEtags(true);
+        transport.get(url(1), HttpTransport.BYTES);
+        transport.get(url(1), HttpTransport.BYTES);
+        assertEquals(2, server.getRequestCount());
+        assertEquals(0, server.getNotModifiedCount());
+    }
+
+    @Test
+    public void errorStatusCarriesRetryAfter() throws IOException {
+        server.setErrors(1, 429, 2);
+        try {
+            transport.get(url(1), TEXT);
+            fail();
+        } catch (HttpTransport.HttpStatusException e) {
+            assertEquals(429, e.getStatusCode());
+            assertEquals(2000, e.getRetryAfterMillis());
+        }
+    }
+
+    @Test
+    public void cancelingUnblocksAStalledResponse() throws Exception {
+        server.setSlowFirstByte(1, 5000);
+        final CancellationToken token = new CancellationToken();
+        Thread canceler = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    Thread.sleep(100);
+                } catch (InterruptedException e) {
+                    return;
+                }
+                token.cancel();
+            }
+        });
+        long start = System.nanoTime();
+        canceler.start();
+        try {
+            transport.get(url(1), TEXT, token);
+            fail();
+        } catch (IOException e) {
+            // Expected; closing the connection may surface as any I/O error
+        }
+        canceler.join();
+        assertTrue((System.nanoTime() - start) / 1000000 < 4000);
+    }
+
+    @Test
+    public void canceledTokenSendsNothing() throws IOException {
+        CancellationToken token = new CancellationToken();
+        token.cancel();
+        try {
+            transport.get(url(1), TEXT, token);
+            fail();
+        } catch (InterruptedIOException e) {
+            // Expected
+        }
+        assertEquals(0, server.getRequestCount());
+    }
+}
@@ -0,0 +1,238 @@
+package com.example.android.newsapp;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.SocketTimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for {@link LatencyGuard}, with requests that never touch the network, which run
+ * on the development machine (host).
+ */
+public class LatencyGuardTest {
+
+    private static final String ENDPOINT = "search";
+
+    /* Answers at once, and reports the given stage times */
+    private static LatencyGuard.Request<String> answer(final String result,
+                                                       final long connectMillis,
+                                                       final long firstByteMillis,
+                                                       final long totalMillis) {
+        return new LatencyGuard.Request<String>() {
+            @Override
+            public String run(CancellationToken token, RequestTrace trace, int connectTimeout,
+                              int readTimeout) {
+                trace.connectNanos = connectMillis * 1000000;
+                trace.firstByteNanos = firstByteMillis * 1000000;
+                trace.totalNanos = totalMillis * 1000000;
+                return result;
+            }
+        };
+    }
+
+    private static void warmUp(LatencyGuard guard, long connectMillis, long firstByteMillis,
+                               long totalMillis) throws IOException {
+        for (int i = 0; i < LatencyGuard.MIN_SAMPLES; i++) {
+            guard.execute(ENDPOINT, RetryPolicy.NONE, true,
+                    answer("warm", connectMillis, firstByteMillis, totalMillis),
+                    CancellationToken.NONE, null);
+        }
+    }
+
+    private static LatencyGuard.EndpointStats stats(LatencyGuard guard) {
+        assertEquals(1, guard.getStats().size());
+        return guard.getStats().get(0);
+    }
+
+    @Test
+    public void timeoutsFollowRecentLatency() throws IOException {
+        LatencyGuard guard = new LatencyGuard(LatencyGuard.DEADLINE_MILLIS);
+        final int[] timeouts = new int[2];
+        LatencyGuard.Request<String> request = new LatencyGuard.Request<String>() {
+            @Override
+            public String run(CancellationToken token, RequestTrace trace, int connectTimeout,
+                              int readTimeout) {
+                timeouts[0] = connectTimeout;
+                timeouts[1] = readTimeout;
+                return "ok";
+            }
+        };
+
+        // Until there are enough samples the transport's timeouts apply
+        guard.execute(ENDPOINT, RetryPolicy.NONE, true, request, CancellationToken.NONE, null);
+        assertEquals(HttpTransport.getInstance().getConnectTimeout(), timeouts[0]);
+        assertEquals(HttpTransport.getInstance().getReadTimeout(), timeouts[1]);
+
+        warmUp(guard, 2000, 1000, 1500);
+        guard.execute(ENDPOINT, RetryPolicy.NONE, true, request, CancellationToken.NONE, null);
+        assertEquals(6000, timeouts[0]);
+        assertEquals(3000, timeouts[1]);
+        assertEquals(1500, stats(guard).p95Millis);
+    }
+
+    @Test
+    public void timeoutsGrowAgainAfterATimeout() throws IOException {
+        LatencyGuard guard = new LatencyGuard(LatencyGuard.DEADLINE_MILLIS);
+        warmUp(guard, 10, 10, 20);
+        assertEquals(2000, stats(guard).readTimeoutMillis);
+        try {
+            guard.execute(ENDPOINT, RetryPolicy.NONE, false, new LatencyGuard.Request<String>() {
+                @Override
+                public String run(CancellationToken token, RequestTrace trace,
+                                  int connectTimeout, int readTimeout) throws IOException {
+                    // Connected, then no answer
+                    trace.connectNanos = 10000000;
+                    throw new SocketTimeoutException("Read timed out");
+                }
+            }, CancellationToken.NONE, null);
+            fail();
+        } catch (SocketTimeoutException e) {
+            // Expected
+        }
+        LatencyGuard.EndpointStats stats = stats(guard);
+        assertEquals(1, stats.timeouts);
+        assertEquals(0, stats.deadlinesExceeded);
+        assertEquals(6000, stats.readTimeoutMillis);
+        // Pooled connections connect at once, but a new one still gets time for a handshake
+        assertEquals(5000, stats.connectTimeoutMillis);
+    }
+
+    @Test
+    public void hedgeAnswersWhenTheFirstAttemptStalls() throws IOException {
+        LatencyGuard guard = new LatencyGuard(LatencyGuard.DEADLINE_MILLIS);
+        warmUp(guard, 1, 5, 10);
+        assertEquals(50, stats(guard).hedgeDelayMillis);
+
+        final AtomicInteger attempts = new AtomicInteger();
+        final AtomicInteger canceled = new AtomicInteger();
+        RequestTrace trace = new RequestTrace();
+        long start = System.nanoTime();
+        String result = guard.execute(ENDPOINT, RetryPolicy.DEFAULT, true,
+                new LatencyGuard.Request<String>() {
+                    @Override
+                    public String run(CancellationToken token, RequestTrace trace,
+                                      int connectTimeout, int readTimeout) throws IOException {
+                        if (attempts.getAndIncrement() == 0) {
+                            try {
+                                token.sleep(10000);
+                            } catch (InterruptedIOException e) {
+                                canceled.incrementAndGet();
+                                throw e;
+                            }
+                            return "first";
+                        }
+                        trace.totalNanos = 7000000;
+                        return "hedge";
+                    }
+                }, CancellationToken.NONE, trace);
+        long elapsedMillis = (System.nanoTime() - start) / 1000000;
+
+        assertEquals("hedge", result);
+        assertEquals(7000000, trace.totalNanos);
+        assertEquals(2, attempts.get());
+        assertEquals(1, canceled.get());
+        assertTrue("Took " + elapsedMillis + " ms", elapsedMillis < 2000);
+        LatencyGuard.EndpointStats stats = stats(guard);
+        assertEquals(1, stats.hedged);
+        assertEquals(1, stats.hedgeWins);
+    }
+
+    @Test
+    public void fastAttemptsAreNotHedged() throws IOException {
+        LatencyGuard guard = new LatencyGuard(LatencyGuard.DEADLINE_MILLIS);
+        warmUp(guard, 1, 5, 10);
+        final AtomicInteger attempts = new AtomicInteger();
+        for (int i = 0; i < 10; i++) {
+            guard.execute(ENDPOINT, RetryPolicy.DEFAULT, true,
+                    new LatencyGuard.Request<String>() {
+                        @Override
+                        public String run(CancellationToken token, RequestTrace trace,
+                                          int connectTimeout, int readTimeout) {
+                            attempts.incrementAndGet();
+                            return "ok";
+                        }
+                    }, CancellationToken.NONE, null);
+        }
+        assertEquals(10, attempts.get());
+        assertEquals(0, stats(guard).hedged);
+    }
+
+    @Test
+    public void slowAttemptWithoutHedgingIsNotSentTwice() throws IOException {
+        LatencyGuard guard = new LatencyGuard(LatencyGuard.DEADLINE_MILLIS);
+        warmUp(guard, 1, 5, 10);
+        final AtomicInteger attempts = new AtomicInteger();
+        guard.execute(ENDPOINT, RetryPolicy.NONE, false, new LatencyGuard.Request<String>() {
+            @Override
+            public String run(CancellationToken token, RequestTrace trace, int connectTimeout,
+                              int readTimeout) throws IOException {
+                attempts.incrementAndGet();
+                token.sleep(200);
+                return "ok";
+            }
+        }, CancellationToken.NONE, null);
+        assertEquals(1, attempts.get());
+        assertEquals(0, stats(guard).hedged);
+    }
+
+    @Test
+    public void deadlineEndsTheRequest() throws IOException {
+        LatencyGuard guard = new LatencyGuard(200);
+        long start = System.nanoTime();
+        try {
+            guard.execute(ENDPOINT, RetryPolicy.DEFAULT, true, new LatencyGuard.Request<String>() {
+                @Override
+                public String run(CancellationToken token, RequestTrace trace,
+                                  int connectTimeout, int readTimeout) throws IOException {
+                    assertTrue(connectTimeout <= 200);
+                    assertTrue(readTimeout <= 200);
+                    token.sleep(10000);
+                    return "late";
+                }
+            }, CancellationToken.NONE, null);
+            fail();
+        } catch (SocketTimeoutException e) {
+            assertTrue(e.getMessage().contains("Deadline"));
+        }
+        long elapsedMillis = (System.nanoTime() - start) / 1000000;
+        assertTrue("Took " + elapsedMillis + " ms", elapsedMillis < 2000);
+        assertEquals(1, stats(guard).deadlinesExceeded);
+    }
+
+    @Test
+    public void cancelingIsNotReportedAsADeadline() throws Exception {
+        LatencyGuard guard = new LatencyGuard(LatencyGuard.DEADLINE_MILLIS);
+        final CancellationToken token = new CancellationToken();
+        Thread canceler = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    Thread.sleep(100);
+                } catch (InterruptedException e) {
+                    return;
+                }
+                token.cancel();
+            }
+        });
+        canceler.start();
+        try {
+            guard.execute(ENDPOINT, RetryPolicy.DEFAULT, true, new LatencyGuard.Request<String>() {
+                @Override
+                public String run(CancellationToken token, RequestTrace trace,
+                                  int connectTimeout, int readTimeout) throws IOException {
+                    token.sleep(10000);
+                    return "late";
+                }
+            }, token, null);
+            fail();
+        } catch (InterruptedIOException e) {
+            assertFalse(e instanceof SocketTimeoutException);
+        }
+        canceler.join();
+        assertEquals(0, stats(guard).deadlinesExceeded);
+    }
+}
@@ -0,0 +1,134 @@
+package com.example.android.newsapp;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Drives the whole fetch-and-parse path, {@link QueryUtils#fetchNewsData(GuardianQuery,
+ * boolean, CancellationToken)} with its retries, hedges, transport and parser, from many
+ * threads at once, and reports the throughput and the latency percentiles of the calls.
+ *
+ * Every call asks for a page of its own, so calls are neither joined by the single flight nor
+ * answered from the validators of an earlier one.
+ */
+final class LoadHarness {
+
+    /* Latencies from 100 microseconds to 1 minute */
+    private static final long[] LATENCY_BOUNDS_MICROS = Histogram.oneTwoFive(100, 60000000);
+
+    /* Result of a run */
+    static final class Report {
+        final int clients;
+        final long calls;
+        final long succeeded;
+        final long failed;
+
+        /* Calls that returned fewer results than a full page */
+        final long shortPages;
+
+        final long elapsedNanos;
+
+        /* Duration of every call, including retries, in microseconds */
+        final Histogram.Snapshot latencyMicros;
+
+        Report(int clients, long calls, long succeeded, long failed, long shortPages,
+               long elapsedNanos, Histogram.Snapshot latencyMicros) {
+            this.clients = clients;
+            this.calls = calls;
+            this.succeeded = succeeded;
+            this.failed = failed;
+            this.shortPages = shortPages;
+            this.elapsedNanos = elapsedNanos;
+            this.latencyMicros = latencyMicros;
+        }
+
+        /**
+         * Return the number of successful calls per second.
+         */
+        double getThroughput() {
+            return elapsedNanos > 0 ? succeeded * 1e9 / elapsedNanos : 0;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.ROOT, "clients=%d calls=%d ok=%d failed=%d short=%d "
+                            + "elapsed=%dms throughput=%.1f/s p50=%dus p90=%dus p99=%dus "
+                            + "max=%dus",
+                    clients, calls, succeeded, failed, shortPages, elapsedNanos / 1000000,
+                    getThroughput(), latencyMicros.getPercentile(50),
+                    latencyMicros.getPercentile(90), latencyMicros.getPercentile(99),
+                    latencyMicros.max);
+        }
+    }
+
+    private final String searchUrl;
+    private final int pageSize;
+
+    /* Pages already handed out, so every call of every run asks for a new one */
+    private final AtomicLong nextPage = new AtomicLong(1);
+
+    /**
+     * Construct a harness for the search endpoint at the given URL.
+     */
+    LoadHarness(String searchUrl, int pageSize) {
+        this.searchUrl = searchUrl;
+        this.pageSize = pageSize;
+    }
+
+    /**
+     * Make the given number of calls from each of the given number of threads, all starting
+     * at the same time, and return what happened once every call has returned.
+     */
+    Report run(int clients, final int callsPerClient) throws InterruptedException {
+        final Histogram latency = new Histogram(LATENCY_BOUNDS_MICROS);
+        final AtomicLong succeeded = new AtomicLong();
+        final AtomicLong failed = new AtomicLong();
+        final AtomicLong shortPages = new AtomicLong();
+        final CountDownLatch start = new CountDownLatch(1);
+        Thread[] threads = new Thread[clients];
+        for (int i = 0; i < clients; i++) {
+            threads[i] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        start.await();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                    for (int call = 0; call < callsPerClient; call++) {
+                        GuardianQuery query = new GuardianQuery.Builder(searchUrl)
+                                .orderBy("newest")
+                                .page((int) nextPage.getAndIncrement())
+                                .pageSize(pageSize)
+                                .showFields("thumbnail")
+                                .showTags("contributor")
+                                .build();
+                        long begin = System.nanoTime();
+                        List<News> stories =
+                                QueryUtils.fetchNewsData(query, true, CancellationToken.NONE);
+                        latency.record((System.nanoTime() - begin) / 1000);
+                        if (stories == null) {
+                            failed.incrementAndGet();
+                        } else {
+                            succeeded.incrementAndGet();
+                            if (stories.size() < pageSize) {
+                                shortPages.incrementAndGet();
+                            }
+                        }
+                    }
+                }
+            }, "Load client #" + (i + 1));
+            threads[i].start();
+        }
+        long begin = System.nanoTime();
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        long elapsed = System.nanoTime() - begin;
+        return new Report(clients, (long) clients * callsPerClient, succeeded.get(),
+                failed.get(), shortPages.get(), elapsed, latency.snapshot());
+    }
+}
@@ -0,0 +1,115 @@
+package com.example.android.newsapp;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import static org.junit.Assert.*;
+
+/**
+ * Runs the fetch-and-parse path against the {@link FakeGuardianServer} on the development
+ * machine (host), with and without faults.
+ */
+public class LoadHarnessTest {
+
+    private FakeGuardianServer server;
+    private LoadHarness harness;
+
+    @Before
+    public void setUp() throws IOException {
+        server = new FakeGuardianServer(42);
+        server.start();
+        harness = new LoadHarness(server.getSearchUrl(), 10);
+        HttpTransport.getInstance().clearValidators();
+        // Every test starts without the timeouts and hedges derived from earlier ones
+        LatencyGuard.getInstance().reset();
+    }
+
+    @After
+    public void tearDown() {
+        server.stop();
+    }
+
+    @Test
+    public void generatedPagesAreParsedInFull() throws Exception {
+        server.setBodyChars(1000);
+        LoadHarness.Report report = harness.run(4, 5);
+        assertEquals(20, report.calls);
+        assertEquals(20, report.succeeded);
+        assertEquals(0, report.shortPages);
+        assertEquals(20, server.getRequestCount());
+        assertEquals(20, report.latencyMicros.count);
+        assertTrue(report.getThroughput() > 0);
+    }
+
+    @Test
+    public void recordedResponseIsServed() throws Exception {
+        server.setRecorded(load("/guardian/search-10.json"));
+        LoadHarness.Report report = harness.run(2, 3);
+        assertEquals(6, report.succeeded);
+        assertEquals(0, report.shortPages);
+    }
+
+    @Test
+    public void serverErrorsAreRetried() throws Exception {
+        server.setErrors(0.2, 503, -1);
+        LoadHarness.Report report = harness.run(4, 5);
+        assertEquals(20, report.succeeded + report.failed);
+        // Every error is retried, except the last one of a call that ran out of attempts
+        assertEquals(20 + server.getErrorCount() - report.failed, server.getRequestCount());
+    }
+
+    @Test
+    public void rateLimitIsRetried() throws Exception {
+        // How long each retry waits for the Retry-After is covered by RetryPolicyTest
+        server.setErrors(1, 429, 0);
+        LoadHarness.Report report = harness.run(1, 1);
+        assertEquals(1, report.failed);
+        assertEquals(4, server.getRequestCount());
+    }
+
+    @Test
+    public void truncatedBodiesFailWithoutRetrying() throws Exception {
+        server.setBodyChars(1000);
+        server.setTruncation(1);
+        LoadHarness.Report report = harness.run(2, 2);
+        assertEquals(4, report.failed);
+        assertEquals(4, server.getTruncatedCount());
+        assertEquals(4, server.getRequestCount());
+    }
+
+    @Test
+    public void stalledAndThrottledBodiesArriveInFull() throws Exception {
+        server.setSlowFirstByte(1, 50);
+        LoadHarness.Report stalled = harness.run(2, 2);
+        assertEquals(4, server.getSlowCount());
+        assertEquals(4, stalled.succeeded);
+
+        server.setSlowFirstByte(0, 0);
+        server.setBodyChars(2000);
+        server.setBandwidth(256 * 1024);
+        LoadHarness.Report throttled = harness.run(1, 2);
+        assertEquals(2, throttled.succeeded);
+        assertEquals(0, throttled.shortPages);
+    }
+
+    private static byte[] load(String name) throws IOException {
+        InputStream in = LoadHarnessTest.class.getResourceAsStream(name);
+        assertNotNull("Missing fixture " + name, in);
+        try {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            int n;
+            while ((n = in.read(buffer)) != -1) {
+                out.write(buffer, 0, n);
+            }
+            return out.toByteArray();
+        } finally {
+            in.close();
+        }
+    }
+}
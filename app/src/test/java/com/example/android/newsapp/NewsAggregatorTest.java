@@ -0,0 +1,171 @@
+package com.example.android.newsapp;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for {@link NewsAggregator}, which run on the development machine (host).
+ */
+public class NewsAggregatorTest {
+
+    /* Source with fixed articles, which can wait for a latch before answering */
+    private static class FakeSource implements NewsSource {
+        final List<News> stories;
+        final CountDownLatch release;
+        final CountDownLatch started = new CountDownLatch(1);
+        volatile Thread thread;
+        volatile boolean interrupted;
+
+        FakeSource(List<News> stories) {
+            this(stories, new CountDownLatch(0));
+        }
+
+        FakeSource(List<News> stories, CountDownLatch release) {
+            this.stories = stories;
+            this.release = release;
+        }
+
+        @Override
+        public List<News> getCached() {
+            return stories;
+        }
+
+        @Override
+        public List<News> fetch(CancellationToken token) {
+            thread = Thread.currentThread();
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                interrupted = true;
+                return null;
+            }
+            return stories;
+        }
+    }
+
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private final NewsAggregator aggregator = new NewsAggregator(executor, News.NEWEST_FIRST);
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    /* Published the given number of minutes after a fixed time */
+    private static News news(int minute) {
+        return new News("Story " + minute, "World news", 1531353423000L + minute * 60000L,
+                "Jane Doe", "https://www.theguardian.com/world/" + minute);
+    }
+
+    private static List<String> titles(List<News> stories) {
+        List<String> titles = new ArrayList<>();
+        for (News news : stories) {
+            titles.add(news.getTitle());
+        }
+        return titles;
+    }
+
+    @Test
+    public void mergesSourcesNewestFirstWithoutDuplicates() throws InterruptedException {
+        List<News> merged = aggregator.fetchAll(Arrays.<NewsSource>asList(
+                new FakeSource(Arrays.asList(news(5), news(3), news(1))),
+                new FakeSource(Arrays.asList(news(4), news(3), news(2)))),
+                null, new CancellationToken());
+        assertEquals(Arrays.asList("Story 5", "Story 4", "Story 3", "Story 2", "Story 1"),
+                titles(merged));
+    }
+
+    @Test
+    public void singleSourceKeepsItsOrderAndThread() throws InterruptedException {
+        FakeSource source = new FakeSource(Arrays.asList(news(1), news(3), news(2)));
+        List<News> stories = aggregator.fetchAll(Collections.singletonList(source), null,
+                new CancellationToken());
+        assertSame(source.stories, stories);
+        assertSame(Thread.currentThread(), source.thread);
+    }
+
+    @Test
+    public void reportsEveryCompletedSourceButTheLast() throws InterruptedException {
+        final CountDownLatch release = new CountDownLatch(1);
+        final List<List<String>> partials = new ArrayList<>();
+        List<News> merged = aggregator.fetchAll(Arrays.<NewsSource>asList(
+                new FakeSource(Arrays.asList(news(2), news(1))),
+                new FakeSource(Collections.singletonList(news(3)), release)),
+                new NewsAggregator.Listener() {
+                    @Override
+                    public void onPartialResult(List<News> stories, int completedSources,
+                                                int totalSources) {
+                        assertEquals(1, completedSources);
+                        assertEquals(2, totalSources);
+                        partials.add(titles(stories));
+                        // The slow source answers once the fast one was shown
+                        release.countDown();
+                    }
+                }, new CancellationToken());
+        assertEquals(Collections.singletonList(Arrays.asList("Story 2", "Story 1")), partials);
+        assertEquals(Arrays.asList("Story 3", "Story 2", "Story 1"), titles(merged));
+    }
+
+    @Test
+    public void failedSourcesAreLeftOut() throws InterruptedException {
+        NewsSource crashing = new FakeSource(null) {
+            @Override
+            public List<News> fetch(CancellationToken token) {
+                throw new IllegalStateException("Malformed response");
+            }
+        };
+        List<News> merged = aggregator.fetchAll(Arrays.<NewsSource>asList(
+                new FakeSource(null), crashing, new FakeSource(Arrays.asList(news(1)))),
+                null, new CancellationToken());
+        assertEquals(Collections.singletonList("Story 1"), titles(merged));
+
+        assertNull(aggregator.fetchAll(Arrays.<NewsSource>asList(
+                new FakeSource(null), crashing), null, new CancellationToken()));
+    }
+
+    @Test
+    public void cancelingStopsTheSourcesStillRunning() throws InterruptedException {
+        final CancellationToken token = new CancellationToken();
+        final FakeSource slow = new FakeSource(Arrays.asList(news(2)), new CountDownLatch(1));
+        NewsSource fast = new FakeSource(Arrays.asList(news(1))) {
+            @Override
+            public List<News> fetch(CancellationToken token) {
+                List<News> stories = super.fetch(token);
+                // Cancel once the slow source is waiting, so there is something to interrupt
+                try {
+                    slow.started.await();
+                } catch (InterruptedException e) {
+                    return null;
+                }
+                token.cancel();
+                return stories;
+            }
+        };
+        assertNull(aggregator.fetchAll(Arrays.asList(slow, fast), null, token));
+
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+        assertTrue(slow.interrupted);
+    }
+
+    @Test
+    public void cachedFeedNeedsEverySource() {
+        FakeSource cached = new FakeSource(Arrays.asList(news(1)));
+        FakeSource missing = new FakeSource(null);
+        assertNull(aggregator.getCached(Arrays.asList(cached, missing)));
+        assertEquals(Arrays.asList("Story 2", "Story 1"), titles(aggregator.getCached(
+                Arrays.asList(cached, new FakeSource(Arrays.asList(news(2)))))));
+    }
+}
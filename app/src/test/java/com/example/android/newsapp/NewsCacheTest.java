@@ -0,0 +1,84 @@
+package com.example.android.newsapp;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for {@link NewsCache}, which run on the development machine (host).
+ */
+public class NewsCacheTest {
+
+    private static final long HOUR_MILLIS = 60 * 60 * 1000;
+
+    private static List<News> stories(int count) {
+        List<News> stories = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            stories.add(new News("Story " + i, "World news", 1531353423000L - i * 60000L,
+                    "Jane Doe", "https://www.theguardian.com/world/" + i));
+        }
+        return stories;
+    }
+
+    @Test
+    public void sameQueryInAnotherParameterOrderHits() {
+        NewsCache cache = new NewsCache(100, HOUR_MILLIS);
+        cache.put("https://content.guardianapis.com/search?q=brexit&page=1", stories(3));
+        List<News> hit = cache.get("https://content.guardianapis.com/search?page=1&q=brexit&");
+        assertNotNull(hit);
+        assertEquals(3, hit.size());
+        assertEquals("Story 2", hit.get(2).getTitle());
+        assertNull(cache.get("https://content.guardianapis.com/search?page=2&q=brexit"));
+
+        NewsCache.Stats stats = cache.getStats();
+        assertEquals(1, stats.hits);
+        assertEquals(1, stats.misses);
+        assertEquals(3, stats.size);
+    }
+
+    @Test
+    public void expiredEntriesMiss() {
+        NewsCache cache = new NewsCache(100, 0);
+        cache.put("a", stories(3));
+        assertNull(cache.get("a"));
+        assertEquals(1, cache.getStats().expirations);
+        assertEquals(0, cache.getStats().size);
+    }
+
+    @Test
+    public void evictsLeastRecentlyUsedBeyondTheArticleLimit() {
+        NewsCache cache = new NewsCache(10, HOUR_MILLIS);
+        cache.put("a", stories(4));
+        cache.put("b", stories(4));
+        cache.get("a");
+        cache.put("c", stories(4));
+
+        assertNull(cache.get("b"));
+        assertNotNull(cache.get("a"));
+        assertNotNull(cache.get("c"));
+        assertEquals(1, cache.getStats().evictions);
+        assertEquals(8, cache.getStats().size);
+
+        // A result larger than the whole cache is not kept
+        cache.put("d", stories(11));
+        assertNull(cache.get("d"));
+        assertEquals(8, cache.getStats().size);
+    }
+
+    @Test
+    public void trimHalvesOrEmpties() {
+        NewsCache cache = new NewsCache(100, HOUR_MILLIS);
+        cache.put("a", stories(5));
+        cache.put("b", stories(5));
+        cache.onTrimMemory(false);
+        assertEquals(5, cache.getStats().size);
+        assertNull(cache.get("a"));
+
+        cache.onTrimMemory(true);
+        assertEquals(0, cache.getStats().size);
+        assertNull(cache.get("b"));
+    }
+}
@@ -0,0 +1,184 @@
+package com.example.android.newsapp;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for {@link NewsPager}, which run on the development machine (host).
+ */
+public class NewsPagerTest {
+
+    /* Pages of 10 articles, at most 3 pages in the list, prefetch 2 rows from an end */
+    private static NewsPager pager() {
+        return new NewsPager(10, 3, 2);
+    }
+
+    @Test
+    public void firstPageIsExpectedUntilItArrives() {
+        NewsPager pager = pager();
+        assertTrue(pager.isExpected(1));
+        assertFalse(pager.isExpected(2));
+        assertEquals(0, pager.pageToLoad(0, 5, 0));
+
+        assertEquals(0, pager.onPageAppended(1, 10, 10));
+        assertFalse(pager.isExpected(1));
+        assertEquals(1, pager.getFirstPage());
+        assertEquals(1, pager.getPageCount());
+        assertEquals(10, pager.getFirstPageItemCount());
+    }
+
+    @Test
+    public void nextPageIsLoadedNearTheEnd() {
+        NewsPager pager = pager();
+        pager.onPageAppended(1, 10, 10);
+        // Rows 0 to 5 of 10 are visible, so the end is more than two rows away
+        assertEquals(0, pager.pageToLoad(0, 5, 10));
+        assertEquals(2, pager.pageToLoad(2, 7, 10));
+        assertTrue(pager.isExpected(2));
+        // Only one page is loaded at a time
+        assertEquals(0, pager.pageToLoad(4, 9, 10));
+
+        pager.onPageAppended(2, 10, 10);
+        assertEquals(2, pager.getPageCount());
+        assertEquals(3, pager.pageToLoad(12, 19, 20));
+    }
+
+    @Test
+    public void failedPageIsRequestedAgain() {
+        NewsPager pager = pager();
+        pager.onPageAppended(1, 10, 10);
+        assertEquals(2, pager.pageToLoad(2, 7, 10));
+        pager.onPageFailed(2);
+        assertFalse(pager.isExpected(2));
+        assertEquals(2, pager.pageToLoad(2, 7, 10));
+    }
+
+    @Test
+    public void shortPageEndsTheFeed() {
+        NewsPager pager = pager();
+        pager.onPageAppended(1, 10, 10);
+        pager.onPageAppended(2, 4, 4);
+        assertFalse(pager.hasMore());
+        assertEquals(0, pager.pageToLoad(4, 13, 14));
+    }
+
+    @Test
+    public void repeatedArticlesDoNotEndTheFeed() {
+        NewsPager pager = pager();
+        pager.onPageAppended(1, 10, 10);
+        // An article published meanwhile pushed the last one of page 1 onto page 2
+        assertEquals(2, pager.pageToLoad(2, 7, 10));
+        pager.onPageAppended(2, 10, 9);
+        assertTrue(pager.hasMore());
+        assertEquals(3, pager.pageToLoad(12, 18, 19));
+
+        // The trimmed row counts are what leaves the list with the page
+        pager.onPageAppended(3, 10, 10);
+        assertEquals(10, pager.onPageAppended(4, 10, 10));
+        assertEquals(9, pager.onPageAppended(5, 10, 10));
+    }
+
+    @Test
+    public void repeatedArticlesInARefreshedFirstPageDoNotEndTheFeed() {
+        NewsPager pager = pager();
+        pager.onPageAppended(1, 10, 10);
+        pager.onFirstPageReplaced(10, 8);
+        assertEquals(8, pager.getFirstPageItemCount());
+        assertTrue(pager.hasMore());
+    }
+
+    @Test
+    public void windowDropsThePageAtTheOtherEnd() {
+        NewsPager pager = pager();
+        pager.onPageAppended(1, 10, 10);
+        pager.onPageAppended(2, 10, 9);
+        pager.onPageAppended(3, 10, 10);
+        // The fourth page pushes out the first one and its 10 rows
+        assertEquals(10, pager.onPageAppended(4, 10, 10));
+        assertEquals(2, pager.getFirstPage());
+        assertEquals(3, pager.getPageCount());
+        assertEquals(-1, pager.getFirstPageItemCount());
+        assertTrue(pager.isBeforeWindow(1));
+        assertFalse(pager.isBeforeWindow(5));
+
+        // Scrolling back up loads the first page again, which pushes out the fourth one
+        assertEquals(1, pager.pageToLoad(1, 6, 29));
+        assertEquals(10, pager.onPagePrepended(1, 10));
+        assertEquals(1, pager.getFirstPage());
+        assertEquals(10, pager.getFirstPageItemCount());
+        assertTrue(pager.hasMore());
+        assertEquals(4, pager.pageToLoad(20, 27, 29));
+    }
+
+    @Test
+    public void windowKeepsTheRowCountOfEveryPage() {
+        NewsPager pager = pager();
+        pager.onPageAppended(1, 10, 10);
+        pager.onPageAppended(2, 10, 9);
+        pager.onPageAppended(3, 10, 10);
+        pager.onPageAppended(4, 10, 10);
+        // The second page had 9 rows
+        assertEquals(9, pager.onPageAppended(5, 10, 10));
+    }
+
+    @Test
+    public void firstPageCanBeReplacedInPlace() {
+        NewsPager pager = pager();
+        pager.onPageAppended(1, 10, 10);
+        pager.onFirstPageReplaced(7, 7);
+        assertEquals(7, pager.getFirstPageItemCount());
+        assertFalse(pager.hasMore());
+    }
+
+    @Test
+    public void replacedListKeepsTheRowCountOfEveryPage() {
+        NewsPager pager = pager();
+        pager.onPageAppended(1, 10, 10);
+        pager.onListReplaced(new int[]{10, 7}, true);
+        assertEquals(1, pager.getFirstPage());
+        assertEquals(2, pager.getPageCount());
+        assertEquals(10, pager.getFirstPageItemCount());
+        assertEquals(3, pager.pageToLoad(10, 15, 17));
+
+        pager.onPageAppended(3, 10, 10);
+        assertEquals(10, pager.onPageAppended(4, 10, 10));
+        // The second page of the view had 7 rows
+        assertEquals(7, pager.onPageAppended(5, 10, 10));
+    }
+
+    @Test
+    public void feedIsCompleteOnlyAfterAShortPageFromTheServer() {
+        NewsPager pager = pager();
+        assertFalse(pager.isComplete());
+        pager.onPageAppended(1, 10, 10);
+        // Repeated articles leave fewer rows, but the server still sent a full page
+        pager.onPageAppended(2, 10, 6);
+        assertFalse(pager.isComplete());
+        pager.onPageAppended(3, 4, 4);
+        assertTrue(pager.isComplete());
+
+        // Without the first page the window no longer holds the whole feed
+        pager.reset();
+        pager.onPageAppended(1, 10, 10);
+        pager.onPageAppended(2, 10, 10);
+        pager.onPageAppended(3, 10, 10);
+        pager.onPageAppended(4, 4, 4);
+        assertFalse(pager.hasMore());
+        assertFalse(pager.isComplete());
+    }
+
+    @Test
+    public void resetStartsOverWithTheNewPageSize() {
+        NewsPager pager = pager();
+        pager.onPageAppended(1, 10, 10);
+        pager.onPageAppended(2, 10, 10);
+        pager.reset(20, 5);
+        assertEquals(20, pager.getPageSize());
+        assertEquals(0, pager.getPageCount());
+        assertTrue(pager.isExpected(1));
+        pager.onPageAppended(1, 10, 10);
+        // Ten articles are a short page of twenty
+        assertFalse(pager.hasMore());
+    }
+}
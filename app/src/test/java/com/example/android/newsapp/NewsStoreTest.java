@@ -0,0 +1,112 @@
+package com.example.android.newsapp;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class NewsStoreTest {
+
+    private static final long HOUR_MILLIS = 60 * 60 * 1000;
+
+    private File directory;
+
+    @Before
+    public void setUp() throws IOException {
+        directory = File.createTempFile("news", "");
+        directory.delete();
+    }
+
+    @After
+    public void tearDown() {
+        new NewsStore(directory, 0, 0).clear();
+        directory.delete();
+    }
+
+    private static List<News> stories(String title) {
+        return Arrays.asList(
+                new News(title, "world", "World news", 1531353423000L, "Jane Doe",
+                        "https://www.theguardian.com/world/1", "https://media.guim.co.uk/1.jpg"),
+                new News(title + " 2", "Sport", News.NO_DATE, "John Roe",
+                        "https://www.theguardian.com/sport/2"));
+    }
+
+    /* Make the entry of the key look as if it was written the given time ago */
+    private void age(String key, long millis) {
+        File file = new File(directory, NewsStore.sha1(key));
+        assertTrue(file.setLastModified(System.currentTimeMillis() - millis));
+    }
+
+    @Test
+    public void storesAndReplacesEntries() throws IOException {
+        NewsStore store = new NewsStore(directory, HOUR_MILLIS, 10);
+        assertNull(store.read("a"));
+
+        store.write("a", stories("First"));
+        store.write("a", stories("Second"));
+        List<News> read = store.read("a");
+        assertEquals(2, read.size());
+        assertEquals("Second", read.get(0).getTitle());
+        assertEquals("https://media.guim.co.uk/1.jpg", read.get(0).getThumbnail());
+        assertEquals("world", read.get(0).getSectionId());
+        assertEquals("", read.get(1).getSectionId());
+        assertEquals(1531353423000L, read.get(0).getPublishedMillis());
+        assertNull(read.get(1).getThumbnail());
+        assertFalse(read.get(1).hasDate());
+    }
+
+    @Test
+    public void expiredEntriesAreNotServed() throws Exception {
+        NewsStore store = new NewsStore(directory, 0, 10);
+        store.write("a", stories("First"));
+        // The time an entry was saved is written into it, so let the clock move on
+        Thread.sleep(10);
+        assertNull(store.read("a"));
+        assertFalse(new File(directory, NewsStore.sha1("a")).exists());
+    }
+
+    @Test
+    public void writingDeletesEntriesThatExpiredMeanwhile() throws IOException {
+        NewsStore store = new NewsStore(directory, HOUR_MILLIS, 10);
+        store.write("a", stories("First"));
+        store.write("b", stories("Second"));
+        age("a", 2 * HOUR_MILLIS);
+
+        store.write("c", stories("Third"));
+        assertFalse(new File(directory, NewsStore.sha1("a")).exists());
+        assertNotNull(store.read("b"));
+        assertNotNull(store.read("c"));
+    }
+
+    @Test
+    public void writingKeepsTheNewestEntries() throws IOException {
+        NewsStore store = new NewsStore(directory, HOUR_MILLIS, 3);
+        for (int i = 0; i < 5; i++) {
+            store.write("search " + i, stories("Search " + i));
+            // Older searches were typed earlier
+            age("search " + i, (5 - i) * 1000);
+        }
+        store.write("search 5", stories("Search 5"));
+
+        assertEquals(3, directory.listFiles().length);
+        assertNull(store.read("search 0"));
+        assertNull(store.read("search 2"));
+        assertNotNull(store.read("search 3"));
+        assertNotNull(store.read("search 4"));
+        assertNotNull(store.read("search 5"));
+    }
+
+    @Test
+    public void emptyListIsStored() throws IOException {
+        NewsStore store = new NewsStore(directory, HOUR_MILLIS, 10);
+        store.write("a", Collections.<News>emptyList());
+        assertEquals(0, store.read("a").size());
+    }
+}
@@ -0,0 +1,139 @@
+package com.example.android.newsapp;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Runs {@link PrefetchJob} against the {@link FakeGuardianServer} on the development machine
+ * (host).
+ */
+public class PrefetchJobTest {
+
+    private static final long MIN_INTERVAL = 1000;
+    private static final long MAX_INTERVAL = 5000;
+    private static final String STORE_KEY = "|newest|[null]";
+
+    private FakeGuardianServer server;
+    private File directory;
+    private NewsStore store;
+
+    private static byte[] response(String... titles) {
+        StringBuilder json = new StringBuilder("{\"response\":{\"status\":\"ok\",\"results\":[");
+        for (int i = 0; i < titles.length; i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append("{\"sectionName\":\"World news\",")
+                    .append("\"webPublicationDate\":\"2018-07-11T16:23:54Z\",")
+                    .append("\"webTitle\":\"").append(titles[i]).append("\",")
+                    .append("\"webUrl\":\"https://www.theguardian.com/").append(i).append("\",")
+                    .append("\"tags\":[{\"webTitle\":\"Jane Doe\"}]}");
+        }
+        return json.append("]}}").toString().getBytes(Charset.forName("UTF-8"));
+    }
+
+    @Before
+    public void setUp() throws IOException {
+        directory = File.createTempFile("store", "");
+        directory.delete();
+        store = new NewsStore(directory, 60 * 60 * 1000, 10);
+        HttpTransport.getInstance().clearValidators();
+
+        // Unchanged responses are answered with a 304, like the live API does
+        server = new FakeGuardianServer(5);
+        server.setEtags(true);
+        server.start();
+    }
+
+    @After
+    public void tearDown() {
+        server.stop();
+        store.clear();
+        directory.delete();
+    }
+
+    private PrefetchJob.Result run(PrefetchJob job, long fingerprint, long interval) {
+        // Every run must reach the server, not the in-memory cache of the previous one
+        NewsCache.getInstance().trimToSize(0);
+        GuardianQuery query = new GuardianQuery.Builder(server.getSearchUrl())
+                .page(1)
+                .build();
+        List<NewsSource> sources = Collections.<NewsSource>singletonList(
+                new GuardianSource(query, false));
+        return job.run(sources, new NewsAggregator(News.NEWEST_FIRST), STORE_KEY,
+                fingerprint, interval, new CancellationToken());
+    }
+
+    private static List<String> titles(List<News> stories) {
+        String[] titles = new String[stories.size()];
+        for (int i = 0; i < titles.length; i++) {
+            titles[i] = stories.get(i).getTitle();
+        }
+        return Arrays.asList(titles);
+    }
+
+    @Test
+    public void storesFeedAndBacksOffWhileUnchanged() {
+        PrefetchJob job = new PrefetchJob(store, MIN_INTERVAL, MAX_INTERVAL);
+        server.setRecorded(response("First", "Second"));
+
+        PrefetchJob.Result first = run(job, PrefetchJob.NO_FINGERPRINT, 0);
+        assertTrue(first.changed);
+        assertEquals(MIN_INTERVAL, first.nextIntervalMillis);
+        assertEquals(Arrays.asList("First", "Second"), titles(store.read(STORE_KEY)));
+
+        // The server answers 304 and the interval doubles each time, up to the maximum
+        PrefetchJob.Result second = run(job, first.fingerprint, first.nextIntervalMillis);
+        assertFalse(second.changed);
+        assertEquals(2 * MIN_INTERVAL, second.nextIntervalMillis);
+        PrefetchJob.Result third = run(job, second.fingerprint, 4 * MIN_INTERVAL);
+        assertEquals(MAX_INTERVAL, third.nextIntervalMillis);
+        assertEquals(3, server.getRequestCount());
+
+        // New articles are stored and bring the interval back to the minimum
+        server.setRecorded(response("Breaking", "First", "Second"));
+        PrefetchJob.Result fourth = run(job, third.fingerprint, third.nextIntervalMillis);
+        assertTrue(fourth.changed);
+        assertEquals(MIN_INTERVAL, fourth.nextIntervalMillis);
+        assertNotEquals(third.fingerprint, fourth.fingerprint);
+        assertEquals(Arrays.asList("Breaking", "First", "Second"), titles(store.read(STORE_KEY)));
+    }
+
+    @Test
+    public void unchangedFeedIsStoredAgain() throws InterruptedException {
+        NewsStore shortLived = new NewsStore(directory, 100, 10);
+        PrefetchJob job = new PrefetchJob(shortLived, MIN_INTERVAL, MAX_INTERVAL);
+        server.setRecorded(response("First"));
+        PrefetchJob.Result first = run(job, PrefetchJob.NO_FINGERPRINT, 0);
+        Thread.sleep(150);
+
+        // The entry has outlived its TTL, and the unchanged run saves it anew
+        PrefetchJob.Result second = run(job, first.fingerprint, first.nextIntervalMillis);
+        assertFalse(second.changed);
+        assertEquals(Arrays.asList("First"), titles(shortLived.read(STORE_KEY)));
+    }
+
+    @Test
+    public void failedRunKeepsStoredFeedAndInterval() {
+        PrefetchJob job = new PrefetchJob(store, MIN_INTERVAL, MAX_INTERVAL);
+        server.setRecorded(response("First"));
+        PrefetchJob.Result first = run(job, PrefetchJob.NO_FINGERPRINT, 0);
+
+        server.setErrors(1, 503, -1);
+        PrefetchJob.Result failed = run(job, first.fingerprint, 3 * MIN_INTERVAL);
+        assertFalse(failed.changed);
+        assertEquals(first.fingerprint, failed.fingerprint);
+        assertEquals(3 * MIN_INTERVAL, failed.nextIntervalMillis);
+        assertEquals(Arrays.asList("First"), titles(store.read(STORE_KEY)));
+    }
+}
@@ -0,0 +1,112 @@
+package com.example.android.newsapp;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.net.SocketTimeoutException;
+import java.net.UnknownHostException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class RetryPolicyTest {
+
+    /* Fails with the given errors in turn, then succeeds */
+    private static RetryPolicy.Attempt<String> failing(final AtomicInteger attempts,
+                                                       final IOException... errors) {
+        return new RetryPolicy.Attempt<String>() {
+            @Override
+            public String run() throws IOException {
+                int attempt = attempts.getAndIncrement();
+                if (attempt < errors.length) {
+                    throw errors[attempt];
+                }
+                return "ok";
+            }
+        };
+    }
+
+    @Test
+    public void retriesTimeoutsAndServerErrors() throws IOException {
+        AtomicInteger attempts = new AtomicInteger();
+        RetryPolicy policy = new RetryPolicy(4, 10, 40, 5000);
+        String result = policy.execute(failing(attempts, new SocketTimeoutException(),
+                new HttpTransport.HttpStatusException(503),
+                new HttpTransport.HttpStatusException(429)), new CancellationToken());
+        assertEquals("ok", result);
+        assertEquals(4, attempts.get());
+    }
+
+    @Test
+    public void failsFastWhenOfflineOrRejected() {
+        IOException[] permanent = {new UnknownHostException("content.guardianapis.com"),
+                new HttpTransport.HttpStatusException(404)};
+        for (IOException error : permanent) {
+            AtomicInteger attempts = new AtomicInteger();
+            try {
+                new RetryPolicy(4, 10, 40, 5000).execute(failing(attempts, error),
+                        new CancellationToken());
+                fail("Expected " + error);
+            } catch (IOException e) {
+                assertSame(error, e);
+            }
+            assertEquals(1, attempts.get());
+        }
+    }
+
+    @Test
+    public void stopsAtMaxAttemptsAndDeadline() {
+        AtomicInteger attempts = new AtomicInteger();
+        IOException timeout = new SocketTimeoutException();
+        try {
+            new RetryPolicy(2, 1, 1, 5000).execute(
+                    failing(attempts, timeout, timeout, timeout), new CancellationToken());
+            fail();
+        } catch (IOException e) {
+            assertEquals(2, attempts.get());
+        }
+
+        // The server asks for a longer wait than the deadline leaves
+        attempts.set(0);
+        try {
+            new RetryPolicy(4, 1, 1, 1000).execute(failing(attempts,
+                    new HttpTransport.HttpStatusException(503, 60000)), new CancellationToken());
+            fail();
+        } catch (IOException e) {
+            assertEquals(1, attempts.get());
+        }
+    }
+
+    @Test
+    public void delayIsJitteredWithinCapAndRespectsRetryAfter() {
+        RetryPolicy policy = new RetryPolicy(10, 100, 1000, 60000);
+        IOException timeout = new SocketTimeoutException();
+        for (int i = 0; i < 100; i++) {
+            assertTrue(policy.delayBeforeRetry(0, timeout) < 100);
+            assertTrue(policy.delayBeforeRetry(2, timeout) < 400);
+            assertTrue(policy.delayBeforeRetry(8, timeout) < 1000);
+        }
+        assertTrue(policy.delayBeforeRetry(0,
+                new HttpTransport.HttpStatusException(429, 2000)) >= 2000);
+    }
+
+    @Test
+    public void cancelEndsTheWait() {
+        final CancellationToken token = new CancellationToken();
+        AtomicInteger attempts = new AtomicInteger();
+        new Thread() {
+            @Override
+            public void run() {
+                token.cancel();
+            }
+        }.start();
+        long start = System.currentTimeMillis();
+        try {
+            new RetryPolicy(4, 1, 1, 60000).execute(failing(attempts,
+                    new HttpTransport.HttpStatusException(503, 30000)), token);
+            fail();
+        } catch (IOException e) {
+            assertTrue(System.currentTimeMillis() - start < 5000);
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package com.example.android.newsapp;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class SingleFlightTest {
+
+    /* Call that blocks until released, or until its token is canceled */
+    private static final class BlockingCall implements SingleFlight.Call<String> {
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final AtomicInteger runs = new AtomicInteger();
+        volatile boolean canceled;
+
+        @Override
+        public String call(CancellationToken token) {
+            runs.incrementAndGet();
+            token.onCancel(new Runnable() {
+                @Override
+                public void run() {
+                    canceled = true;
+                    release.countDown();
+                }
+            });
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                return null;
+            }
+            return token.isCanceled() ? null : "result";
+        }
+    }
+
+    private static Thread caller(final SingleFlight<String> flight, final SingleFlight.Call<String> call,
+                                 final CancellationToken token, final List<String> results) {
+        Thread thread = new Thread() {
+            @Override
+            public void run() {
+                String result = flight.execute("key", call, token);
+                synchronized (results) {
+                    results.add(result);
+                }
+            }
+        };
+        thread.start();
+        return thread;
+    }
+
+    @Test
+    public void overlappingCallsShareOneRun() throws InterruptedException {
+        SingleFlight<String> flight = new SingleFlight<>();
+        BlockingCall call = new BlockingCall();
+        List<String> results = new ArrayList<>();
+        Thread leader = caller(flight, call, new CancellationToken(), results);
+        assertTrue(call.started.await(5, TimeUnit.SECONDS));
+        Thread follower = caller(flight, call, new CancellationToken(), results);
+        while (flight.getCoalesced() == 0) {
+            Thread.sleep(1);
+        }
+        call.release.countDown();
+        leader.join();
+        follower.join();
+
+        assertEquals(1, call.runs.get());
+        assertEquals(2, flight.getCalls());
+        assertEquals(1, flight.getCoalesced());
+        assertEquals(2, results.size());
+        assertEquals("result", results.get(0));
+        assertEquals("result", results.get(1));
+    }
+
+    @Test
+    public void runIsCanceledOnlyWhenEveryCallerCancels() throws InterruptedException {
+        SingleFlight<String> flight = new SingleFlight<>();
+        BlockingCall call = new BlockingCall();
+        List<String> results = new ArrayList<>();
+        CancellationToken first = new CancellationToken();
+        CancellationToken second = new CancellationToken();
+        Thread leader = caller(flight, call, first, results);
+        assertTrue(call.started.await(5, TimeUnit.SECONDS));
+        Thread follower = caller(flight, call, second, results);
+        while (flight.getCoalesced() == 0) {
+            Thread.sleep(1);
+        }
+
+        // The follower stops waiting at once, but the run goes on for the leader
+        second.cancel();
+        follower.join();
+        assertFalse(call.canceled);
+
+        first.cancel();
+        leader.join();
+        assertTrue(call.canceled);
+        assertEquals(2, results.size());
+        assertNull(results.get(0));
+        assertNull(results.get(1));
+    }
+
+    @Test
+    public void canceledRunIsNotJoinedByLaterCallers() throws InterruptedException {
+        SingleFlight<String> flight = new SingleFlight<>();
+        // Ignores the cancellation for as long as it is blocked, like a stuck socket
+        final CountDownLatch staleStarted = new CountDownLatch(1);
+        final CountDownLatch staleRelease = new CountDownLatch(1);
+        SingleFlight.Call<String> stale = new SingleFlight.Call<String>() {
+            @Override
+            public String call(CancellationToken token) {
+                staleStarted.countDown();
+                try {
+                    staleRelease.await();
+                } catch (InterruptedException e) {
+                    return null;
+                }
+                return "stale";
+            }
+        };
+        List<String> results = new ArrayList<>();
+        CancellationToken abandoned = new CancellationToken();
+        Thread staleLeader = caller(flight, stale, abandoned, results);
+        assertTrue(staleStarted.await(5, TimeUnit.SECONDS));
+        abandoned.cancel();
+
+        // The same key again runs a call of its own instead of waiting for the canceled one
+        BlockingCall call = new BlockingCall();
+        List<String> fresh = new ArrayList<>();
+        Thread leader = caller(flight, call, new CancellationToken(), fresh);
+        assertTrue(call.started.await(5, TimeUnit.SECONDS));
+        assertEquals(0, flight.getCoalesced());
+
+        // The canceled call finishing does not take the running one out of the map
+        staleRelease.countDown();
+        staleLeader.join();
+        Thread follower = caller(flight, call, new CancellationToken(), fresh);
+        while (flight.getCoalesced() == 0) {
+            Thread.sleep(1);
+        }
+        call.release.countDown();
+        leader.join();
+        follower.join();
+
+        assertEquals(1, call.runs.get());
+        assertEquals(2, fresh.size());
+        assertEquals("result", fresh.get(0));
+        assertEquals("result", fresh.get(1));
+    }
+}
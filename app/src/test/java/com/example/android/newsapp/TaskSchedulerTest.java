@@ -0,0 +1,178 @@
+package com.example.android.newsapp;
+
+import org.junit.Test;
+
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for {@link TaskScheduler}, which run on the development machine (host).
+ */
+public class TaskSchedulerTest {
+
+    /* Job that waits until the latch is released */
+    private static TaskScheduler.Job blocker(final CountDownLatch started,
+                                             final CountDownLatch release) {
+        return new TaskScheduler.Job() {
+            @Override
+            public void run(CancellationToken token) {
+                started.countDown();
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        };
+    }
+
+    /* Job that adds its name to the list */
+    private static TaskScheduler.Job recorder(final List<String> order, final String name,
+                                              final CountDownLatch done) {
+        return new TaskScheduler.Job() {
+            @Override
+            public void run(CancellationToken token) {
+                order.add(name);
+                done.countDown();
+            }
+        };
+    }
+
+    @Test
+    public void runsHigherLanesFirst() throws InterruptedException {
+        TaskScheduler scheduler = new TaskScheduler(1, 1);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        scheduler.submit(TaskScheduler.Lane.VISIBLE, TaskScheduler.Resource.NETWORK,
+                blocker(started, release));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        List<String> order = Collections.synchronizedList(new ArrayList<String>());
+        CountDownLatch done = new CountDownLatch(4);
+        scheduler.submit(TaskScheduler.Lane.MAINTENANCE, TaskScheduler.Resource.NETWORK,
+                recorder(order, "maintenance", done));
+        scheduler.submit(TaskScheduler.Lane.PREFETCH, TaskScheduler.Resource.NETWORK,
+                recorder(order, "prefetch 1", done));
+        scheduler.submit(TaskScheduler.Lane.PREFETCH, TaskScheduler.Resource.NETWORK,
+                recorder(order, "prefetch 2", done));
+        scheduler.submit(TaskScheduler.Lane.VISIBLE, TaskScheduler.Resource.NETWORK,
+                recorder(order, "visible", done));
+        assertEquals(1, scheduler.getQueueDepth(TaskScheduler.Lane.MAINTENANCE));
+        assertEquals(2, scheduler.getQueueDepth(TaskScheduler.Lane.PREFETCH));
+
+        release.countDown();
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertEquals(Arrays.asList("visible", "prefetch 1", "prefetch 2", "maintenance"),
+                order);
+
+        // Every task waited, and the waits were recorded in their lanes
+        List<TaskScheduler.LaneStats> stats = scheduler.getStats();
+        assertEquals(2, stats.get(TaskScheduler.Lane.VISIBLE.ordinal()).waitMicros.count);
+        assertEquals(2, stats.get(TaskScheduler.Lane.PREFETCH.ordinal()).maxQueued);
+        assertEquals(0, stats.get(TaskScheduler.Lane.PREFETCH.ordinal()).queued);
+    }
+
+    @Test
+    public void cpuWorkDoesNotWaitForTheNetwork() throws InterruptedException {
+        TaskScheduler scheduler = new TaskScheduler(1, 1);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        scheduler.submit(TaskScheduler.Lane.VISIBLE, TaskScheduler.Resource.NETWORK,
+                blocker(started, release));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        CountDownLatch done = new CountDownLatch(1);
+        scheduler.submit(TaskScheduler.Lane.VISIBLE, TaskScheduler.Resource.CPU,
+                recorder(new ArrayList<String>(), "parse", done));
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        release.countDown();
+    }
+
+    @Test
+    public void lowerLanesLeaveAThreadForVisibleWork() throws InterruptedException {
+        TaskScheduler scheduler = new TaskScheduler(2, 1);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        scheduler.submit(TaskScheduler.Lane.PREFETCH, TaskScheduler.Resource.NETWORK,
+                blocker(started, release));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        // A second prefetch waits, while a visible load starts at once
+        CountDownLatch prefetched = new CountDownLatch(1);
+        CountDownLatch visible = new CountDownLatch(1);
+        List<String> order = Collections.synchronizedList(new ArrayList<String>());
+        scheduler.submit(TaskScheduler.Lane.PREFETCH, TaskScheduler.Resource.NETWORK,
+                recorder(order, "prefetch", prefetched));
+        scheduler.submit(TaskScheduler.Lane.VISIBLE, TaskScheduler.Resource.NETWORK,
+                recorder(order, "visible", visible));
+        assertTrue(visible.await(5, TimeUnit.SECONDS));
+        assertFalse(prefetched.await(100, TimeUnit.MILLISECONDS));
+
+        release.countDown();
+        assertTrue(prefetched.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void singleThreadIsSharedByAllLanes() throws InterruptedException {
+        TaskScheduler scheduler = new TaskScheduler(1, 1);
+        CountDownLatch done = new CountDownLatch(2);
+        List<String> order = Collections.synchronizedList(new ArrayList<String>());
+        scheduler.submit(TaskScheduler.Lane.MAINTENANCE, TaskScheduler.Resource.CPU,
+                recorder(order, "maintenance", done));
+        scheduler.submit(TaskScheduler.Lane.PREFETCH, TaskScheduler.Resource.NETWORK,
+                recorder(order, "prefetch", done));
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void cancelingDropsWaitingTasksAndReachesRunningOnes() throws InterruptedException {
+        TaskScheduler scheduler = new TaskScheduler(1, 1);
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch canceled = new CountDownLatch(1);
+        final CountDownLatch parentCanceled = new CountDownLatch(1);
+        CancellationToken parent = new CancellationToken();
+        scheduler.submit(TaskScheduler.Lane.VISIBLE, TaskScheduler.Resource.NETWORK,
+                new TaskScheduler.Job() {
+                    @Override
+                    public void run(CancellationToken token) {
+                        started.countDown();
+                        try {
+                            token.sleep(5000);
+                        } catch (InterruptedIOException e) {
+                            canceled.countDown();
+                        }
+                        // Hold the thread until the parent has reached the child as well
+                        try {
+                            parentCanceled.await(5, TimeUnit.SECONDS);
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        }
+                    }
+                }, parent);
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        List<String> order = Collections.synchronizedList(new ArrayList<String>());
+        CountDownLatch done = new CountDownLatch(1);
+        TaskScheduler.Task waiting = scheduler.submit(TaskScheduler.Lane.PREFETCH,
+                TaskScheduler.Resource.NETWORK, recorder(order, "dropped", done));
+        scheduler.submit(TaskScheduler.Lane.PREFETCH, TaskScheduler.Resource.NETWORK,
+                recorder(order, "child", done), parent);
+        waiting.cancel();
+        assertEquals(1, scheduler.getQueueDepth(TaskScheduler.Lane.PREFETCH));
+
+        // Canceling the parent stops the running task and drops its waiting child
+        parent.cancel();
+        parentCanceled.countDown();
+        assertTrue(canceled.await(5, TimeUnit.SECONDS));
+        assertFalse(done.await(200, TimeUnit.MILLISECONDS));
+        assertTrue(order.isEmpty());
+        assertEquals(2, scheduler.getStats().get(TaskScheduler.Lane.PREFETCH.ordinal()).dropped);
+    }
+}
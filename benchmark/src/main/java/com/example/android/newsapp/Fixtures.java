@@ -0,0 +1,47 @@
+package com.example.android.newsapp;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Guardian API responses stored with the benchmarks, under resources/guardian.
+ */
+final class Fixtures {
+
+    /* Ten, fifty and two hundred well-formed results */
+    static final String SEARCH_10 = "search-10.json";
+    static final String SEARCH_50 = "search-50.json";
+    static final String SEARCH_200 = "search-200.json";
+
+    /* Fifty results, a quarter each with one, no, missing and unnamed contributor tags */
+    static final String MISSING_TAGS = "missing-tags.json";
+
+    /* Fifty results with fractions, offsets, missing zones and invalid dates */
+    static final String ODD_DATES = "odd-dates.json";
+
+    /* Private constructor because there should not be a Fixtures object */
+    private Fixtures() {
+    }
+
+    /**
+     * Return the bytes of the fixture with the given name.
+     */
+    static byte[] load(String name) throws IOException {
+        InputStream in = Fixtures.class.getResourceAsStream("/guardian/" + name);
+        if (in == null) {
+            throw new IOException("Missing fixture " + name);
+        }
+        try {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            int n;
+            while ((n = in.read(buffer)) != -1) {
+                out.write(buffer, 0, n);
+            }
+            return out.toByteArray();
+        } finally {
+            in.close();
+        }
+    }
+}
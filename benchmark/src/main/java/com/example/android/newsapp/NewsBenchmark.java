@@ -0,0 +1,132 @@
+package com.example.android.newsapp;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The steps of turning a result into a list row on their own: parsing the publication date,
+ * constructing the {@link News}, and formatting its display strings. One operation is one
+ * article.
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class NewsBenchmark {
+
+    /* Number of articles every benchmark works through per invocation */
+    private static final int ARTICLES = 200;
+
+    private final String[] titles = new String[ARTICLES];
+    private final String[] sections = new String[ARTICLES];
+    private final String[] authors = new String[ARTICLES];
+    private final String[] urls = new String[ARTICLES];
+    private final long[] dates = new long[ARTICLES];
+
+    /* Well-formed dates and the dates of the odd-dates fixture, as the API sends them */
+    private final List<String> dateStrings = new ArrayList<>();
+    private final List<String> oddDateStrings = new ArrayList<>();
+
+    private final List<News> stories = new ArrayList<>();
+
+    /* Two formatters, so each formats articles the other has just formatted */
+    private NewsFormatter usFormatter;
+    private NewsFormatter ukFormatter;
+
+    @Setup
+    public void setUp() throws IOException {
+        NewsJsonParser.parse(new ByteArrayInputStream(Fixtures.load(Fixtures.SEARCH_200)),
+                new NewsJsonParser.Callback() {
+                    @Override
+                    public void onNews(News news) {
+                        stories.add(news);
+                    }
+                });
+        for (int i = 0; i < ARTICLES; i++) {
+            News news = stories.get(i % stories.size());
+            titles[i] = news.getTitle();
+            sections[i] = news.getSection();
+            authors[i] = news.getAuthor();
+            urls[i] = news.getUrl();
+            dates[i] = news.getPublishedMillis();
+            dateStrings.add(Iso8601.format(news.getPublishedMillis()));
+        }
+        String[] odd = {"2018-07-11T16:23:54.123Z", "2018-07-11T17:23:54+01:00",
+                "2018-07-11T11:23:54-0500", "2018-07-11T16:23:54", "not a date",
+                "2018-02-30T10:00:00Z", "2018-07-11T16:23Z", ""};
+        for (int i = 0; i < ARTICLES; i++) {
+            oddDateStrings.add(odd[i % odd.length]);
+        }
+
+        // Two formatter instances, which getInstance only hands out one after the other
+        usFormatter = NewsFormatter.getInstance(Locale.US);
+        ukFormatter = NewsFormatter.getInstance(Locale.UK);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ARTICLES)
+    public void parseDates(Blackhole blackhole) {
+        for (int i = 0; i < ARTICLES; i++) {
+            blackhole.consume(Iso8601.parse(dateStrings.get(i)));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ARTICLES)
+    public void parseOddDates(Blackhole blackhole) {
+        for (int i = 0; i < ARTICLES; i++) {
+            blackhole.consume(Iso8601.parse(oddDateStrings.get(i)));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ARTICLES)
+    public void construct(Blackhole blackhole) {
+        for (int i = 0; i < ARTICLES; i++) {
+            blackhole.consume(new News(titles[i], sections[i], dates[i], authors[i], urls[i]));
+        }
+    }
+
+    /**
+     * Format articles whose cached strings are for the other locale, as after a locale change.
+     */
+    @Benchmark
+    @OperationsPerInvocation(2 * ARTICLES)
+    public void format(Blackhole blackhole) {
+        for (int i = 0; i < ARTICLES; i++) {
+            News news = stories.get(i % stories.size());
+            blackhole.consume(usFormatter.format(news));
+            blackhole.consume(ukFormatter.format(news));
+        }
+    }
+
+    /**
+     * Read the cached strings, as when binding a row.
+     */
+    @Benchmark
+    @OperationsPerInvocation(ARTICLES)
+    public void formatCached(Blackhole blackhole) {
+        for (int i = 0; i < ARTICLES; i++) {
+            blackhole.consume(usFormatter.format(stories.get(i % stories.size())));
+        }
+    }
+}
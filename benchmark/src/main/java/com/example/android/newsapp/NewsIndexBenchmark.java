@@ -0,0 +1,110 @@
+package com.example.android.newsapp;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Building the local search index a page at a time, and answering searches over a full index
+ * of synthetic headlines. One build operation is one article, one search operation is one
+ * query.
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.AverageTime, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class NewsIndexBenchmark {
+
+    /* Number of articles in the index, twice what the process-wide index holds */
+    private static final int ARTICLES = 20000;
+
+    /* Articles per page, as they arrive from the API */
+    private static final int PAGE_SIZE = 50;
+
+    /* Results asked for by every search */
+    private static final int MAX_HITS = 50;
+
+    /* Single and multi-term queries, with whole words and prefixes */
+    private static final String[] QUERIES = {"brexit", "cli", "election vote", "jane",
+            "spo tennis", "market ra", "c", "science space health"};
+
+    private static final String[] WORDS = {"brexit", "election", "climate", "football", "market",
+            "budget", "science", "space", "health", "music", "film", "theatre", "trade", "energy",
+            "europe", "china", "america", "london", "police", "school", "housing", "transport",
+            "tennis", "cricket", "weather", "storm", "vote", "court", "ruling", "bank", "rates",
+            "tech", "privacy", "data", "startup", "museum", "festival", "review", "interview"};
+
+    private static final String[] SECTIONS = {"World news", "Politics", "Business", "Technology",
+            "Science", "Sport", "Culture"};
+
+    private static final String[] AUTHORS = {"Jane Doe", "John Roe", "Alex Smith", "Sam Jones",
+            "Chris Taylor", "Pat Brown"};
+
+    private final List<News> stories = new ArrayList<>(ARTICLES);
+
+    private NewsIndex index;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        for (int i = 0; i < ARTICLES; i++) {
+            StringBuilder title = new StringBuilder();
+            int words = 4 + random.nextInt(8);
+            for (int w = 0; w < words; w++) {
+                if (w > 0) {
+                    title.append(' ');
+                }
+                title.append(WORDS[random.nextInt(WORDS.length)]);
+                if (random.nextInt(4) == 0) {
+                    // Numbers make the vocabulary grow the way real headlines do
+                    title.append(random.nextInt(1000));
+                }
+            }
+            stories.add(new News(title.toString(), SECTIONS[random.nextInt(SECTIONS.length)],
+                    1500000000000L + i * 60000L, AUTHORS[random.nextInt(AUTHORS.length)],
+                    "https://www.theguardian.com/" + i));
+        }
+        index = new NewsIndex(ARTICLES);
+        index.addAll(stories);
+    }
+
+    /**
+     * Build an index from scratch, adding the articles a page at a time as they arrive.
+     */
+    @Benchmark
+    @OperationsPerInvocation(ARTICLES)
+    public NewsIndex build() {
+        NewsIndex built = new NewsIndex(ARTICLES);
+        for (int i = 0; i < ARTICLES; i += PAGE_SIZE) {
+            built.addAll(stories.subList(i, i + PAGE_SIZE));
+        }
+        return built;
+    }
+
+    /**
+     * Run each of the eight queries once against the full index.
+     */
+    @Benchmark
+    @OperationsPerInvocation(8)
+    public void search(Blackhole blackhole) {
+        for (String query : QUERIES) {
+            blackhole.consume(index.search(query, MAX_HITS));
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package com.example.android.newsapp;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Heap retained by a list of parsed articles, as an {@code ArrayList<News>} and as a
+ * {@link NewsList}, at 1k, 10k and 100k articles. Run with
+ *   ./gradlew :benchmark:memoryBenchmark
+ *
+ * JMH measures time and allocation rather than what stays reachable, so this is a plain
+ * program: it parses the 200-result fixture until it has the articles, with new strings for
+ * every article as on the device, and compares the used heap after full collections before
+ * and after. The formatted display strings the list caches on each {@link News} are included,
+ * as they are on the device.
+ */
+public final class NewsMemoryBenchmark {
+
+    private static final int[] SIZES = {1000, 10000, 100000};
+
+    /* Collections until the used heap stops shrinking */
+    private static final int MAX_GC_ROUNDS = 20;
+
+    /* Keeps the measured list reachable */
+    private static Object sRetained;
+
+    /* Private constructor because there should not be a NewsMemoryBenchmark object */
+    private NewsMemoryBenchmark() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        byte[] fixture = Fixtures.load(Fixtures.SEARCH_200);
+        // Warm up the parser and formatter, so their classes and caches are not measured
+        buildArrayList(fixture, 1000);
+        buildNewsList(fixture, 1000);
+
+        System.out.println("articles,layout,retained_bytes,bytes_per_article");
+        for (int size : SIZES) {
+            long arrayList = measure(fixture, size, false);
+            long newsList = measure(fixture, size, true);
+            print(size, "ArrayList<News>", arrayList);
+            print(size, "NewsList", newsList);
+        }
+    }
+
+    private static void print(int size, String layout, long bytes) {
+        System.out.println(String.format(Locale.US, "%d,%s,%d,%d", size, layout, bytes,
+                bytes / size));
+    }
+
+    private static long measure(byte[] fixture, int size, boolean compact) throws IOException {
+        sRetained = null;
+        long before = usedHeap();
+        sRetained = compact ? buildNewsList(fixture, size) : buildArrayList(fixture, size);
+        long after = usedHeap();
+        sRetained = null;
+        return after - before;
+    }
+
+    private static List<News> buildArrayList(byte[] fixture, final int size) throws IOException {
+        final ArrayList<News> stories = new ArrayList<>(size);
+        while (stories.size() < size) {
+            NewsJsonParser.parse(new ByteArrayInputStream(fixture), new NewsJsonParser.Callback() {
+                @Override
+                public void onNews(News news) {
+                    if (stories.size() < size) {
+                        stories.add(news);
+                    }
+                }
+            });
+        }
+        NewsFormatter.getInstance(Locale.US).prepare(stories);
+        return stories;
+    }
+
+    private static NewsList buildNewsList(byte[] fixture, final int size) throws IOException {
+        final NewsList.Builder builder = new NewsList.Builder(size);
+        final int[] count = new int[1];
+        while (count[0] < size) {
+            NewsJsonParser.parse(new ByteArrayInputStream(fixture), new NewsJsonParser.Callback() {
+                @Override
+                public void onNews(News news) {
+                    if (count[0] < size) {
+                        builder.add(news);
+                        count[0]++;
+                    }
+                }
+            });
+        }
+        return builder.build();
+    }
+
+    /**
+     * Return the bytes in use after collecting garbage until the number stops going down.
+     */
+    private static long usedHeap() {
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        long used = Long.MAX_VALUE;
+        for (int i = 0; i < MAX_GC_ROUNDS; i++) {
+            System.gc();
+            long now = memory.getHeapMemoryUsage().getUsed();
+            if (now >= used) {
+                return now;
+            }
+            used = now;
+        }
+        return used;
+    }
+}
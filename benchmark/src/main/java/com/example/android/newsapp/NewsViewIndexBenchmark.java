@@ -0,0 +1,87 @@
+package com.example.android.newsapp;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Building the view index over the loaded pages of a feed, and switching the order or the
+ * section of the list from it. One view operation is one order of one section.
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.AverageTime, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class NewsViewIndexBenchmark {
+
+    /* Number of loaded articles, far more than the window of pages the list keeps */
+    private static final int ARTICLES = 2000;
+
+    /* Articles per page of each section */
+    private static final int PAGE_SIZE = 20;
+
+    private static final String[] SECTION_IDS = {"world", "politics", "business", "technology",
+            "science", "sport", "culture"};
+
+    /* One feed of a single section for every section */
+    private final List<Collection<String>> sections = new ArrayList<>();
+
+    private final List<News> stories = new ArrayList<>(ARTICLES);
+
+    private NewsViewIndex index;
+
+    @Setup
+    public void setUp() {
+        for (int i = 0; i < ARTICLES; i++) {
+            // Loaded out of publication order, as a merged or relevance feed is
+            int minute = (i * 7919) % ARTICLES;
+            String sectionId = SECTION_IDS[i % SECTION_IDS.length];
+            stories.add(new News("Story " + minute, sectionId, sectionId,
+                    1500000000000L + minute * 60000L, "Author " + (i % 40),
+                    "https://www.theguardian.com/" + sectionId + "/" + i, null));
+        }
+        for (String sectionId : SECTION_IDS) {
+            sections.add(Collections.singletonList(sectionId));
+        }
+        index = build();
+    }
+
+    /**
+     * Build an index over all loaded articles of a relevance feed.
+     */
+    @Benchmark
+    public NewsViewIndex build() {
+        return new NewsViewIndex(stories, "", NewsViewIndex.Order.RELEVANCE,
+                Collections.<String>emptyList(), PAGE_SIZE, false);
+    }
+
+    /**
+     * Show every order of every section once.
+     */
+    @Benchmark
+    @OperationsPerInvocation(21)
+    public void view(Blackhole blackhole) {
+        for (NewsViewIndex.Order order : NewsViewIndex.Order.values()) {
+            for (Collection<String> section : sections) {
+                blackhole.consume(index.query(order, section, null));
+            }
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.example.android.newsapp;
+
+import com.google.gson.stream.JsonReader;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parsing whole responses into {@link News}: JSON extraction, date parsing and construction.
+ *
+ * Every benchmark counts one operation per result in the response, so throughput, sample
+ * times and the gc.alloc.rate.norm of the gc profiler are all per article.
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class ParseBenchmark {
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private byte[] search10;
+    private byte[] search50;
+    private byte[] search200;
+    private byte[] missingTags;
+    private byte[] oddDates;
+
+    @Setup
+    public void setUp() throws IOException {
+        search10 = Fixtures.load(Fixtures.SEARCH_10);
+        search50 = Fixtures.load(Fixtures.SEARCH_50);
+        search200 = Fixtures.load(Fixtures.SEARCH_200);
+        missingTags = Fixtures.load(Fixtures.MISSING_TAGS);
+        oddDates = Fixtures.load(Fixtures.ODD_DATES);
+    }
+
+    private static int parse(byte[] response, final Blackhole blackhole) throws IOException {
+        return NewsJsonParser.parse(new ByteArrayInputStream(response),
+                new NewsJsonParser.Callback() {
+                    @Override
+                    public void onNews(News news) {
+                        blackhole.consume(news);
+                    }
+                });
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(10)
+    public int parse10(Blackhole blackhole) throws IOException {
+        return parse(search10, blackhole);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(50)
+    public int parse50(Blackhole blackhole) throws IOException {
+        return parse(search50, blackhole);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(200)
+    public int parse200(Blackhole blackhole) throws IOException {
+        return parse(search200, blackhole);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(50)
+    public int parseMissingTags(Blackhole blackhole) throws IOException {
+        return parse(missingTags, blackhole);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(50)
+    public int parseOddDates(Blackhole blackhole) throws IOException {
+        return parse(oddDates, blackhole);
+    }
+
+    /**
+     * Tokenize the 200 results without extracting anything, the floor for parse200.
+     */
+    @Benchmark
+    @OperationsPerInvocation(200)
+    public void scan200() throws IOException {
+        JsonReader reader = new JsonReader(
+                new InputStreamReader(new ByteArrayInputStream(search200), UTF_8));
+        reader.skipValue();
+    }
+}
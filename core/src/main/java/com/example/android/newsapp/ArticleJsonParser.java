@@ -0,0 +1,69 @@
+package com.example.android.newsapp;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+
+/**
+ * Streaming parser for the Guardian response to a single article ("content" endpoint).
+ *
+ * Only response.content.fields is read. The HTML "body" field is turned into plain text by
+ * {@link ArticleText} as it is read, and the "bodyText" field is used when there is no body.
+ */
+public final class ArticleJsonParser {
+
+    /* Private constructor because there should not be an ArticleJsonParser object */
+    private ArticleJsonParser() {
+    }
+
+    /**
+     * Return the text of the article in the response, or null if it carries none. The stream
+     * is left open for the caller to close.
+     */
+    public static String parseBody(InputStream inputStream) throws IOException {
+        JsonReader reader = new JsonReader(
+                new InputStreamReader(inputStream, Charset.forName("UTF-8")));
+        try {
+            String body = null;
+            String bodyText = null;
+            if (enter(reader, "response") && enter(reader, "content") && enter(reader, "fields")) {
+                reader.beginObject();
+                while (reader.hasNext()) {
+                    String name = reader.nextName();
+                    if (name.equals("body") && reader.peek() == JsonToken.STRING) {
+                        body = ArticleText.fromHtml(reader.nextString());
+                    } else if (name.equals("bodyText") && reader.peek() == JsonToken.STRING) {
+                        bodyText = reader.nextString();
+                    } else {
+                        reader.skipValue();
+                    }
+                }
+            }
+            return body != null && !body.isEmpty() ? body : bodyText;
+        } catch (IllegalStateException e) {
+            throw new IOException("Unexpected JSON structure", e);
+        }
+    }
+
+    /**
+     * Enter the current object and move to its member with the given name, skipping the
+     * members before it. Returns false if there is no such member holding an object.
+     */
+    private static boolean enter(JsonReader reader, String name) throws IOException {
+        if (reader.peek() != JsonToken.BEGIN_OBJECT) {
+            return false;
+        }
+        reader.beginObject();
+        while (reader.hasNext()) {
+            if (reader.nextName().equals(name) && reader.peek() == JsonToken.BEGIN_OBJECT) {
+                return true;
+            }
+            reader.skipValue();
+        }
+        return false;
+    }
+}
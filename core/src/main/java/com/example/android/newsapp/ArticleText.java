@@ -0,0 +1,166 @@
+package com.example.android.newsapp;
+
+import java.util.Locale;
+
+/**
+ * Turns the HTML body of an article into plain text with one blank line between paragraphs.
+ *
+ * The text is what the reader shows and what is stored on the device, and takes a fraction of
+ * the space of the HTML. Embedded media, captions and scripts are dropped, list items are
+ * marked with a bullet, and character references are decoded.
+ */
+public final class ArticleText {
+
+    /* Elements whose content is not part of the text */
+    private static final String[] SKIPPED = {"aside", "figure", "script", "style"};
+
+    /* Elements that start and end a paragraph */
+    private static final String[] BLOCKS = {"blockquote", "div", "h1", "h2", "h3", "h4", "h5",
+            "h6", "li", "ol", "p", "ul"};
+
+    /* Private constructor because there should not be an ArticleText object */
+    private ArticleText() {
+    }
+
+    /**
+     * Return the text of the HTML.
+     */
+    public static String fromHtml(String html) {
+        StringBuilder text = new StringBuilder(html.length() / 2);
+        int skipping = 0;
+        int i = 0;
+        while (i < html.length()) {
+            char c = html.charAt(i);
+            if (c == '<') {
+                int end = html.indexOf('>', i);
+                if (end == -1) {
+                    break;
+                }
+                String tag = html.substring(i + 1, end);
+                boolean closing = tag.startsWith("/");
+                String name = tagName(tag);
+                if (contains(SKIPPED, name) && !tag.endsWith("/")) {
+                    skipping += closing ? (skipping > 0 ? -1 : 0) : 1;
+                } else if (skipping == 0) {
+                    if (contains(BLOCKS, name)) {
+                        paragraph(text);
+                        if (name.equals("li") && !closing) {
+                            text.append("\u2022 ");
+                        }
+                    } else if (name.equals("br")) {
+                        trimTrailingSpace(text);
+                        text.append('\n');
+                    }
+                }
+                i = end + 1;
+            } else if (skipping > 0) {
+                i++;
+            } else if (c == '&') {
+                int end = html.indexOf(';', i);
+                char decoded = end == -1 || end - i > 10 ? 0 : decode(html.substring(i + 1, end));
+                if (decoded != 0) {
+                    appendChar(text, decoded);
+                    i = end + 1;
+                } else {
+                    appendChar(text, c);
+                    i++;
+                }
+            } else {
+                appendChar(text, c);
+                i++;
+            }
+        }
+        trimTrailingSpace(text);
+        while (text.length() > 0 && text.charAt(text.length() - 1) == '\n') {
+            text.setLength(text.length() - 1);
+        }
+        return text.toString();
+    }
+
+    /**
+     * Append a character, folding runs of white space into one space.
+     */
+    private static void appendChar(StringBuilder text, char c) {
+        if (Character.isWhitespace(c) || c == '\u00a0') {
+            int length = text.length();
+            if (length == 0 || Character.isWhitespace(text.charAt(length - 1))) {
+                return;
+            }
+            c = ' ';
+        }
+        text.append(c);
+    }
+
+    /**
+     * End the current paragraph, unless there is none.
+     */
+    private static void paragraph(StringBuilder text) {
+        trimTrailingSpace(text);
+        int length = text.length();
+        if (length == 0 || (length >= 2 && text.charAt(length - 1) == '\n'
+                && text.charAt(length - 2) == '\n')) {
+            return;
+        }
+        text.append(text.charAt(length - 1) == '\n' ? "\n" : "\n\n");
+    }
+
+    private static void trimTrailingSpace(StringBuilder text) {
+        while (text.length() > 0 && text.charAt(text.length() - 1) == ' ') {
+            text.setLength(text.length() - 1);
+        }
+    }
+
+    /**
+     * Return the lower case name of the tag, without a leading slash or its attributes.
+     */
+    private static String tagName(String tag) {
+        int start = tag.startsWith("/") ? 1 : 0;
+        int end = start;
+        while (end < tag.length() && Character.isLetterOrDigit(tag.charAt(end))) {
+            end++;
+        }
+        return tag.substring(start, end).toLowerCase(Locale.US);
+    }
+
+    /**
+     * Return the character of the reference without its ampersand and semicolon, or 0 if it
+     * is not one we know.
+     */
+    private static char decode(String reference) {
+        if (reference.startsWith("#")) {
+            try {
+                int code = reference.startsWith("#x") || reference.startsWith("#X")
+                        ? Integer.parseInt(reference.substring(2), 16)
+                        : Integer.parseInt(reference.substring(1));
+                return code > 0 && code <= Character.MAX_VALUE ? (char) code : 0;
+            } catch (NumberFormatException e) {
+                return 0;
+            }
+        }
+        switch (reference) {
+            case "amp":
+                return '&';
+            case "lt":
+                return '<';
+            case "gt":
+                return '>';
+            case "quot":
+                return '"';
+            case "apos":
+                return '\'';
+            case "nbsp":
+                return ' ';
+            default:
+                return 0;
+        }
+    }
+
+    private static boolean contains(String[] names, String name) {
+        for (String candidate : names) {
+            if (candidate.equals(name)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
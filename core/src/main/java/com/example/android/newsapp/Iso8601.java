@@ -0,0 +1,200 @@
+package com.example.android.newsapp;
+
+/**
+ * Parser and formatter for the ISO-8601 timestamps used by the Guardian API, such as
+ * "2018-07-11T16:23:54Z".
+ *
+ * Works directly on the characters without creating any intermediate objects. Accepts an
+ * optional fraction of a second and a "Z", "+hh:mm", "+hhmm" or "+hh" zone designator;
+ * timestamps without a designator are taken to be in UTC.
+ */
+public final class Iso8601 {
+
+    /* Returned for text that is not a valid timestamp */
+    public static final long INVALID = Long.MIN_VALUE;
+
+    private static final long MILLIS_PER_MINUTE = 60 * 1000L;
+    private static final long MILLIS_PER_DAY = 24 * 60 * MILLIS_PER_MINUTE;
+
+    /* Private constructor because there should not be an Iso8601 object */
+    private Iso8601() {
+    }
+
+    /**
+     * Return the timestamp as milliseconds since the epoch, or {@link #INVALID}.
+     */
+    public static long parse(CharSequence text) {
+        int length = text.length();
+        // Shortest accepted form is "yyyy-MM-ddTHH:mm"
+        if (length < 16 || text.charAt(4) != '-' || text.charAt(7) != '-'
+                || (text.charAt(10) != 'T' && text.charAt(10) != 't')
+                || text.charAt(13) != ':') {
+            return INVALID;
+        }
+        int year = digits(text, 0, 4);
+        int month = digits(text, 5, 2);
+        int day = digits(text, 8, 2);
+        int hour = digits(text, 11, 2);
+        int minute = digits(text, 14, 2);
+        if (year < 0 || month < 1 || month > 12 || day < 1 || day > daysInMonth(year, month)
+                || hour < 0 || hour > 23 || minute < 0 || minute > 59) {
+            return INVALID;
+        }
+
+        int pos = 16;
+        int second = 0;
+        int millis = 0;
+        if (pos < length && text.charAt(pos) == ':') {
+            second = digits(text, pos + 1, 2);
+            // Allow a leap second to roll over into the next minute
+            if (second < 0 || second > 60) {
+                return INVALID;
+            }
+            pos += 3;
+            if (pos < length && (text.charAt(pos) == '.' || text.charAt(pos) == ',')) {
+                pos++;
+                int start = pos;
+                int scale = 100;
+                while (pos < length && isDigit(text.charAt(pos))) {
+                    millis += (text.charAt(pos) - '0') * scale;
+                    scale /= 10;
+                    pos++;
+                }
+                if (pos == start) {
+                    return INVALID;
+                }
+            }
+        }
+
+        long offsetMillis = 0;
+        if (pos < length) {
+            char designator = text.charAt(pos);
+            if ((designator == 'Z' || designator == 'z') && pos + 1 == length) {
+                pos++;
+            } else if (designator == '+' || designator == '-') {
+                int offsetHours = digits(text, pos + 1, 2);
+                int offsetMinutes = 0;
+                pos += 3;
+                if (pos < length) {
+                    if (text.charAt(pos) == ':') {
+                        pos++;
+                    }
+                    offsetMinutes = digits(text, pos, 2);
+                    pos += 2;
+                }
+                if (offsetHours < 0 || offsetHours > 23 || offsetMinutes < 0
+                        || offsetMinutes > 59 || pos != length) {
+                    return INVALID;
+                }
+                offsetMillis = (offsetHours * 60 + offsetMinutes) * MILLIS_PER_MINUTE;
+                if (designator == '-') {
+                    offsetMillis = -offsetMillis;
+                }
+            } else {
+                return INVALID;
+            }
+        }
+
+        long days = daysFromCivil(year, month, day);
+        return days * MILLIS_PER_DAY
+                + ((hour * 60L + minute) * 60L + second) * 1000L + millis
+                - offsetMillis;
+    }
+
+    /**
+     * Format the time in UTC, as "yyyy-MM-dd" if it is midnight and as "yyyy-MM-ddTHH:mm:ssZ"
+     * otherwise. Milliseconds are dropped.
+     */
+    public static String format(long millis) {
+        long days = millis / MILLIS_PER_DAY;
+        long millisOfDay = millis % MILLIS_PER_DAY;
+        if (millisOfDay < 0) {
+            days--;
+            millisOfDay += MILLIS_PER_DAY;
+        }
+        long secondOfDay = millisOfDay / 1000;
+
+        // Inverse of daysFromCivil
+        long z = days + 719468;
+        long era = (z >= 0 ? z : z - 146096) / 146097;
+        long dayOfEra = z - era * 146097;
+        long yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524 - dayOfEra / 146096) / 365;
+        long dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+        long mp = (5 * dayOfYear + 2) / 153;
+        long day = dayOfYear - (153 * mp + 2) / 5 + 1;
+        long month = mp < 10 ? mp + 3 : mp - 9;
+        long year = yearOfEra + era * 400 + (month <= 2 ? 1 : 0);
+
+        StringBuilder text = new StringBuilder(20);
+        pad(text, year, 4).append('-');
+        pad(text, month, 2).append('-');
+        pad(text, day, 2);
+        if (secondOfDay != 0) {
+            text.append('T');
+            pad(text, secondOfDay / 3600, 2).append(':');
+            pad(text, secondOfDay / 60 % 60, 2).append(':');
+            pad(text, secondOfDay % 60, 2).append('Z');
+        }
+        return text.toString();
+    }
+
+    private static StringBuilder pad(StringBuilder text, long value, int width) {
+        String digits = Long.toString(value);
+        for (int i = digits.length(); i < width; i++) {
+            text.append('0');
+        }
+        return text.append(digits);
+    }
+
+    /**
+     * Return the number of days between 1970-01-01 and the given date in the proleptic
+     * Gregorian calendar.
+     */
+    private static long daysFromCivil(int year, int month, int day) {
+        // Shift the year so it starts in March and the leap day is the last day of the year
+        long y = month <= 2 ? year - 1 : year;
+        long era = (y >= 0 ? y : y - 399) / 400;
+        long yearOfEra = y - era * 400;
+        long dayOfYear = (153 * (month + (month > 2 ? -3 : 9)) + 2) / 5 + day - 1;
+        long dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        return era * 146097 + dayOfEra - 719468;
+    }
+
+    private static int daysInMonth(int year, int month) {
+        switch (month) {
+            case 2:
+                boolean leap = (year % 4 == 0 && year % 100 != 0) || year % 400 == 0;
+                return leap ? 29 : 28;
+            case 4:
+            case 6:
+            case 9:
+            case 11:
+                return 30;
+            default:
+                return 31;
+        }
+    }
+
+    /**
+     * Return the decimal value of count digits starting at start, or -1 if any of them is not
+     * a digit or the text is too short.
+     */
+    private static int digits(CharSequence text, int start, int count) {
+        if (start + count > text.length()) {
+            return -1;
+        }
+        int value = 0;
+        for (int i = start; i < start + count; i++) {
+            char c = text.charAt(i);
+            if (!isDigit(c)) {
+                return -1;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+}
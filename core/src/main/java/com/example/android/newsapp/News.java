@@ -0,0 +1,158 @@
+package com.example.android.newsapp;
+
+import java.util.Comparator;
+
+/**
+ * Created by elizabethsotomayor on 7/11/18.
+ * An {@link News} object contains information related to a single news article.
+ */
+
+public class News {
+
+    /* Publication time of articles whose date is unknown */
+    public static final long NO_DATE = Long.MIN_VALUE;
+
+    /* Orders articles by publication time, newest first and undated articles last */
+    public static final Comparator<News> NEWEST_FIRST = new Comparator<News>() {
+        @Override
+        public int compare(News first, News second) {
+            long a = first.newsPublishedMillis;
+            long b = second.newsPublishedMillis;
+            return a < b ? 1 : (a == b ? 0 : -1);
+        }
+    };
+
+    /* Title of the news article */
+    private final String newsTitle;
+
+    /* Section where the article can be found */
+    private final String newsSection;
+
+    /* ID of the section, e.g. "us-news", or an empty string if it is unknown */
+    private final String newsSectionId;
+
+    /* Time the article was published in milliseconds since the epoch, or NO_DATE */
+    private final long newsPublishedMillis;
+
+    /* URL for the article */
+    private final String newsUrl;
+
+    /* Name of the author of the article */
+    private final String newsAuthor;
+
+    /* URL of the thumbnail image of the article, or null if it has none */
+    private final String newsThumbnail;
+
+    /* Display strings computed once by {@link NewsFormatter} */
+    private volatile NewsFormatter.Display newsDisplay;
+
+    /**
+     * Constructs a new {@link News} object.
+     *
+     * @param title           is the title of the article
+     * @param section         is the section where the article can be found
+     * @param publishedMillis is the publication time in milliseconds since the epoch, or
+     *                        {@link #NO_DATE} if it is unknown
+     */
+    public News(String title, String section, long publishedMillis, String author, String url) {
+        this(title, section, publishedMillis, author, url, null);
+    }
+
+    /**
+     * Constructs a new {@link News} object with a thumbnail.
+     *
+     * @param thumbnail is the URL of the thumbnail image, or null if the article has none
+     */
+    public News(String title, String section, long publishedMillis, String author, String url,
+                String thumbnail) {
+        this(title, "", section, publishedMillis, author, url, thumbnail);
+    }
+
+    /**
+     * Constructs a new {@link News} object with the ID of its section and a thumbnail.
+     *
+     * @param sectionId is the ID of the section as the API names it, or an empty string if it
+     *                  is unknown
+     */
+    public News(String title, String sectionId, String section, long publishedMillis,
+                String author, String url, String thumbnail) {
+        newsTitle = title;
+        newsSectionId = sectionId;
+        newsSection = section;
+        newsPublishedMillis = publishedMillis;
+        newsAuthor = author;
+        newsUrl = url;
+        newsThumbnail = thumbnail;
+    }
+
+    /**
+     * Return the title of the article.
+     */
+    public String getTitle() {
+        return newsTitle;
+    }
+
+    /**
+     * Return the section of the article.
+     */
+    public String getSection() {
+        return newsSection;
+    }
+
+    /**
+     * Return the ID of the section of the article, or an empty string if it is unknown.
+     */
+    public String getSectionId() {
+        return newsSectionId;
+    }
+
+    /**
+     * Return the time the article was published in milliseconds since the epoch, or
+     * {@link #NO_DATE} if it is unknown.
+     */
+    public long getPublishedMillis() {
+        return newsPublishedMillis;
+    }
+
+    /**
+     * Return true if the publication time of the article is known.
+     */
+    public boolean hasDate() {
+        return newsPublishedMillis != NO_DATE;
+    }
+
+    /**
+     * Return the author of the article.
+     */
+    public String getAuthor() {
+        return newsAuthor;
+    }
+
+    /**
+     * Return the URL of the article.
+     */
+    public String getUrl() {
+        return newsUrl;
+    }
+
+    /**
+     * Return the URL of the thumbnail image of the article, or null if it has none.
+     */
+    public String getThumbnail() {
+        return newsThumbnail;
+    }
+
+    /**
+     * Return the cached display strings of the article, or null if none were computed yet.
+     */
+    NewsFormatter.Display getDisplay() {
+        return newsDisplay;
+    }
+
+    /**
+     * Cache the display strings of the article.
+     */
+    void setDisplay(NewsFormatter.Display display) {
+        newsDisplay = display;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,94 @@
+package com.example.android.newsapp;
+
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Turns the fields of a {@link News} into the strings shown in its list row.
+ *
+ * The strings are computed once per article and locale, off the main thread, and cached on the
+ * article itself, so binding a row while scrolling only reads fields and allocates nothing.
+ */
+public final class NewsFormatter {
+
+    /* Display strings of a single article for one locale */
+    public static final class Display {
+        /* Locale the strings were formatted for */
+        final Locale locale;
+
+        /* Publication date (i.e. "Nov 07, 2012,"), or null if the date is unknown */
+        public final String date;
+
+        /* Publication time (i.e. "2:50 PM"), or null if the date is unknown */
+        public final String time;
+
+        Display(Locale locale, String date, String time) {
+            this.locale = locale;
+            this.date = date;
+            this.time = time;
+        }
+    }
+
+    /* Formatter for the most recently used locale */
+    private static NewsFormatter sInstance;
+
+    private final Locale locale;
+    private final SimpleDateFormat dateFormat;
+    private final SimpleDateFormat timeFormat;
+
+    /* Reused to hand publication times to the date formats */
+    private final Date scratchDate = new Date();
+
+    private NewsFormatter(Locale locale) {
+        this.locale = locale;
+        dateFormat = new SimpleDateFormat("LLL dd, yyyy", locale);
+        timeFormat = new SimpleDateFormat("h:mm a", locale);
+    }
+
+    /**
+     * Return the formatter for the given locale. Formatters are reused until the locale changes.
+     */
+    public static synchronized NewsFormatter getInstance(Locale locale) {
+        if (sInstance == null || !sInstance.locale.equals(locale)) {
+            sInstance = new NewsFormatter(locale);
+        }
+        return sInstance;
+    }
+
+    /**
+     * Compute the display strings of every article that does not have them yet. Meant to be
+     * called on a background thread before the articles reach the adapter.
+     */
+    public void prepare(List<News> stories) {
+        for (int i = 0; i < stories.size(); i++) {
+            format(stories.get(i));
+        }
+    }
+
+    /**
+     * Return the display strings of the article, computing them only if they are not cached
+     * for this formatter's locale yet.
+     */
+    public Display format(News news) {
+        Display display = news.getDisplay();
+        if (display != null && display.locale == locale) {
+            return display;
+        }
+
+        String formattedDate = null;
+        String formattedTime = null;
+        if (news.hasDate()) {
+            // SimpleDateFormat is not thread safe
+            synchronized (this) {
+                scratchDate.setTime(news.getPublishedMillis());
+                formattedDate = dateFormat.format(scratchDate).concat(",");
+                formattedTime = timeFormat.format(scratchDate);
+            }
+        }
+        display = new Display(locale, formattedDate, formattedTime);
+        news.setDisplay(display);
+        return display;
+    }
+}
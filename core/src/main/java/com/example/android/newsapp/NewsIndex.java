@@ -0,0 +1,299 @@
+package com.example.android.newsapp;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * In-memory inverted index over the title, section and author of fetched articles, so
+ * searches can be answered on the device while the remote search is still running or when
+ * there is no connection at all.
+ *
+ * Every query term matches as a prefix and all terms must match. Hits are ranked by where the
+ * terms matched (title above author above section, whole words above prefixes) and then by
+ * publication time. The index holds at most {@code capacity} articles; adding more evicts the
+ * articles that were added first.
+ */
+public class NewsIndex {
+
+    /* Weight of a term found in each field */
+    private static final int TITLE_WEIGHT = 4;
+    private static final int AUTHOR_WEIGHT = 2;
+    private static final int SECTION_WEIGHT = 1;
+
+    /* Shortest term that is indexed */
+    private static final int MIN_TERM_LENGTH = 2;
+
+    /* Number of articles held by the process-wide index */
+    private static final int DEFAULT_CAPACITY = 10000;
+
+    private static final NewsIndex INSTANCE = new NewsIndex(DEFAULT_CAPACITY);
+
+    /* Documents containing a term, in ascending document id order */
+    private static final class Postings {
+        int[] docIds = new int[4];
+        byte[] weights = new byte[4];
+        int size;
+
+        void add(int docId, int weight) {
+            if (size > 0 && docIds[size - 1] == docId) {
+                weights[size - 1] = (byte) Math.max(weights[size - 1], weight);
+                return;
+            }
+            if (size == docIds.length) {
+                docIds = Arrays.copyOf(docIds, size * 2);
+                weights = Arrays.copyOf(weights, size * 2);
+            }
+            docIds[size] = docId;
+            weights[size] = (byte) weight;
+            size++;
+        }
+    }
+
+    /* A ranked search result */
+    private static final class Hit {
+        final News news;
+        final float score;
+
+        Hit(News news, float score) {
+            this.news = news;
+            this.score = score;
+        }
+    }
+
+    private static final Comparator<Hit> BEST_FIRST = new Comparator<Hit>() {
+        @Override
+        public int compare(Hit first, Hit second) {
+            if (first.score != second.score) {
+                return first.score > second.score ? -1 : 1;
+            }
+            return News.NEWEST_FIRST.compare(first.news, second.news);
+        }
+    };
+
+    private final int capacity;
+
+    /* Terms in sorted order, so all terms with a prefix form one range */
+    private final TreeMap<String, Postings> terms = new TreeMap<>();
+
+    /* Articles by slot; document id d lives in slot d % capacity while it is alive */
+    private final News[] docs;
+    private final int[] slotDocIds;
+
+    /* Document id of every live article, by URL */
+    private final Map<String, Integer> docIdsByUrl = new HashMap<>();
+
+    /* Id of the next article that is added */
+    private int nextDocId;
+
+    /* Articles removed since the postings were last cleaned up */
+    private int removedSinceCompaction;
+
+    /* Scratch space for queries, indexed by slot */
+    private final float[] scores;
+    private final int[] matchedTerms;
+    private final int[] lastTerm;
+    private final int[] queryStamps;
+    private int queryStamp;
+
+    public NewsIndex(int capacity) {
+        this.capacity = capacity;
+        docs = new News[capacity];
+        slotDocIds = new int[capacity];
+        Arrays.fill(slotDocIds, -1);
+        scores = new float[capacity];
+        matchedTerms = new int[capacity];
+        lastTerm = new int[capacity];
+        queryStamps = new int[capacity];
+    }
+
+    /**
+     * Return the process-wide index.
+     */
+    public static NewsIndex getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Add the articles to the index, replacing earlier copies with the same URL.
+     */
+    public synchronized void addAll(List<News> stories) {
+        for (int i = 0; i < stories.size(); i++) {
+            add(stories.get(i));
+        }
+        if (removedSinceCompaction >= capacity) {
+            compact();
+        }
+    }
+
+    /**
+     * Return the number of articles in the index.
+     */
+    public synchronized int size() {
+        return docIdsByUrl.size();
+    }
+
+    private void add(News news) {
+        Integer previous = docIdsByUrl.get(news.getUrl());
+        if (previous != null) {
+            if (docs[previous % capacity] == news) {
+                return;
+            }
+            remove(previous);
+        }
+
+        int docId = nextDocId++;
+        int slot = docId % capacity;
+        if (slotDocIds[slot] >= 0) {
+            // The slot still holds the article added capacity articles ago
+            remove(slotDocIds[slot]);
+        }
+        docs[slot] = news;
+        slotDocIds[slot] = docId;
+        docIdsByUrl.put(news.getUrl(), docId);
+
+        indexField(news.getTitle(), docId, TITLE_WEIGHT);
+        indexField(news.getAuthor(), docId, AUTHOR_WEIGHT);
+        indexField(news.getSection(), docId, SECTION_WEIGHT);
+    }
+
+    private void remove(int docId) {
+        int slot = docId % capacity;
+        docIdsByUrl.remove(docs[slot].getUrl());
+        docs[slot] = null;
+        slotDocIds[slot] = -1;
+        removedSinceCompaction++;
+    }
+
+    private void indexField(String text, int docId, int weight) {
+        List<String> tokens = tokenize(text, MIN_TERM_LENGTH);
+        for (int i = 0; i < tokens.size(); i++) {
+            String token = tokens.get(i);
+            Postings postings = terms.get(token);
+            if (postings == null) {
+                postings = new Postings();
+                terms.put(token, postings);
+            }
+            postings.add(docId, weight);
+        }
+    }
+
+    /**
+     * Drop the postings of removed articles and the terms no live article uses any more.
+     */
+    private void compact() {
+        Iterator<Postings> iterator = terms.values().iterator();
+        while (iterator.hasNext()) {
+            Postings postings = iterator.next();
+            int kept = 0;
+            for (int i = 0; i < postings.size; i++) {
+                if (isLive(postings.docIds[i])) {
+                    postings.docIds[kept] = postings.docIds[i];
+                    postings.weights[kept] = postings.weights[i];
+                    kept++;
+                }
+            }
+            if (kept == 0) {
+                iterator.remove();
+            } else {
+                postings.size = kept;
+            }
+        }
+        removedSinceCompaction = 0;
+    }
+
+    private boolean isLive(int docId) {
+        return slotDocIds[docId % capacity] == docId;
+    }
+
+    /**
+     * Return at most limit articles matching every term of the query, best match first.
+     */
+    public synchronized List<News> search(String query, int limit) {
+        List<String> queryTerms = tokenize(query, 1);
+        if (queryTerms.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        queryStamp++;
+        List<Integer> candidates = new ArrayList<>();
+        for (int t = 0; t < queryTerms.size(); t++) {
+            String term = queryTerms.get(t);
+            SortedMap<String, Postings> matches = terms.subMap(term, term + Character.MAX_VALUE);
+            for (Map.Entry<String, Postings> entry : matches.entrySet()) {
+                // Whole words count more than words that merely start with the term
+                float factor = entry.getKey().length() == term.length() ? 1f : 0.5f;
+                Postings postings = entry.getValue();
+                for (int i = 0; i < postings.size; i++) {
+                    int docId = postings.docIds[i];
+                    if (!isLive(docId)) {
+                        continue;
+                    }
+                    int slot = docId % capacity;
+                    if (queryStamps[slot] != queryStamp) {
+                        if (t > 0) {
+                            // Missed an earlier term, so it can never match all of them
+                            continue;
+                        }
+                        queryStamps[slot] = queryStamp;
+                        scores[slot] = 0;
+                        matchedTerms[slot] = 0;
+                        lastTerm[slot] = -1;
+                        candidates.add(slot);
+                    }
+                    if (lastTerm[slot] != t) {
+                        if (matchedTerms[slot] != t) {
+                            continue;
+                        }
+                        lastTerm[slot] = t;
+                        matchedTerms[slot]++;
+                    }
+                    scores[slot] += postings.weights[i] * factor;
+                }
+            }
+        }
+
+        List<Hit> hits = new ArrayList<>();
+        for (int i = 0; i < candidates.size(); i++) {
+            int slot = candidates.get(i);
+            if (matchedTerms[slot] == queryTerms.size()) {
+                hits.add(new Hit(docs[slot], scores[slot]));
+            }
+        }
+        Collections.sort(hits, BEST_FIRST);
+
+        List<News> results = new ArrayList<>(Math.min(limit, hits.size()));
+        for (int i = 0; i < hits.size() && i < limit; i++) {
+            results.add(hits.get(i).news);
+        }
+        return results;
+    }
+
+    /**
+     * Split the text into lower case words of at least minLength letters or digits.
+     */
+    static List<String> tokenize(String text, int minLength) {
+        List<String> tokens = new ArrayList<>();
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean wordChar = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                if (i - start >= minLength) {
+                    tokens.add(text.substring(start, i).toLowerCase(Locale.ROOT));
+                }
+                start = -1;
+            }
+        }
+        return tokens;
+    }
+}
@@ -0,0 +1,201 @@
+package com.example.android.newsapp;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+
+/**
+ * Streaming parser for the Guardian "search" response.
+ *
+ * Reads response.results[] straight from the network stream and hands every
+ * {@link News} to a {@link Callback} as soon as it has been read, so the full
+ * document is never held in memory. Fields the app does not use are skipped
+ * without being decoded, and a malformed result only drops that one article.
+ */
+public final class NewsJsonParser {
+
+    /* Receives articles one at a time while the response is being read */
+    public interface Callback {
+        void onNews(News news);
+    }
+
+    /* Private constructor because there should not be a NewsJsonParser object */
+    private NewsJsonParser() {
+    }
+
+    /**
+     * Parse the response in the given stream and return the number of results that were
+     * dropped because they were malformed. The stream is left open for the caller to close.
+     */
+    public static int parse(InputStream inputStream, Callback callback) throws IOException {
+        JsonReader reader = new JsonReader(
+                new InputStreamReader(inputStream, Charset.forName("UTF-8")));
+        try {
+            return readRoot(reader, callback);
+        } catch (IllegalStateException e) {
+            // The envelope itself does not look like a Guardian response
+            throw new IOException("Unexpected JSON structure", e);
+        }
+    }
+
+    private static int readRoot(JsonReader reader, Callback callback) throws IOException {
+        int dropped = 0;
+        reader.beginObject();
+        while (reader.hasNext()) {
+            if (reader.nextName().equals("response") && reader.peek() == JsonToken.BEGIN_OBJECT) {
+                dropped += readResponse(reader, callback);
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+        return dropped;
+    }
+
+    private static int readResponse(JsonReader reader, Callback callback) throws IOException {
+        int dropped = 0;
+        reader.beginObject();
+        while (reader.hasNext()) {
+            if (reader.nextName().equals("results") && reader.peek() == JsonToken.BEGIN_ARRAY) {
+                reader.beginArray();
+                while (reader.hasNext()) {
+                    News news = readNews(reader);
+                    if (news != null) {
+                        callback.onNews(news);
+                    } else {
+                        dropped++;
+                    }
+                }
+                reader.endArray();
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+        return dropped;
+    }
+
+    /**
+     * Read a single result object. Always consumes the whole object so the reader stays
+     * positioned on the next result, and returns null if a required field is missing.
+     */
+    private static News readNews(JsonReader reader) throws IOException {
+        if (reader.peek() != JsonToken.BEGIN_OBJECT) {
+            reader.skipValue();
+            return null;
+        }
+
+        String title = null;
+        String sectionId = null;
+        String section = null;
+        String originalDate = null;
+        String url = null;
+        String author = null;
+        String thumbnail = null;
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            if (name.equals("webTitle")) {
+                title = readString(reader);
+            } else if (name.equals("sectionId")) {
+                sectionId = readString(reader);
+            } else if (name.equals("sectionName")) {
+                section = readString(reader);
+            } else if (name.equals("webPublicationDate")) {
+                originalDate = readString(reader);
+            } else if (name.equals("webUrl")) {
+                url = readString(reader);
+            } else if (name.equals("tags")) {
+                author = readAuthor(reader);
+            } else if (name.equals("fields")) {
+                thumbnail = readThumbnail(reader);
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+
+        if (title == null || section == null || originalDate == null || url == null
+                || author == null) {
+            return null;
+        }
+
+        // Parse the publication date, keeping the article even if the date is unreadable
+        long publishedMillis = Iso8601.parse(originalDate);
+        if (publishedMillis == Iso8601.INVALID) {
+            publishedMillis = News.NO_DATE;
+        }
+
+        return new News(title, sectionId != null ? sectionId : "", section, publishedMillis,
+                author, url, thumbnail);
+    }
+
+    /**
+     * Return the thumbnail URL from the "fields" object, or null if there is none.
+     */
+    private static String readThumbnail(JsonReader reader) throws IOException {
+        if (reader.peek() != JsonToken.BEGIN_OBJECT) {
+            reader.skipValue();
+            return null;
+        }
+        String thumbnail = null;
+        reader.beginObject();
+        while (reader.hasNext()) {
+            if (reader.nextName().equals("thumbnail")) {
+                thumbnail = readString(reader);
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+        return thumbnail;
+    }
+
+    /**
+     * Return the name of the first contributor tag, or null if there is none.
+     */
+    private static String readAuthor(JsonReader reader) throws IOException {
+        if (reader.peek() != JsonToken.BEGIN_ARRAY) {
+            reader.skipValue();
+            return null;
+        }
+        String author = null;
+        boolean first = true;
+        reader.beginArray();
+        while (reader.hasNext()) {
+            if (first && reader.peek() == JsonToken.BEGIN_OBJECT) {
+                reader.beginObject();
+                while (reader.hasNext()) {
+                    if (reader.nextName().equals("webTitle")) {
+                        author = readString(reader);
+                    } else {
+                        reader.skipValue();
+                    }
+                }
+                reader.endObject();
+            } else {
+                reader.skipValue();
+            }
+            first = false;
+        }
+        reader.endArray();
+        return author;
+    }
+
+    /**
+     * Return the next value if it is a string (or number), skipping it otherwise.
+     */
+    private static String readString(JsonReader reader) throws IOException {
+        JsonToken token = reader.peek();
+        if (token == JsonToken.STRING || token == JsonToken.NUMBER) {
+            return reader.nextString();
+        }
+        reader.skipValue();
+        return null;
+    }
+}
@@ -0,0 +1,207 @@
+package com.example.android.newsapp;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+
+/**
+ * Compact, immutable list of articles, stored as one array per field instead of one
+ * {@link News} object per article.
+ *
+ * Sections, their IDs and authors repeat across articles and are kept once in a string pool that the
+ * articles refer to by index, and publication times are a primitive array. Reading a field
+ * through the per-index accessors allocates nothing; {@link #get(int)} builds a new
+ * {@link News} every time and is meant for handing single articles to code that needs one.
+ */
+public final class NewsList extends AbstractList<News> implements RandomAccess {
+
+    /* List without articles */
+    public static final NewsList EMPTY = new Builder(0).build();
+
+    private final String[] titles;
+    private final String[] urls;
+
+    /* Thumbnail URLs; null for articles without a thumbnail */
+    private final String[] thumbnails;
+
+    /* Publication times in milliseconds since the epoch, or News.NO_DATE */
+    private final long[] publishedMillis;
+
+    /* Indexes into the pool */
+    private final int[] sectionIds;
+    private final int[] sections;
+    private final int[] authors;
+
+    /* Distinct section IDs, section names and author names */
+    private final String[] pool;
+
+    private NewsList(String[] titles, String[] urls, String[] thumbnails, long[] publishedMillis,
+                     int[] sectionIds, int[] sections, int[] authors, String[] pool) {
+        this.titles = titles;
+        this.urls = urls;
+        this.thumbnails = thumbnails;
+        this.publishedMillis = publishedMillis;
+        this.sectionIds = sectionIds;
+        this.sections = sections;
+        this.authors = authors;
+        this.pool = pool;
+    }
+
+    /**
+     * Return a compact copy of the articles, or the list itself if it already is one.
+     */
+    public static NewsList copyOf(List<News> stories) {
+        if (stories instanceof NewsList) {
+            return (NewsList) stories;
+        }
+        Builder builder = new Builder(stories.size());
+        for (int i = 0; i < stories.size(); i++) {
+            builder.add(stories.get(i));
+        }
+        return builder.build();
+    }
+
+    @Override
+    public int size() {
+        return titles.length;
+    }
+
+    /**
+     * Return a new {@link News} with the fields of the article at the index.
+     */
+    @Override
+    public News get(int index) {
+        return new News(titles[index], pool[sectionIds[index]], pool[sections[index]],
+                publishedMillis[index], pool[authors[index]], urls[index], thumbnails[index]);
+    }
+
+    public String getTitle(int index) {
+        return titles[index];
+    }
+
+    public String getSectionId(int index) {
+        return pool[sectionIds[index]];
+    }
+
+    public String getSection(int index) {
+        return pool[sections[index]];
+    }
+
+    public long getPublishedMillis(int index) {
+        return publishedMillis[index];
+    }
+
+    public boolean hasDate(int index) {
+        return publishedMillis[index] != News.NO_DATE;
+    }
+
+    public String getAuthor(int index) {
+        return pool[authors[index]];
+    }
+
+    public String getUrl(int index) {
+        return urls[index];
+    }
+
+    public String getThumbnail(int index) {
+        return thumbnails[index];
+    }
+
+    /**
+     * Return the number of distinct section IDs, sections and authors.
+     */
+    public int getPoolSize() {
+        return pool.length;
+    }
+
+    /**
+     * Builds a {@link NewsList} one article at a time.
+     */
+    public static final class Builder {
+        private String[] titles;
+        private String[] urls;
+        private String[] thumbnails;
+        private long[] publishedMillis;
+        private int[] sectionIds;
+        private int[] sections;
+        private int[] authors;
+        private int size;
+
+        /* Index of every distinct string in the pool */
+        private final Map<String, Integer> poolIndexes = new HashMap<>();
+        private String[] pool = new String[16];
+
+        /**
+         * Start a list with room for the given number of articles; it grows as needed.
+         */
+        public Builder(int capacity) {
+            titles = new String[capacity];
+            urls = new String[capacity];
+            thumbnails = new String[capacity];
+            publishedMillis = new long[capacity];
+            sectionIds = new int[capacity];
+            sections = new int[capacity];
+            authors = new int[capacity];
+        }
+
+        public Builder add(News news) {
+            return add(news.getTitle(), news.getSectionId(), news.getSection(),
+                    news.getPublishedMillis(), news.getAuthor(), news.getUrl(),
+                    news.getThumbnail());
+        }
+
+        public Builder add(String title, String section, long published, String author,
+                           String url, String thumbnail) {
+            return add(title, "", section, published, author, url, thumbnail);
+        }
+
+        public Builder add(String title, String sectionId, String section, long published,
+                           String author, String url, String thumbnail) {
+            if (size == titles.length) {
+                int capacity = Math.max(16, size * 2);
+                titles = Arrays.copyOf(titles, capacity);
+                urls = Arrays.copyOf(urls, capacity);
+                thumbnails = Arrays.copyOf(thumbnails, capacity);
+                publishedMillis = Arrays.copyOf(publishedMillis, capacity);
+                sectionIds = Arrays.copyOf(sectionIds, capacity);
+                sections = Arrays.copyOf(sections, capacity);
+                authors = Arrays.copyOf(authors, capacity);
+            }
+            titles[size] = title;
+            urls[size] = url;
+            thumbnails[size] = thumbnail;
+            publishedMillis[size] = published;
+            sectionIds[size] = intern(sectionId);
+            sections[size] = intern(section);
+            authors[size] = intern(author);
+            size++;
+            return this;
+        }
+
+        private int intern(String value) {
+            Integer index = poolIndexes.get(value);
+            if (index == null) {
+                index = poolIndexes.size();
+                if (index == pool.length) {
+                    pool = Arrays.copyOf(pool, index * 2);
+                }
+                pool[index] = value;
+                poolIndexes.put(value, index);
+            }
+            return index;
+        }
+
+        /**
+         * Return the list, trimmed to its size. The builder must not be used afterwards.
+         */
+        public NewsList build() {
+            return new NewsList(Arrays.copyOf(titles, size), Arrays.copyOf(urls, size),
+                    Arrays.copyOf(thumbnails, size), Arrays.copyOf(publishedMillis, size),
+                    Arrays.copyOf(sectionIds, size), Arrays.copyOf(sections, size), Arrays.copyOf(authors, size),
+                    Arrays.copyOf(pool, poolIndexes.size()));
+        }
+    }
+}
@@ -0,0 +1,330 @@
+package com.example.android.newsapp;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Sorts, filters and groups the articles loaded for one feed on the device, so switching the
+ * order or narrowing the sections does not have to wait for a new request.
+ *
+ * Everything a view needs is worked out once when the index is built: the rows in order of
+ * publication time, and the rows of every section and author as bit sets. A view is then a
+ * single pass over one order with a mask, without comparing any articles.
+ *
+ * A view of another feed can only stand in for that feed if it holds the articles the feed
+ * starts with. That is the case for every view once all pages were loaded. Otherwise the view
+ * has to keep the order of the loaded feed and may only narrow its sections: the articles of
+ * a section are then the first ones of that section's feed, and there have to be enough of
+ * them to fill a page. Anything else needs the network.
+ */
+public final class NewsViewIndex {
+
+    /* Orders of the search endpoint; relevance is the order the server returned articles in */
+    public enum Order {
+        NEWEST, OLDEST, RELEVANCE;
+
+        /**
+         * Return the order for the order-by parameter of the search endpoint.
+         */
+        public static Order fromParameter(String orderBy) {
+            if ("oldest".equals(orderBy)) {
+                return OLDEST;
+            } else if ("relevance".equals(orderBy)) {
+                return RELEVANCE;
+            }
+            return NEWEST;
+        }
+    }
+
+    /* A view of the loaded articles that stands in for the first pages of another feed */
+    public static final class Result {
+        public final List<News> stories;
+
+        /* Number of pages of the other feed the articles stand for */
+        public final int pages;
+
+        /* Number of the articles on each of those pages, first page first */
+        public final int[] pageItemCounts;
+
+        /* Whether the other feed has articles after these */
+        public final boolean hasMore;
+
+        Result(List<News> stories, int[] pageItemCounts, boolean hasMore) {
+            this.stories = stories;
+            this.pages = pageItemCounts.length;
+            this.pageItemCounts = pageItemCounts;
+            this.hasMore = hasMore;
+        }
+    }
+
+    /* Articles in the order they were loaded, which is also their relevance rank */
+    private final News[] stories;
+
+    /* Rows by publication time, newest first and undated articles last */
+    private final int[] newestRows;
+
+    /* Rows of every section by section ID, and of every author by lower case name */
+    private final Map<String, BitSet> sectionRows = new HashMap<>();
+    private final Map<String, BitSet> authorRows = new HashMap<>();
+
+    /* Feed the articles were loaded for */
+    private final String search;
+    private final Order order;
+    private final Set<String> sectionIds;
+    private final int pageSize;
+
+    /* Whether every article of the feed is loaded */
+    private final boolean complete;
+
+    /**
+     * Construct an index over the first pages of a feed.
+     *
+     * @param stories    are the articles of the feed, in the order they were loaded
+     * @param search     is the search of the feed, or an empty string for none
+     * @param order      is the order of the feed
+     * @param sectionIds are the sections of the feed, or none for all sections
+     * @param pageSize   is the number of articles per page of each section
+     * @param complete   is true if there are no pages after the loaded ones
+     */
+    public NewsViewIndex(List<News> stories, String search, Order order,
+                         Collection<String> sectionIds, int pageSize, boolean complete) {
+        final News[] rows = stories.toArray(new News[stories.size()]);
+        this.stories = rows;
+        this.search = search;
+        this.order = order;
+        this.sectionIds = new HashSet<>(sectionIds);
+        this.pageSize = pageSize;
+        this.complete = complete;
+
+        // Sort the rows once; every view of every order reads them from here
+        List<Integer> newest = new ArrayList<>(rows.length);
+        for (int i = 0; i < rows.length; i++) {
+            newest.add(i);
+        }
+        Collections.sort(newest, new Comparator<Integer>() {
+            @Override
+            public int compare(Integer first, Integer second) {
+                return News.NEWEST_FIRST.compare(rows[first], rows[second]);
+            }
+        });
+        newestRows = new int[newest.size()];
+        for (int i = 0; i < newestRows.length; i++) {
+            newestRows[i] = newest.get(i);
+        }
+
+        for (int row = 0; row < rows.length; row++) {
+            News news = rows[row];
+            rowsOf(sectionRows, news.getSectionId()).set(row);
+            if (news.getAuthor() != null) {
+                rowsOf(authorRows, news.getAuthor().toLowerCase(Locale.ROOT)).set(row);
+            }
+        }
+    }
+
+    /**
+     * Return the number of articles in the index.
+     */
+    public int size() {
+        return stories.length;
+    }
+
+    /**
+     * Return the loaded articles of the given sections by the given author, in the given order.
+     *
+     * @param sectionIds are the sections to keep, or none for all sections
+     * @param author     is the author to keep, ignoring case, or null for all authors
+     */
+    public List<News> query(Order order, Collection<String> sectionIds, String author) {
+        BitSet mask = mask(sectionIds, author);
+        List<News> view = new ArrayList<>(mask != null ? mask.cardinality() : stories.length);
+        for (int i = 0; i < stories.length; i++) {
+            int row = row(order, i);
+            if (mask == null || mask.get(row)) {
+                view.add(stories[row]);
+            }
+        }
+        return view;
+    }
+
+    /**
+     * Return the articles of {@link #query} grouped by section name. The sections come in the
+     * order of their first article, and each keeps the order of its articles.
+     */
+    public Map<String, List<News>> groupBySection(Order order, Collection<String> sectionIds,
+                                                  String author) {
+        Map<String, List<News>> groups = new LinkedHashMap<>();
+        List<News> view = query(order, sectionIds, author);
+        for (int i = 0; i < view.size(); i++) {
+            News news = view.get(i);
+            List<News> group = groups.get(news.getSection());
+            if (group == null) {
+                group = new ArrayList<>();
+                groups.put(news.getSection(), group);
+            }
+            group.add(news);
+        }
+        return groups;
+    }
+
+    /**
+     * Return the loaded articles as the first pages of another feed with the same page size,
+     * or null if the feed needs articles that are not loaded.
+     *
+     * Every section of the other feed contributes up to a page size of articles to each of its
+     * pages, so the view keeps exactly the articles of the pages it stands for, page by page.
+     *
+     * @param sectionIds are the sections of the other feed, or none for all sections
+     */
+    public Result serve(String search, Order order, Collection<String> sectionIds) {
+        if (!this.search.equals(search) || !covers(sectionIds)) {
+            return null;
+        }
+        if (!complete && order != this.order) {
+            // The other end of the feed, or another ranking, was never loaded
+            return null;
+        }
+        int pages = complete ? lastPage(sectionIds) : fullPages(sectionIds);
+        if (pages == 0) {
+            return null;
+        }
+
+        // Count the articles of each section as they come, which tells the page of each one
+        List<List<News>> pageStories = new ArrayList<>(pages);
+        for (int page = 0; page < pages; page++) {
+            pageStories.add(new ArrayList<News>(pageSize));
+        }
+        Map<String, int[]> seen = new HashMap<>();
+        List<News> view = query(order, sectionIds, null);
+        for (int i = 0; i < view.size(); i++) {
+            News news = view.get(i);
+            String key = sectionIds.isEmpty() ? "" : news.getSectionId();
+            int[] count = seen.get(key);
+            if (count == null) {
+                count = new int[1];
+                seen.put(key, count);
+            }
+            int page = count[0]++ / pageSize;
+            if (page < pages) {
+                pageStories.get(page).add(news);
+            }
+        }
+
+        List<News> stories = new ArrayList<>(Math.min(view.size(), pages * pageSize));
+        int[] pageItemCounts = new int[pages];
+        for (int page = 0; page < pages; page++) {
+            stories.addAll(pageStories.get(page));
+            pageItemCounts[page] = pageStories.get(page).size();
+        }
+        return new Result(stories, pageItemCounts, !complete);
+    }
+
+    /**
+     * Return true if the loaded sections include every section of another feed.
+     */
+    private boolean covers(Collection<String> sectionIds) {
+        if (this.sectionIds.isEmpty()) {
+            return true;
+        }
+        return !sectionIds.isEmpty() && this.sectionIds.containsAll(sectionIds);
+    }
+
+    /**
+     * Return the number of pages of the other feed that the loaded articles fill completely,
+     * which for several sections is the number every one of them fills.
+     */
+    private int fullPages(Collection<String> sectionIds) {
+        if (sectionIds.isEmpty()) {
+            return stories.length / pageSize;
+        }
+        int pages = Integer.MAX_VALUE;
+        for (String sectionId : sectionIds) {
+            pages = Math.min(pages, count(sectionId) / pageSize);
+        }
+        return pages;
+    }
+
+    /**
+     * Return the number of pages of the other feed when every article is loaded, which for
+     * several sections is the number of the section with the most. An empty feed has one.
+     */
+    private int lastPage(Collection<String> sectionIds) {
+        int count = 0;
+        if (sectionIds.isEmpty()) {
+            count = stories.length;
+        } else {
+            for (String sectionId : sectionIds) {
+                count = Math.max(count, count(sectionId));
+            }
+        }
+        return Math.max(1, (count + pageSize - 1) / pageSize);
+    }
+
+    /**
+     * Return the number of loaded articles of a section.
+     */
+    private int count(String sectionId) {
+        BitSet rows = sectionRows.get(sectionId);
+        return rows != null ? rows.cardinality() : 0;
+    }
+
+    /**
+     * Return the rows to keep, or null to keep all of them.
+     */
+    private BitSet mask(Collection<String> sectionIds, String author) {
+        BitSet mask = null;
+        if (!sectionIds.isEmpty()) {
+            mask = new BitSet(stories.length);
+            for (String sectionId : sectionIds) {
+                BitSet rows = sectionRows.get(sectionId);
+                if (rows != null) {
+                    mask.or(rows);
+                }
+            }
+        }
+        if (author != null) {
+            BitSet rows = authorRows.get(author.toLowerCase(Locale.ROOT));
+            if (rows == null) {
+                return new BitSet();
+            }
+            if (mask == null) {
+                mask = (BitSet) rows.clone();
+            } else {
+                mask.and(rows);
+            }
+        }
+        return mask;
+    }
+
+    /**
+     * Return the row at the given position of the order.
+     */
+    private int row(Order order, int position) {
+        switch (order) {
+            case NEWEST:
+                return newestRows[position];
+            case OLDEST:
+                return newestRows[newestRows.length - 1 - position];
+            default:
+                return position;
+        }
+    }
+
+    private static BitSet rowsOf(Map<String, BitSet> index, String key) {
+        BitSet rows = index.get(key);
+        if (rows == null) {
+            rows = new BitSet();
+            index.put(key, rows);
+        }
+        return rows;
+    }
+}
@@ -0,0 +1,34 @@
+package com.example.android.newsapp;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.Charset;
+
+import static org.junit.Assert.*;
+
+public class ArticleJsonParserTest {
+
+    private static String parse(String fields) throws IOException {
+        String json = "{\"response\":{\"status\":\"ok\",\"userTier\":\"developer\","
+                + "\"content\":{\"id\":\"world/1\",\"tags\":[],\"fields\":" + fields + "}}}";
+        return ArticleJsonParser.parseBody(
+                new ByteArrayInputStream(json.getBytes(Charset.forName("UTF-8"))));
+    }
+
+    @Test
+    public void prefersBodyOverBodyText() throws IOException {
+        assertEquals("One\n\nTwo",
+                parse("{\"bodyText\":\"One Two\",\"body\":\"<p>One</p><p>Two</p>\"}"));
+        assertEquals("One Two", parse("{\"bodyText\":\"One Two\",\"body\":\"<figure></figure>\"}"));
+        assertEquals("Only text", parse("{\"headline\":\"H\",\"bodyText\":\"Only text\"}"));
+    }
+
+    @Test
+    public void missingFieldsHaveNoBody() throws IOException {
+        assertNull(parse("{}"));
+        assertNull(ArticleJsonParser.parseBody(new ByteArrayInputStream(
+                "{\"response\":{\"status\":\"error\"}}".getBytes(Charset.forName("UTF-8")))));
+    }
+}
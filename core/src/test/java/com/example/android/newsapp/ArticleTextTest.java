@@ -0,0 +1,31 @@
+package com.example.android.newsapp;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class ArticleTextTest {
+
+    @Test
+    public void keepsParagraphsAndFoldsWhiteSpace() {
+        String html = "<p>First   paragraph,\n with a <a href=\"x\">link</a>.</p>"
+                + "<p>Second<br>line</p>\n<h2>Heading</h2>";
+        assertEquals("First paragraph, with a link.\n\nSecond\nline\n\nHeading",
+                ArticleText.fromHtml(html));
+    }
+
+    @Test
+    public void dropsMediaAndMarksListItems() {
+        String html = "<figure class=\"element\"><img src=\"a.jpg\"/><figcaption>Caption"
+                + "</figcaption></figure><p>Text</p><aside>Related</aside>"
+                + "<ul><li>One</li><li>Two</li></ul><script>var x = 1;</script>";
+        assertEquals("Text\n\n\u2022 One\n\n\u2022 Two", ArticleText.fromHtml(html));
+    }
+
+    @Test
+    public void decodesCharacterReferences() {
+        assertEquals("Q&A: \"it's\" <fine> \u2014 ok &unknown;",
+                ArticleText.fromHtml("<p>Q&amp;A: &quot;it&#39;s&quot; &lt;fine&gt;&nbsp;"
+                        + "&#x2014; ok &unknown;</p>"));
+    }
+}
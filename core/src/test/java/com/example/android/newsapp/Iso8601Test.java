@@ -0,0 +1,65 @@
+package com.example.android.newsapp;
+
+import org.junit.Test;
+
+import java.text.SimpleDateFormat;
+import java.util.Locale;
+import java.util.TimeZone;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for {@link Iso8601}, which run on the development machine (host).
+ */
+public class Iso8601Test {
+
+    private static long reference(String text, String pattern) throws Exception {
+        SimpleDateFormat format = new SimpleDateFormat(pattern, Locale.US);
+        format.setTimeZone(TimeZone.getTimeZone("UTC"));
+        return format.parse(text).getTime();
+    }
+
+    @Test
+    public void parsesGuardianUtcTimestamps() throws Exception {
+        assertEquals(reference("2018-07-11 16:23:54", "yyyy-MM-dd HH:mm:ss"),
+                Iso8601.parse("2018-07-11T16:23:54Z"));
+        assertEquals(0, Iso8601.parse("1970-01-01T00:00:00Z"));
+        assertEquals(reference("2000-02-29 23:59:59", "yyyy-MM-dd HH:mm:ss"),
+                Iso8601.parse("2000-02-29T23:59:59Z"));
+        assertEquals(reference("1969-12-31 23:00:00", "yyyy-MM-dd HH:mm:ss"),
+                Iso8601.parse("1969-12-31T23:00:00Z"));
+    }
+
+    @Test
+    public void appliesOffsetsAndFractions() {
+        long utc = Iso8601.parse("2018-07-11T16:23:54Z");
+
+        assertEquals(utc, Iso8601.parse("2018-07-11T18:23:54+02:00"));
+        assertEquals(utc, Iso8601.parse("2018-07-11T11:23:54-0500"));
+        assertEquals(utc, Iso8601.parse("2018-07-11T17:23:54+01"));
+        assertEquals(utc + 123, Iso8601.parse("2018-07-11T16:23:54.123456Z"));
+        assertEquals(utc - 54000, Iso8601.parse("2018-07-11T16:23Z"));
+        assertEquals(utc, Iso8601.parse("2018-07-11T16:23:54"));
+    }
+
+    @Test
+    public void rejectsMalformedTimestamps() {
+        assertEquals(Iso8601.INVALID, Iso8601.parse(""));
+        assertEquals(Iso8601.INVALID, Iso8601.parse("not a date"));
+        assertEquals(Iso8601.INVALID, Iso8601.parse("2018-13-11T16:23:54Z"));
+        assertEquals(Iso8601.INVALID, Iso8601.parse("2018-02-29T16:23:54Z"));
+        assertEquals(Iso8601.INVALID, Iso8601.parse("2018-07-11T24:00:00Z"));
+        assertEquals(Iso8601.INVALID, Iso8601.parse("2018-07-11T16:23:54.Z"));
+        assertEquals(Iso8601.INVALID, Iso8601.parse("2018-07-11T16:23:54Zjunk"));
+        assertEquals(Iso8601.INVALID, Iso8601.parse("2018-07-11T16:23:54+2"));
+    }
+
+    @Test
+    public void formatsDatesAndTimesInUtc() {
+        assertEquals("2018-07-11T16:23:54Z", Iso8601.format(Iso8601.parse("2018-07-11T16:23:54.9Z")));
+        assertEquals("2018-07-11", Iso8601.format(Iso8601.parse("2018-07-11T00:00:00Z")));
+        assertEquals("2000-02-29T23:59:59Z", Iso8601.format(Iso8601.parse("2000-02-29T23:59:59Z")));
+        assertEquals("1969-12-31T23:59:59Z", Iso8601.format(-1000));
+        assertEquals("1970-01-01", Iso8601.format(0));
+    }
+}
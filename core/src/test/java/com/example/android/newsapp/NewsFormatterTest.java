@@ -0,0 +1,98 @@
+package com.example.android.newsapp;
+
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import static org.junit.Assert.*;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * Unit tests for {@link NewsFormatter}, which run on the development machine (host).
+ */
+public class NewsFormatterTest {
+
+    private static List<News> stories(int count) {
+        List<News> stories = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            long date = i % 10 == 0 ? News.NO_DATE : 1531326234000L + i * 60000L;
+            stories.add(new News("Title " + i, "World news", date, "Jane Doe",
+                    "https://www.theguardian.com/world/" + i));
+        }
+        return stories;
+    }
+
+    @Test
+    public void formatsDateAndTimeForLocale() {
+        News news = new News("Title", "World news", 1531326234000L, "Jane Doe", "url");
+        NewsFormatter.Display display = NewsFormatter.getInstance(Locale.US).format(news);
+
+        assertTrue(display.date.endsWith(","));
+        assertTrue(display.time.endsWith("M"));
+        assertSame(display, NewsFormatter.getInstance(Locale.US).format(news));
+    }
+
+    @Test
+    public void changingLocaleFormatsAgain() {
+        News news = new News("Title", "World news", 1531326234000L, "Jane Doe", "url");
+        NewsFormatter.Display us = NewsFormatter.getInstance(Locale.US).format(news);
+        NewsFormatter.Display german = NewsFormatter.getInstance(Locale.GERMANY).format(news);
+
+        assertNotSame(us, german);
+    }
+
+    @Test
+    public void formattingPreparedNewsAllocatesNothing() throws InterruptedException {
+        java.lang.management.ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        assumeTrue("Allocation counters are not available on this JVM",
+                threads instanceof com.sun.management.ThreadMXBean);
+        com.sun.management.ThreadMXBean allocations = (com.sun.management.ThreadMXBean) threads;
+        long threadId = Thread.currentThread().getId();
+
+        // The loader prepares the articles on a background thread...
+        final List<News> stories = stories(200);
+        Thread loader = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                NewsFormatter.getInstance(Locale.getDefault()).prepare(stories);
+            }
+        });
+        loader.start();
+        loader.join();
+
+        // ...and the view holder asks the adapter's formatter for the strings it shows
+        NewsFormatter formatter = NewsFormatter.getInstance(Locale.getDefault());
+        NewsFormatter.Display[] shown = new NewsFormatter.Display[stories.size()];
+        for (int i = 0; i < stories.size(); i++) {
+            shown[i] = stories.get(i).getDisplay();
+            assertNotNull(shown[i]);
+        }
+
+        // Warm up so only the steady state is measured
+        int mismatches = 0;
+        for (int i = 0; i < 100000; i++) {
+            int row = i % stories.size();
+            if (formatter.format(stories.get(row)) != shown[row]) {
+                mismatches++;
+            }
+        }
+
+        long overhead = allocations.getThreadAllocatedBytes(threadId);
+        overhead = allocations.getThreadAllocatedBytes(threadId) - overhead;
+
+        long before = allocations.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < 100000; i++) {
+            int row = i % stories.size();
+            if (formatter.format(stories.get(row)) != shown[row]) {
+                mismatches++;
+            }
+        }
+        long allocated = allocations.getThreadAllocatedBytes(threadId) - before - overhead;
+
+        assertEquals("strings formatted again while binding", 0, mismatches);
+        assertEquals("bytes allocated while binding", 0, allocated);
+    }
+}
@@ -0,0 +1,77 @@
+package com.example.android.newsapp;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for {@link NewsIndex}, which run on the development machine (host).
+ */
+public class NewsIndexTest {
+
+    private static News news(int id, String title, String section, String author) {
+        return new News(title, section, 1500000000000L + id * 60000L, author,
+                "https://www.theguardian.com/" + id);
+    }
+
+    private static List<String> titles(List<News> stories) {
+        List<String> titles = new ArrayList<>();
+        for (News news : stories) {
+            titles.add(news.getTitle());
+        }
+        return titles;
+    }
+
+    @Test
+    public void matchesPrefixesOfEveryTerm() {
+        NewsIndex index = new NewsIndex(100);
+        index.addAll(Arrays.asList(
+                news(1, "Climate talks stall", "World news", "Jane Doe"),
+                news(2, "Climbing season opens", "Sport", "John Roe"),
+                news(3, "Markets rally on climate deal", "Business", "Jane Doe")));
+
+        // Equally good matches come newest first
+        assertEquals(Arrays.asList("Markets rally on climate deal", "Climbing season opens",
+                "Climate talks stall"), titles(index.search("cli", 10)));
+        assertEquals(Arrays.asList("Markets rally on climate deal", "Climate talks stall"),
+                titles(index.search("climate jane", 10)));
+        assertEquals(Arrays.asList("Markets rally on climate deal"),
+                titles(index.search("bus CLIM", 10)));
+        assertTrue(index.search("climate roe", 10).isEmpty());
+        assertTrue(index.search("  ", 10).isEmpty());
+    }
+
+    @Test
+    public void ranksTitleMatchesAboveOtherFields() {
+        NewsIndex index = new NewsIndex(100);
+        index.addAll(Arrays.asList(
+                news(1, "Weekly roundup", "Sport", "Tom Sport"),
+                news(2, "Sport funding cut", "Politics", "Jane Doe"),
+                news(3, "Transfer news", "Sport", "John Roe")));
+
+        assertEquals(Arrays.asList("Sport funding cut", "Weekly roundup", "Transfer news"),
+                titles(index.search("sport", 10)));
+        assertEquals(1, index.search("sport", 1).size());
+    }
+
+    @Test
+    public void evictsOldestArticlesAndReplacesUpdatedOnes() {
+        NewsIndex index = new NewsIndex(2);
+        index.addAll(Arrays.asList(
+                news(1, "First story", "World news", "Jane Doe"),
+                news(2, "Second story", "World news", "Jane Doe")));
+        index.addAll(Arrays.asList(
+                news(2, "Second story updated", "World news", "Jane Doe"),
+                news(3, "Third story", "World news", "Jane Doe")));
+
+        assertEquals(2, index.size());
+        assertTrue(index.search("first", 10).isEmpty());
+        assertEquals(Arrays.asList("Second story updated"), titles(index.search("second", 10)));
+        assertEquals(Arrays.asList("Third story", "Second story updated"),
+                titles(index.search("story", 10)));
+    }
+}
@@ -0,0 +1,104 @@
+package com.example.android.newsapp;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for {@link NewsJsonParser}, which run on the development machine (host).
+ */
+public class NewsJsonParserTest {
+
+    private static final String ARTICLE_ONE = "{\"id\":\"world/1\",\"type\":\"article\","
+            + "\"sectionId\":\"world\",\"sectionName\":\"World news\","
+            + "\"webPublicationDate\":\"2018-07-11T16:23:54Z\",\"webTitle\":\"First\","
+            + "\"webUrl\":\"https://www.theguardian.com/world/1\",\"isHosted\":false,"
+            + "\"tags\":[{\"id\":\"profile/a\",\"webTitle\":\"Jane Doe\",\"extra\":[1,2]}]}";
+
+    private static final String ARTICLE_NO_TAGS = "{\"sectionName\":\"Sport\","
+            + "\"webPublicationDate\":\"2018-07-11T15:00:00Z\",\"webTitle\":\"Second\","
+            + "\"webUrl\":\"https://www.theguardian.com/sport/2\",\"tags\":[]}";
+
+    private static final String ARTICLE_THREE = "{\"sectionName\":\"Sport\","
+            + "\"webPublicationDate\":\"not a date\",\"webTitle\":\"Third\","
+            + "\"webUrl\":\"https://www.theguardian.com/sport/3\","
+            + "\"tags\":[{\"webTitle\":\"John Roe\"},{\"webTitle\":\"Ignored\"}]}";
+
+    private static InputStream response(String... results) {
+        StringBuilder json = new StringBuilder("{\"response\":{\"status\":\"ok\",\"total\":3,"
+                + "\"meta\":{\"nested\":{\"a\":[true,null]}},\"results\":[");
+        for (int i = 0; i < results.length; i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append(results[i]);
+        }
+        json.append("],\"pages\":1}}");
+        return new ByteArrayInputStream(json.toString().getBytes(Charset.forName("UTF-8")));
+    }
+
+    private static List<News> parse(InputStream in, int expectedDropped) throws IOException {
+        final List<News> stories = new ArrayList<>();
+        int dropped = NewsJsonParser.parse(in, new NewsJsonParser.Callback() {
+            @Override
+            public void onNews(News news) {
+                stories.add(news);
+            }
+        });
+        assertEquals(expectedDropped, dropped);
+        return stories;
+    }
+
+    @Test
+    public void parsesUsedFieldsAndSkipsTheRest() throws Exception {
+        List<News> stories = parse(response(ARTICLE_ONE), 0);
+
+        assertEquals(1, stories.size());
+        News news = stories.get(0);
+        assertEquals("First", news.getTitle());
+        assertEquals("World news", news.getSection());
+        assertEquals("world", news.getSectionId());
+        assertEquals("Jane Doe", news.getAuthor());
+        assertEquals("https://www.theguardian.com/world/1", news.getUrl());
+        assertEquals(1531326234000L, news.getPublishedMillis());
+        assertNull(news.getThumbnail());
+    }
+
+    @Test
+    public void readsThumbnailFromFields() throws Exception {
+        String withFields = ARTICLE_ONE.replace("\"isHosted\":false,", "\"isHosted\":false,"
+                + "\"fields\":{\"headline\":\"First\",\"thumbnail\":\"https://media.guim.co.uk/1/500.jpg\"},");
+        List<News> stories = parse(response(withFields, ARTICLE_THREE), 0);
+
+        assertEquals("https://media.guim.co.uk/1/500.jpg", stories.get(0).getThumbnail());
+        assertNull(stories.get(1).getThumbnail());
+    }
+
+    @Test
+    public void malformedResultOnlyDropsThatResult() throws Exception {
+        List<News> stories = parse(response(ARTICLE_ONE, ARTICLE_NO_TAGS, ARTICLE_THREE), 1);
+
+        assertEquals(2, stories.size());
+        assertEquals("First", stories.get(0).getTitle());
+        assertEquals("Third", stories.get(1).getTitle());
+        assertEquals("John Roe", stories.get(1).getAuthor());
+        assertEquals("", stories.get(1).getSectionId());
+        assertFalse(stories.get(1).hasDate());
+    }
+
+    @Test
+    public void wrongFieldTypesDropTheResult() throws Exception {
+        String badTags = ARTICLE_ONE.replace("\"tags\":[", "\"tags\":{\"x\":[").replace("]}]}", "]}]}}");
+        List<News> stories = parse(response("42", badTags, ARTICLE_THREE), 2);
+
+        assertEquals(1, stories.size());
+        assertEquals("Third", stories.get(0).getTitle());
+    }
+}
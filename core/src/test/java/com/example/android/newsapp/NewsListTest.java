@@ -0,0 +1,55 @@
+package com.example.android.newsapp;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class NewsListTest {
+
+    @Test
+    public void keepsFieldsAndSharesRepeatedStrings() {
+        List<News> stories = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            // New string objects every time, like the parser makes
+            stories.add(new News("Title " + i, new String(i % 2 == 0 ? "sport" : "world"),
+                    new String(i % 2 == 0 ? "Sport" : "World news"),
+                    i == 7 ? News.NO_DATE : 1531326234000L + i, new String("Jane Doe"),
+                    "https://www.theguardian.com/" + i, i == 3 ? "https://media/3.jpg" : null));
+        }
+        NewsList list = NewsList.copyOf(stories);
+
+        assertEquals(100, list.size());
+        assertEquals(5, list.getPoolSize());
+        assertEquals("Title 42", list.getTitle(42));
+        assertEquals("Sport", list.getSection(42));
+        assertEquals("World news", list.getSection(43));
+        assertSame(list.getSection(0), list.getSection(2));
+        assertEquals("world", list.getSectionId(43));
+        assertSame(list.getSectionId(0), list.getSectionId(2));
+        assertEquals("Jane Doe", list.getAuthor(99));
+        assertEquals(1531326234000L + 42, list.getPublishedMillis(42));
+        assertFalse(list.hasDate(7));
+        assertEquals("https://www.theguardian.com/42", list.getUrl(42));
+        assertEquals("https://media/3.jpg", list.getThumbnail(3));
+        assertNull(list.getThumbnail(4));
+
+        News news = list.get(3);
+        assertEquals("Title 3", news.getTitle());
+        assertEquals("World news", news.getSection());
+        assertEquals("world", news.getSectionId());
+        assertEquals("https://media/3.jpg", news.getThumbnail());
+    }
+
+    @Test
+    public void copyOfCompactListIsTheList() {
+        NewsList list = new NewsList.Builder(0)
+                .add("A", "Sport", 1, "", "https://a", null)
+                .build();
+        assertSame(list, NewsList.copyOf(list));
+        assertEquals("A", list.getTitle(0));
+        assertEquals(0, NewsList.EMPTY.size());
+    }
+}
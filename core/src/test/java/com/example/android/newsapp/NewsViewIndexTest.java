@@ -0,0 +1,189 @@
+package com.example.android.newsapp;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for {@link NewsViewIndex}, which run on the development machine (host).
+ */
+public class NewsViewIndexTest {
+
+    private static final List<String> ALL = Collections.emptyList();
+
+    /* Published one minute apart, but loaded in the given order */
+    private static News news(int minute, String sectionId, String section, String author) {
+        return new News("Story " + minute, sectionId, section, 1500000000000L + minute * 60000L,
+                author, "https://www.theguardian.com/" + sectionId + "/2018/jul/11/story-" + minute,
+                null);
+    }
+
+    private static List<String> titles(List<News> stories) {
+        List<String> titles = new ArrayList<>();
+        for (News news : stories) {
+            titles.add(news.getTitle());
+        }
+        return titles;
+    }
+
+    /* Relevance order: 2, 5, 1, 4, 3 */
+    private static List<News> sample() {
+        return Arrays.asList(
+                news(2, "world", "World news", "Jane Doe"),
+                news(5, "sport", "Sport", "John Roe"),
+                news(1, "world", "World news", "John Roe"),
+                news(4, "politics", "Politics", "Jane Doe"),
+                news(3, "sport", "Sport", "Jane Doe"));
+    }
+
+    private static NewsViewIndex index(List<News> stories, NewsViewIndex.Order order,
+                                       List<String> sectionIds, int pageSize,
+                                       boolean complete) {
+        return new NewsViewIndex(stories, "", order, sectionIds, pageSize, complete);
+    }
+
+    @Test
+    public void sortsByPublicationTimeOrLoadOrder() {
+        NewsViewIndex index = index(sample(), NewsViewIndex.Order.RELEVANCE, ALL, 10, true);
+        assertEquals(Arrays.asList("Story 5", "Story 4", "Story 3", "Story 2", "Story 1"),
+                titles(index.query(NewsViewIndex.Order.NEWEST, ALL, null)));
+        assertEquals(Arrays.asList("Story 1", "Story 2", "Story 3", "Story 4", "Story 5"),
+                titles(index.query(NewsViewIndex.Order.OLDEST, ALL, null)));
+        assertEquals(Arrays.asList("Story 2", "Story 5", "Story 1", "Story 4", "Story 3"),
+                titles(index.query(NewsViewIndex.Order.RELEVANCE, ALL, null)));
+    }
+
+    @Test
+    public void undatedArticlesComeLastWhenNewestFirst() {
+        List<News> stories = new ArrayList<>(sample());
+        stories.add(0, new News("Undated", "World news", News.NO_DATE, "Jane Doe",
+                "https://www.theguardian.com/world/undated"));
+        NewsViewIndex index = index(stories, NewsViewIndex.Order.NEWEST, ALL, 10, true);
+        List<News> newest = index.query(NewsViewIndex.Order.NEWEST, ALL, null);
+        assertEquals("Undated", newest.get(newest.size() - 1).getTitle());
+        assertEquals("Undated",
+                index.query(NewsViewIndex.Order.OLDEST, ALL, null).get(0).getTitle());
+    }
+
+    @Test
+    public void filtersBySectionAndAuthor() {
+        NewsViewIndex index = index(sample(), NewsViewIndex.Order.NEWEST, ALL, 10, true);
+        assertEquals(Arrays.asList("Story 5", "Story 3", "Story 2", "Story 1"),
+                titles(index.query(NewsViewIndex.Order.NEWEST,
+                        Arrays.asList("sport", "world"), null)));
+        assertEquals(Arrays.asList("Story 4", "Story 3", "Story 2"),
+                titles(index.query(NewsViewIndex.Order.NEWEST, ALL, "jane doe")));
+        assertEquals(Collections.singletonList("Story 3"),
+                titles(index.query(NewsViewIndex.Order.NEWEST,
+                        Collections.singletonList("sport"), "Jane Doe")));
+        assertTrue(index.query(NewsViewIndex.Order.NEWEST,
+                Collections.singletonList("culture"), null).isEmpty());
+        assertTrue(index.query(NewsViewIndex.Order.NEWEST, ALL, "Nobody").isEmpty());
+    }
+
+    @Test
+    public void groupsBySectionInOrderOfFirstArticle() {
+        NewsViewIndex index = index(sample(), NewsViewIndex.Order.NEWEST, ALL, 10, true);
+        Map<String, List<News>> groups =
+                index.groupBySection(NewsViewIndex.Order.NEWEST, ALL, null);
+        assertEquals(Arrays.asList("Sport", "Politics", "World news"),
+                new ArrayList<>(groups.keySet()));
+        assertEquals(Arrays.asList("Story 5", "Story 3"), titles(groups.get("Sport")));
+        assertEquals(Arrays.asList("Story 2", "Story 1"), titles(groups.get("World news")));
+    }
+
+    @Test
+    public void completeFeedServesEveryOrderAndNarrowerSections() {
+        NewsViewIndex index = index(sample(), NewsViewIndex.Order.NEWEST, ALL, 2, true);
+        NewsViewIndex.Result oldest = index.serve("", NewsViewIndex.Order.OLDEST, ALL);
+        assertNotNull(oldest);
+        assertEquals(5, oldest.stories.size());
+        assertEquals(3, oldest.pages);
+        assertArrayEquals(new int[]{2, 2, 1}, oldest.pageItemCounts);
+        assertFalse(oldest.hasMore);
+
+        NewsViewIndex.Result politics = index.serve("", NewsViewIndex.Order.OLDEST,
+                Collections.singletonList("politics"));
+        assertNotNull(politics);
+        assertEquals(1, politics.pages);
+        assertFalse(politics.hasMore);
+    }
+
+    @Test
+    public void partialFeedServesNarrowerSectionsThatFillAPage() {
+        NewsViewIndex index = index(sample(), NewsViewIndex.Order.NEWEST, ALL, 2, false);
+        NewsViewIndex.Result sport = index.serve("", NewsViewIndex.Order.NEWEST,
+                Collections.singletonList("sport"));
+        assertNotNull(sport);
+        assertEquals(Arrays.asList("Story 5", "Story 3"), titles(sport.stories));
+        assertEquals(1, sport.pages);
+        assertArrayEquals(new int[]{2}, sport.pageItemCounts);
+        assertTrue(sport.hasMore);
+
+        // One politics article is not a page, and each section of a merged feed needs one
+        assertNull(index.serve("", NewsViewIndex.Order.NEWEST,
+                Collections.singletonList("politics")));
+        assertNull(index.serve("", NewsViewIndex.Order.NEWEST,
+                Arrays.asList("politics", "sport")));
+        assertNotNull(index.serve("", NewsViewIndex.Order.NEWEST,
+                Arrays.asList("sport", "world")));
+    }
+
+    @Test
+    public void completeFeedFillsEachPageFromEverySection() {
+        NewsViewIndex index = index(sample(), NewsViewIndex.Order.NEWEST, ALL, 1, true);
+        NewsViewIndex.Result view = index.serve("", NewsViewIndex.Order.OLDEST,
+                Arrays.asList("politics", "sport", "world"));
+        assertNotNull(view);
+        // Each page holds the next article of every section that still has one
+        assertEquals(Arrays.asList("Story 1", "Story 3", "Story 4", "Story 2", "Story 5"),
+                titles(view.stories));
+        assertEquals(2, view.pages);
+        assertArrayEquals(new int[]{3, 2}, view.pageItemCounts);
+        assertFalse(view.hasMore);
+    }
+
+    @Test
+    public void partialFeedIsTrimmedToThePagesEverySectionFills() {
+        List<News> stories = new ArrayList<>(sample());
+        stories.add(news(6, "sport", "Sport", "John Roe"));
+        NewsViewIndex index = new NewsViewIndex(stories, "", NewsViewIndex.Order.NEWEST,
+                Arrays.asList("sport", "world"), 1, false);
+        NewsViewIndex.Result view = index.serve("", NewsViewIndex.Order.NEWEST,
+                Arrays.asList("sport", "world"));
+        assertNotNull(view);
+        // World fills two pages, so the third sport article is left for the third page
+        assertEquals(Arrays.asList("Story 6", "Story 2", "Story 5", "Story 1"),
+                titles(view.stories));
+        assertEquals(2, view.pages);
+        assertArrayEquals(new int[]{2, 2}, view.pageItemCounts);
+        assertTrue(view.hasMore);
+    }
+
+    @Test
+    public void partialFeedNeedsTheNetworkForOtherOrdersSearchesAndSections() {
+        NewsViewIndex index = new NewsViewIndex(sample(), "", NewsViewIndex.Order.NEWEST,
+                Arrays.asList("sport", "world"), 1, false);
+        assertNull(index.serve("", NewsViewIndex.Order.OLDEST, Arrays.asList("sport")));
+        assertNull(index.serve("brexit", NewsViewIndex.Order.NEWEST, Arrays.asList("sport")));
+        assertNull(index.serve("", NewsViewIndex.Order.NEWEST, ALL));
+        assertNull(index.serve("", NewsViewIndex.Order.NEWEST,
+                Arrays.asList("sport", "politics")));
+        assertNotNull(index.serve("", NewsViewIndex.Order.NEWEST, Arrays.asList("world")));
+    }
+
+    @Test
+    public void orderComesFromTheOrderByParameter() {
+        assertEquals(NewsViewIndex.Order.NEWEST, NewsViewIndex.Order.fromParameter("newest"));
+        assertEquals(NewsViewIndex.Order.OLDEST, NewsViewIndex.Order.fromParameter("oldest"));
+        assertEquals(NewsViewIndex.Order.RELEVANCE,
+                NewsViewIndex.Order.fromParameter("relevance"));
+        assertEquals(NewsViewIndex.Order.NEWEST, NewsViewIndex.Order.fromParameter(null));
+    }
+}